@@ -0,0 +1,156 @@
+package com.odontologia.odontologia.Controller.Rest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.odontologia.odontologia.Dto.AdjuntoHistoriaDto;
+import com.odontologia.odontologia.Dto.CargaAdjuntoDto;
+import com.odontologia.odontologia.Service.AdjuntoHistoriaService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api")
+public class AdjuntoHistoriaRestController {
+
+    // Tomcat envía el archivo él mismo con sendfile (FileChannel.transferTo hacia el socket)
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AdjuntoHistoriaService adjuntoHistoriaService;
+
+    // Adjuntos de una historia clínica
+    @GetMapping("/historias-clinicas/{id}/adjuntos")
+    public List<AdjuntoHistoriaDto> listarAdjuntos(@PathVariable Long id) {
+        return adjuntoHistoriaService.listarAdjuntos(id);
+    }
+
+    // Subida por tramos: POST declara el archivo ({tipo, nombreArchivo, contentType, tamano}),
+    // cada PUT envía los bytes desde ?desde=N y GET informa hasta dónde llegó para retomar
+    @PostMapping("/historias-clinicas/{id}/adjuntos/cargas")
+    public CargaAdjuntoDto iniciarCarga(@PathVariable Long id, @RequestBody CargaAdjuntoDto datos) {
+        return adjuntoHistoriaService.iniciarCarga(id, datos);
+    }
+
+    @GetMapping("/adjuntos/cargas/{cargaId}")
+    public CargaAdjuntoDto obtenerCarga(@PathVariable String cargaId) {
+        return adjuntoHistoriaService.obtenerCarga(cargaId);
+    }
+
+    // 409 con el estado de la carga si el tramo no continúa donde terminó el anterior
+    @PutMapping(value = "/adjuntos/cargas/{cargaId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<CargaAdjuntoDto> recibirTramo(@PathVariable String cargaId, @RequestParam long desde,
+            HttpServletRequest request) throws IOException {
+        CargaAdjuntoDto carga = adjuntoHistoriaService.obtenerCarga(cargaId);
+        if (carga.getRecibidos() != desde || carga.getAdjunto() != null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(carga);
+        }
+        return ResponseEntity.ok(adjuntoHistoriaService.recibirTramo(cargaId, desde, request.getInputStream()));
+    }
+
+    // Descarga con soporte de Range (un solo rango; con varios se envía el archivo entero).
+    // El contenido no cambia nunca: el ETag es su SHA-256. Solo imágenes y PDF se muestran en el
+    // navegador; el resto se descarga, y nosniff impide que se interprete con otro tipo.
+    @GetMapping("/adjuntos/{id}/contenido")
+    public void descargar(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AdjuntoHistoriaDto adjunto = adjuntoHistoriaService.obtenerAdjunto(id);
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + adjunto.getSha256() + "\"")) {
+            return;
+        }
+        long tamano = adjunto.getTamano();
+        long inicio = 0;
+        long fin = tamano - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        if (rango != null) {
+            try {
+                List<HttpRange> rangos = HttpRange.parseRanges(rango);
+                if (rangos.size() == 1) {
+                    inicio = rangos.get(0).getRangeStart(tamano);
+                    fin = rangos.get(0).getRangeEnd(tamano);
+                    if (inicio > fin) {
+                        throw new IllegalArgumentException("Rango fuera del archivo: " + rango);
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                return;
+            }
+        }
+        String contentType = adjunto.getContentType();
+        ContentDisposition.Builder disposicion = contentType.startsWith("image/") || contentType.equals(MediaType.APPLICATION_PDF_VALUE)
+                ? ContentDisposition.inline() : ContentDisposition.attachment();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                disposicion.filename(adjunto.getNombreArchivo(), StandardCharsets.UTF_8).build().toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(contentType);
+        enviar(adjuntoHistoriaService.archivo(adjunto), inicio, fin - inicio + 1, request, response);
+    }
+
+    // 404 mientras se genera o si el formato no admite miniatura
+    @GetMapping("/adjuntos/{id}/miniatura")
+    public void miniatura(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> miniatura = adjuntoHistoriaService.miniatura(adjuntoHistoriaService.obtenerAdjunto(id));
+        if (miniatura.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        enviar(miniatura.get(), 0, Files.size(miniatura.get()), request, response);
+    }
+
+    // Sin copiar el archivo a memoria: con sendfile lo envía Tomcat; si no, transferTo hacia la salida
+    private static void enviar(Path archivo, long inicio, long cantidad, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(cantidad);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, inicio + cantidad);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long pendiente = cantidad;
+            while (pendiente > 0) {
+                long enviados = canal.transferTo(posicion, pendiente, salida);
+                posicion += enviados;
+                pendiente -= enviados;
+            }
+        }
+    }
+}
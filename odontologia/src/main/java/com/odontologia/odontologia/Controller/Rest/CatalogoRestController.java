@@ -0,0 +1,24 @@
+package com.odontologia.odontologia.Controller.Rest;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.odontologia.odontologia.Dto.EstadisticaCacheDto;
+import com.odontologia.odontologia.Service.CatalogoService;
+
+@RestController
+@RequestMapping("/api")
+public class CatalogoRestController {
+    @Autowired
+    private CatalogoService catalogoService;
+
+    // Aciertos y fallos de las cachés de roles, tipos de cita y odontólogos
+    @GetMapping("/catalogos/cache")
+    public List<EstadisticaCacheDto> estadisticasCache() {
+        return catalogoService.estadisticas();
+    }
+}
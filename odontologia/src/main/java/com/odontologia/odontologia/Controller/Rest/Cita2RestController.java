@@ -1,19 +1,33 @@
 package com.odontologia.odontologia.Controller.Rest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.odontologia.odontologia.Dto.AgendaDiaDto;
+import com.odontologia.odontologia.Dto.CambioEstadoDto;
 import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.EstadoCitaDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
 import com.odontologia.odontologia.Impl.Cita2ServiceImpl;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+import com.odontologia.odontologia.Service.NotificacionCitaService;
 
 @RestController
 @RequestMapping("/api")
@@ -21,11 +35,52 @@ public class Cita2RestController {
     @Autowired
     private Cita2ServiceImpl cita2Service;
 
-    // Listar todas las citas
+    @Autowired
+    private NotificacionCitaService notificacionCitaService;
+
+    @Autowired
+    private AgendaDiaService agendaDiaService;
+
+    // Listar citas (sin parámetros devuelve todas; con filtros consulta solo el rango pedido)
+    @GetMapping(value = "/citas", params = {"!after", "!limit"})
+    public List<Cita2Dto> listarCitas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long odontologoId,
+            @RequestParam(required = false) Long pacienteId,
+            @RequestParam(required = false) EstadoCitaEnum estado) {
+        if (desde == null && hasta == null && odontologoId == null && pacienteId == null && estado == null) {
+            return cita2Service.listarCitas();
+        }
+        return cita2Service.listarCitas(desde, hasta, odontologoId, pacienteId, estado);
+    }
+
+    // Listar citas paginadas por cursor: ?after=<id>&limit=N (admite los mismos filtros)
+    @GetMapping(value = "/citas", params = "limit")
+    public PaginaDto<Cita2Dto> listarCitasPaginado(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long odontologoId,
+            @RequestParam(required = false) Long pacienteId,
+            @RequestParam(required = false) EstadoCitaEnum estado,
+            @RequestParam(required = false) Long after,
+            @RequestParam Integer limit) {
+        return cita2Service.listarCitasPaginado(desde, hasta, odontologoId, pacienteId, estado, after, limit);
+    }
 
-    @GetMapping("/citas")
-    public List<Cita2Dto> listarCitas() {
-        return cita2Service.listarCitas();
+    // Agenda de un día agrupada por odontólogo (por defecto hoy); se sirve desde caché
+    @GetMapping("/citas/agenda")
+    public AgendaDiaDto obtenerAgenda(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return agendaDiaService.obtenerAgenda(fecha != null ? fecha : LocalDate.now());
+    }
+
+    // Flujo SSE de cambios de citas (evento "cita"); filtros opcionales por odontólogo y fecha
+    @GetMapping(value = "/citas/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirCambios(
+            @RequestParam(required = false) Long odontologoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return notificacionCitaService.suscribir(odontologoId, fecha);
     }
 
     // Obtener cita por ID
@@ -40,12 +95,30 @@ public class Cita2RestController {
         return cita2Service.crearCita(citaDto);
     }
 
+    // Crear muchas citas en una sola petición; responde el resultado de cada entrada
+    @PostMapping("/citas/lote")
+    public ResultadoLoteDto crearCitasEnLote(@RequestBody List<Cita2Dto> citasDto) {
+        return cita2Service.crearCitasEnLote(citasDto);
+    }
+
     // Actualizar cita existente
     @PutMapping("/citas/{id}")
     public Cita2Dto actualizarCita(@PathVariable Long id, @RequestBody Cita2Dto citaDto) {
         return cita2Service.actualizarCita(id, citaDto);
     }
 
+    // Cambiar solo el estado (confirmar, cancelar, completar) sin reenviar la cita completa
+    @PatchMapping("/citas/{id}/estado")
+    public EstadoCitaDto cambiarEstado(@PathVariable Long id, @RequestBody CambioEstadoDto cambio) {
+        return cita2Service.cambiarEstado(id, cambio);
+    }
+
+    // Cambiar el estado de varias citas a la vez; responde el resultado de cada una
+    @PatchMapping("/citas/estado")
+    public List<EstadoCitaDto> cambiarEstados(@RequestBody CambioEstadoDto cambio) {
+        return cita2Service.cambiarEstados(cambio);
+    }
+
     // Eliminar cita
     @DeleteMapping("/citas/{id}")
     public void eliminarCita(@PathVariable Long id) {
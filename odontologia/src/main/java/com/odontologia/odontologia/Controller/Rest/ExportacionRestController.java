@@ -0,0 +1,57 @@
+package com.odontologia.odontologia.Controller.Rest;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.odontologia.odontologia.Service.ExportacionService;
+
+@RestController
+@RequestMapping("/api")
+public class ExportacionRestController {
+    @Autowired
+    private ExportacionService exportacionService;
+
+    // Descarga completa de una tabla: /api/exportaciones/{pacientes|citas|historias}?formato=csv|ndjson&gzip=true
+    // El cuerpo se escribe fuera del hilo de la petición, directamente desde el cursor de la base.
+    @GetMapping("/exportaciones/{tabla}")
+    public ResponseEntity<StreamingResponseBody> exportar(@PathVariable String tabla,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportacionService.Tabla t;
+        ExportacionService.Formato f;
+        try {
+            t = ExportacionService.Tabla.valueOf(tabla.toUpperCase());
+            f = ExportacionService.Formato.valueOf(formato.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String archivo = t.name().toLowerCase() + "." + f.name().toLowerCase() + (gzip ? ".gz" : "");
+        MediaType tipo = gzip ? MediaType.parseMediaType("application/gzip")
+                : f == ExportacionService.Formato.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody cuerpo = salida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(salida, 64 * 1024) : salida;
+            exportacionService.exportar(t, f, destino);
+            if (destino instanceof GZIPOutputStream comprimido) {
+                comprimido.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .contentType(tipo)
+                .body(cuerpo);
+    }
+}
@@ -3,6 +3,7 @@ package com.odontologia.odontologia.Controller.Rest;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,9 +11,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.RevisionHistoriaDto;
 import com.odontologia.odontologia.Service.HistoriaClinicaService;
 
 @RestController
@@ -23,17 +27,46 @@ public class HistoriaClinicaRestController {
     private HistoriaClinicaService historiaClinicaService;
 
     // Listar todas las historias clínicas
-    @GetMapping("/historias-clinicas")
+    @GetMapping(value = "/historias-clinicas", params = {"!after", "!limit"})
     public List<HistoriaClinicaDto> listarHistoriasClinicas() {
         return historiaClinicaService.listarHistoriaClinicas();
     }
 
+    // Listar paginado por cursor: ?after=<id>&limit=N
+    @GetMapping(value = "/historias-clinicas", params = "limit")
+    public PaginaDto<HistoriaClinicaDto> listarHistoriaClinicasPaginado(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        return historiaClinicaService.listarHistoriaClinicasPaginado(after, limit);
+    }
+
+    // Historias de varios pacientes en una sola consulta: ?pacienteIds=1,2,3
+    @GetMapping(value = "/historias-clinicas", params = "pacienteIds")
+    public List<HistoriaClinicaDto> listarPorPacientes(@RequestParam List<Long> pacienteIds) {
+        return historiaClinicaService.listarPorPacientes(pacienteIds);
+    }
+
+    // Historia clínica de un paciente; 404 si todavía no tiene
+    @GetMapping("/pacientes/{id}/historia-clinica")
+    public ResponseEntity<HistoriaClinicaDto> obtenerPorPaciente(@PathVariable Long id) {
+        return ResponseEntity.of(historiaClinicaService.obtenerPorPaciente(id));
+    }
+
     // Obtener historia clínica por ID
     @GetMapping("/historias-clinicas/{id}")
     public HistoriaClinicaDto obtenerHistoriaClinicaPorId(@PathVariable Long id) {
         return historiaClinicaService.obtenerHistoriaClinicaPorId(id);
     }
 
+    // Revisiones de una historia clínica (sin contenido) y una versión anterior completa
+    @GetMapping("/historias-clinicas/{id}/revisiones")
+    public List<RevisionHistoriaDto> listarRevisiones(@PathVariable Long id) {
+        return historiaClinicaService.listarRevisiones(id);
+    }
+
+    @GetMapping("/historias-clinicas/{id}/revisiones/{numero}")
+    public HistoriaClinicaDto obtenerVersion(@PathVariable Long id, @PathVariable int numero) {
+        return historiaClinicaService.obtenerVersion(id, numero);
+    }
+
     // Crear nueva historia clínica
     @PostMapping("/historias-clinicas")
     public HistoriaClinicaDto crearHistoriaClinica(@RequestBody HistoriaClinicaDto historiaClinicaDto) {
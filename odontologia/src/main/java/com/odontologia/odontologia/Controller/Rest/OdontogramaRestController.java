@@ -0,0 +1,46 @@
+package com.odontologia.odontologia.Controller.Rest;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.odontologia.odontologia.Dto.EventoOdontogramaDto;
+import com.odontologia.odontologia.Dto.OdontogramaDto;
+import com.odontologia.odontologia.Service.OdontogramaService;
+
+@RestController
+@RequestMapping("/api")
+public class OdontogramaRestController {
+
+    @Autowired
+    private OdontogramaService odontogramaService;
+
+    // Odontograma actual del paciente
+    @GetMapping("/pacientes/{id}/odontograma")
+    public OdontogramaDto obtenerOdontograma(@PathVariable Long id) {
+        return odontogramaService.obtenerOdontograma(id);
+    }
+
+    // Registrar los cambios de una atención: {odontologoId, cambios: [{diente, superficie, estadoDiente, estadoSuperficie}]}
+    @PostMapping("/pacientes/{id}/odontograma/eventos")
+    public OdontogramaDto registrarEvento(@PathVariable Long id, @RequestBody EventoOdontogramaDto evento) {
+        return odontogramaService.registrarEvento(id, evento);
+    }
+
+    // Historia del odontograma y estado tras un evento anterior
+    @GetMapping("/pacientes/{id}/odontograma/eventos")
+    public List<EventoOdontogramaDto> listarEventos(@PathVariable Long id) {
+        return odontogramaService.listarEventos(id);
+    }
+
+    @GetMapping("/pacientes/{id}/odontograma/eventos/{numero}")
+    public OdontogramaDto obtenerVersion(@PathVariable Long id, @PathVariable int numero) {
+        return odontogramaService.obtenerVersion(id, numero);
+    }
+}
@@ -1,8 +1,11 @@
 package com.odontologia.odontologia.Controller.Rest;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +14,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.odontologia.odontologia.Dto.DisponibilidadDto;
+import com.odontologia.odontologia.Dto.EspacioLibreDto;
+import com.odontologia.odontologia.Dto.HorarioSemanalDto;
 import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.OdontologoResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Service.DisponibilidadService;
 import com.odontologia.odontologia.Service.OdontologoService;
 
 @RestController
@@ -23,18 +33,75 @@ public class OdontologoRestController {
     @Autowired
     private OdontologoService odontologoService;
 
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
     // Listar todos los odontólogos
-    @GetMapping("/odontologos")
+    @GetMapping(value = "/odontologos", params = {"!after", "!limit"})
     public List<OdontologoDto> listarOdontologos() {
         return odontologoService.listarOdontologos();
     }
 
+    // Listar paginado por cursor: ?after=<id>&limit=N
+    @GetMapping(value = "/odontologos", params = {"limit", "!vista"})
+    public PaginaDto<OdontologoDto> listarOdontologosPaginado(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        return odontologoService.listarOdontologosPaginado(after, limit);
+    }
+
+    // Vista liviana para selectores: ?vista=resumen[&limit=N]
+    @GetMapping(value = "/odontologos", params = {"vista=resumen", "!after"})
+    public List<OdontologoResumenDto> listarOdontologosResumen(@RequestParam(required = false) Integer limit) {
+        return odontologoService.listarOdontologosResumen(limit);
+    }
+
     // Obtener odontólogo por ID
     @GetMapping("/odontologos/{id}")
     public OdontologoDto obtenerOdontologoPorId(@PathVariable Long id) {
         return odontologoService.obtenerOdontologoPorId(id);
     }
 
+    // Espacios libres del odontólogo por día (por defecto, los próximos 7 días)
+    @GetMapping("/odontologos/{id}/disponibilidad")
+    public List<DisponibilidadDto> consultarDisponibilidad(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return disponibilidadService.consultarDisponibilidad(id, desde, hasta);
+    }
+
+    // Próximo espacio libre del odontólogo a partir de un momento (por defecto, ahora)
+    @GetMapping("/odontologos/{id}/disponibilidad/proximo")
+    public EspacioLibreDto buscarProximoEspacioLibre(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde) {
+        return disponibilidadService.buscarProximoEspacioLibre(id, desde);
+    }
+
+    // Horario estructurado: {intervalos: [{dia, inicio, fin}], excepciones: [{desde, hasta, tramos, motivo}]}.
+    // Al guardarlo se reescriben diasTrabajo/horaInicio/horaFin como resumen.
+    @GetMapping("/odontologos/{id}/horario")
+    public HorarioSemanalDto obtenerHorario(@PathVariable Long id) {
+        return odontologoService.obtenerHorario(id);
+    }
+
+    @PutMapping("/odontologos/{id}/horario")
+    public HorarioSemanalDto actualizarHorario(@PathVariable Long id, @RequestBody HorarioSemanalDto horario) {
+        return odontologoService.actualizarHorario(id, horario);
+    }
+
+    // Si el odontólogo trabaja en ese momento, según su horario y excepciones
+    @GetMapping("/odontologos/{id}/horario/trabajando")
+    public boolean estaTrabajando(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime instante) {
+        return disponibilidadService.estaTrabajando(id, instante);
+    }
+
+    // Minutos de trabajo entre dos momentos
+    @GetMapping("/odontologos/{id}/horario/minutos")
+    public long minutosTrabajados(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        return disponibilidadService.minutosTrabajados(id, desde, hasta);
+    }
+
     // Crear nuevo odontólogo
     @PostMapping("/odontologos")
     public OdontologoDto crearOdontologo(@RequestBody OdontologoDto odontologoDto) {
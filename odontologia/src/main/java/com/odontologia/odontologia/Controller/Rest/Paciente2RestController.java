@@ -1,8 +1,18 @@
 package com.odontologia.odontologia.Controller.Rest;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,11 +21,26 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Dto.DuplicadoPacienteDto;
+import com.odontologia.odontologia.Dto.FichaPacienteDto;
+import com.odontologia.odontologia.Dto.FusionPacientesDto;
 import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.PacienteResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.ResultadoImportacionDto;
+import com.odontologia.odontologia.Service.DuplicadosPacientesService;
+import com.odontologia.odontologia.Service.ImportacionPacientesService;
 import com.odontologia.odontologia.Service.Paciente2Service;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
@@ -23,12 +48,67 @@ public class Paciente2RestController {
     @Autowired  
     private Paciente2Service paciente2Service;
 
+    @Autowired
+    private ImportacionPacientesService importacionPacientesService;
+
+    @Autowired
+    private DuplicadosPacientesService duplicadosPacientesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Listar todos los pacientes
-    @GetMapping("/pacientes")
+    @GetMapping(value = "/pacientes", params = {"!after", "!limit"})
     public List<Paciente2Dto> listarPacientes2() {
         return paciente2Service.listarPacientes();
     }
 
+    // Listar paginado por cursor: ?after=<id>&limit=N
+    @GetMapping(value = "/pacientes", params = {"limit", "!vista"})
+    public PaginaDto<Paciente2Dto> listarPacientesPaginado(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        return paciente2Service.listarPacientesPaginado(after, limit);
+    }
+
+    // Búsqueda aproximada para recepción: ?q=<texto>&limit=N (por defecto 20, máximo 100)
+    @GetMapping("/pacientes/buscar")
+    public List<Paciente2Dto> buscarPacientes(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return paciente2Service.buscarPacientes(q, limit);
+    }
+
+    // Vista liviana para selectores: ?vista=resumen[&limit=N]
+    @GetMapping(value = "/pacientes", params = {"vista=resumen", "!after"})
+    public List<PacienteResumenDto> listarPacientesResumen(@RequestParam(required = false) Integer limit) {
+        return paciente2Service.listarPacientesResumen(limit);
+    }
+
+    // Posibles duplicados, de mayor a menor puntaje: ?puntajeMinimo=0.6&limit=N
+    @GetMapping("/pacientes/duplicados")
+    public List<DuplicadoPacienteDto> buscarDuplicados(@RequestParam(required = false) Double puntajeMinimo,
+                                                       @RequestParam(required = false) Integer limit) {
+        return duplicadosPacientesService.buscarDuplicados(puntajeMinimo, limit);
+    }
+
+    // Fusiona el duplicado en el paciente {id}, que es el que se conserva
+    @PostMapping("/pacientes/{id}/fusionar/{duplicadoId}")
+    public FusionPacientesDto fusionarPacientes(@PathVariable Long id, @PathVariable Long duplicadoId) {
+        return duplicadosPacientesService.fusionar(id, duplicadoId);
+    }
+
+    // Ficha completa del paciente. El ETag se calcula sobre el contenido: si no cambió desde la
+    // última vez, la respuesta es 304 sin cuerpo. Es privado: no debe quedar en cachés compartidas.
+    @GetMapping("/pacientes/{id}/resumen")
+    public ResponseEntity<FichaPacienteDto> obtenerFicha(@PathVariable Long id, WebRequest request) throws IOException {
+        FichaPacienteDto ficha = paciente2Service.obtenerFicha(id);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(ficha)) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ficha);
+    }
+
     // Obtener paciente por ID
     @GetMapping("/pacientes/{id}")
     public Paciente2Dto obtenerPaciente2PorId(@PathVariable Long id) {
@@ -41,6 +121,70 @@ public class Paciente2RestController {
         return paciente2Service.crearPaciente(paciente2Dto);
     }
 
+    // Importación masiva: el cuerpo es un CSV con encabezado o NDJSON (un paciente por línea).
+    // La respuesta es NDJSON y se envía a medida que avanza: una línea por fila con error,
+    // una de avance por tanda guardada y al final el resumen.
+    @PostMapping(value = "/pacientes/importar", consumes = {"text/csv", "application/x-ndjson"}, produces = "application/x-ndjson")
+    public void importarPacientes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImportacionPacientesService.Formato formato = request.getContentType().startsWith("text/csv")
+                ? ImportacionPacientesService.Formato.CSV
+                : ImportacionPacientesService.Formato.NDJSON;
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        Charset charset;
+        try {
+            charset = request.getCharacterEncoding() != null
+                    ? Charset.forName(request.getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            // Codificación desconocida: la misma respuesta que da el mapeo de consumes al no poder leer el Content-Type
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            Map<String, Object> linea = new LinkedHashMap<>();
+            linea.put("tipo", "error");
+            linea.put("mensaje", "Codificación no soportada: " + request.getCharacterEncoding());
+            escribirLinea(response.getWriter(), linea);
+            return;
+        }
+        PrintWriter salida = response.getWriter();
+
+        ResultadoImportacionDto resultado = importacionPacientesService.importar(request.getInputStream(), charset, formato,
+                new ImportacionPacientesService.ReporteImportacion() {
+                    @Override
+                    public void error(long fila, String documento, String mensaje) {
+                        Map<String, Object> linea = new LinkedHashMap<>();
+                        linea.put("tipo", "error");
+                        linea.put("fila", fila);
+                        linea.put("documento", documento);
+                        linea.put("mensaje", mensaje);
+                        escribirLinea(salida, linea);
+                    }
+
+                    @Override
+                    public void avance(ResultadoImportacionDto parcial) {
+                        escribirLinea(salida, lineaResultado("avance", parcial));
+                        salida.flush();
+                    }
+                });
+        escribirLinea(salida, lineaResultado("resumen", resultado));
+        salida.flush();
+    }
+
+    private Map<String, Object> lineaResultado(String tipo, ResultadoImportacionDto resultado) {
+        Map<String, Object> linea = new LinkedHashMap<>();
+        linea.put("tipo", tipo);
+        linea.putAll(objectMapper.convertValue(resultado, new TypeReference<Map<String, Object>>() {}));
+        return linea;
+    }
+
+    private void escribirLinea(PrintWriter salida, Map<String, Object> linea) {
+        try {
+            salida.write(objectMapper.writeValueAsString(linea));
+            salida.write('\n');
+        } catch (IOException e) {
+            throw new RuntimeException("Error al escribir el reporte de importación: " + e.getMessage(), e);
+        }
+    }
+
     // Actualizar paciente existente
     @PutMapping("/pacientes/{id}")
     public Paciente2Dto actualizarPaciente2(@PathVariable Long id, @RequestBody Paciente2Dto paciente2Dto) {
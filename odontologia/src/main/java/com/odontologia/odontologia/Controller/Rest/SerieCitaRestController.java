@@ -0,0 +1,63 @@
+package com.odontologia.odontologia.Controller.Rest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.SerieCitaDto;
+import com.odontologia.odontologia.Service.Cita2Service;
+import com.odontologia.odontologia.Service.SerieCitaService;
+
+@RestController
+@RequestMapping("/api")
+public class SerieCitaRestController {
+    @Autowired
+    private SerieCitaService serieCitaService;
+
+    @Autowired
+    private Cita2Service cita2Service;
+
+    // Crear una serie recurrente; responde también el resultado de cada ocurrencia
+    @PostMapping("/citas/series")
+    public SerieCitaDto crearSerie(@RequestBody SerieCitaDto serieDto) {
+        return serieCitaService.crearSerie(serieDto);
+    }
+
+    // Obtener la regla de una serie
+    @GetMapping("/citas/series/{id}")
+    public SerieCitaDto obtenerSeriePorId(@PathVariable Long id) {
+        return serieCitaService.obtenerSeriePorId(id);
+    }
+
+    // Citas generadas por la serie
+    @GetMapping("/citas/series/{id}/citas")
+    public List<Cita2Dto> listarCitasDeSerie(@PathVariable Long id) {
+        return cita2Service.listarCitasDeSerie(id);
+    }
+
+    // Editar "esta y las siguientes" (hora, odontólogo, tipo u observaciones); responde cuántas cambiaron
+    @PutMapping("/citas/series/{id}/siguientes")
+    public int actualizarDesde(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestBody SerieCitaDto cambios) {
+        return serieCitaService.actualizarDesde(id, desde, cambios);
+    }
+
+    // Cancelar "esta y las siguientes"; responde cuántas se cancelaron
+    @PostMapping("/citas/series/{id}/cancelar")
+    public int cancelarDesde(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde) {
+        return serieCitaService.cancelarDesde(id, desde);
+    }
+}
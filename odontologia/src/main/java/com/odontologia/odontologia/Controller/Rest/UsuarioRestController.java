@@ -11,8 +11,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.odontologia.odontologia.Dto.PaginaDto;
 import com.odontologia.odontologia.Dto.UsuarioDto;
 import com.odontologia.odontologia.Service.UsuarioService;
 
@@ -23,11 +25,17 @@ public class UsuarioRestController {
     private UsuarioService usuarioService;
 
     // Listar todos los usuarios
-    @GetMapping("/usuarios")
+    @GetMapping(value = "/usuarios", params = {"!after", "!limit"})
     public List<UsuarioDto> listarUsuarios() {
         return usuarioService.listarUsuarios();
     }
 
+    // Listar paginado por cursor: ?after=<id>&limit=N
+    @GetMapping(value = "/usuarios", params = "limit")
+    public PaginaDto<UsuarioDto> listarUsuariosPaginado(@RequestParam(required = false) Long after, @RequestParam Integer limit) {
+        return usuarioService.listarUsuariosPaginado(after, limit);
+    }
+
     // Obtener usuario por ID
     @GetMapping("/usuarios/{id}")
     public UsuarioDto obtenerUsuarioPorId(@PathVariable Long id) {
@@ -0,0 +1,24 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDateTime;
+
+import com.odontologia.odontologia.Entity.TipoAdjuntoEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdjuntoHistoriaDto {
+    private Long id;
+    private Long historiaId;
+    private TipoAdjuntoEnum tipo;
+    private String nombreArchivo;
+    private String contentType;
+    private long tamano;
+    private String sha256;
+    private LocalDateTime fecha;
+    private boolean miniatura; // false mientras se genera o si el formato no la admite
+}
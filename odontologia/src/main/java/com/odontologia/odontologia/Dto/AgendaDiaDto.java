@@ -0,0 +1,45 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Agenda de un día: citas agrupadas por odontólogo y ordenadas por hora,
+// con los nombres ya resueltos para pintar la línea de tiempo sin más consultas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgendaDiaDto {
+    private LocalDate fecha;
+    private List<Odontologo> odontologos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Odontologo {
+        private Long id;
+        private String nombre;
+        private String apellido;
+        private List<Entrada> citas;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entrada {
+        private Long citaId;
+        private LocalTime hora;
+        private EstadoCitaEnum estado;
+        private Long pacienteId;
+        private String pacienteNombres;
+        private String pacienteApellidos;
+        private String tipoCita;
+        private String observaciones;
+    }
+}
@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Petición de cambio de estado de una o varias citas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoDto {
+    private List<Long> ids;              // solo en el cambio masivo
+    private EstadoCitaEnum estado;       // estado nuevo
+    private EstadoCitaEnum estadoActual; // opcional: solo cambia si la cita sigue en este estado
+}
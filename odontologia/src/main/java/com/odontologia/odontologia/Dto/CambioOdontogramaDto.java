@@ -0,0 +1,20 @@
+package com.odontologia.odontologia.Dto;
+
+import com.odontologia.odontologia.Entity.EstadoDienteEnum;
+import com.odontologia.odontologia.Entity.EstadoSuperficieEnum;
+import com.odontologia.odontologia.Entity.SuperficieDentalEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Sin superficie el cambio es del diente completo (estadoDiente); con superficie, de esa cara (estadoSuperficie)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioOdontogramaDto {
+    private int diente;
+    private SuperficieDentalEnum superficie;
+    private EstadoDienteEnum estadoDiente;
+    private EstadoSuperficieEnum estadoSuperficie;
+}
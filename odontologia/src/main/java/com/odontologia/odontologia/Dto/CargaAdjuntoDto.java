@@ -0,0 +1,22 @@
+package com.odontologia.odontologia.Dto;
+
+import com.odontologia.odontologia.Entity.TipoAdjuntoEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Estado de una subida por tramos: el cliente envía el siguiente tramo desde "recibidos"
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CargaAdjuntoDto {
+    private String id;
+    private Long historiaId;
+    private TipoAdjuntoEnum tipo;
+    private String nombreArchivo;
+    private String contentType;
+    private long tamano;
+    private long recibidos;
+    private AdjuntoHistoriaDto adjunto; // null hasta que llega el último byte
+}
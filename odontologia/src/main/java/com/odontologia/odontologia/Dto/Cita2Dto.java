@@ -19,4 +19,5 @@ public class Cita2Dto {
     private TipoCitaDto tipoCita;
     private EstadoCitaEnum estado;
     private String observaciones;
+    private Long serieId; // null si la cita no pertenece a una serie
 }
@@ -0,0 +1,20 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.Map;
+
+import com.odontologia.odontologia.Entity.EstadoDienteEnum;
+import com.odontologia.odontologia.Entity.EstadoSuperficieEnum;
+import com.odontologia.odontologia.Entity.SuperficieDentalEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DienteOdontogramaDto {
+    private int numero; // notación FDI: 11-48 permanentes, 51-85 temporales
+    private EstadoDienteEnum estado;
+    private Map<SuperficieDentalEnum, EstadoSuperficieEnum> superficies; // solo las que no están sanas
+}
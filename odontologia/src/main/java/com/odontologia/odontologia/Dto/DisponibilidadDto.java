@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadDto {
+    private LocalDate fecha;
+    private List<LocalTime> espaciosLibres; // hora de inicio de cada espacio libre
+}
@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Par de pacientes que probablemente son la misma persona
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicadoPacienteDto {
+    private PacienteResumenDto paciente;
+    private PacienteResumenDto otro;
+    private double puntaje;             // 0 a 1
+    private List<String> coincidencias; // documento, nombre, fecha de nacimiento, ...
+}
@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EspacioLibreDto {
+    private Long odontologoId;
+    private LocalDate fecha;
+    private LocalTime hora;
+}
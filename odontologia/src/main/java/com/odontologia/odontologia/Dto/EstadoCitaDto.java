@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Dto;
+
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado del cambio de estado de una cita
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoCitaDto {
+    private Long id;
+    private EstadoCitaEnum estadoAnterior;
+    private EstadoCitaEnum estado;
+    private String error; // motivo por el que no cambió, null si cambió
+}
@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Al registrar solo se envían odontologoId (opcional) y cambios; numero y fecha los asigna el servidor
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoOdontogramaDto {
+    private int numero;
+    private LocalDateTime fecha;
+    private Long odontologoId;
+    private List<CambioOdontogramaDto> cambios;
+}
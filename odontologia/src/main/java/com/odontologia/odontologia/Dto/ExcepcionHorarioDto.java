@@ -0,0 +1,20 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Días (desde y hasta inclusive) en los que no rige el horario semanal: vacaciones o feriados
+// sin tramos, o un horario especial con los tramos de cada uno de esos días
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExcepcionHorarioDto {
+    private LocalDate desde;
+    private LocalDate hasta;
+    private List<TramoHorarioDto> tramos;
+    private String motivo;
+}
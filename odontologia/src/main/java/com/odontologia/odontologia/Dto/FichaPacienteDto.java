@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Todo lo que muestra la ficha de un paciente, en una sola respuesta
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FichaPacienteDto {
+    private Paciente2Dto paciente;
+    private HistoriaClinicaDto historiaClinica; // null si todavía no tiene
+    private List<Cita2Dto> proximasCitas;      // de la más cercana en adelante
+    private List<Cita2Dto> citasRecientes;     // de la última hacia atrás
+}
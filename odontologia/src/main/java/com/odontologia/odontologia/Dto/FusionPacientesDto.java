@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de fusionar un paciente duplicado en el que se conserva
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FusionPacientesDto {
+    private Long sobrevivienteId;
+    private Long eliminadoId;
+    private int citasReasignadas;
+    private int seriesReasignadas;
+    private boolean historiaReasignada; // la historia del duplicado pasó al sobreviviente
+    private boolean historiaCombinada;  // ambos tenían historia: se unieron en la del sobreviviente
+}
@@ -16,4 +16,5 @@ public class HistoriaClinicaDto {
     private String cirugias;
     private String observaciones;
     private Paciente2Dto paciente;
+    private Integer revision; // número de la versión devuelta; null si nunca se modificó
 }
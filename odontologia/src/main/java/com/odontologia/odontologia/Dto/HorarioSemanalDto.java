@@ -0,0 +1,15 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HorarioSemanalDto {
+    private List<IntervaloHorarioDto> intervalos;
+    private List<ExcepcionHorarioDto> excepciones;
+}
@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Tramo de trabajo de un día de la semana. Un descanso es el hueco entre dos tramos del mismo día
+// (lunes 08:00-12:00 y lunes 14:00-18:00).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntervaloHorarioDto {
+    private DayOfWeek dia;
+    private LocalTime inicio;
+    private LocalTime fin;
+}
@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Odontograma de un paciente en un momento dado: solo los dientes con algo registrado
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OdontogramaDto {
+    private Long pacienteId;
+    private int evento; // 0 si todavía no se registró nada
+    private LocalDateTime fecha;
+    private List<DienteOdontogramaDto> dientes;
+}
@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Lo mínimo para listas desplegables y selectores de odontólogo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OdontologoResumenDto {
+    private Long id;
+    private String nombre;
+    private String apellido;
+    private String tipoDocumento;
+    private String documento;
+}
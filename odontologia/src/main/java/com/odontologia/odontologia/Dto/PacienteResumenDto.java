@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Lo mínimo para listas desplegables y selectores de paciente
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacienteResumenDto {
+    private Long id;
+    private String nombres;
+    private String apellidos;
+    private String tipoDocumento;
+    private String documento;
+}
@@ -0,0 +1,45 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Página de resultados con paginación por cursor (keyset): el cliente pide
+// ?after=<siguienteCursor>&limit=N para obtener la página siguiente. Los listados completos
+// no aceptan after ni limit: un cursor sin limit responde 400 en vez de devolver toda la tabla.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDto<T> {
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    private List<T> items;
+    private Long siguienteCursor; // null cuando no hay más resultados
+    private int limite;
+
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_POR_DEFECTO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    public static long normalizarCursor(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    // Construye la página a partir de una consulta que pidió limite + 1 filas:
+    // la fila sobrante solo indica que existe una página siguiente.
+    public static <E, T> PaginaDto<T> desde(List<E> filas, int limite, Function<E, Long> id, Function<E, T> conversor) {
+        boolean hayMas = filas.size() > limite;
+        List<E> pagina = hayMas ? filas.subList(0, limite) : filas;
+        Long siguiente = hayMas ? id.apply(pagina.get(pagina.size() - 1)) : null;
+        List<T> items = pagina.stream().map(conversor).collect(Collectors.toList());
+        return new PaginaDto<>(items, siguiente, limite);
+    }
+}
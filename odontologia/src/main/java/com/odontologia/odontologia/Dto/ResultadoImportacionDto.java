@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Totales de una importación de pacientes (también se envía como avance parcial)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDto {
+    private long procesadas;  // filas leídas del archivo
+    private long creadas;
+    private long duplicadas;  // documento o email ya existente (en la base o antes en el archivo)
+    private long rechazadas;  // filas inválidas
+    private boolean completa; // false si el archivo no se pudo leer hasta el final
+}
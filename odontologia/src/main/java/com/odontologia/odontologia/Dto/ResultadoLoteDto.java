@@ -0,0 +1,26 @@
+package com.odontologia.odontologia.Dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de una operación en lote: un elemento por cada entrada recibida, en el mismo orden
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteDto {
+    private int creadas;
+    private int rechazadas;
+    private List<Item> resultados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int indice;   // posición en el arreglo recibido
+        private Long id;      // id asignado, null si se rechazó
+        private String error; // motivo del rechazo, null si se creó
+    }
+}
@@ -0,0 +1,16 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevisionHistoriaDto {
+    private int numero;
+    private LocalDateTime fecha;
+    private boolean completa; // copia completa o diferencia con la revisión anterior
+}
@@ -0,0 +1,28 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.odontologia.odontologia.Entity.FrecuenciaSerieEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerieCitaDto {
+    private Long id;
+    private Paciente2Dto paciente;
+    private OdontologoDto odontologo;
+    private TipoCitaDto tipoCita;
+    private FrecuenciaSerieEnum frecuencia;
+    private Integer intervalo;
+    private LocalDate fechaInicio;
+    private LocalTime hora;
+    private Integer repeticiones;
+    private LocalDate fechaFin;
+    private String observaciones;
+    private ResultadoLoteDto ocurrencias; // solo al crear: resultado de cada ocurrencia generada
+}
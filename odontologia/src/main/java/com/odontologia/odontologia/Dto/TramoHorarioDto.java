@@ -0,0 +1,15 @@
+package com.odontologia.odontologia.Dto;
+
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TramoHorarioDto {
+    private LocalTime inicio;
+    private LocalTime fin;
+}
@@ -0,0 +1,47 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Archivo adjunto a una historia clínica (radiografía, foto, consentimiento firmado). El contenido
+// vive en el almacén local direccionado por su SHA-256 (ver AlmacenContenido): dos adjuntos con
+// el mismo archivo comparten una sola copia. Como las revisiones, son parte del registro clínico
+// y no se borran con la historia, por eso historiaId no es una clave foránea.
+@Entity
+@Table(name = "historias_adjuntos", indexes = {
+        @Index(name = "ix_historias_adjuntos_historia", columnList = "historia_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdjuntoHistoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "historia_id", nullable = false)
+    private Long historiaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private TipoAdjuntoEnum tipo;
+
+    @Column(length = 255, nullable = false)
+    private String nombreArchivo;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long tamano;
+
+    @Column(length = 64, nullable = false)
+    private String sha256;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,43 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Subida de un adjunto en curso. Los bytes recibidos están en el archivo parcial de la carga:
+// su tamaño es el punto desde el que el cliente retoma. Al completarse queda apuntando al adjunto
+// creado, para que un cliente que perdió la última respuesta pueda consultarlo.
+@Entity
+@Table(name = "cargas_adjunto")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CargaAdjunto {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "historia_id", nullable = false)
+    private Long historiaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private TipoAdjuntoEnum tipo;
+
+    @Column(length = 255, nullable = false)
+    private String nombreArchivo;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long tamano;
+
+    @Column(nullable = false)
+    private LocalDateTime creada;
+
+    private Long adjuntoId;
+}
@@ -7,15 +7,25 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "citas")
+@Table(name = "citas", indexes = {
+        // Agenda por odontólogo y día (filtros de /api/citas y detección de choques)
+        @Index(name = "idx_citas_odontologo_fecha_hora", columnList = "odontologo_id, fecha, hora"),
+        // Agenda del día para todos los odontólogos
+        @Index(name = "idx_citas_fecha_hora", columnList = "fecha, hora"),
+        // Ocurrencias de una serie desde una fecha ("esta y las siguientes")
+        @Index(name = "idx_citas_serie_fecha", columnList = "serie_id, fecha")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Cita2 {
 
+    // Secuencia con asignación en bloques de 50: Hibernate reserva los ids sin ir a la base
+    // por cada fila y puede enviar los INSERT en lotes JDBC (con IDENTITY no es posible)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "citas_seq")
+    @SequenceGenerator(name = "citas_seq", sequenceName = "citas_seq", allocationSize = 50)
     private Long id;
 
     // Paciente asociado
@@ -38,12 +48,22 @@ public class Cita2 {
     @JoinColumn(name = "historia_clinica_id")
     private HistoriaClinica historiaClinica;
 
+    // Serie recurrente a la que pertenece (opcional)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "serie_id")
+    private SerieCita serie;
+
     @Column(nullable = false)
     private LocalDate fecha;
 
     @Column(nullable = false)
     private LocalTime hora;
 
+    // Minutos que ocupa en la agenda: odontologia.agenda.minutos-por-espacio al reservarla.
+    // La restricción de exclusión de schema-postgresql.sql usa este valor por fila; el NOT NULL
+    // lo pone ese script después de completar las citas anteriores a la columna
+    private Integer minutos;
+
     @Enumerated(EnumType.STRING)
     @Column(length = 20, nullable = false)
     private EstadoCitaEnum estado = EstadoCitaEnum.PENDIENTE;
@@ -4,5 +4,14 @@ public enum EstadoCitaEnum {
     PENDIENTE,
     CONFIRMADA,
     CANCELADA,
-    COMPLETADA
+    COMPLETADA;
+
+    // Transiciones permitidas: una cita cancelada o completada ya no cambia de estado
+    public boolean puedeCambiarA(EstadoCitaEnum destino) {
+        return switch (this) {
+            case PENDIENTE -> destino == CONFIRMADA || destino == CANCELADA || destino == COMPLETADA;
+            case CONFIRMADA -> destino == CANCELADA || destino == COMPLETADA;
+            case CANCELADA, COMPLETADA -> false;
+        };
+    }
 }
@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Entity;
+
+// Estado del diente completo. El odontograma guarda el ordinal en 4 bits: como máximo
+// 16 valores y los nuevos se agregan al final.
+public enum EstadoDienteEnum {
+    PRESENTE,
+    AUSENTE,
+    SIN_ERUPCIONAR,
+    EXTRAIDO,
+    EXTRACCION_INDICADA,
+    ENDODONCIA,
+    ENDODONCIA_INDICADA,
+    CORONA,
+    CORONA_INDICADA,
+    IMPLANTE,
+    PONTICO,
+    FRACTURADO
+}
@@ -0,0 +1,6 @@
+package com.odontologia.odontologia.Entity;
+
+public enum EstadoRecordatorioEnum {
+    ENVIADO,
+    FALLIDO
+}
@@ -0,0 +1,16 @@
+package com.odontologia.odontologia.Entity;
+
+// Condición de una cara del diente. El odontograma guarda el ordinal en 4 bits: como máximo
+// 16 valores y los nuevos se agregan al final.
+public enum EstadoSuperficieEnum {
+    SANA,
+    CARIES,
+    OBTURADA_RESINA,
+    OBTURADA_AMALGAMA,
+    OBTURADA_IONOMERO,
+    OBTURACION_INDICADA,
+    RESTAURACION_DEFECTUOSA,
+    SELLANTE,
+    SELLANTE_INDICADO,
+    FRACTURA
+}
@@ -0,0 +1,40 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Cambios registrados en el odontograma de un paciente en una atención. Solo se insertan: el
+// índice único por (paciente_id, numero) impide que dos registros simultáneos tomen el mismo número.
+@Entity
+@Table(name = "odontogramas_eventos", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_odontogramas_eventos_numero", columnNames = { "paciente_id", "numero" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoOdontograma {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "paciente_id", nullable = false)
+    private Long pacienteId;
+
+    // 1, 2, 3... por paciente; coincide con Odontograma.ultimoEvento para el estado actual
+    @Column(nullable = false)
+    private int numero;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "odontologo_id")
+    private Long odontologoId;
+
+    // Dos bytes por cambio: diente, posición (diente completo o cara) y código del estado
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] cambios;
+}
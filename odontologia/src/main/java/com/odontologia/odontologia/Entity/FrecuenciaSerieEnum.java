@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Entity;
+
+import java.time.LocalDate;
+
+public enum FrecuenciaSerieEnum {
+    DIARIA,
+    SEMANAL,
+    MENSUAL;
+
+    // Fecha de la ocurrencia n (0 = la primera). Se calcula siempre desde el inicio y no desde
+    // la anterior, para que una serie mensual del día 31 no quede corrida al 28 tras febrero.
+    public LocalDate ocurrencia(LocalDate inicio, int intervalo, long n) {
+        return switch (this) {
+            case DIARIA -> inicio.plusDays(n * intervalo);
+            case SEMANAL -> inicio.plusWeeks(n * intervalo);
+            case MENSUAL -> inicio.plusMonths(n * intervalo);
+        };
+    }
+}
@@ -17,19 +17,28 @@ public class HistoriaClinica {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Una historia por paciente: el índice único sostiene además la consulta por paciente
+    // (en bases anteriores lo crea schema-postgresql.sql)
     @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "paciente_id", nullable = false)
+    @JoinColumn(name = "paciente_id", nullable = false, unique = true)
     private Paciente2 paciente;
 
-    @Column(length = 255)
+    // Notas clínicas sin límite de largo, comprimidas cuando son largas (ver TextoComprimidoConverter)
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(columnDefinition = "bytea")
     private String antecedentes;
 
-    @Column(length = 255)
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(columnDefinition = "bytea")
     private String alergias;
 
-    @Column(length = 255)
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(columnDefinition = "bytea")
     private String medicamentos;
 
+    // Número de la revisión vigente (ver RevisionHistoriaClinica); null en historias anteriores al versionado
+    private Integer revision;
+
     @OneToMany(mappedBy = "historiaClinica", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Cita2> citas;
 }
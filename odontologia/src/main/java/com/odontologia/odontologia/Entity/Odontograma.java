@@ -0,0 +1,33 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Estado actual del odontograma de un paciente, empaquetado en bits (ver OdontogramaCompacto en
+// Impl): leerlo es traer una fila de unas decenas de bytes. Cada cambio queda además en
+// EventoOdontograma, que permite reconstruir cualquier estado anterior.
+@Entity
+@Table(name = "odontogramas")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Odontograma {
+
+    // Uno por paciente; sin clave foránea, como el resto del registro clínico que se conserva
+    @Id
+    @Column(name = "paciente_id")
+    private Long pacienteId;
+
+    // Número del último evento aplicado
+    @Column(name = "ultimo_evento", nullable = false)
+    private int ultimoEvento;
+
+    @Column(nullable = false)
+    private LocalDateTime actualizado;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] estado;
+}
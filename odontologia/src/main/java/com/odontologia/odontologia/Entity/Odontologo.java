@@ -2,6 +2,7 @@ package com.odontologia.odontologia.Entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.LazyGroup;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -56,6 +57,9 @@ public class Odontologo {
 
     private Integer experiencia;
 
+    // Los campos TEXT son perezosos, como en Paciente2
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("texto")
     @Column(columnDefinition = "TEXT")
     private String especialidades;
 
@@ -70,6 +74,9 @@ public class Odontologo {
     private String contactoEmergenciaTelefono;
 
     // Horarios y disponibilidad
+    // En su propio grupo: la agenda lo lee sin necesitar las especialidades ni las observaciones
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("horario")
     @Column(columnDefinition = "TEXT")
     private String diasTrabajo;
 
@@ -79,6 +86,15 @@ public class Odontologo {
     @Column(length = 5)
     private String horaFin;
 
+    // Horario estructurado ya compilado (ver HorarioCompilado); los tres campos de arriba quedan
+    // como resumen para la pantalla. Null en odontólogos anteriores: se arma desde esos campos.
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("horario")
+    @Column(columnDefinition = "bytea")
+    private byte[] horario;
+
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("texto")
     @Column(columnDefinition = "TEXT")
     private String observaciones;
 
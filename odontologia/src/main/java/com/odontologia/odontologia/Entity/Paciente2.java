@@ -2,20 +2,27 @@ package com.odontologia.odontologia.Entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "pacientes")
+@Table(name = "pacientes", indexes = {
+        @Index(name = "idx_pacientes_actualizado", columnList = "actualizado")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Paciente2 {
 
+    // Secuencia en bloques de 50 (como Cita2): permite insertar importaciones en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pacientes_seq")
+    @SequenceGenerator(name = "pacientes_seq", sequenceName = "pacientes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "nombres", length = 100, nullable = false)
@@ -54,15 +61,33 @@ public class Paciente2 {
     @Column(name = "contacto_emergencia_telefono", length = 15)
     private String contactoEmergenciaTelefono;
 
-    @Column(name = "alergias", columnDefinition = "TEXT")
+    // Campos de texto libre: perezosos (requiere la mejora de bytecode, ver pom.xml). Las citas y
+    // los listados que cargan al paciente no los traen; el primero que se lee trae los tres.
+    // Se guardan comprimidos cuando son largos (ver TextoComprimidoConverter).
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("texto")
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(name = "alergias", columnDefinition = "bytea")
     private String alergias;
 
-    @Column(name = "medicamentos", columnDefinition = "TEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("texto")
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(name = "medicamentos", columnDefinition = "bytea")
     private String medicamentos;
 
-    @Column(name = "observaciones", columnDefinition = "TEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("texto")
+    @Convert(converter = TextoComprimidoConverter.class)
+    @Column(name = "observaciones", columnDefinition = "bytea")
     private String observaciones;
 
+    // Último alta o cambio: el índice de búsqueda de cada instancia relee desde aquí lo que
+    // guardaron las demás (ver BusquedaPacientesServiceImpl)
+    @UpdateTimestamp
+    @Column(name = "actualizado")
+    private LocalDateTime actualizado;
+
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Cita2> citas;
 
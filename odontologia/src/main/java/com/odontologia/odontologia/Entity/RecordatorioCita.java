@@ -0,0 +1,47 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+// Estado del recordatorio de una cita: evita reenviarlo cuando el proceso vuelve a correr
+@Entity
+@Table(name = "recordatorios_cita", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recordatorios_cita_cita", columnNames = "cita_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordatorioCita {
+
+    // Secuencia en bloques para que cada tanda de recordatorios se guarde en un lote JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recordatorios_cita_seq")
+    @SequenceGenerator(name = "recordatorios_cita_seq", sequenceName = "recordatorios_cita_seq", allocationSize = 50)
+    private Long id;
+
+    // Al borrar la cita la base borra su recordatorio
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cita_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Cita2 cita;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoRecordatorioEnum estado;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(length = 150)
+    private String destinatario;
+
+    private LocalDateTime ultimoIntento;
+
+    @Column(length = 255)
+    private String error;
+}
@@ -0,0 +1,41 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Revisión de una historia clínica. Solo se insertan: nunca se modifican ni se borran, ni siquiera
+// cuando se elimina la historia (por eso historiaId no es una clave foránea). Cada revisión guarda
+// la diferencia con la anterior y cada tanto una copia completa; ver HistoriaClinicaServiceImpl.
+@Entity
+@Table(name = "historias_clinicas_revisiones", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_historias_revisiones_numero", columnNames = { "historia_id", "numero" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevisionHistoriaClinica {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "historia_id", nullable = false)
+    private Long historiaId;
+
+    // 1, 2, 3... por historia; coincide con HistoriaClinica.revision para la versión actual
+    @Column(nullable = false)
+    private int numero;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // true: contenido es una copia completa; false: diferencia con la revisión anterior
+    @Column(nullable = false)
+    private boolean completa;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] contenido;
+}
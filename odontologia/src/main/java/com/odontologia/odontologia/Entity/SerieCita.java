@@ -0,0 +1,56 @@
+package com.odontologia.odontologia.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Regla de recurrencia de un grupo de citas (p. ej. controles mensuales de ortodoncia).
+// Cada ocurrencia se guarda como una Cita2 que apunta a la serie.
+@Entity
+@Table(name = "series_cita")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerieCita {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paciente_id", nullable = false)
+    private Paciente2 paciente;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "odontologo_id", nullable = false)
+    private Odontologo odontologo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tipo_cita_id", nullable = false)
+    private TipoCita tipoCita;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private FrecuenciaSerieEnum frecuencia;
+
+    // Cada cuántas unidades de la frecuencia se repite (1 = todos los meses, 2 = cada dos...)
+    @Column(nullable = false)
+    private int intervalo = 1;
+
+    @Column(nullable = false)
+    private LocalDate fechaInicio;
+
+    @Column(nullable = false)
+    private LocalTime hora;
+
+    // Fin de la serie: número de ocurrencias, fecha límite o ambos (lo que llegue primero)
+    private Integer repeticiones;
+
+    private LocalDate fechaFin;
+
+    @Column(length = 255)
+    private String observaciones;
+}
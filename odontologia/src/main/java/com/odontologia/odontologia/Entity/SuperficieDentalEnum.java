@@ -0,0 +1,11 @@
+package com.odontologia.odontologia.Entity;
+
+// Caras de un diente en el odontograma. LINGUAL es la cara palatina en los dientes superiores
+// y OCLUSAL la incisal en los anteriores. El orden es la posición guardada: no reordenar.
+public enum SuperficieDentalEnum {
+    VESTIBULAR,
+    LINGUAL,
+    MESIAL,
+    DISTAL,
+    OCLUSAL
+}
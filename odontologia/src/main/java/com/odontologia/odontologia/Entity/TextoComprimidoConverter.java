@@ -0,0 +1,92 @@
+package com.odontologia.odontologia.Entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Texto clínico guardado en bytea. Los valores cortos (o los que no se achican) se guardan como
+// UTF-8 tal cual; los largos como un marco Deflate: byte 0x01, largo original (4 bytes) y los
+// datos comprimidos. Ningún texto UTF-8 empieza con 0x01 salvo que empiece con ese carácter de
+// control, y en ese caso se comprime siempre: así las dos formas no se confunden y el contenido
+// migrado desde las columnas de texto (UTF-8 sin marco) se lee sin convertir.
+@Converter
+public class TextoComprimidoConverter implements AttributeConverter<String, byte[]> {
+
+    static final int MINIMO_PARA_COMPRIMIR = 256;
+
+    private static final byte MARCA_DEFLATE = 0x01;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        boolean ambiguo = utf8.length > 0 && utf8[0] == MARCA_DEFLATE;
+        if (utf8.length < MINIMO_PARA_COMPRIMIR && !ambiguo) {
+            return utf8;
+        }
+        byte[] comprimido = comprimir(utf8);
+        return comprimido.length < utf8.length || ambiguo ? comprimido : utf8;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] columna) {
+        if (columna == null) {
+            return null;
+        }
+        if (columna.length == 0 || columna[0] != MARCA_DEFLATE) {
+            return new String(columna, StandardCharsets.UTF_8);
+        }
+        return new String(descomprimir(columna), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] comprimir(byte[] utf8) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(utf8.length / 2 + 16);
+            salida.write(MARCA_DEFLATE);
+            salida.writeBytes(ByteBuffer.allocate(4).putInt(utf8.length).array());
+            byte[] bloque = new byte[4096];
+            while (!deflater.finished()) {
+                salida.write(bloque, 0, deflater.deflate(bloque));
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] descomprimir(byte[] columna) {
+        int largo = ByteBuffer.wrap(columna, 1, 4).getInt();
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(columna, 5, columna.length - 5);
+            byte[] utf8 = new byte[largo];
+            int leidos = 0;
+            while (leidos < largo && !inflater.finished()) {
+                int n = inflater.inflate(utf8, leidos, largo - leidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                leidos += n;
+            }
+            if (leidos != largo) {
+                throw new IllegalStateException("Texto comprimido incompleto: " + leidos + " de " + largo + " bytes");
+            }
+            return utf8;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Texto comprimido corrupto", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.odontologia.odontologia.Entity;
+
+public enum TipoAdjuntoEnum {
+    RADIOGRAFIA,
+    TOMOGRAFIA,
+    FOTO_INTRAORAL,
+    CONSENTIMIENTO,
+    OTRO
+}
@@ -0,0 +1,77 @@
+package com.odontologia.odontologia.Event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Evento que publican Cita2ServiceImpl y SerieCitaServiceImpl cada vez que una cita se crea, cambia o se elimina.
+// Lleva la posición de la cita en la agenda antes y después del cambio para que los
+// consumidores (índice de disponibilidad, cachés, notificaciones) se actualicen sin releerla.
+@Getter
+@AllArgsConstructor
+public class CitaCambioEvent {
+
+    public enum Tipo {
+        CREADA,
+        ACTUALIZADA,
+        ELIMINADA
+    }
+
+    private final Tipo tipo;
+    private final Long citaId;
+    private final DatosCita anterior; // null cuando la cita es nueva
+    private final DatosCita actual;   // null cuando la cita se eliminó
+
+    public static CitaCambioEvent creada(Cita2 cita) {
+        return new CitaCambioEvent(Tipo.CREADA, cita.getId(), null, DatosCita.de(cita));
+    }
+
+    public static CitaCambioEvent actualizada(DatosCita anterior, Cita2 cita) {
+        return new CitaCambioEvent(Tipo.ACTUALIZADA, cita.getId(), anterior, DatosCita.de(cita));
+    }
+
+    public static CitaCambioEvent actualizada(DatosCita anterior, DatosCita actual) {
+        return new CitaCambioEvent(Tipo.ACTUALIZADA, actual.getCitaId(), anterior, actual);
+    }
+
+    public static CitaCambioEvent eliminada(DatosCita anterior) {
+        return new CitaCambioEvent(Tipo.ELIMINADA, anterior.getCitaId(), anterior, null);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DatosCita {
+        private final Long citaId;
+        private final Long odontologoId;
+        private final Long pacienteId;
+        private final LocalDate fecha;
+        private final LocalTime hora;
+        private final Integer minutos; // duración con que se reservó; null en citas anteriores a guardarla
+        private final EstadoCitaEnum estado;
+
+        // Las cancelaciones liberan el horario del odontólogo
+        public boolean ocupaAgenda() {
+            return estado != EstadoCitaEnum.CANCELADA;
+        }
+
+        public DatosCita conEstado(EstadoCitaEnum nuevo) {
+            return new DatosCita(citaId, odontologoId, pacienteId, fecha, hora, minutos, nuevo);
+        }
+
+        public static DatosCita de(Cita2 cita) {
+            return new DatosCita(
+                    cita.getId(),
+                    cita.getOdontologo() != null ? cita.getOdontologo().getId() : null,
+                    cita.getPaciente() != null ? cita.getPaciente().getId() : null,
+                    cita.getFecha(),
+                    cita.getHora(),
+                    cita.getMinutos(),
+                    cita.getEstado());
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.odontologia.odontologia.Impl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.odontologia.odontologia.Dto.AdjuntoHistoriaDto;
+import com.odontologia.odontologia.Dto.CargaAdjuntoDto;
+import com.odontologia.odontologia.Entity.AdjuntoHistoria;
+import com.odontologia.odontologia.Entity.CargaAdjunto;
+import com.odontologia.odontologia.Repository.AdjuntoHistoriaRepository;
+import com.odontologia.odontologia.Repository.CargaAdjuntoRepository;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Service.AdjuntoHistoriaService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Adjuntos de la historia clínica. La subida llega por tramos que se escriben directo del
+// cuerpo de la petición al archivo parcial, sin pasar por memoria; con el último byte se calcula
+// el SHA-256, el contenido se mueve al almacén (o se descarta si ya estaba) y se crea el adjunto.
+// Las miniaturas de imágenes se generan después, en un grupo de hilos aparte.
+@Service
+public class AdjuntoHistoriaServiceImpl implements AdjuntoHistoriaService {
+
+	private static final int LADO_MINIATURA = 256;
+	private static final int HORAS_VIGENCIA_CARGA = 24;
+	private static final String SIN_TIPO = "application/octet-stream";
+	// El archivo se sirve desde el mismo origen que la aplicación: nada que el navegador ejecute
+	// (text/html, image/svg+xml...) puede entrar como adjunto
+	private static final Set<String> TIPOS_PERMITIDOS = Set.of("image/jpeg", "image/png", "image/gif", "image/webp",
+			"image/bmp", "image/tiff", "image/dicom", "application/dicom", "application/pdf", SIN_TIPO);
+
+	@Autowired
+	private AdjuntoHistoriaRepository adjuntoRepository;
+
+	@Autowired
+	private CargaAdjuntoRepository cargaRepository;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${odontologia.adjuntos.directorio:adjuntos}")
+	private Path directorio;
+
+	@Value("${odontologia.adjuntos.tamano-maximo:2GB}")
+	private DataSize tamanoMaximo;
+
+	@Value("${odontologia.adjuntos.hilos-miniaturas:2}")
+	private int hilosMiniaturas;
+
+	private AlmacenContenido almacen;
+	private ExecutorService miniaturas;
+
+	@PostConstruct
+	void iniciar() throws IOException {
+		almacen = new AlmacenContenido(directorio);
+		miniaturas = Executors.newFixedThreadPool(hilosMiniaturas, Thread.ofPlatform().name("miniaturas-", 0).daemon().factory());
+	}
+
+	@PreDestroy
+	void cerrar() {
+		miniaturas.shutdownNow();
+	}
+
+	@Override
+	public CargaAdjuntoDto iniciarCarga(Long historiaId, CargaAdjuntoDto datos) {
+		if (!historiaClinicaRepository.existsById(historiaId)) {
+			throw new RuntimeException("Historia clinica no encontrada con ID: " + historiaId);
+		}
+		if (datos.getTipo() == null || datos.getNombreArchivo() == null || datos.getNombreArchivo().isBlank()) {
+			throw new RuntimeException("Se requieren el tipo y el nombre del archivo");
+		}
+		if (datos.getTamano() <= 0 || datos.getTamano() > tamanoMaximo.toBytes()) {
+			throw new RuntimeException("El tamaño del archivo debe estar entre 1 byte y " + tamanoMaximo);
+		}
+		String contentType = tipoContenido(datos.getContentType());
+		if (contentType == null) {
+			throw new RuntimeException("Tipo de archivo no permitido: " + datos.getContentType());
+		}
+		CargaAdjunto carga = new CargaAdjunto(UUID.randomUUID().toString(), historiaId, datos.getTipo(),
+				datos.getNombreArchivo().strip(), contentType, datos.getTamano(), LocalDateTime.now(), null);
+		return convertirCarga(cargaRepository.save(carga));
+	}
+
+	@Override
+	public CargaAdjuntoDto obtenerCarga(String cargaId) {
+		return convertirCarga(buscarCarga(cargaId));
+	}
+
+	// Un tramo continúa exactamente donde terminó el anterior. Si la conexión se corta a mitad de
+	// camino queda lo que se llegó a escribir y el cliente retoma desde ahí. El último tramo
+	// completa la carga sin soltar el bloqueo: un tramo repetido que esperaba el archivo ve la
+	// carga ya completa y no la vuelve a registrar.
+	@Override
+	public CargaAdjuntoDto recibirTramo(String cargaId, long desde, InputStream datos) throws IOException {
+		CargaAdjunto carga = buscarCarga(cargaId);
+		if (carga.getAdjuntoId() != null) {
+			throw new RuntimeException("La carga " + cargaId + " ya está completa");
+		}
+		Path parcial = almacen.parcial(cargaId);
+		long recibidos;
+		try (FileChannel canal = FileChannel.open(parcial, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock bloqueo = bloquear(canal, cargaId);
+			try {
+				// Se vuelve a consultar con el bloqueo tomado: la entidad pudo leerse antes de que otro tramo la completara
+				if (cargaRepository.buscarAdjuntoId(cargaId) != null) {
+					throw new RuntimeException("La carga " + cargaId + " ya está completa");
+				}
+				recibidos = canal.size();
+				if (desde != recibidos) {
+					throw new RuntimeException("La carga " + cargaId + " continúa desde el byte " + recibidos + ", no desde " + desde);
+				}
+				ReadableByteChannel origen = Channels.newChannel(datos);
+				long pendiente = carga.getTamano() - recibidos;
+				long escritos;
+				do {
+					escritos = canal.transferFrom(origen, recibidos, pendiente);
+					recibidos += escritos;
+					pendiente -= escritos;
+				} while (escritos > 0 && pendiente > 0);
+				if (pendiente == 0 && datos.read() != -1) {
+					canal.truncate(desde);
+					throw new RuntimeException("El tramo excede el tamaño declarado de " + carga.getTamano() + " bytes");
+				}
+				canal.force(false);
+				if (recibidos == carga.getTamano()) {
+					completar(carga, parcial);
+				}
+			} finally {
+				bloqueo.release();
+			}
+		}
+		return convertirCarga(carga);
+	}
+
+	@Override
+	public List<AdjuntoHistoriaDto> listarAdjuntos(Long historiaId) {
+		return adjuntoRepository.findByHistoriaIdOrderByIdAsc(historiaId).stream()
+				.map(this::convertirAdjunto)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public AdjuntoHistoriaDto obtenerAdjunto(Long id) {
+		return convertirAdjunto(adjuntoRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Adjunto no encontrado con ID: " + id)));
+	}
+
+	@Override
+	public Path archivo(AdjuntoHistoriaDto adjunto) {
+		return almacen.archivo(adjunto.getSha256());
+	}
+
+	@Override
+	public Optional<Path> miniatura(AdjuntoHistoriaDto adjunto) {
+		Path miniatura = almacen.miniatura(adjunto.getSha256());
+		return Files.exists(miniatura) ? Optional.of(miniatura) : Optional.empty();
+	}
+
+	// Cargas abandonadas: se borran el registro y los bytes recibidos
+	@Scheduled(cron = "${odontologia.adjuntos.limpieza-cron:-}")
+	void limpiarCargasVencidas() {
+		for (CargaAdjunto carga : cargaRepository.findByCreadaBefore(LocalDateTime.now().minusHours(HORAS_VIGENCIA_CARGA))) {
+			try {
+				Files.deleteIfExists(almacen.parcial(carga.getId()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			cargaRepository.delete(carga);
+		}
+	}
+
+	private void completar(CargaAdjunto carga, Path parcial) throws IOException {
+		String sha256 = almacen.guardar(parcial);
+		AdjuntoHistoria adjunto = new AdjuntoHistoria(null, carga.getHistoriaId(), carga.getTipo(), carga.getNombreArchivo(),
+				carga.getContentType(), carga.getTamano(), sha256, LocalDateTime.now());
+		new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+			adjuntoRepository.save(adjunto);
+			carga.setAdjuntoId(adjunto.getId());
+			cargaRepository.save(carga);
+		});
+		if (carga.getContentType() != null && carga.getContentType().startsWith("image/")
+				&& !Files.exists(almacen.miniatura(sha256))) {
+			miniaturas.execute(() -> generarMiniatura(sha256));
+		}
+	}
+
+	// Con submuestreo al leer: de una radiografía de 40 megapíxeles solo se decodifica lo que
+	// hace falta para 256 píxeles de lado. Los formatos que ImageIO no lee se quedan sin miniatura.
+	private void generarMiniatura(String sha256) {
+		Path destino = almacen.miniatura(sha256);
+		try (ImageInputStream entrada = ImageIO.createImageInputStream(almacen.archivo(sha256).toFile())) {
+			Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+			if (!lectores.hasNext()) {
+				return;
+			}
+			ImageReader lector = lectores.next();
+			BufferedImage imagen;
+			try {
+				lector.setInput(entrada, true, true);
+				int paso = Math.max(1, Math.max(lector.getWidth(0), lector.getHeight(0)) / (LADO_MINIATURA * 2));
+				ImageReadParam parametros = lector.getDefaultReadParam();
+				parametros.setSourceSubsampling(paso, paso, 0, 0);
+				imagen = lector.read(0, parametros);
+			} finally {
+				lector.dispose();
+			}
+			double escala = Math.min(1.0, (double) LADO_MINIATURA / Math.max(imagen.getWidth(), imagen.getHeight()));
+			int ancho = Math.max(1, (int) Math.round(imagen.getWidth() * escala));
+			int alto = Math.max(1, (int) Math.round(imagen.getHeight() * escala));
+			BufferedImage miniatura = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = miniatura.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(imagen, 0, 0, ancho, alto, Color.WHITE, null);
+			} finally {
+				g.dispose();
+			}
+			Path temporal = destino.resolveSibling(destino.getFileName() + ".parcial");
+			ImageIO.write(miniatura, "jpg", temporal.toFile());
+			Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			// La miniatura es opcional: el adjunto ya está guardado y se puede descargar igual
+		}
+	}
+
+	private static FileLock bloquear(FileChannel canal, String cargaId) throws IOException {
+		FileLock bloqueo;
+		try {
+			bloqueo = canal.tryLock();
+		} catch (OverlappingFileLockException e) {
+			bloqueo = null;
+		}
+		if (bloqueo == null) {
+			throw new RuntimeException("La carga " + cargaId + " está recibiendo otro tramo");
+		}
+		return bloqueo;
+	}
+
+	private CargaAdjunto buscarCarga(String cargaId) {
+		return cargaRepository.findById(cargaId)
+				.orElseThrow(() -> new RuntimeException("Carga no encontrada con ID: " + cargaId));
+	}
+
+	private CargaAdjuntoDto convertirCarga(CargaAdjunto carga) {
+		long recibidos;
+		AdjuntoHistoriaDto adjunto = null;
+		if (carga.getAdjuntoId() != null) {
+			recibidos = carga.getTamano();
+			adjunto = obtenerAdjunto(carga.getAdjuntoId());
+		} else {
+			try {
+				Path parcial = almacen.parcial(carga.getId());
+				recibidos = Files.exists(parcial) ? Files.size(parcial) : 0;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return new CargaAdjuntoDto(carga.getId(), carga.getHistoriaId(), carga.getTipo(), carga.getNombreArchivo(),
+				carga.getContentType(), carga.getTamano(), recibidos, adjunto);
+	}
+
+	// Tipo sin parámetros y en minúsculas, o null si no está en la lista de permitidos
+	private static String tipoContenido(String declarado) {
+		if (declarado == null || declarado.isBlank()) {
+			return SIN_TIPO;
+		}
+		int parametros = declarado.indexOf(';');
+		String tipo = (parametros >= 0 ? declarado.substring(0, parametros) : declarado).strip().toLowerCase(Locale.ROOT);
+		return TIPOS_PERMITIDOS.contains(tipo) ? tipo : null;
+	}
+
+	// Los adjuntos guardados antes de la lista de permitidos se entregan como binario genérico
+	private AdjuntoHistoriaDto convertirAdjunto(AdjuntoHistoria a) {
+		String contentType = tipoContenido(a.getContentType());
+		return new AdjuntoHistoriaDto(a.getId(), a.getHistoriaId(), a.getTipo(), a.getNombreArchivo(),
+				contentType != null ? contentType : SIN_TIPO, a.getTamano(), a.getSha256(), a.getFecha(),
+				Files.exists(almacen.miniatura(a.getSha256())));
+	}
+}
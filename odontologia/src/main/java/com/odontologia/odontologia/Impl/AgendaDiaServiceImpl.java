@@ -0,0 +1,98 @@
+package com.odontologia.odontologia.Impl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.odontologia.odontologia.Dto.AgendaDiaDto;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+
+// Agendas diarias ya armadas, en una caché Caffeine acotada por fecha. Se invalida después
+// del commit de cada cambio de cita (la fecha anterior y la nueva), así que una lectura
+// con acierto no toca la base. Los cambios hechos en otra instancia no llegan aquí: cada
+// día caduca a los odontologia.agenda.vigencia-segundos de armado, igual que la disponibilidad.
+@Service
+public class AgendaDiaServiceImpl implements AgendaDiaService {
+
+	private static final int MAX_DIAS_EN_CACHE = 64;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	private final Cache<LocalDate, AgendaDiaDto> cache;
+
+	// Cambia con cada invalidación: una agenda leída antes de un cambio no se guarda después de él
+	private final AtomicLong generacion = new AtomicLong();
+
+	public AgendaDiaServiceImpl(@Value("${odontologia.agenda.vigencia-segundos:60}") long vigenciaSegundos) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(MAX_DIAS_EN_CACHE)
+				.expireAfterWrite(Duration.ofSeconds(vigenciaSegundos))
+				.build();
+	}
+
+	@Override
+	public AgendaDiaDto obtenerAgenda(LocalDate fecha) {
+		AgendaDiaDto agenda = cache.getIfPresent(fecha);
+		if (agenda != null) {
+			return agenda;
+		}
+		long leida = generacion.get();
+		agenda = armarAgenda(fecha);
+		synchronized (cache) {
+			if (generacion.get() == leida) {
+				cache.put(fecha, agenda);
+			}
+		}
+		return agenda;
+	}
+
+	@Override
+	public void invalidarTodo() {
+		synchronized (cache) {
+			generacion.incrementAndGet();
+			cache.invalidateAll();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCitaCambio(CitaCambioEvent evento) {
+		synchronized (cache) {
+			generacion.incrementAndGet();
+			if (evento.getAnterior() != null) {
+				cache.invalidate(evento.getAnterior().getFecha());
+			}
+			if (evento.getActual() != null) {
+				cache.invalidate(evento.getActual().getFecha());
+			}
+		}
+	}
+
+	private AgendaDiaDto armarAgenda(LocalDate fecha) {
+		List<AgendaDiaDto.Odontologo> odontologos = new ArrayList<>();
+		AgendaDiaDto.Odontologo actual = null;
+		// Las filas llegan ordenadas por odontólogo y hora
+		for (Cita2Repository.EntradaAgenda e : citaRepository.buscarAgendaDelDia(fecha)) {
+			if (actual == null || !actual.getId().equals(e.getOdontologoId())) {
+				actual = new AgendaDiaDto.Odontologo(e.getOdontologoId(), e.getOdontologoNombre(),
+						e.getOdontologoApellido(), new ArrayList<>());
+				odontologos.add(actual);
+			}
+			actual.getCitas().add(new AgendaDiaDto.Entrada(e.getCitaId(), e.getHora(), e.getEstado(),
+					e.getPacienteId(), e.getPacienteNombres(), e.getPacienteApellidos(), e.getTipoCita(),
+					e.getObservaciones()));
+		}
+		return new AgendaDiaDto(fecha, odontologos);
+	}
+}
@@ -0,0 +1,88 @@
+package com.odontologia.odontologia.Impl;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.odontologia.odontologia.Service.BloqueoAgendaService;
+
+// Horas ocupadas de varias agendas (odontólogo + día) cargadas con una sola consulta,
+// para validar muchas reservas en memoria. Solo es fiable mientras las agendas estén
+// bloqueadas con BloqueoAgendaService dentro de la misma transacción. Cada cita guardada
+// ocupa los minutos con que se reservó; las nuevas, la duración vigente del espacio.
+class AgendaOcupada {
+
+	// Restricción de exclusión de schema-postgresql.sql: respaldo en la base del bloqueo de agenda
+	static final String RESTRICCION_HORARIO = "ex_citas_odontologo_horario_activo";
+	private static final String VIOLACION_EXCLUSION = "23P01";
+
+	private final int minutosPorEspacio;
+	// Por agenda: minuto de inicio de cada cita -> minutos que ocupa
+	private final Map<BloqueoAgendaService.Clave, TreeMap<Integer, Integer>> ocupados = new HashMap<>();
+
+	AgendaOcupada(int minutosPorEspacio) {
+		this.minutosPorEspacio = minutosPorEspacio;
+	}
+
+	// minutos: los guardados en la cita; null si no los tiene (se toma la duración vigente)
+	void ocupar(Long odontologoId, LocalDate fecha, LocalTime hora, Integer minutos) {
+		agenda(odontologoId, fecha).put(minuto(hora), minutos != null ? minutos : minutosPorEspacio);
+	}
+
+	void liberar(Long odontologoId, LocalDate fecha, LocalTime hora) {
+		agenda(odontologoId, fecha).remove(minuto(hora));
+	}
+
+	// Dos citas se solapan si cada una empieza antes de que termine la otra
+	// (mismo criterio que Cita2Repository.existeChoque)
+	boolean estaLibre(Long odontologoId, LocalDate fecha, LocalTime hora) {
+		TreeMap<Integer, Integer> agenda = agenda(odontologoId, fecha);
+		int minuto = minuto(hora);
+		Map.Entry<Integer, Integer> previa = agenda.floorEntry(minuto);
+		Integer siguiente = agenda.higherKey(minuto);
+		return (previa == null || previa.getKey() + previa.getValue() <= minuto)
+				&& (siguiente == null || siguiente >= minuto + minutosPorEspacio);
+	}
+
+	// Ocupa el horario si está libre; devuelve false si choca con otra cita
+	boolean reservar(Long odontologoId, LocalDate fecha, LocalTime hora) {
+		if (!estaLibre(odontologoId, fecha, hora)) {
+			return false;
+		}
+		ocupar(odontologoId, fecha, hora, minutosPorEspacio);
+		return true;
+	}
+
+	static String mensajeChoque(LocalDate fecha, LocalTime hora) {
+		return "El odontólogo ya tiene una cita asignada el " + fecha + " a las " + hora;
+	}
+
+	// Si el error de integridad es un choque de horario detectado por la base (y no, por ejemplo,
+	// una columna obligatoria vacía o una referencia inexistente)
+	static boolean esChoque(DataIntegrityViolationException e) {
+		for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if (causa instanceof ConstraintViolationException violacion && violacion.getConstraintName() != null) {
+				return RESTRICCION_HORARIO.equalsIgnoreCase(violacion.getConstraintName());
+			}
+			// Hibernate no extrae el nombre en las violaciones de exclusión (SQLState 23P01): se busca en el mensaje
+			if (causa instanceof SQLException sql && VIOLACION_EXCLUSION.equals(sql.getSQLState())) {
+				return sql.getMessage() != null && sql.getMessage().contains(RESTRICCION_HORARIO);
+			}
+		}
+		return false;
+	}
+
+	private TreeMap<Integer, Integer> agenda(Long odontologoId, LocalDate fecha) {
+		return ocupados.computeIfAbsent(new BloqueoAgendaService.Clave(odontologoId, fecha), k -> new TreeMap<>());
+	}
+
+	private static int minuto(LocalTime hora) {
+		return hora.toSecondOfDay() / 60;
+	}
+}
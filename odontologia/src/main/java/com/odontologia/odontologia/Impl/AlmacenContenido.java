@@ -0,0 +1,81 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Almacén local direccionado por contenido: cada archivo se guarda una sola vez bajo su SHA-256
+// (contenido/ab/abcdef...). Las subidas en curso están en cargas/ y las miniaturas en
+// miniaturas/, también por SHA-256. Todo se recorre por canales con un búfer fijo: un archivo de
+// cientos de MB nunca se carga entero en memoria.
+class AlmacenContenido {
+
+	private static final int BUFER = 1 << 20;
+
+	private final Path contenido;
+	private final Path cargas;
+	private final Path miniaturas;
+
+	AlmacenContenido(Path raiz) throws IOException {
+		contenido = Files.createDirectories(raiz.resolve("contenido"));
+		cargas = Files.createDirectories(raiz.resolve("cargas"));
+		miniaturas = Files.createDirectories(raiz.resolve("miniaturas"));
+	}
+
+	Path parcial(String cargaId) {
+		return cargas.resolve(cargaId + ".parcial");
+	}
+
+	Path archivo(String sha256) {
+		return contenido.resolve(sha256.substring(0, 2)).resolve(sha256);
+	}
+
+	Path miniatura(String sha256) {
+		return miniaturas.resolve(sha256 + ".jpg");
+	}
+
+	// Calcula el SHA-256 del archivo parcial y lo mueve a su lugar definitivo. Si ese contenido
+	// ya estaba (el mismo archivo subido antes, a esta u otra historia) se descarta la copia nueva;
+	// también si otra carga con el mismo contenido llegó primero entre la comprobación y el movimiento.
+	String guardar(Path parcial) throws IOException {
+		String sha256 = sha256(parcial);
+		Path destino = archivo(sha256);
+		if (Files.exists(destino)) {
+			Files.delete(parcial);
+			return sha256;
+		}
+		Files.createDirectories(destino.getParent());
+		try {
+			Files.move(parcial, destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException e) {
+			Files.delete(parcial);
+		}
+		return sha256;
+	}
+
+	static String sha256(Path archivo) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		ByteBuffer bufer = ByteBuffer.allocateDirect(BUFER);
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+			while (canal.read(bufer) != -1) {
+				bufer.flip();
+				digest.update(bufer);
+				bufer.clear();
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+}
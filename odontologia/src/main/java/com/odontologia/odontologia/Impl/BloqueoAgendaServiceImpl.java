@@ -0,0 +1,100 @@
+package com.odontologia.odontologia.Impl;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.odontologia.odontologia.Service.BloqueoAgendaService;
+
+import jakarta.annotation.PostConstruct;
+
+// Serializa las reservas sobre una misma agenda (odontólogo + día) sin frenar las demás.
+// En PostgreSQL usa pg_advisory_xact_lock, que vale para todas las instancias de la
+// aplicación y se libera solo al terminar la transacción; varias agendas se bloquean con una
+// sola sentencia, sin importar cuántas sean. En otras bases (H2 en pruebas) usa un arreglo de
+// locks en memoria liberados después del commit o rollback.
+@Service
+public class BloqueoAgendaServiceImpl implements BloqueoAgendaService {
+
+	private static final int FRANJAS = 1024;
+	private static final String BLOQUEAR_AGENDAS = "SELECT pg_advisory_xact_lock(o, d) "
+			+ "FROM unnest(?::int[], ?::int[]) AS k(o, d) ORDER BY o, d";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+
+	private boolean postgres;
+
+	@PostConstruct
+	void inicializar() {
+		for (int i = 0; i < FRANJAS; i++) {
+			franjas[i] = new ReentrantLock();
+		}
+		String producto = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+		postgres = "PostgreSQL".equalsIgnoreCase(producto);
+	}
+
+	@Override
+	public void bloquear(Long odontologoId, LocalDate fecha) {
+		bloquear(List.of(new Clave(odontologoId, fecha)));
+	}
+
+	@Override
+	public void bloquear(Collection<Clave> claves) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("El bloqueo de agenda requiere una transacción activa");
+		}
+		if (postgres) {
+			List<Clave> orden = claves.stream()
+					.distinct()
+					.sorted(Comparator.comparing(Clave::odontologoId).thenComparing(Clave::fecha))
+					.toList();
+			if (orden.isEmpty()) {
+				return;
+			}
+			Object[] odontologos = orden.stream().map(c -> c.odontologoId().intValue()).toArray();
+			Object[] dias = orden.stream().map(c -> (int) c.fecha().toEpochDay()).toArray();
+			jdbcTemplate.query(c -> {
+				PreparedStatement ps = c.prepareStatement(BLOQUEAR_AGENDAS);
+				ps.setArray(1, c.createArrayOf("integer", odontologos));
+				ps.setArray(2, c.createArrayOf("integer", dias));
+				return ps;
+			}, rs -> {
+			});
+		} else {
+			claves.stream()
+					.map(this::franja)
+					.distinct()
+					.sorted()
+					.forEach(this::bloquearFranja);
+		}
+	}
+
+	private void bloquearFranja(int indice) {
+		ReentrantLock lock = franjas[indice];
+		lock.lock();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				lock.unlock();
+			}
+		});
+	}
+
+	private int franja(Clave clave) {
+		int hash = 31 * clave.odontologoId().hashCode() + clave.fecha().hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), FRANJAS);
+	}
+}
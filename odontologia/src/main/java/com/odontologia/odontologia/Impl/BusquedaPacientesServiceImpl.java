@@ -0,0 +1,188 @@
+package com.odontologia.odontologia.Impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Service.BusquedaPacientesService;
+
+// El índice se construye en la primera búsqueda leyendo los pacientes por tandas y luego se
+// mantiene con cada alta, cambio o baja. Los cambios hechos en otras instancias se traen
+// periódicamente por la columna actualizado de pacientes. Muchas búsquedas pueden leer a la
+// vez; las escrituras son cortas y exclusivas.
+@Service
+public class BusquedaPacientesServiceImpl implements BusquedaPacientesService {
+
+	private static final int TAMANO_TANDA_CARGA = 5000;
+	// La marca se pone al guardar y la fila puede confirmarse algo después, o venir de una
+	// instancia con el reloj atrasado: cada pasada relee también este tramo anterior
+	private static final Duration MARGEN_SINCRONIZACION = Duration.ofMinutes(1);
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	private final IndiceTrigramas indice = new IndiceTrigramas();
+	private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+	private volatile boolean construido;
+	private volatile LocalDateTime sincronizadoDesde;
+
+	@Override
+	public List<Long> buscarIds(String consulta, int limite) {
+		asegurarConstruido();
+		bloqueo.readLock().lock();
+		try {
+			return indice.buscar(sinDominio(consulta), limite);
+		} finally {
+			bloqueo.readLock().unlock();
+		}
+	}
+
+	// Se llama después de guardar; si el índice todavía no se construyó, la carga inicial ya lo
+	// leerá de la base de datos. Los datos se toman al llamar y se aplican al confirmar la
+	// transacción (ver despuesDelCommit)
+	@Override
+	public void indexar(Paciente2 paciente) {
+		Long id = paciente.getId();
+		String nombres = paciente.getNombres();
+		String apellidos = paciente.getApellidos();
+		String documento = paciente.getDocumento();
+		String telefono = paciente.getTelefono();
+		String email = paciente.getEmail();
+		despuesDelCommit(() -> {
+			bloqueo.writeLock().lock();
+			try {
+				if (construido) {
+					indexarSinBloqueo(id, nombres, apellidos, documento, telefono, email);
+				}
+			} finally {
+				bloqueo.writeLock().unlock();
+			}
+		});
+	}
+
+	@Override
+	public void quitar(Long pacienteId) {
+		despuesDelCommit(() -> {
+			bloqueo.writeLock().lock();
+			try {
+				indice.quitar(pacienteId);
+			} finally {
+				bloqueo.writeLock().unlock();
+			}
+		});
+	}
+
+	// Dentro de una transacción el cambio espera al commit: si se deshace, el índice no muestra
+	// pacientes que nunca se guardaron ni pierde los que siguen existiendo. Los cambios de una
+	// misma transacción se aplican en el orden en que se pidieron
+	private void despuesDelCommit(Runnable cambio) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			cambio.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				cambio.run();
+			}
+		});
+	}
+
+	private void asegurarConstruido() {
+		if (construido) {
+			return;
+		}
+		bloqueo.writeLock().lock();
+		try {
+			if (construido) {
+				return;
+			}
+			sincronizadoDesde = LocalDateTime.now();
+			long cursor = 0;
+			List<Paciente2Repository.PacienteIndexable> tanda;
+			do {
+				tanda = pacienteRepository.buscarParaIndice(cursor, Limit.of(TAMANO_TANDA_CARGA));
+				for (Paciente2Repository.PacienteIndexable p : tanda) {
+					indexarSinBloqueo(p.getId(), p.getNombres(), p.getApellidos(), p.getDocumento(), p.getTelefono(), p.getEmail());
+					cursor = p.getId();
+				}
+			} while (tanda.size() == TAMANO_TANDA_CARGA);
+			construido = true;
+		} finally {
+			bloqueo.writeLock().unlock();
+		}
+	}
+
+	// Reindexa lo guardado desde la pasada anterior (en esta instancia o en otra; repetir un
+	// paciente no cambia nada). Las bajas no dejan fila: si el total no cuadra con la base se
+	// quitan los ids que ya no existen. Un alta local que coincida con esa revisión puede salir
+	// del índice, pero su marca de tiempo la vuelve a traer en la pasada siguiente.
+	@Scheduled(fixedDelayString = "${odontologia.busqueda.sincronizacion-ms:60000}")
+	void sincronizar() {
+		if (!construido) {
+			return;
+		}
+		LocalDateTime inicio = LocalDateTime.now();
+		LocalDateTime desde = sincronizadoDesde.minus(MARGEN_SINCRONIZACION);
+		long cursor = 0;
+		List<Paciente2Repository.PacienteIndexable> tanda;
+		do {
+			tanda = pacienteRepository.buscarParaIndiceDesde(desde, cursor, Limit.of(TAMANO_TANDA_CARGA));
+			bloqueo.writeLock().lock();
+			try {
+				for (Paciente2Repository.PacienteIndexable p : tanda) {
+					indexarSinBloqueo(p.getId(), p.getNombres(), p.getApellidos(), p.getDocumento(), p.getTelefono(), p.getEmail());
+					cursor = p.getId();
+				}
+			} finally {
+				bloqueo.writeLock().unlock();
+			}
+		} while (tanda.size() == TAMANO_TANDA_CARGA);
+
+		if (pacienteRepository.count() != tamano()) {
+			Set<Long> existentes = new HashSet<>(pacienteRepository.buscarIds());
+			bloqueo.writeLock().lock();
+			try {
+				List.copyOf(indice.ids()).stream()
+						.filter(id -> !existentes.contains(id))
+						.forEach(indice::quitar);
+			} finally {
+				bloqueo.writeLock().unlock();
+			}
+		}
+		sincronizadoDesde = inicio;
+	}
+
+	private int tamano() {
+		bloqueo.readLock().lock();
+		try {
+			return indice.tamano();
+		} finally {
+			bloqueo.readLock().unlock();
+		}
+	}
+
+	// Teléfono sin espacios: "300 123 4567" se busca como un solo número.
+	// Del email solo se indexa el usuario: dominios como gmail.com los comparten casi todos.
+	private void indexarSinBloqueo(Long id, String nombres, String apellidos, String documento, String telefono, String email) {
+		indice.indexar(id, nombres, apellidos, documento,
+				telefono != null ? telefono.replaceAll("\\s", "") : null, sinDominio(email));
+	}
+
+	private static String sinDominio(String texto) {
+		int arroba = texto != null ? texto.indexOf('@') : -1;
+		return arroba >= 0 ? texto.substring(0, arroba) : texto;
+	}
+}
@@ -0,0 +1,88 @@
+package com.odontologia.odontologia.Impl;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.odontologia.odontologia.Dto.EstadisticaCacheDto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.RolDto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Rol;
+import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.RolRepository;
+import com.odontologia.odontologia.Repository.TipoCitaRepository;
+import com.odontologia.odontologia.Service.CatalogoService;
+
+// Solo depende de repositorios para que cualquier servicio pueda usarlo sin ciclos.
+// Los ids inexistentes lanzan excepción y no quedan en caché.
+@Service
+public class CatalogoServiceImpl implements CatalogoService {
+
+	@Autowired
+	private RolRepository rolRepository;
+
+	@Autowired
+	private TipoCitaRepository tipoCitaRepository;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Override
+	@Cacheable(CACHE_ROLES)
+	public RolDto obtenerRol(Long id) {
+		Rol r = rolRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Rol no encontrado con ID: " + id));
+		return new RolDto(r.getId(), r.getNombre());
+	}
+
+	@Override
+	@Cacheable(CACHE_TIPOS_CITA)
+	public TipoCitaDto obtenerTipoCita(Long id) {
+		TipoCita t = tipoCitaRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Tipo de cita no encontrado con ID: " + id));
+		TipoCitaDto dto = new TipoCitaDto();
+		dto.setId(t.getId());
+		dto.setNombre(t.getNombre());
+		dto.setDescripcion(t.getDescripcion());
+		return dto;
+	}
+
+	@Override
+	@Cacheable(CACHE_ODONTOLOGOS)
+	public OdontologoDto obtenerResumenOdontologo(Long id) {
+		Odontologo o = odontologoRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + id));
+		OdontologoDto dto = new OdontologoDto();
+		dto.setId(o.getId());
+		dto.setNombre(o.getNombre());
+		dto.setApellido(o.getApellido());
+		dto.setMatricula(o.getMatricula());
+		return dto;
+	}
+
+	// Contadores acumulados desde el arranque (Caffeine con recordStats)
+	@Override
+	public List<EstadisticaCacheDto> estadisticas() {
+		return List.of(CACHE_ROLES, CACHE_TIPOS_CITA, CACHE_ODONTOLOGOS).stream()
+				.map(nombre -> {
+					if (!(cacheManager.getCache(nombre) instanceof CaffeineCache cache)) {
+						return new EstadisticaCacheDto(nombre, 0, 0, 0, 0, 0);
+					}
+					CacheStats stats = cache.getNativeCache().stats();
+					return new EstadisticaCacheDto(nombre, cache.getNativeCache().estimatedSize(),
+							stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+				})
+				.toList();
+	}
+}
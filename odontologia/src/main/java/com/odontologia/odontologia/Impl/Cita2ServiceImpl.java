@@ -1,28 +1,58 @@
 package com.odontologia.odontologia.Impl;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.odontologia.odontologia.Dto.CambioEstadoDto;
 import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.EstadoCitaDto;
 import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
 import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
 import com.odontologia.odontologia.Dto.TipoCitaDto;
 import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
 import com.odontologia.odontologia.Entity.Odontologo;
 import com.odontologia.odontologia.Entity.Paciente2;
 import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
 import com.odontologia.odontologia.Repository.Cita2Repository;
 import com.odontologia.odontologia.Repository.OdontologoRepository;
 import com.odontologia.odontologia.Repository.Paciente2Repository;
 import com.odontologia.odontologia.Repository.TipoCitaRepository;
+import com.odontologia.odontologia.Service.BloqueoAgendaService;
+import com.odontologia.odontologia.Service.CatalogoService;
 import com.odontologia.odontologia.Service.Cita2Service;
 
 @Service
 public class Cita2ServiceImpl implements Cita2Service{
 
+	// Tope de citas por petición en lote: todo el lote se valida y se guarda en una transacción
+	private static final int MAX_CITAS_POR_LOTE = 5000;
+
 	@Autowired
 	private Cita2Repository citaRepository;
 
@@ -35,6 +65,18 @@ public class Cita2ServiceImpl implements Cita2Service{
 	@Autowired
 	private TipoCitaRepository tipoCitaRepository;
 
+	@Autowired
+	private BloqueoAgendaService bloqueoAgendaService;
+
+	@Autowired
+	private CatalogoService catalogoService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${odontologia.agenda.minutos-por-espacio:30}")
+	private int minutosPorEspacio;
+
 	@Override
 	public List<Cita2Dto> listarCitas() {
 		List<Cita2> citas = citaRepository.findAll();
@@ -43,29 +85,181 @@ public class Cita2ServiceImpl implements Cita2Service{
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	public List<Cita2Dto> listarCitas(LocalDate desde, LocalDate hasta, Long odontologoId, Long pacienteId, EstadoCitaEnum estado) {
+		if (desde != null && hasta != null && desde.isAfter(hasta)) {
+			throw new RuntimeException("La fecha 'desde' no puede ser posterior a 'hasta'");
+		}
+		List<Cita2> citas = citaRepository.buscarConFiltros(desde, hasta, odontologoId, pacienteId, estado);
+		return citas.stream()
+				.map(this::convertirEntityADto)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public PaginaDto<Cita2Dto> listarCitasPaginado(LocalDate desde, LocalDate hasta, Long odontologoId, Long pacienteId,
+			EstadoCitaEnum estado, Long after, Integer limit) {
+		int limite = PaginaDto.normalizarLimite(limit);
+		List<Cita2> citas = citaRepository.buscarPaginaConFiltros(desde, hasta, odontologoId, pacienteId, estado,
+				PaginaDto.normalizarCursor(after), Limit.of(limite + 1));
+		return PaginaDto.desde(citas, limite, Cita2::getId, this::convertirEntityADto);
+	}
+
 	@Override
 	public Cita2Dto obtenerCitaPorId(Long id) {
-		Cita2 cita = citaRepository.findById(id)
+		Cita2 cita = citaRepository.findConDetallesById(id)
 				.orElseThrow(() -> new RuntimeException("Cita no encontrada con ID: " + id));
 		return convertirEntityADto(cita);
 	}
 
 	@Override
+	public List<Cita2Dto> listarCitasDePaciente(Long pacienteId, LocalDateTime ahora, boolean proximas, int limite) {
+		List<Cita2> citas = proximas
+				? citaRepository.buscarProximasDePaciente(pacienteId, ahora.toLocalDate(), ahora.toLocalTime(), Limit.of(limite))
+				: citaRepository.buscarRecientesDePaciente(pacienteId, ahora.toLocalDate(), ahora.toLocalTime(), Limit.of(limite));
+		return citas.stream()
+				.map(this::convertirEntityADto)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<Cita2Dto> listarCitasDeSerie(Long serieId) {
+		return citaRepository.findBySerieIdOrderByFechaAsc(serieId).stream()
+				.map(this::convertirEntityADto)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	@Transactional
 	public Cita2Dto crearCita(Cita2Dto citaDto) {
 		Cita2 cita = convertirDtoAEntity(citaDto);
-		Cita2 guardada = citaRepository.save(cita);
+		reservarHorario(cita, null);
+		Cita2 guardada = guardarReserva(cita);
+		eventPublisher.publishEvent(CitaCambioEvent.creada(guardada));
 		return convertirEntityADto(guardada);
 	}
 
+	// Crea muchas citas en una transacción (migraciones de agenda, planes de tratamiento).
+	// Las referencias se validan con una consulta por tipo de entidad y los INSERT salen en
+	// lotes JDBC; las entradas inválidas o con choque de horario se informan y no se guardan.
+	@Override
+	@Transactional
+	public ResultadoLoteDto crearCitasEnLote(List<Cita2Dto> citasDto) {
+		if (citasDto == null || citasDto.isEmpty()) {
+			throw new RuntimeException("El lote de citas está vacío");
+		}
+		if (citasDto.size() > MAX_CITAS_POR_LOTE) {
+			throw new RuntimeException("El lote admite como máximo " + MAX_CITAS_POR_LOTE + " citas");
+		}
+
+		String[] errores = new String[citasDto.size()];
+		for (int i = 0; i < citasDto.size(); i++) {
+			errores[i] = validarCitaDeLote(citasDto.get(i));
+		}
+
+		Set<Long> pacientes = existentes(idsReferenciados(citasDto, errores, dto -> dto.getPaciente().getId()),
+				pacienteRepository::buscarIdsExistentes);
+		Set<Long> odontologos = existentes(idsReferenciados(citasDto, errores, dto -> dto.getOdontologo().getId()),
+				odontologoRepository::buscarIdsExistentes);
+		Set<Long> tipos = existentes(idsReferenciados(citasDto, errores, dto -> dto.getTipoCita().getId()),
+				tipoCitaRepository::buscarIdsExistentes);
+
+		List<BloqueoAgendaService.Clave> agendas = new ArrayList<>();
+		for (int i = 0; i < citasDto.size(); i++) {
+			if (errores[i] != null) {
+				continue;
+			}
+			Cita2Dto dto = citasDto.get(i);
+			if (!pacientes.contains(dto.getPaciente().getId())) {
+				errores[i] = "Paciente no encontrado con ID: " + dto.getPaciente().getId();
+			} else if (!odontologos.contains(dto.getOdontologo().getId())) {
+				errores[i] = "Odontólogo no encontrado con ID: " + dto.getOdontologo().getId();
+			} else if (!tipos.contains(dto.getTipoCita().getId())) {
+				errores[i] = "Tipo de cita no encontrado con ID: " + dto.getTipoCita().getId();
+			} else if (dto.getEstado() != EstadoCitaEnum.CANCELADA) {
+				agendas.add(new BloqueoAgendaService.Clave(dto.getOdontologo().getId(), dto.getFecha()));
+			}
+		}
+
+		// Mismo criterio que reservarHorario, pero con un solo bloqueo y una sola consulta de horas
+		// ocupadas para todas las agendas del lote; las citas aceptadas se suman a medida que se revisan
+		AgendaOcupada ocupados = new AgendaOcupada(minutosPorEspacio);
+		if (!agendas.isEmpty()) {
+			bloqueoAgendaService.bloquear(agendas);
+			Set<Long> odontologoIds = agendas.stream().map(BloqueoAgendaService.Clave::odontologoId).collect(Collectors.toSet());
+			LocalDate desde = agendas.stream().map(BloqueoAgendaService.Clave::fecha).min(LocalDate::compareTo).get();
+			LocalDate hasta = agendas.stream().map(BloqueoAgendaService.Clave::fecha).max(LocalDate::compareTo).get();
+			citaRepository.buscarHorariosOcupados(odontologoIds, desde, hasta)
+					.forEach(h -> ocupados.ocupar(h.getOdontologoId(), h.getFecha(), h.getHora(), h.getMinutos()));
+		}
+
+		List<Cita2> nuevas = new ArrayList<>();
+		List<Integer> indices = new ArrayList<>();
+		for (int i = 0; i < citasDto.size(); i++) {
+			if (errores[i] != null) {
+				continue;
+			}
+			Cita2Dto dto = citasDto.get(i);
+			EstadoCitaEnum estado = dto.getEstado() != null ? dto.getEstado() : EstadoCitaEnum.PENDIENTE;
+			if (estado != EstadoCitaEnum.CANCELADA
+					&& !ocupados.reservar(dto.getOdontologo().getId(), dto.getFecha(), dto.getHora())) {
+				errores[i] = AgendaOcupada.mensajeChoque(dto.getFecha(), dto.getHora());
+				continue;
+			}
+
+			// Referencias sin SELECT: los ids ya se comprobaron arriba
+			Cita2 cita = new Cita2();
+			cita.setFecha(dto.getFecha());
+			cita.setHora(dto.getHora());
+			cita.setMinutos(minutosPorEspacio);
+			cita.setEstado(estado);
+			cita.setObservaciones(dto.getObservaciones());
+			cita.setPaciente(pacienteRepository.getReferenceById(dto.getPaciente().getId()));
+			cita.setOdontologo(odontologoRepository.getReferenceById(dto.getOdontologo().getId()));
+			cita.setTipoCita(tipoCitaRepository.getReferenceById(dto.getTipoCita().getId()));
+			nuevas.add(cita);
+			indices.add(i);
+		}
+
+		try {
+			citaRepository.saveAll(nuevas);
+			citaRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			if (!AgendaOcupada.esChoque(e)) {
+				throw e;
+			}
+			throw new RuntimeException("No se pudo guardar el lote: alguno de los horarios fue ocupado por otra reserva", e);
+		}
+		nuevas.forEach(c -> eventPublisher.publishEvent(CitaCambioEvent.creada(c)));
+
+		Long[] ids = new Long[citasDto.size()];
+		for (int j = 0; j < nuevas.size(); j++) {
+			ids[indices.get(j)] = nuevas.get(j).getId();
+		}
+		List<ResultadoLoteDto.Item> resultados = new ArrayList<>(citasDto.size());
+		for (int i = 0; i < citasDto.size(); i++) {
+			resultados.add(new ResultadoLoteDto.Item(i, ids[i], errores[i]));
+		}
+		return new ResultadoLoteDto(nuevas.size(), citasDto.size() - nuevas.size(), resultados);
+	}
+
 	@Override
+	@Transactional
 	public Cita2Dto actualizarCita(Long id, Cita2Dto citaDto) {
-		Cita2 existente = citaRepository.findById(id)
+		Cita2 existente = citaRepository.findConDetallesById(id)
 				.orElseThrow(() -> new RuntimeException("Cita no encontrada con ID: " + id));
+		CitaCambioEvent.DatosCita anterior = CitaCambioEvent.DatosCita.de(existente);
+
+		// El estado sigue las mismas transiciones que el PATCH; si no viene se conserva el actual
+		EstadoCitaEnum nuevoEstado = citaDto.getEstado() != null ? citaDto.getEstado() : existente.getEstado();
+		if (nuevoEstado != existente.getEstado() && !existente.getEstado().puedeCambiarA(nuevoEstado)) {
+			throw new RuntimeException(mensajeTransicion(existente.getEstado(), nuevoEstado));
+		}
 
 		// Actualizar campos simples
 		existente.setFecha(citaDto.getFecha());
 		existente.setHora(citaDto.getHora());
-		existente.setEstado(citaDto.getEstado());
+		existente.setEstado(nuevoEstado);
 		existente.setObservaciones(citaDto.getObservaciones());
 
 		// Actualizar relaciones si vienen en el DTO
@@ -76,27 +270,202 @@ public class Cita2ServiceImpl implements Cita2Service{
 		}
 
 		if (citaDto.getOdontologo() != null && citaDto.getOdontologo().getId() != null) {
-			Odontologo odontologo = odontologoRepository.findById(citaDto.getOdontologo().getId())
-					.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + citaDto.getOdontologo().getId()));
-			existente.setOdontologo(odontologo);
+			existente.setOdontologo(referenciaOdontologo(citaDto.getOdontologo().getId()));
 		}
 
 		if (citaDto.getTipoCita() != null && citaDto.getTipoCita().getId() != null) {
-			TipoCita tipo = tipoCitaRepository.findById(citaDto.getTipoCita().getId())
-					.orElseThrow(() -> new RuntimeException("Tipo de cita no encontrado con ID: " + citaDto.getTipoCita().getId()));
-			existente.setTipoCita(tipo);
+			existente.setTipoCita(referenciaTipoCita(citaDto.getTipoCita().getId()));
 		}
 
-		Cita2 actualizada = citaRepository.save(existente);
+		reservarHorario(existente, anterior);
+		Cita2 actualizada = guardarReserva(existente);
+		eventPublisher.publishEvent(CitaCambioEvent.actualizada(anterior, actualizada));
 		return convertirEntityADto(actualizada);
 	}
 
 	@Override
+	@Transactional
 	public void eliminarCita(Long id) {
-		if (!citaRepository.existsById(id)) {
+		Cita2 existente = citaRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Cita no encontrada con ID: " + id));
+		CitaCambioEvent.DatosCita anterior = CitaCambioEvent.DatosCita.de(existente);
+		citaRepository.delete(existente);
+		eventPublisher.publishEvent(CitaCambioEvent.eliminada(anterior));
+	}
+
+	// Cambio de estado sin recargar la cita: un único UPDATE condicionado al estado actual.
+	// Si no se indica estadoActual se resuelve como un cambio masivo de una sola cita.
+	@Override
+	@Transactional
+	public EstadoCitaDto cambiarEstado(Long id, CambioEstadoDto cambio) {
+		EstadoCitaEnum nuevo = cambio.getEstado();
+		EstadoCitaEnum actual = cambio.getEstadoActual();
+		if (nuevo == null) {
+			throw new RuntimeException("Se requiere el estado nuevo de la cita");
+		}
+		if (actual == null) {
+			EstadoCitaDto resultado = cambiarEstados(List.of(id), null, nuevo).get(0);
+			if (resultado.getError() != null) {
+				throw new RuntimeException(resultado.getError());
+			}
+			return resultado;
+		}
+		if (!actual.puedeCambiarA(nuevo)) {
+			throw new RuntimeException(mensajeTransicion(actual, nuevo));
+		}
+
+		int cambiadas = citaRepository.cambiarEstado(List.of(id), actual, nuevo);
+		// Se lee la posición después del UPDATE: sirve para el evento o para explicar el rechazo
+		List<Cita2Repository.PosicionCita> posicion = citaRepository.buscarPosiciones(List.of(id));
+		if (posicion.isEmpty()) {
 			throw new RuntimeException("Cita no encontrada con ID: " + id);
 		}
-		citaRepository.deleteById(id);
+		if (cambiadas == 0) {
+			throw new RuntimeException("La cita está en estado " + posicion.get(0).getEstado() + ", se esperaba " + actual);
+		}
+		publicarCambioEstado(posicion.get(0), actual, nuevo);
+		return new EstadoCitaDto(id, actual, nuevo, null);
+	}
+
+	// Ronda de confirmaciones: una lectura de estados y un UPDATE por estado de origen
+	@Override
+	@Transactional
+	public List<EstadoCitaDto> cambiarEstados(CambioEstadoDto cambio) {
+		if (cambio.getEstado() == null) {
+			throw new RuntimeException("Se requiere el estado nuevo de las citas");
+		}
+		if (cambio.getIds() == null || cambio.getIds().isEmpty()) {
+			throw new RuntimeException("Se requiere al menos una cita (ids)");
+		}
+		if (cambio.getIds().size() > MAX_CITAS_POR_LOTE) {
+			throw new RuntimeException("El lote admite como máximo " + MAX_CITAS_POR_LOTE + " citas");
+		}
+		if (cambio.getEstadoActual() != null && !cambio.getEstadoActual().puedeCambiarA(cambio.getEstado())) {
+			throw new RuntimeException(mensajeTransicion(cambio.getEstadoActual(), cambio.getEstado()));
+		}
+		return cambiarEstados(cambio.getIds(), cambio.getEstadoActual(), cambio.getEstado());
+	}
+
+	private List<EstadoCitaDto> cambiarEstados(List<Long> idsPedidos, EstadoCitaEnum esperado, EstadoCitaEnum nuevo) {
+		Set<Long> ids = new LinkedHashSet<>(idsPedidos);
+		ids.remove(null);
+		Map<Long, Cita2Repository.PosicionCita> posiciones = new HashMap<>();
+		citaRepository.buscarPosiciones(ids).forEach(p -> posiciones.put(p.getCitaId(), p));
+
+		Map<Long, EstadoCitaDto> resultados = new LinkedHashMap<>();
+		Map<EstadoCitaEnum, List<Long>> porEstado = new EnumMap<>(EstadoCitaEnum.class);
+		for (Long id : ids) {
+			Cita2Repository.PosicionCita p = posiciones.get(id);
+			if (p == null) {
+				resultados.put(id, new EstadoCitaDto(id, null, null, "Cita no encontrada con ID: " + id));
+			} else if (esperado != null && p.getEstado() != esperado) {
+				resultados.put(id, new EstadoCitaDto(id, p.getEstado(), p.getEstado(),
+						"La cita está en estado " + p.getEstado() + ", se esperaba " + esperado));
+			} else if (!p.getEstado().puedeCambiarA(nuevo)) {
+				resultados.put(id, new EstadoCitaDto(id, p.getEstado(), p.getEstado(), mensajeTransicion(p.getEstado(), nuevo)));
+			} else {
+				resultados.put(id, new EstadoCitaDto(id, p.getEstado(), nuevo, null));
+				porEstado.computeIfAbsent(p.getEstado(), e -> new ArrayList<>()).add(id);
+			}
+		}
+
+		porEstado.forEach((actual, grupo) -> {
+			int cambiadas = citaRepository.cambiarEstado(grupo, actual, nuevo);
+			if (cambiadas < grupo.size()) {
+				// Otra petición cambió alguna entre la lectura y el UPDATE: se revisa cuáles
+				Map<Long, EstadoCitaEnum> ahora = new HashMap<>();
+				citaRepository.buscarPosiciones(grupo).forEach(p -> ahora.put(p.getCitaId(), p.getEstado()));
+				grupo.removeIf(id -> {
+					if (ahora.get(id) == nuevo) {
+						return false;
+					}
+					resultados.put(id, new EstadoCitaDto(id, actual, ahora.get(id), "La cita cambió de estado mientras se procesaba"));
+					return true;
+				});
+			}
+			grupo.forEach(id -> publicarCambioEstado(posiciones.get(id), actual, nuevo));
+		});
+		return new ArrayList<>(resultados.values());
+	}
+
+	private void publicarCambioEstado(Cita2Repository.PosicionCita p, EstadoCitaEnum anterior, EstadoCitaEnum nuevo) {
+		CitaCambioEvent.DatosCita datos = new CitaCambioEvent.DatosCita(
+				p.getCitaId(), p.getOdontologoId(), p.getPacienteId(), p.getFecha(), p.getHora(), p.getMinutos(), anterior);
+		eventPublisher.publishEvent(CitaCambioEvent.actualizada(datos, datos.conEstado(nuevo)));
+	}
+
+	private String mensajeTransicion(EstadoCitaEnum actual, EstadoCitaEnum nuevo) {
+		return "Una cita " + actual + " no puede pasar a " + nuevo;
+	}
+
+	// Rechaza la cita si el odontólogo ya tiene otra activa que se solape en ese horario.
+	// La agenda (odontólogo + día) queda bloqueada hasta el commit, así que dos reservas
+	// simultáneas del mismo horario se resuelven en orden aunque lleguen a instancias distintas.
+	// anterior: posición previa de la misma cita cuando se reprograma (no cuenta como choque)
+	private void reservarHorario(Cita2 cita, CitaCambioEvent.DatosCita anterior) {
+		if (cita.getEstado() == EstadoCitaEnum.CANCELADA || cita.getFecha() == null || cita.getHora() == null) {
+			return;
+		}
+		Long odontologoId = cita.getOdontologo().getId();
+		bloqueoAgendaService.bloquear(odontologoId, cita.getFecha());
+
+		// La nueva ocupa la duración vigente del espacio; las guardadas, la suya (ver guardarReserva)
+		int inicio = cita.getHora().toSecondOfDay() / 60;
+		Long excluirId = anterior != null ? anterior.getCitaId() : null;
+		if (citaRepository.existeChoque(odontologoId, cita.getFecha(), inicio, inicio + minutosPorEspacio,
+				minutosPorEspacio, excluirId)) {
+			throw new RuntimeException(AgendaOcupada.mensajeChoque(cita.getFecha(), cita.getHora()));
+		}
+	}
+
+	// El flush inmediato hace que la restricción de horario de PostgreSQL (respaldo del bloqueo)
+	// se valide aquí y no al hacer commit. Las demás violaciones de integridad se propagan tal cual.
+	private Cita2 guardarReserva(Cita2 cita) {
+		// Ocupa la duración vigente del espacio, la misma con que se acaban de comprobar los choques
+		cita.setMinutos(minutosPorEspacio);
+		try {
+			return citaRepository.saveAndFlush(cita);
+		} catch (DataIntegrityViolationException e) {
+			if (!AgendaOcupada.esChoque(e)) {
+				throw e;
+			}
+			throw new RuntimeException(AgendaOcupada.mensajeChoque(cita.getFecha(), cita.getHora()), e);
+		}
+	}
+
+	// Campos obligatorios de una entrada del lote; devuelve el motivo del rechazo o null
+	private String validarCitaDeLote(Cita2Dto dto) {
+		if (dto == null) {
+			return "La entrada está vacía";
+		}
+		if (dto.getPaciente() == null || dto.getPaciente().getId() == null) {
+			return "Se requiere el paciente (id) para crear la cita";
+		}
+		if (dto.getOdontologo() == null || dto.getOdontologo().getId() == null) {
+			return "Se requiere el odontólogo (id) para crear la cita";
+		}
+		if (dto.getTipoCita() == null || dto.getTipoCita().getId() == null) {
+			return "Se requiere el tipo de cita (id) para crear la cita";
+		}
+		if (dto.getFecha() == null || dto.getHora() == null) {
+			return "Se requieren la fecha y la hora de la cita";
+		}
+		return null;
+	}
+
+	// Ids distintos que referencian las entradas que siguen siendo válidas
+	private Set<Long> idsReferenciados(List<Cita2Dto> citasDto, String[] errores, Function<Cita2Dto, Long> id) {
+		Set<Long> ids = new HashSet<>();
+		for (int i = 0; i < citasDto.size(); i++) {
+			if (errores[i] == null) {
+				ids.add(id.apply(citasDto.get(i)));
+			}
+		}
+		return ids;
+	}
+
+	private Set<Long> existentes(Set<Long> ids, Function<Collection<Long>, List<Long>> consulta) {
+		return ids.isEmpty() ? Set.of() : new HashSet<>(consulta.apply(ids));
 	}
 
 	// Conversión Entity -> DTO
@@ -107,6 +476,9 @@ public class Cita2ServiceImpl implements Cita2Service{
 		dto.setHora(cita.getHora());
 		dto.setEstado(cita.getEstado());
 		dto.setObservaciones(cita.getObservaciones());
+		if (cita.getSerie() != null) {
+			dto.setSerieId(cita.getSerie().getId());
+		}
 
 		if (cita.getPaciente() != null) {
 			Paciente2 p = cita.getPaciente();
@@ -119,13 +491,21 @@ public class Cita2ServiceImpl implements Cita2Service{
 			dto.setPaciente(pdto);
 		}
 
+		// Las referencias sin cargar (cita recién creada o reasignada) se completan desde la caché
 		if (cita.getOdontologo() != null) {
 			Odontologo o = cita.getOdontologo();
 			OdontologoDto odto = new OdontologoDto();
 			odto.setId(o.getId());
-			odto.setNombre(o.getNombre());
-			odto.setApellido(o.getApellido());
-			odto.setMatricula(o.getMatricula());
+			if (Hibernate.isInitialized(o)) {
+				odto.setNombre(o.getNombre());
+				odto.setApellido(o.getApellido());
+				odto.setMatricula(o.getMatricula());
+			} else {
+				OdontologoDto resumen = catalogoService.obtenerResumenOdontologo(o.getId());
+				odto.setNombre(resumen.getNombre());
+				odto.setApellido(resumen.getApellido());
+				odto.setMatricula(resumen.getMatricula());
+			}
 			dto.setOdontologo(odto);
 		}
 
@@ -133,8 +513,14 @@ public class Cita2ServiceImpl implements Cita2Service{
 			TipoCita t = cita.getTipoCita();
 			TipoCitaDto tdto = new TipoCitaDto();
 			tdto.setId(t.getId());
-			tdto.setNombre(t.getNombre());
-			tdto.setDescripcion(t.getDescripcion());
+			if (Hibernate.isInitialized(t)) {
+				tdto.setNombre(t.getNombre());
+				tdto.setDescripcion(t.getDescripcion());
+			} else {
+				TipoCitaDto tipo = catalogoService.obtenerTipoCita(t.getId());
+				tdto.setNombre(tipo.getNombre());
+				tdto.setDescripcion(tipo.getDescripcion());
+			}
 			dto.setTipoCita(tdto);
 		}
 
@@ -158,21 +544,29 @@ public class Cita2ServiceImpl implements Cita2Service{
 		}
 
 		if (dto.getOdontologo() != null && dto.getOdontologo().getId() != null) {
-			Odontologo odontologo = odontologoRepository.findById(dto.getOdontologo().getId())
-					.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + dto.getOdontologo().getId()));
-			cita.setOdontologo(odontologo);
+			cita.setOdontologo(referenciaOdontologo(dto.getOdontologo().getId()));
 		} else {
 			throw new RuntimeException("Se requiere el odontólogo (id) para crear la cita");
 		}
 
 		if (dto.getTipoCita() != null && dto.getTipoCita().getId() != null) {
-			TipoCita tipo = tipoCitaRepository.findById(dto.getTipoCita().getId())
-					.orElseThrow(() -> new RuntimeException("Tipo de cita no encontrado con ID: " + dto.getTipoCita().getId()));
-			cita.setTipoCita(tipo);
+			cita.setTipoCita(referenciaTipoCita(dto.getTipoCita().getId()));
 		} else {
 			throw new RuntimeException("Se requiere el tipo de cita (id) para crear la cita");
 		}
 
 		return cita;
 	}
+
+	// Odontólogo y tipo de cita se validan contra la caché de catálogos y se asignan como
+	// referencia: reservar una cita no vuelve a leer esas tablas en cada petición
+	private Odontologo referenciaOdontologo(Long id) {
+		catalogoService.obtenerResumenOdontologo(id);
+		return odontologoRepository.getReferenceById(id);
+	}
+
+	private TipoCita referenciaTipoCita(Long id) {
+		catalogoService.obtenerTipoCita(id);
+		return tipoCitaRepository.getReferenceById(id);
+	}
 }
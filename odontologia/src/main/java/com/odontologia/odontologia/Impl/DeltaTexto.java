@@ -0,0 +1,153 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+// Codificación compacta de las revisiones de un grupo de campos de texto. Una copia completa
+// guarda cada campo; una diferencia guarda, por campo, si no cambió, si quedó vacío o qué tramo
+// se reemplazó (largo del prefijo y del sufijo comunes más el texto nuevo del medio). Las
+// ediciones habituales (agregar una línea, corregir una palabra) ocupan unos pocos bytes.
+class DeltaTexto {
+
+	private static final int NULO = 0;
+	private static final int TEXTO = 1;
+	private static final int IGUAL = 2;
+	private static final int TRAMO = 3;
+
+	private DeltaTexto() {
+	}
+
+	static byte[] completa(String[] campos) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream salida = new DataOutputStream(bytes)) {
+			for (String campo : campos) {
+				escribirTexto(salida, campo);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static byte[] diferencia(String[] antes, String[] despues) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream salida = new DataOutputStream(bytes)) {
+			for (int i = 0; i < despues.length; i++) {
+				String a = antes[i];
+				String d = despues[i];
+				if (Objects.equals(a, d)) {
+					salida.writeByte(IGUAL);
+				} else if (a == null || d == null) {
+					escribirTexto(salida, d);
+				} else {
+					escribirTramo(salida, a, d);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	// Aplica una copia completa (base se ignora) o una diferencia sobre la versión anterior
+	static String[] aplicar(String[] base, byte[] contenido) {
+		String[] resultado = new String[base.length];
+		try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido))) {
+			for (int i = 0; i < resultado.length; i++) {
+				int tipo = entrada.readUnsignedByte();
+				resultado[i] = switch (tipo) {
+					case NULO -> null;
+					case TEXTO -> leerCadena(entrada);
+					case IGUAL -> base[i];
+					case TRAMO -> {
+						int prefijo = leerEntero(entrada);
+						int sufijo = leerEntero(entrada);
+						String medio = leerCadena(entrada);
+						yield base[i].substring(0, prefijo) + medio + base[i].substring(base[i].length() - sufijo);
+					}
+					default -> throw new IllegalStateException("Revisión de historia clínica corrupta: tipo " + tipo);
+				};
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return resultado;
+	}
+
+	private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+		if (texto == null) {
+			salida.writeByte(NULO);
+		} else {
+			salida.writeByte(TEXTO);
+			escribirCadena(salida, texto);
+		}
+	}
+
+	// Si el tramo cambiado es casi todo el texto, el texto completo ocupa lo mismo y es más simple
+	private static void escribirTramo(DataOutputStream salida, String antes, String despues) throws IOException {
+		int maximo = Math.min(antes.length(), despues.length());
+		int prefijo = 0;
+		while (prefijo < maximo && antes.charAt(prefijo) == despues.charAt(prefijo)) {
+			prefijo++;
+		}
+		int sufijo = 0;
+		while (sufijo < maximo - prefijo
+				&& antes.charAt(antes.length() - 1 - sufijo) == despues.charAt(despues.length() - 1 - sufijo)) {
+			sufijo++;
+		}
+		// Sin cortar un par sustituto (emoji, etc.): el tramo se guarda en UTF-8
+		if (prefijo > 0 && Character.isHighSurrogate(despues.charAt(prefijo - 1))) {
+			prefijo--;
+		}
+		if (sufijo > 0 && Character.isLowSurrogate(despues.charAt(despues.length() - sufijo))) {
+			sufijo--;
+		}
+		if (prefijo + sufijo < 8) {
+			escribirTexto(salida, despues);
+			return;
+		}
+		salida.writeByte(TRAMO);
+		escribirEntero(salida, prefijo);
+		escribirEntero(salida, sufijo);
+		escribirCadena(salida, despues.substring(prefijo, despues.length() - sufijo));
+	}
+
+	// UTF-8 precedido de su largo: las notas clínicas no tienen límite (writeUTF corta en 64 KB)
+	private static void escribirCadena(DataOutputStream salida, String texto) throws IOException {
+		byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+		escribirEntero(salida, utf8.length);
+		salida.write(utf8);
+	}
+
+	private static String leerCadena(DataInputStream entrada) throws IOException {
+		byte[] utf8 = new byte[leerEntero(entrada)];
+		entrada.readFully(utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	// Entero sin signo en 7 bits por byte: los largos habituales ocupan uno o dos bytes
+	private static void escribirEntero(DataOutputStream salida, int valor) throws IOException {
+		while ((valor & ~0x7F) != 0) {
+			salida.writeByte((valor & 0x7F) | 0x80);
+			valor >>>= 7;
+		}
+		salida.writeByte(valor);
+	}
+
+	private static int leerEntero(DataInputStream entrada) throws IOException {
+		int valor = 0;
+		for (int desplazamiento = 0;; desplazamiento += 7) {
+			int b = entrada.readUnsignedByte();
+			valor |= (b & 0x7F) << desplazamiento;
+			if ((b & 0x80) == 0) {
+				return valor;
+			}
+		}
+	}
+}
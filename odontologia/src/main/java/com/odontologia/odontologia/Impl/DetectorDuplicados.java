@@ -0,0 +1,253 @@
+package com.odontologia.odontologia.Impl;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Búsqueda de pacientes duplicados sin comparar todos contra todos. Cada paciente se ubica en
+// unos pocos bloques (documento normalizado, nombre fonético + año de nacimiento, fecha +
+// teléfono, email) y solo se comparan los pares que comparten bloque. Los bloques demasiado
+// grandes (un teléfono de recepción, un nombre muy común) no distinguen a nadie y se descartan,
+// así el trabajo queda cerca de lineal en la cantidad de pacientes.
+class DetectorDuplicados {
+
+	static final int MAXIMO_POR_BLOQUE = 50;
+
+	// Pesos del puntaje: suman más de 1 a propósito, el puntaje se recorta en 1
+	private static final double PESO_DOCUMENTO = 0.4;
+	private static final double PESO_NOMBRE = 0.3;
+	private static final double PESO_NOMBRE_FONETICO = 0.25;
+	private static final double PESO_FECHA = 0.2;
+	private static final double PESO_TELEFONO = 0.1;
+	private static final double PESO_EMAIL = 0.1;
+
+	record Registro(long id, String nombres, String apellidos, String tipoDocumento, String documento,
+			LocalDate fechaNacimiento, String telefono, String email) {
+	}
+
+	record Candidato(Registro registro, Registro otro, double puntaje, List<String> coincidencias) {
+	}
+
+	// Datos ya normalizados de un registro: se calculan una vez y se comparan muchas
+	private record Claves(String documento, String nombre, String fonetica, String foneticaApellidos,
+			LocalDate fecha, String telefono, String email) {
+	}
+
+	private final List<Registro> registros = new ArrayList<>();
+	private final List<Claves> claves = new ArrayList<>();
+
+	void agregar(Registro registro) {
+		registros.add(registro);
+		claves.add(claves(registro));
+	}
+
+	List<Candidato> candidatos(double puntajeMinimo) {
+		Map<String, List<Integer>> bloques = new HashMap<>();
+		for (int i = 0; i < claves.size(); i++) {
+			for (String bloque : bloques(claves.get(i))) {
+				bloques.computeIfAbsent(bloque, k -> new ArrayList<>(2)).add(i);
+			}
+		}
+
+		long n = registros.size();
+		Set<Long> comparados = new HashSet<>();
+		List<Candidato> candidatos = new ArrayList<>();
+		for (List<Integer> bloque : bloques.values()) {
+			if (bloque.size() < 2 || bloque.size() > MAXIMO_POR_BLOQUE) {
+				continue;
+			}
+			for (int a = 0; a < bloque.size(); a++) {
+				for (int b = a + 1; b < bloque.size(); b++) {
+					int i = bloque.get(a);
+					int j = bloque.get(b);
+					// El mismo par puede compartir varios bloques: se puntúa una sola vez
+					if (!comparados.add(i * n + j)) {
+						continue;
+					}
+					List<String> coincidencias = new ArrayList<>(5);
+					double puntaje = puntuar(claves.get(i), claves.get(j), coincidencias);
+					if (puntaje >= puntajeMinimo) {
+						candidatos.add(new Candidato(registros.get(i), registros.get(j), puntaje, coincidencias));
+					}
+				}
+			}
+		}
+		candidatos.sort(Comparator.comparingDouble(Candidato::puntaje).reversed()
+				.thenComparingLong(c -> c.registro().id())
+				.thenComparingLong(c -> c.otro().id()));
+		return candidatos;
+	}
+
+	private static List<String> bloques(Claves c) {
+		List<String> bloques = new ArrayList<>(4);
+		if (c.documento() != null && c.documento().length() >= 4) {
+			bloques.add("D" + c.documento());
+		}
+		if (c.fecha() != null) {
+			if (!c.fonetica().isEmpty()) {
+				bloques.add("N" + c.fonetica() + "|" + c.fecha().getYear());
+			}
+			if (!c.foneticaApellidos().isEmpty()) {
+				bloques.add("A" + c.foneticaApellidos() + "|" + c.fecha());
+			}
+			if (c.telefono() != null) {
+				bloques.add("T" + c.telefono() + "|" + c.fecha());
+			}
+		}
+		if (c.email() != null) {
+			bloques.add("E" + c.email());
+		}
+		return bloques;
+	}
+
+	private static double puntuar(Claves a, Claves b, List<String> coincidencias) {
+		double puntaje = 0;
+		if (a.documento() != null && a.documento().equals(b.documento())) {
+			puntaje += PESO_DOCUMENTO;
+			coincidencias.add("documento");
+		}
+		if (!a.nombre().isEmpty() && a.nombre().equals(b.nombre())) {
+			puntaje += PESO_NOMBRE;
+			coincidencias.add("nombre");
+		} else if (!a.fonetica().isEmpty() && a.fonetica().equals(b.fonetica())) {
+			puntaje += PESO_NOMBRE_FONETICO;
+			coincidencias.add("nombre parecido");
+		}
+		if (a.fecha() != null && a.fecha().equals(b.fecha())) {
+			puntaje += PESO_FECHA;
+			coincidencias.add("fecha de nacimiento");
+		}
+		if (a.telefono() != null && a.telefono().equals(b.telefono())) {
+			puntaje += PESO_TELEFONO;
+			coincidencias.add("teléfono");
+		}
+		if (a.email() != null && a.email().equals(b.email())) {
+			puntaje += PESO_EMAIL;
+			coincidencias.add("email");
+		}
+		return Math.min(1.0, Math.round(puntaje * 100) / 100.0);
+	}
+
+	private static Claves claves(Registro r) {
+		String[] nombres = palabras(r.nombres());
+		String[] apellidos = palabras(r.apellidos());
+		// Nombre completo con las palabras ordenadas: tolera nombres y apellidos cargados al revés
+		String[] todas = new String[nombres.length + apellidos.length];
+		System.arraycopy(nombres, 0, todas, 0, nombres.length);
+		System.arraycopy(apellidos, 0, todas, nombres.length, apellidos.length);
+		Arrays.sort(todas);
+		String nombre = String.join(" ", todas);
+
+		String fonetica = nombres.length > 0 && apellidos.length > 0
+				? fonetica(nombres[0]) + " " + fonetica(apellidos[0])
+				: "";
+		StringBuilder foneticaApellidos = new StringBuilder();
+		for (String apellido : apellidos) {
+			foneticaApellidos.append(fonetica(apellido)).append(' ');
+		}
+
+		String email = r.email() != null && !r.email().isBlank() ? r.email().strip().toLowerCase() : null;
+		return new Claves(documento(r.documento()), nombre, fonetica, foneticaApellidos.toString().strip(),
+				r.fechaNacimiento(), telefono(r.telefono()), email);
+	}
+
+	// Sin tildes, en mayúsculas y solo letras
+	static String[] palabras(String texto) {
+		if (texto == null) {
+			return new String[0];
+		}
+		String limpio = Normalizer.normalize(texto, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.toUpperCase()
+				.replaceAll("[^A-Z]+", " ")
+				.strip();
+		return limpio.isEmpty() ? new String[0] : limpio.split(" ");
+	}
+
+	// Documento sin tipo, separadores ni ceros a la izquierda: "CC 001.234" y "TI 1234" coinciden
+	static String documento(String documento) {
+		if (documento == null) {
+			return null;
+		}
+		String limpio = documento.toUpperCase().replaceAll("[^A-Z0-9]", "").replaceFirst("^0+", "");
+		return limpio.isEmpty() ? null : limpio;
+	}
+
+	// Últimos 7 dígitos: ignora indicativos de país o de zona
+	static String telefono(String telefono) {
+		if (telefono == null) {
+			return null;
+		}
+		String digitos = telefono.replaceAll("[^0-9]", "");
+		return digitos.length() >= 7 ? digitos.substring(digitos.length() - 7) : null;
+	}
+
+	// Clave fonética para nombres en español: une las letras que suenan igual (B/V, S/Z/C suave,
+	// K/C fuerte/QU, J/G suave, Y/LL), quita la H muda y las letras repetidas
+	static String fonetica(String palabra) {
+		StringBuilder clave = new StringBuilder(palabra.length());
+		for (int i = 0; i < palabra.length(); i++) {
+			char c = palabra.charAt(i);
+			char siguiente = i + 1 < palabra.length() ? palabra.charAt(i + 1) : ' ';
+			char sonido;
+			switch (c) {
+				case 'H' -> {
+					continue;
+				}
+				case 'C' -> {
+					if (siguiente == 'H') {
+						sonido = 'C';
+						i++;
+					} else {
+						sonido = siguiente == 'E' || siguiente == 'I' ? 'S' : 'K';
+					}
+				}
+				case 'Q' -> {
+					sonido = 'K';
+					if (siguiente == 'U') {
+						i++;
+					}
+				}
+				case 'G' -> {
+					if (siguiente == 'E' || siguiente == 'I') {
+						sonido = 'J';
+					} else {
+						sonido = 'G';
+						// "GUE", "GUI": la U no suena
+						if (siguiente == 'U' && i + 2 < palabra.length()
+								&& (palabra.charAt(i + 2) == 'E' || palabra.charAt(i + 2) == 'I')) {
+							i++;
+						}
+					}
+				}
+				case 'L' -> {
+					if (siguiente == 'L') {
+						sonido = 'Y';
+						i++;
+					} else {
+						sonido = 'L';
+					}
+				}
+				case 'Y' -> sonido = esVocal(siguiente) ? 'Y' : 'I';
+				case 'V', 'W' -> sonido = 'B';
+				case 'Z' -> sonido = 'S';
+				default -> sonido = c;
+			}
+			if (clave.isEmpty() || clave.charAt(clave.length() - 1) != sonido) {
+				clave.append(sonido);
+			}
+		}
+		return clave.toString();
+	}
+
+	private static boolean esVocal(char c) {
+		return c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U';
+	}
+}
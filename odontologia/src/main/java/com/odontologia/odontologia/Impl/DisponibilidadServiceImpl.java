@@ -0,0 +1,327 @@
+package com.odontologia.odontologia.Impl;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.odontologia.odontologia.Dto.DisponibilidadDto;
+import com.odontologia.odontologia.Dto.EspacioLibreDto;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Service.DisponibilidadService;
+
+import jakarta.annotation.PostConstruct;
+
+// Índice en memoria de la agenda de cada odontólogo.
+// Cada día se representa como un mapa de bits de espacios de duración fija: uno con el
+// horario laboral (por día de la semana, sale del HorarioCompilado; las fechas con excepción
+// se calculan aparte) y otro con los espacios ocupados por citas activas. Los días ocupados se cargan bajo demanda
+// con una consulta por rango sobre idx_citas_odontologo_fecha_hora y luego se mantienen
+// con los eventos de Cita2ServiceImpl, así que las consultas repetidas no tocan la base.
+// Los eventos solo llegan desde esta instancia: cada agenda se descarta al cumplir
+// odontologia.agenda.vigencia-segundos, para que las reservas hechas en otras instancias
+// (y los cambios de horario) se vean a más tardar en ese plazo.
+@Service
+public class DisponibilidadServiceImpl implements DisponibilidadService {
+
+	private static final int MAX_DIAS_CONSULTA = 92;
+	private static final int MAX_DIAS_BUSQUEDA = 180;
+	// Por encima de este número de días cargados se descartan los días ya pasados
+	private static final int MAX_DIAS_EN_MEMORIA = 400;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	@Value("${odontologia.agenda.minutos-por-espacio:30}")
+	private int minutosPorEspacio;
+
+	@Value("${odontologia.agenda.vigencia-segundos:60}")
+	private long vigenciaSegundos;
+
+	private int espaciosPorDia;
+	private int palabrasPorDia;
+
+	private final ConcurrentHashMap<Long, AgendaOdontologo> agendas = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void inicializar() {
+		if (minutosPorEspacio < 5 || 1440 % minutosPorEspacio != 0) {
+			throw new IllegalStateException("odontologia.agenda.minutos-por-espacio debe dividir el día en espacios iguales de al menos 5 minutos");
+		}
+		espaciosPorDia = 1440 / minutosPorEspacio;
+		palabrasPorDia = (espaciosPorDia + 63) / 64;
+	}
+
+	@Override
+	public List<DisponibilidadDto> consultarDisponibilidad(Long odontologoId, LocalDate desde, LocalDate hasta) {
+		LocalDate inicio = desde != null ? desde : LocalDate.now();
+		LocalDate fin = hasta != null ? hasta : inicio.plusDays(6);
+		if (inicio.isAfter(fin)) {
+			throw new RuntimeException("La fecha 'desde' no puede ser posterior a 'hasta'");
+		}
+		if (ChronoUnit.DAYS.between(inicio, fin) >= MAX_DIAS_CONSULTA) {
+			throw new RuntimeException("El rango de disponibilidad no puede superar " + MAX_DIAS_CONSULTA + " días");
+		}
+
+		AgendaOdontologo agenda = obtenerAgenda(odontologoId);
+		long[][] ocupados = ocupacion(odontologoId, agenda, inicio, fin);
+		LocalDateTime ahora = LocalDateTime.now();
+
+		List<DisponibilidadDto> resultado = new ArrayList<>(ocupados.length);
+		for (int i = 0; i < ocupados.length; i++) {
+			LocalDate fecha = inicio.plusDays(i);
+			long[] libres = libres(agenda, fecha, ocupados[i]);
+			List<LocalTime> horas = new ArrayList<>();
+			for (int espacio = siguienteEspacio(libres, 0); espacio >= 0; espacio = siguienteEspacio(libres, espacio + 1)) {
+				LocalTime hora = horaDeEspacio(espacio);
+				if (!LocalDateTime.of(fecha, hora).isBefore(ahora)) {
+					horas.add(hora);
+				}
+			}
+			resultado.add(new DisponibilidadDto(fecha, horas));
+		}
+		return resultado;
+	}
+
+	@Override
+	public EspacioLibreDto buscarProximoEspacioLibre(Long odontologoId, LocalDateTime desde) {
+		LocalDateTime inicio = desde != null ? desde : LocalDateTime.now();
+		AgendaOdontologo agenda = obtenerAgenda(odontologoId);
+
+		// Se recorre la agenda por bloques de un mes para cargar los días con pocas consultas
+		for (int offset = 0; offset < MAX_DIAS_BUSQUEDA; offset += 31) {
+			LocalDate bloqueInicio = inicio.toLocalDate().plusDays(offset);
+			LocalDate bloqueFin = bloqueInicio.plusDays(30);
+			long[][] ocupados = ocupacion(odontologoId, agenda, bloqueInicio, bloqueFin);
+			for (int i = 0; i < ocupados.length; i++) {
+				LocalDate fecha = bloqueInicio.plusDays(i);
+				long[] libres = libres(agenda, fecha, ocupados[i]);
+				int primero = fecha.equals(inicio.toLocalDate()) ? espacioDesde(inicio.toLocalTime()) : 0;
+				int espacio = siguienteEspacio(libres, primero);
+				if (espacio >= 0) {
+					return new EspacioLibreDto(odontologoId, fecha, horaDeEspacio(espacio));
+				}
+			}
+		}
+		throw new RuntimeException("No hay espacios libres para el odontólogo con ID " + odontologoId
+				+ " en los próximos " + MAX_DIAS_BUSQUEDA + " días");
+	}
+
+	@Override
+	public boolean estaTrabajando(Long odontologoId, LocalDateTime instante) {
+		if (instante == null) {
+			throw new RuntimeException("El instante es obligatorio");
+		}
+		return obtenerAgenda(odontologoId).horario.trabaja(instante);
+	}
+
+	@Override
+	public long minutosTrabajados(Long odontologoId, LocalDateTime desde, LocalDateTime hasta) {
+		if (desde == null || hasta == null || hasta.isBefore(desde)) {
+			throw new RuntimeException("Se necesitan 'desde' y 'hasta', con 'hasta' no anterior a 'desde'");
+		}
+		return obtenerAgenda(odontologoId).horario.minutosEntre(desde, hasta);
+	}
+
+	@Override
+	public void invalidarOdontologo(Long odontologoId) {
+		agendas.remove(odontologoId);
+	}
+
+	// Se aplica después del commit: una transacción revertida no deja huella en el índice
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCitaCambio(CitaCambioEvent evento) {
+		aplicar(evento.getAnterior(), false);
+		aplicar(evento.getActual(), true);
+	}
+
+	private void aplicar(CitaCambioEvent.DatosCita datos, boolean ocupar) {
+		if (datos == null || !datos.ocupaAgenda() || datos.getOdontologoId() == null) {
+			return;
+		}
+		AgendaOdontologo agenda = agendas.get(datos.getOdontologoId());
+		if (agenda == null) {
+			return; // se cargará desde la base cuando se consulte
+		}
+		synchronized (agenda) {
+			agenda.version++;
+			if (!ocupar) {
+				// Dos citas fuera de la grilla pueden compartir un espacio (10:15 y 10:45 ocupan las 10:30):
+				// al liberar no se sabe si otra lo sigue ocupando, así que el día se vuelve a leer de la base
+				agenda.ocupados.remove(datos.getFecha());
+				return;
+			}
+			long[] bits = agenda.ocupados.get(datos.getFecha());
+			if (bits != null) {
+				marcar(bits, datos.getHora(), datos.getMinutos());
+			}
+		}
+	}
+
+	private AgendaOdontologo obtenerAgenda(Long odontologoId) {
+		AgendaOdontologo agenda = agendas.get(odontologoId);
+		if (agenda != null) {
+			if (System.nanoTime() - agenda.creada < vigenciaSegundos * 1_000_000_000L) {
+				return agenda;
+			}
+			agendas.remove(odontologoId, agenda);
+		}
+		Odontologo o = odontologoRepository.findConHorarioById(odontologoId)
+				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + odontologoId));
+		HorarioCompilado horario = HorarioCompilado.de(o);
+		long[][] laborables = new long[7][];
+		for (DayOfWeek dia : DayOfWeek.values()) {
+			laborables[dia.getValue() - 1] = laborables(horario.tramos(dia));
+		}
+		AgendaOdontologo nueva = new AgendaOdontologo(horario, laborables);
+		AgendaOdontologo previa = agendas.putIfAbsent(odontologoId, nueva);
+		return previa != null ? previa : nueva;
+	}
+
+	// Devuelve una copia de los espacios ocupados de cada día del rango, cargando de la base
+	// (en una sola consulta) los días que todavía no están en memoria.
+	private long[][] ocupacion(Long odontologoId, AgendaOdontologo agenda, LocalDate desde, LocalDate hasta) {
+		int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+		long[][] resultado = new long[dias][];
+		LocalDate primeraFaltante = null;
+		LocalDate ultimaFaltante = null;
+		long version;
+		synchronized (agenda) {
+			for (int i = 0; i < dias; i++) {
+				LocalDate fecha = desde.plusDays(i);
+				long[] bits = agenda.ocupados.get(fecha);
+				if (bits != null) {
+					resultado[i] = bits.clone();
+				} else {
+					if (primeraFaltante == null) {
+						primeraFaltante = fecha;
+					}
+					ultimaFaltante = fecha;
+				}
+			}
+			version = agenda.version;
+		}
+		if (primeraFaltante == null) {
+			return resultado;
+		}
+
+		Map<LocalDate, long[]> cargados = new HashMap<>();
+		for (LocalDate f = primeraFaltante; !f.isAfter(ultimaFaltante); f = f.plusDays(1)) {
+			cargados.put(f, new long[palabrasPorDia]);
+		}
+		for (Cita2Repository.HorarioOcupado h : citaRepository.buscarHorariosOcupados(odontologoId, primeraFaltante, ultimaFaltante)) {
+			long[] bits = cargados.get(h.getFecha());
+			if (bits != null) {
+				marcar(bits, h.getHora(), h.getMinutos());
+			}
+		}
+
+		synchronized (agenda) {
+			// Si llegó un cambio mientras se consultaba, lo cargado puede estar desactualizado:
+			// se usa para esta respuesta pero no se guarda.
+			if (agenda.version == version) {
+				if (agenda.ocupados.size() + cargados.size() > MAX_DIAS_EN_MEMORIA) {
+					LocalDate hoy = LocalDate.now();
+					agenda.ocupados.keySet().removeIf(f -> f.isBefore(hoy));
+				}
+				cargados.forEach((f, bits) -> agenda.ocupados.putIfAbsent(f, bits.clone()));
+			}
+		}
+		for (int i = 0; i < dias; i++) {
+			if (resultado[i] == null) {
+				resultado[i] = cargados.get(desde.plusDays(i));
+			}
+		}
+		return resultado;
+	}
+
+	private long[] libres(AgendaOdontologo agenda, LocalDate fecha, long[] ocupados) {
+		long[] laborables = agenda.horario.esExcepcion(fecha)
+				? laborables(agenda.horario.tramos(fecha))
+				: agenda.laborables[fecha.getDayOfWeek().getValue() - 1];
+		long[] libres = new long[palabrasPorDia];
+		for (int i = 0; i < palabrasPorDia; i++) {
+			libres[i] = laborables[i] & ~ocupados[i];
+		}
+		return libres;
+	}
+
+	// Una cita ocupa los espacios que tocan sus minutos desde su hora (los guardados al reservarla,
+	// como en Cita2Repository.existeChoque; si no los tiene, un espacio completo). Si no está
+	// alineada ocupa también el espacio que empieza antes de ella
+	private void marcar(long[] bits, LocalTime hora, Integer minutos) {
+		int minuto = hora.getHour() * 60 + hora.getMinute();
+		int duracion = minutos != null ? minutos : minutosPorEspacio;
+		int primero = minuto / minutosPorEspacio;
+		int ultimo = Math.min((minuto + duracion - 1) / minutosPorEspacio, espaciosPorDia - 1);
+		for (int espacio = primero; espacio <= ultimo; espacio++) {
+			bits[espacio >>> 6] |= 1L << espacio;
+		}
+	}
+
+	private int siguienteEspacio(long[] bits, int desde) {
+		for (int palabra = desde >>> 6; palabra < bits.length; palabra++) {
+			long valor = bits[palabra];
+			if (palabra == desde >>> 6) {
+				valor &= -1L << desde;
+			}
+			if (valor != 0) {
+				int espacio = (palabra << 6) + Long.numberOfTrailingZeros(valor);
+				return espacio < espaciosPorDia ? espacio : -1;
+			}
+		}
+		return -1;
+	}
+
+	private int espacioDesde(LocalTime hora) {
+		int minuto = hora.getHour() * 60 + hora.getMinute();
+		return (minuto + minutosPorEspacio - 1) / minutosPorEspacio;
+	}
+
+	private LocalTime horaDeEspacio(int espacio) {
+		return LocalTime.MIDNIGHT.plusMinutes((long) espacio * minutosPorEspacio);
+	}
+
+	// Espacios que caben enteros dentro de algún tramo de trabajo ([inicio, fin, inicio, fin...] en minutos)
+	private long[] laborables(int[] tramos) {
+		long[] dia = new long[palabrasPorDia];
+		for (int t = 0; t < tramos.length; t += 2) {
+			int primero = (tramos[t] + minutosPorEspacio - 1) / minutosPorEspacio;
+			int ultimo = tramos[t + 1] / minutosPorEspacio - 1;
+			for (int espacio = primero; espacio <= ultimo; espacio++) {
+				dia[espacio >>> 6] |= 1L << espacio;
+			}
+		}
+		return dia;
+	}
+
+	private static final class AgendaOdontologo {
+		private final long creada = System.nanoTime();
+		private final HorarioCompilado horario;
+		private final long[][] laborables; // índice 0 = lunes
+		private final Map<LocalDate, long[]> ocupados = new HashMap<>(); // protegido por this
+		private long version; // protegido por this
+
+		private AgendaOdontologo(HorarioCompilado horario, long[][] laborables) {
+			this.horario = horario;
+			this.laborables = laborables;
+		}
+	}
+}
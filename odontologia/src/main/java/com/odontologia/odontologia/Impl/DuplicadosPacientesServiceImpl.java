@@ -0,0 +1,165 @@
+package com.odontologia.odontologia.Impl;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.DuplicadoPacienteDto;
+import com.odontologia.odontologia.Dto.FusionPacientesDto;
+import com.odontologia.odontologia.Dto.PacienteResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.AdjuntoHistoriaRepository;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.EventoOdontogramaRepository;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Repository.OdontogramaRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.SerieCitaRepository;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+import com.odontologia.odontologia.Service.BusquedaPacientesService;
+import com.odontologia.odontologia.Service.DuplicadosPacientesService;
+import com.odontologia.odontologia.Service.HistoriaClinicaService;
+
+import jakarta.persistence.EntityManager;
+
+@Service
+public class DuplicadosPacientesServiceImpl implements DuplicadosPacientesService {
+
+	private static final double PUNTAJE_MINIMO_POR_DEFECTO = 0.6;
+
+	@Autowired
+	private Paciente2Repository paciente2Repository;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private SerieCitaRepository serieCitaRepository;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private HistoriaClinicaService historiaClinicaService;
+
+	@Autowired
+	private AdjuntoHistoriaRepository adjuntoHistoriaRepository;
+
+	@Autowired
+	private OdontogramaRepository odontogramaRepository;
+
+	@Autowired
+	private EventoOdontogramaRepository eventoOdontogramaRepository;
+
+	@Autowired
+	private BusquedaPacientesService busquedaPacientesService;
+
+	@Autowired
+	private AgendaDiaService agendaDiaService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	// Recorre los pacientes una vez (proyección por cursor) y deja que el detector compare solo
+	// los pares que comparten alguna clave de bloqueo
+	@Override
+	@Transactional(readOnly = true)
+	public List<DuplicadoPacienteDto> buscarDuplicados(Double puntajeMinimo, Integer limit) {
+		double minimo = puntajeMinimo != null ? puntajeMinimo : PUNTAJE_MINIMO_POR_DEFECTO;
+		DetectorDuplicados detector = new DetectorDuplicados();
+		try (Stream<Paciente2Repository.PacienteExportable> pacientes = paciente2Repository.exportar()) {
+			pacientes.forEach(p -> detector.agregar(new DetectorDuplicados.Registro(p.getId(), p.getNombres(),
+					p.getApellidos(), p.getTipoDocumento(), p.getDocumento(), p.getFechaNacimiento(), p.getTelefono(),
+					p.getEmail())));
+		}
+		return detector.candidatos(minimo).stream()
+				.limit(PaginaDto.normalizarLimite(limit))
+				.map(c -> new DuplicadoPacienteDto(resumen(c.registro()), resumen(c.otro()), c.puntaje(), c.coincidencias()))
+				.toList();
+	}
+
+	// Citas, series e historia se mueven con UPDATE masivos (uno por tabla, sin importar cuántas
+	// filas tenga el duplicado) y el duplicado se borra directamente. El sobreviviente conserva sus
+	// datos y solo completa los vacíos con los del duplicado.
+	@Override
+	@Transactional
+	public FusionPacientesDto fusionar(Long sobrevivienteId, Long duplicadoId) {
+		if (Objects.equals(sobrevivienteId, duplicadoId)) {
+			throw new RuntimeException("No se puede fusionar un paciente consigo mismo");
+		}
+		Paciente2 sobreviviente = paciente2Repository.findById(sobrevivienteId)
+				.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + sobrevivienteId));
+		// Con los campos de texto cargados: después del clear() ya no se pueden leer
+		Paciente2 duplicado = paciente2Repository.findConHistoriaById(duplicadoId)
+				.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + duplicadoId));
+		HistoriaClinica historiaSobreviviente = sobreviviente.getHistoriaClinica();
+		HistoriaClinica historiaDuplicado = duplicado.getHistoriaClinica();
+
+		// Los UPDATE masivos no pasan por el contexto de persistencia: se suelta para no dejar copias viejas
+		entityManager.flush();
+		entityManager.clear();
+
+		FusionPacientesDto resultado = new FusionPacientesDto(sobrevivienteId, duplicadoId, 0, 0, false, false);
+		resultado.setCitasReasignadas(citaRepository.reasignarPaciente(sobreviviente, duplicado));
+		resultado.setSeriesReasignadas(serieCitaRepository.reasignarPaciente(sobreviviente, duplicado));
+		if (historiaDuplicado != null) {
+			if (historiaSobreviviente == null) {
+				historiaClinicaRepository.reasignarPaciente(sobreviviente, duplicado);
+				resultado.setHistoriaReasignada(true);
+			} else {
+				citaRepository.reasignarHistoria(historiaSobreviviente, historiaDuplicado);
+				adjuntoHistoriaRepository.reasignarHistoria(historiaSobreviviente.getId(), historiaDuplicado.getId());
+				historiaClinicaRepository.eliminarPorId(historiaDuplicado.getId());
+				resultado.setHistoriaCombinada(true);
+			}
+		}
+		// El odontograma pasa solo si el sobreviviente no tiene uno: dos historias de eventos no se
+		// pueden intercalar, y el del duplicado queda conservado con su id como el resto del registro
+		if (odontogramaRepository.reasignarPaciente(sobrevivienteId, duplicadoId) > 0) {
+			eventoOdontogramaRepository.reasignarPaciente(sobrevivienteId, duplicadoId);
+		}
+		// Antes de completar el email del sobreviviente: es único
+		paciente2Repository.eliminarPorId(duplicadoId);
+
+		Paciente2 actualizado = paciente2Repository.findById(sobrevivienteId).orElseThrow();
+		completar(actualizado, duplicado);
+		if (resultado.isHistoriaCombinada()) {
+			HistoriaClinica historia = actualizado.getHistoriaClinica();
+			historiaClinicaService.registrarCambios(historia,
+					primero(historia.getAntecedentes(), historiaDuplicado.getAntecedentes()),
+					primero(historia.getAlergias(), historiaDuplicado.getAlergias()),
+					primero(historia.getMedicamentos(), historiaDuplicado.getMedicamentos()));
+		}
+
+		busquedaPacientesService.quitar(duplicadoId);
+		busquedaPacientesService.indexar(actualizado);
+		// Las agendas en caché muestran el nombre del paciente de cada cita
+		agendaDiaService.invalidarTodo();
+		return resultado;
+	}
+
+	private static void completar(Paciente2 p, Paciente2 d) {
+		p.setEmail(primero(p.getEmail(), d.getEmail()));
+		p.setDireccion(primero(p.getDireccion(), d.getDireccion()));
+		p.setContactoEmergenciaNombre(primero(p.getContactoEmergenciaNombre(), d.getContactoEmergenciaNombre()));
+		p.setContactoEmergenciaParentesco(primero(p.getContactoEmergenciaParentesco(), d.getContactoEmergenciaParentesco()));
+		p.setContactoEmergenciaTelefono(primero(p.getContactoEmergenciaTelefono(), d.getContactoEmergenciaTelefono()));
+		p.setAlergias(primero(p.getAlergias(), d.getAlergias()));
+		p.setMedicamentos(primero(p.getMedicamentos(), d.getMedicamentos()));
+		p.setObservaciones(primero(p.getObservaciones(), d.getObservaciones()));
+	}
+
+	private static String primero(String valor, String alternativa) {
+		return valor != null && !valor.isBlank() ? valor : alternativa;
+	}
+
+	private static PacienteResumenDto resumen(DetectorDuplicados.Registro r) {
+		return new PacienteResumenDto(r.id(), r.nombres(), r.apellidos(), r.tipoDocumento(), r.documento());
+	}
+}
@@ -0,0 +1,228 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.Cita2Repository.CitaExportable;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository.HistoriaExportable;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.Paciente2Repository.PacienteExportable;
+import com.odontologia.odontologia.Service.ExportacionService;
+
+@Service
+public class ExportacionServiceImpl implements ExportacionService {
+
+	private record Columna<T>(String nombre, Function<T, Object> valor) {
+	}
+
+	private static final List<Columna<PacienteExportable>> COLUMNAS_PACIENTES = List.of(
+			new Columna<>("id", PacienteExportable::getId),
+			new Columna<>("nombres", PacienteExportable::getNombres),
+			new Columna<>("apellidos", PacienteExportable::getApellidos),
+			new Columna<>("tipoDocumento", PacienteExportable::getTipoDocumento),
+			new Columna<>("documento", PacienteExportable::getDocumento),
+			new Columna<>("fechaNacimiento", PacienteExportable::getFechaNacimiento),
+			new Columna<>("genero", PacienteExportable::getGenero),
+			new Columna<>("email", PacienteExportable::getEmail),
+			new Columna<>("telefono", PacienteExportable::getTelefono),
+			new Columna<>("direccion", PacienteExportable::getDireccion),
+			new Columna<>("contactoEmergenciaNombre", PacienteExportable::getContactoEmergenciaNombre),
+			new Columna<>("contactoEmergenciaParentesco", PacienteExportable::getContactoEmergenciaParentesco),
+			new Columna<>("contactoEmergenciaTelefono", PacienteExportable::getContactoEmergenciaTelefono),
+			new Columna<>("alergias", PacienteExportable::getAlergias),
+			new Columna<>("medicamentos", PacienteExportable::getMedicamentos),
+			new Columna<>("observaciones", PacienteExportable::getObservaciones));
+
+	private static final List<Columna<CitaExportable>> COLUMNAS_CITAS = List.of(
+			new Columna<>("id", CitaExportable::getId),
+			new Columna<>("fecha", CitaExportable::getFecha),
+			new Columna<>("hora", CitaExportable::getHora),
+			new Columna<>("estado", CitaExportable::getEstado),
+			new Columna<>("pacienteId", CitaExportable::getPacienteId),
+			new Columna<>("pacienteDocumento", CitaExportable::getPacienteDocumento),
+			new Columna<>("odontologoId", CitaExportable::getOdontologoId),
+			new Columna<>("tipoCitaId", CitaExportable::getTipoCitaId),
+			new Columna<>("tipoCita", CitaExportable::getTipoCita),
+			new Columna<>("serieId", CitaExportable::getSerieId),
+			new Columna<>("observaciones", CitaExportable::getObservaciones));
+
+	private static final List<Columna<HistoriaExportable>> COLUMNAS_HISTORIAS = List.of(
+			new Columna<>("id", HistoriaExportable::getId),
+			new Columna<>("pacienteId", HistoriaExportable::getPacienteId),
+			new Columna<>("pacienteDocumento", HistoriaExportable::getPacienteDocumento),
+			new Columna<>("antecedentes", HistoriaExportable::getAntecedentes),
+			new Columna<>("alergias", HistoriaExportable::getAlergias),
+			new Columna<>("medicamentos", HistoriaExportable::getMedicamentos));
+
+	@Autowired
+	private Paciente2Repository paciente2Repository;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${odontologia.exportacion.directorio:exportaciones}")
+	private Path directorio;
+
+	@Value("${odontologia.exportacion.formato:NDJSON}")
+	private Formato formatoArchivo;
+
+	@Value("${odontologia.exportacion.gzip:true}")
+	private boolean gzipArchivo;
+
+	@Scheduled(cron = "${odontologia.exportacion.cron:-}")
+	void exportarProgramado() {
+		try {
+			exportarADirectorio(LocalDate.now());
+		} catch (IOException e) {
+			throw new RuntimeException("Error en la exportación programada: " + e.getMessage(), e);
+		}
+	}
+
+	// La consulta corre en su propia transacción de solo lectura (necesaria para que PostgreSQL
+	// use un cursor con fetch size) y devuelve proyecciones: ninguna entidad queda en el contexto
+	// de persistencia, así que la memoria no crece con el tamaño de la tabla.
+	@Override
+	public long exportar(Tabla tabla, Formato formato, OutputStream salida) throws IOException {
+		TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+		lectura.setReadOnly(true);
+		try {
+			return lectura.execute(estado -> switch (tabla) {
+				case PACIENTES -> escribir(paciente2Repository.exportar(), COLUMNAS_PACIENTES, formato, salida);
+				case CITAS -> escribir(citaRepository.exportar(), COLUMNAS_CITAS, formato, salida);
+				case HISTORIAS -> escribir(historiaClinicaRepository.exportar(), COLUMNAS_HISTORIAS, formato, salida);
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	// Cada archivo se escribe con otro nombre y se renombra al terminar: quien lo levante
+	// nunca ve una exportación a medias
+	@Override
+	public List<Path> exportarADirectorio(LocalDate fecha) throws IOException {
+		Files.createDirectories(directorio);
+		List<Path> archivos = new ArrayList<>();
+		for (Tabla tabla : Tabla.values()) {
+			String nombre = tabla.name().toLowerCase() + "-" + fecha + "." + formatoArchivo.name().toLowerCase()
+					+ (gzipArchivo ? ".gz" : "");
+			Path destino = directorio.resolve(nombre);
+			Path temporal = directorio.resolve(nombre + ".parcial");
+			OutputStream archivo = new BufferedOutputStream(Files.newOutputStream(temporal));
+			try (OutputStream salida = gzipArchivo ? new GZIPOutputStream(archivo, 64 * 1024) : archivo) {
+				exportar(tabla, formatoArchivo, salida);
+			}
+			Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			archivos.add(destino);
+		}
+		return archivos;
+	}
+
+	private <T> long escribir(Stream<T> filas, List<Columna<T>> columnas, Formato formato, OutputStream salida) {
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+		long cantidad = 0;
+		try (filas) {
+			Iterator<T> it = filas.iterator();
+			if (formato == Formato.CSV) {
+				escribirEncabezadoCsv(escritor, columnas);
+				while (it.hasNext()) {
+					escribirFilaCsv(escritor, columnas, it.next());
+					cantidad++;
+				}
+			} else {
+				JsonGenerator json = objectMapper.getFactory().createGenerator(escritor);
+				json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				json.setRootValueSeparator(null);
+				while (it.hasNext()) {
+					T fila = it.next();
+					json.writeStartObject();
+					for (Columna<T> columna : columnas) {
+						json.writeObjectField(columna.nombre(), columna.valor().apply(fila));
+					}
+					json.writeEndObject();
+					json.writeRaw('\n');
+					cantidad++;
+				}
+				json.flush();
+			}
+			escritor.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return cantidad;
+	}
+
+	private static <T> void escribirEncabezadoCsv(Writer escritor, List<Columna<T>> columnas) throws IOException {
+		for (int i = 0; i < columnas.size(); i++) {
+			if (i > 0) {
+				escritor.write(',');
+			}
+			escritor.write(columnas.get(i).nombre());
+		}
+		escritor.write("\r\n");
+	}
+
+	private static <T> void escribirFilaCsv(Writer escritor, List<Columna<T>> columnas, T fila) throws IOException {
+		for (int i = 0; i < columnas.size(); i++) {
+			if (i > 0) {
+				escritor.write(',');
+			}
+			Object valor = columnas.get(i).valor().apply(fila);
+			if (valor != null) {
+				escribirCampoCsv(escritor, valor instanceof Enum<?> e ? e.name() : valor.toString());
+			}
+		}
+		escritor.write("\r\n");
+	}
+
+	// RFC 4180: entre comillas solo si hace falta, con las comillas internas dobladas
+	private static void escribirCampoCsv(Writer escritor, String valor) throws IOException {
+		boolean comillas = false;
+		for (int i = 0; i < valor.length() && !comillas; i++) {
+			char c = valor.charAt(i);
+			comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!comillas) {
+			escritor.write(valor);
+			return;
+		}
+		escritor.write('"');
+		escritor.write(valor.replace("\"", "\"\""));
+		escritor.write('"');
+	}
+}
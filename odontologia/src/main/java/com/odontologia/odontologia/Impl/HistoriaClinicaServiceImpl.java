@@ -1,30 +1,53 @@
 package com.odontologia.odontologia.Impl;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
 import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.RevisionHistoriaDto;
 import com.odontologia.odontologia.Entity.HistoriaClinica;
 import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.RevisionHistoriaClinica;
 import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Repository.RevisionHistoriaClinicaRepository;
 import com.odontologia.odontologia.Service.HistoriaClinicaService;
 
 @Service
 public class HistoriaClinicaServiceImpl implements HistoriaClinicaService{
 
+	// Cada cuántas revisiones se guarda una copia completa: reconstruir cualquier versión aplica
+	// como mucho COPIA_CADA - 1 diferencias sobre esa copia
+	static final int COPIA_CADA = 10;
+
 	@Autowired
 	private HistoriaClinicaRepository historiaClinicaRepository;
 
+	@Autowired
+	private RevisionHistoriaClinicaRepository revisionRepository;
+
 	@Override
 	public List<HistoriaClinicaDto> listarHistoriaClinicas() {
 		List<HistoriaClinica> list = historiaClinicaRepository.findAll();
 		return list.stream().map(this::convertirEntityADto).collect(Collectors.toList());
 	}
 
+	@Override
+	public PaginaDto<HistoriaClinicaDto> listarHistoriaClinicasPaginado(Long after, Integer limit) {
+		int limite = PaginaDto.normalizarLimite(limit);
+		List<HistoriaClinica> list = historiaClinicaRepository.findByIdGreaterThanOrderByIdAsc(PaginaDto.normalizarCursor(after), Limit.of(limite + 1));
+		return PaginaDto.desde(list, limite, HistoriaClinica::getId, this::convertirEntityADto);
+	}
+
 	@Override
 	public HistoriaClinicaDto obtenerHistoriaClinicaPorId(Long id) {
 		HistoriaClinica h = historiaClinicaRepository.findById(id)
@@ -33,20 +56,106 @@ public class HistoriaClinicaServiceImpl implements HistoriaClinicaService{
 	}
 
 	@Override
+	public Optional<HistoriaClinicaDto> obtenerPorPaciente(Long pacienteId) {
+		return historiaClinicaRepository.findByPacienteId(pacienteId).map(this::convertirEntityADto);
+	}
+
+	// Una sola consulta con IN; la lista se acota como una página para no armar un IN sin límite
+	@Override
+	public List<HistoriaClinicaDto> listarPorPacientes(List<Long> pacienteIds) {
+		if (pacienteIds.isEmpty()) {
+			return List.of();
+		}
+		if (pacienteIds.size() > PaginaDto.LIMITE_MAXIMO) {
+			throw new RuntimeException("Se pueden consultar como máximo " + PaginaDto.LIMITE_MAXIMO + " pacientes a la vez");
+		}
+		return historiaClinicaRepository.findByPacienteIdIn(pacienteIds).stream()
+				.map(this::convertirEntityADto)
+				.collect(Collectors.toList());
+	}
+
+	// La versión vigente se lee siempre de la historia misma; las revisiones solo se leen
+	// para consultar versiones anteriores
+	@Override
+	@Transactional(readOnly = true)
+	public HistoriaClinicaDto obtenerVersion(Long id, int numero) {
+		HistoriaClinica h = historiaClinicaRepository.findById(id)
+				.orElseThrow(() -> new RuntimeException("Historia clinica no encontrada con ID: " + id));
+		int actual = h.getRevision() != null ? h.getRevision() : 0;
+		if (numero < 1 || numero > actual) {
+			throw new RuntimeException("La historia clinica " + id + " no tiene la revisión " + numero);
+		}
+		if (numero == actual) {
+			return convertirEntityADto(h);
+		}
+		List<RevisionHistoriaClinica> tramo = revisionRepository
+				.findByHistoriaIdAndNumeroBetweenOrderByNumeroAsc(id, copiaAnterior(numero), numero);
+		if (tramo.isEmpty() || !tramo.get(0).isCompleta()) {
+			throw new RuntimeException("Faltan revisiones de la historia clinica " + id);
+		}
+		String[] campos = new String[3];
+		for (RevisionHistoriaClinica r : tramo) {
+			campos = DeltaTexto.aplicar(campos, r.getContenido());
+		}
+		HistoriaClinicaDto dto = convertirEntityADto(h);
+		dto.setAntecedentes(campos[0]);
+		dto.setAlergias(campos[1]);
+		dto.setMedicamentos(campos[2]);
+		dto.setRevision(numero);
+		return dto;
+	}
+
+	@Override
+	public List<RevisionHistoriaDto> listarRevisiones(Long id) {
+		if (!historiaClinicaRepository.existsById(id)) {
+			throw new RuntimeException("Historia clinica no encontrada con ID: " + id);
+		}
+		return revisionRepository.buscarResumen(id).stream()
+				.map(r -> new RevisionHistoriaDto(r.getNumero(), r.getFecha(), r.isCompleta()))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	@Transactional
 	public HistoriaClinicaDto crearHistoriaClinica(HistoriaClinicaDto historiaClinicaDto) {
 		HistoriaClinica h = convertirDtoAEntity(historiaClinicaDto);
+		h.setRevision(1);
 		HistoriaClinica guardada = historiaClinicaRepository.save(h);
+		guardarRevision(guardada.getId(), 1, true, DeltaTexto.completa(campos(guardada)));
 		return convertirEntityADto(guardada);
 	}
 
+	// Las historias anteriores al versionado (revision null) reciben primero una copia completa
+	// de su contenido actual como revisión 1
+	@Override
+	public void registrarCambios(HistoriaClinica historia, String antecedentes, String alergias, String medicamentos) {
+		String[] antes = campos(historia);
+		String[] despues = { antecedentes, alergias, medicamentos };
+		if (Arrays.equals(antes, despues)) {
+			return;
+		}
+		int actual = historia.getRevision() != null ? historia.getRevision() : 0;
+		if (actual == 0) {
+			guardarRevision(historia.getId(), ++actual, true, DeltaTexto.completa(antes));
+		}
+		int siguiente = actual + 1;
+		boolean completa = copiaAnterior(siguiente) == siguiente;
+		guardarRevision(historia.getId(), siguiente, completa,
+				completa ? DeltaTexto.completa(despues) : DeltaTexto.diferencia(antes, despues));
+		historia.setAntecedentes(antecedentes);
+		historia.setAlergias(alergias);
+		historia.setMedicamentos(medicamentos);
+		historia.setRevision(siguiente);
+	}
+
 	@Override
+	@Transactional
 	public HistoriaClinicaDto actualizarHistoriaClinica(Long id, HistoriaClinicaDto historiaClinicaDto) {
 		HistoriaClinica existente = historiaClinicaRepository.findById(id)
 				.orElseThrow(() -> new RuntimeException("Historia clinica no encontrada con ID: " + id));
 
-		existente.setAntecedentes(historiaClinicaDto.getAntecedentes());
-		existente.setAlergias(historiaClinicaDto.getAlergias());
-		existente.setMedicamentos(historiaClinicaDto.getMedicamentos());
+		registrarCambios(existente, historiaClinicaDto.getAntecedentes(), historiaClinicaDto.getAlergias(),
+				historiaClinicaDto.getMedicamentos());
 		// Si el DTO trae paciente, actualizamos la referencia por id
 		if (historiaClinicaDto.getPaciente() != null && historiaClinicaDto.getPaciente().getId() != null) {
 			Paciente2Dto pDto = historiaClinicaDto.getPaciente();
@@ -67,12 +176,26 @@ public class HistoriaClinicaServiceImpl implements HistoriaClinicaService{
 		historiaClinicaRepository.deleteById(id);
 	}
 
+	private void guardarRevision(Long historiaId, int numero, boolean completa, byte[] contenido) {
+		revisionRepository.save(new RevisionHistoriaClinica(null, historiaId, numero, LocalDateTime.now(), completa, contenido));
+	}
+
+	// Número de la copia completa desde la que se reconstruye una revisión: 1, 11, 21...
+	private static int copiaAnterior(int numero) {
+		return (numero - 1) / COPIA_CADA * COPIA_CADA + 1;
+	}
+
+	private static String[] campos(HistoriaClinica h) {
+		return new String[] { h.getAntecedentes(), h.getAlergias(), h.getMedicamentos() };
+	}
+
 	private HistoriaClinicaDto convertirEntityADto(HistoriaClinica h) {
 		HistoriaClinicaDto dto = new HistoriaClinicaDto();
 		dto.setId(h.getId());
 		dto.setAntecedentes(h.getAntecedentes());
 		dto.setAlergias(h.getAlergias());
 		dto.setMedicamentos(h.getMedicamentos());
+		dto.setRevision(h.getRevision());
 		// Solo seteamos el paciente con id si existe
 		if (h.getPaciente() != null) {
 			Paciente2Dto p = new Paciente2Dto();
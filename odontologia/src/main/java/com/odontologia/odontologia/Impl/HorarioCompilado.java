@@ -0,0 +1,398 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.Normalizer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import com.odontologia.odontologia.Dto.ExcepcionHorarioDto;
+import com.odontologia.odontologia.Dto.HorarioSemanalDto;
+import com.odontologia.odontologia.Dto.IntervaloHorarioDto;
+import com.odontologia.odontologia.Dto.TramoHorarioDto;
+import com.odontologia.odontologia.Entity.Odontologo;
+
+// Horario de trabajo de un odontólogo ya compilado: inmutable y solo con arreglos de primitivos.
+// Se arma al guardar (OdontologoServiceImpl) y se guarda en Odontologo.horario; leerlo no
+// interpreta texto. Cada día es un arreglo ordenado de minutos [inicio, fin, inicio, fin...]
+// (los descansos son los huecos) y las excepciones son rangos de fechas ordenados y sin solaparse.
+//
+// Con los minutos acumulados de la semana y el acumulado de lo que cada excepción quita o agrega,
+// "¿trabaja en T?" y "minutos de trabajo entre A y B" son búsquedas binarias: no recorren los días.
+final class HorarioCompilado {
+
+	private static final int VERSION = 1;
+	private static final int MAX_TRAMOS_POR_DIA = 48;
+	private static final int MAX_LARGO_MOTIVO = 200;
+	// epochDay del lunes 1970-01-05: origen de las semanas para los acumulados
+	private static final long LUNES = 4;
+
+	private static final String[] NOMBRES_DIAS = { "Lunes", "Martes", "Miércoles", "Jueves", "Viernes", "Sábado", "Domingo" };
+	private static final Map<String, DayOfWeek> DIAS_SEMANA = Map.of(
+			"lunes", DayOfWeek.MONDAY,
+			"martes", DayOfWeek.TUESDAY,
+			"miercoles", DayOfWeek.WEDNESDAY,
+			"jueves", DayOfWeek.THURSDAY,
+			"viernes", DayOfWeek.FRIDAY,
+			"sabado", DayOfWeek.SATURDAY,
+			"domingo", DayOfWeek.SUNDAY);
+
+	private final int[][] semana; // índice 0 = lunes
+	private final long[] acumuladoSemana; // minutos desde el lunes 00:00 hasta el comienzo de cada día; [7] = la semana
+	private final long[] excepcionDesde; // epochDay
+	private final long[] excepcionHasta;
+	private final int[][] excepcionTramos;
+	private final String[] excepcionMotivo;
+	private final long[] acumuladoExcepciones; // [i] = diferencia con el horario semanal de las excepciones 0..i-1
+
+	private HorarioCompilado(int[][] semana, long[] excepcionDesde, long[] excepcionHasta, int[][] excepcionTramos,
+			String[] excepcionMotivo) {
+		this.semana = semana;
+		this.excepcionDesde = excepcionDesde;
+		this.excepcionHasta = excepcionHasta;
+		this.excepcionTramos = excepcionTramos;
+		this.excepcionMotivo = excepcionMotivo;
+		acumuladoSemana = new long[8];
+		for (int dia = 0; dia < 7; dia++) {
+			acumuladoSemana[dia + 1] = acumuladoSemana[dia] + minutos(semana[dia]);
+		}
+		acumuladoExcepciones = new long[excepcionDesde.length + 1];
+		for (int i = 0; i < excepcionDesde.length; i++) {
+			long dias = excepcionHasta[i] - excepcionDesde[i] + 1;
+			long diferencia = dias * minutos(excepcionTramos[i]) - (regulares(excepcionHasta[i] + 1) - regulares(excepcionDesde[i]));
+			acumuladoExcepciones[i + 1] = acumuladoExcepciones[i] + diferencia;
+		}
+	}
+
+	// Valida y normaliza: tramos ordenados, unidos si se tocan o se solapan, excepciones sin solaparse
+	static HorarioCompilado compilar(HorarioSemanalDto dto) {
+		List<List<int[]>> dias = new ArrayList<>();
+		for (int dia = 0; dia < 7; dia++) {
+			dias.add(new ArrayList<>());
+		}
+		if (dto.getIntervalos() != null) {
+			for (IntervaloHorarioDto intervalo : dto.getIntervalos()) {
+				if (intervalo.getDia() == null) {
+					throw new RuntimeException("Cada intervalo del horario necesita su día de la semana");
+				}
+				dias.get(intervalo.getDia().getValue() - 1).add(tramo(intervalo.getInicio(), intervalo.getFin()));
+			}
+		}
+		int[][] semana = new int[7][];
+		for (int dia = 0; dia < 7; dia++) {
+			semana[dia] = normalizar(dias.get(dia));
+		}
+
+		List<ExcepcionHorarioDto> excepciones = new ArrayList<>(dto.getExcepciones() != null ? dto.getExcepciones() : List.of());
+		for (ExcepcionHorarioDto e : excepciones) {
+			if (e.getDesde() == null || e.getHasta() == null || e.getHasta().isBefore(e.getDesde())) {
+				throw new RuntimeException("Cada excepción del horario necesita 'desde' y 'hasta', con 'hasta' no anterior a 'desde'");
+			}
+		}
+		excepciones.sort(Comparator.comparing(ExcepcionHorarioDto::getDesde));
+		int n = excepciones.size();
+		long[] desde = new long[n];
+		long[] hasta = new long[n];
+		int[][] tramos = new int[n][];
+		String[] motivos = new String[n];
+		for (int i = 0; i < n; i++) {
+			ExcepcionHorarioDto e = excepciones.get(i);
+			desde[i] = e.getDesde().toEpochDay();
+			hasta[i] = e.getHasta().toEpochDay();
+			if (i > 0 && desde[i] <= hasta[i - 1]) {
+				throw new RuntimeException("Las excepciones del horario se solapan: " + excepciones.get(i - 1).getDesde()
+						+ " a " + excepciones.get(i - 1).getHasta() + " y " + e.getDesde() + " a " + e.getHasta());
+			}
+			List<int[]> lista = new ArrayList<>();
+			if (e.getTramos() != null) {
+				for (TramoHorarioDto t : e.getTramos()) {
+					lista.add(tramo(t.getInicio(), t.getFin()));
+				}
+			}
+			tramos[i] = normalizar(lista);
+			String motivo = e.getMotivo() != null ? e.getMotivo().strip() : "";
+			motivos[i] = motivo.length() > MAX_LARGO_MOTIVO ? motivo.substring(0, MAX_LARGO_MOTIVO) : motivo;
+		}
+		return new HorarioCompilado(semana, desde, hasta, tramos, motivos);
+	}
+
+	// El horario guardado o, en odontólogos anteriores a él, el que sale de los campos libres
+	static HorarioCompilado de(Odontologo o) {
+		if (o.getHorario() != null) {
+			return leer(o.getHorario());
+		}
+		return compilar(new HorarioSemanalDto(intervalosDeCamposLibres(o.getDiasTrabajo(), o.getHoraInicio(), o.getHoraFin()), List.of()));
+	}
+
+	// diasTrabajo como "Lunes, Martes, Miércoles" y horas "HH:mm"; lo que no se entiende se ignora
+	static List<IntervaloHorarioDto> intervalosDeCamposLibres(String diasTrabajo, String horaInicio, String horaFin) {
+		List<IntervaloHorarioDto> intervalos = new ArrayList<>();
+		if (diasTrabajo == null || horaInicio == null || horaFin == null) {
+			return intervalos;
+		}
+		LocalTime inicio;
+		LocalTime fin;
+		try {
+			inicio = LocalTime.parse(horaInicio.trim());
+			fin = LocalTime.parse(horaFin.trim());
+		} catch (DateTimeParseException e) {
+			return intervalos;
+		}
+		if (!inicio.isBefore(fin)) {
+			return intervalos;
+		}
+		for (String nombre : diasTrabajo.split(",")) {
+			DayOfWeek dia = DIAS_SEMANA.get(normalizarNombre(nombre));
+			if (dia != null) {
+				intervalos.add(new IntervaloHorarioDto(dia, inicio, fin));
+			}
+		}
+		return intervalos;
+	}
+
+	boolean trabaja(LocalDateTime instante) {
+		int[] tramos = tramos(instante.toLocalDate());
+		int minuto = instante.getHour() * 60 + instante.getMinute();
+		int posicion = Arrays.binarySearch(tramos, minuto);
+		// Sobre un límite: trabaja si es un inicio (posición par). Entre límites: si quedó dentro de un tramo.
+		return posicion >= 0 ? posicion % 2 == 0 : (-posicion - 1) % 2 == 1;
+	}
+
+	// Con precisión de minutos; negativo si hasta es anterior a desde
+	long minutosEntre(LocalDateTime desde, LocalDateTime hasta) {
+		return acumulado(hasta) - acumulado(desde);
+	}
+
+	// Tramos de una fecha: los de su excepción si cae en una, si no los de su día de la semana
+	int[] tramos(LocalDate fecha) {
+		int i = excepcion(fecha.toEpochDay());
+		return i >= 0 ? excepcionTramos[i] : semana[fecha.getDayOfWeek().getValue() - 1];
+	}
+
+	int[] tramos(DayOfWeek dia) {
+		return semana[dia.getValue() - 1];
+	}
+
+	boolean esExcepcion(LocalDate fecha) {
+		return excepcion(fecha.toEpochDay()) >= 0;
+	}
+
+	// Resumen para los campos libres que sigue mostrando la pantalla de odontólogos
+	String diasTrabajo() {
+		StringJoiner dias = new StringJoiner(", ");
+		for (int dia = 0; dia < 7; dia++) {
+			if (semana[dia].length > 0) {
+				dias.add(NOMBRES_DIAS[dia]);
+			}
+		}
+		return dias.length() > 0 ? dias.toString() : null;
+	}
+
+	String horaInicio() {
+		int minimo = Integer.MAX_VALUE;
+		for (int[] tramos : semana) {
+			if (tramos.length > 0) {
+				minimo = Math.min(minimo, tramos[0]);
+			}
+		}
+		return minimo == Integer.MAX_VALUE ? null : hora(minimo).toString();
+	}
+
+	String horaFin() {
+		int maximo = -1;
+		for (int[] tramos : semana) {
+			if (tramos.length > 0) {
+				maximo = Math.max(maximo, tramos[tramos.length - 1]);
+			}
+		}
+		return maximo < 0 ? null : hora(maximo).toString();
+	}
+
+	HorarioSemanalDto aDto() {
+		List<IntervaloHorarioDto> intervalos = new ArrayList<>();
+		for (int dia = 0; dia < 7; dia++) {
+			for (int t = 0; t < semana[dia].length; t += 2) {
+				intervalos.add(new IntervaloHorarioDto(DayOfWeek.of(dia + 1), hora(semana[dia][t]), hora(semana[dia][t + 1])));
+			}
+		}
+		List<ExcepcionHorarioDto> excepciones = new ArrayList<>();
+		for (int i = 0; i < excepcionDesde.length; i++) {
+			List<TramoHorarioDto> tramos = new ArrayList<>();
+			for (int t = 0; t < excepcionTramos[i].length; t += 2) {
+				tramos.add(new TramoHorarioDto(hora(excepcionTramos[i][t]), hora(excepcionTramos[i][t + 1])));
+			}
+			excepciones.add(new ExcepcionHorarioDto(LocalDate.ofEpochDay(excepcionDesde[i]), LocalDate.ofEpochDay(excepcionHasta[i]),
+					tramos, excepcionMotivo[i].isEmpty() ? null : excepcionMotivo[i]));
+		}
+		return new HorarioSemanalDto(intervalos, excepciones);
+	}
+
+	byte[] escribir() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream salida = new DataOutputStream(bytes)) {
+			salida.writeByte(VERSION);
+			for (int[] tramos : semana) {
+				escribirTramos(salida, tramos);
+			}
+			salida.writeInt(excepcionDesde.length);
+			for (int i = 0; i < excepcionDesde.length; i++) {
+				salida.writeInt((int) excepcionDesde[i]);
+				salida.writeInt((int) excepcionHasta[i]);
+				escribirTramos(salida, excepcionTramos[i]);
+				salida.writeUTF(excepcionMotivo[i]);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static HorarioCompilado leer(byte[] contenido) {
+		try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido))) {
+			int version = entrada.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IllegalStateException("Versión de horario compilado desconocida: " + version);
+			}
+			int[][] semana = new int[7][];
+			for (int dia = 0; dia < 7; dia++) {
+				semana[dia] = leerTramos(entrada);
+			}
+			int n = entrada.readInt();
+			long[] desde = new long[n];
+			long[] hasta = new long[n];
+			int[][] tramos = new int[n][];
+			String[] motivos = new String[n];
+			for (int i = 0; i < n; i++) {
+				desde[i] = entrada.readInt();
+				hasta[i] = entrada.readInt();
+				tramos[i] = leerTramos(entrada);
+				motivos[i] = entrada.readUTF();
+			}
+			return new HorarioCompilado(semana, desde, hasta, tramos, motivos);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Minutos trabajados desde el lunes 1970-01-05 00:00 hasta el instante (negativo antes de esa fecha)
+	private long acumulado(LocalDateTime instante) {
+		long dia = instante.toLocalDate().toEpochDay();
+		int minuto = instante.getHour() * 60 + instante.getMinute();
+		return regulares(dia) + excepcionesAntes(dia) + minutosAntes(tramos(instante.toLocalDate()), minuto);
+	}
+
+	// Minutos del horario semanal desde el origen hasta el comienzo del día, sin excepciones
+	private long regulares(long epochDay) {
+		long relativo = epochDay - LUNES;
+		return Math.floorDiv(relativo, 7) * acumuladoSemana[7] + acumuladoSemana[Math.floorMod(relativo, 7)];
+	}
+
+	// Lo que las excepciones que empiezan antes del día cambian respecto del horario semanal
+	private long excepcionesAntes(long epochDay) {
+		int i = ultimaQueEmpieza(epochDay - 1);
+		if (i < 0) {
+			return 0;
+		}
+		if (excepcionHasta[i] < epochDay) {
+			return acumuladoExcepciones[i + 1];
+		}
+		// La excepción sigue vigente ese día: cuenta solo la parte anterior
+		long dias = epochDay - excepcionDesde[i];
+		return acumuladoExcepciones[i] + dias * minutos(excepcionTramos[i]) - (regulares(epochDay) - regulares(excepcionDesde[i]));
+	}
+
+	private int excepcion(long epochDay) {
+		int i = ultimaQueEmpieza(epochDay);
+		return i >= 0 && excepcionHasta[i] >= epochDay ? i : -1;
+	}
+
+	// Índice de la última excepción que empieza el día dado o antes; -1 si no hay
+	private int ultimaQueEmpieza(long epochDay) {
+		int posicion = Arrays.binarySearch(excepcionDesde, epochDay);
+		return posicion >= 0 ? posicion : -posicion - 2;
+	}
+
+	private static long minutosAntes(int[] tramos, int minuto) {
+		long total = 0;
+		for (int t = 0; t < tramos.length && tramos[t] < minuto; t += 2) {
+			total += Math.min(tramos[t + 1], minuto) - tramos[t];
+		}
+		return total;
+	}
+
+	private static long minutos(int[] tramos) {
+		long total = 0;
+		for (int t = 0; t < tramos.length; t += 2) {
+			total += tramos[t + 1] - tramos[t];
+		}
+		return total;
+	}
+
+	private static int[] tramo(LocalTime inicio, LocalTime fin) {
+		if (inicio == null || fin == null || !inicio.isBefore(fin)) {
+			throw new RuntimeException("Cada tramo del horario necesita 'inicio' anterior a 'fin'");
+		}
+		return new int[] { inicio.getHour() * 60 + inicio.getMinute(), fin.getHour() * 60 + fin.getMinute() };
+	}
+
+	private static int[] normalizar(List<int[]> tramos) {
+		tramos.sort(Comparator.comparingInt(t -> t[0]));
+		List<int[]> unidos = new ArrayList<>();
+		for (int[] t : tramos) {
+			int[] ultimo = unidos.isEmpty() ? null : unidos.get(unidos.size() - 1);
+			if (ultimo != null && t[0] <= ultimo[1]) {
+				ultimo[1] = Math.max(ultimo[1], t[1]);
+			} else {
+				unidos.add(t.clone());
+			}
+		}
+		if (unidos.size() > MAX_TRAMOS_POR_DIA) {
+			throw new RuntimeException("Un día del horario no puede tener más de " + MAX_TRAMOS_POR_DIA + " tramos");
+		}
+		int[] resultado = new int[unidos.size() * 2];
+		for (int i = 0; i < unidos.size(); i++) {
+			resultado[2 * i] = unidos.get(i)[0];
+			resultado[2 * i + 1] = unidos.get(i)[1];
+		}
+		return resultado;
+	}
+
+	private static void escribirTramos(DataOutputStream salida, int[] tramos) throws IOException {
+		salida.writeByte(tramos.length / 2);
+		for (int minuto : tramos) {
+			salida.writeShort(minuto);
+		}
+	}
+
+	private static int[] leerTramos(DataInputStream entrada) throws IOException {
+		int[] tramos = new int[entrada.readUnsignedByte() * 2];
+		for (int t = 0; t < tramos.length; t++) {
+			tramos[t] = entrada.readUnsignedShort();
+		}
+		return tramos;
+	}
+
+	private static LocalTime hora(int minuto) {
+		return LocalTime.of(minuto / 60, minuto % 60);
+	}
+
+	private static String normalizarNombre(String texto) {
+		return Normalizer.normalize(texto, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}", "")
+				.trim()
+				.toLowerCase();
+	}
+}
@@ -0,0 +1,365 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.ResultadoImportacionDto;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Service.BusquedaPacientesService;
+import com.odontologia.odontologia.Service.ImportacionPacientesService;
+
+import jakarta.persistence.EntityManager;
+
+@Service
+public class ImportacionPacientesServiceImpl implements ImportacionPacientesService {
+
+	private static final DateTimeFormatter FECHA_DIA_MES_ANO = DateTimeFormatter.ofPattern("d/M/uuuu")
+			.withResolverStyle(ResolverStyle.STRICT);
+
+	// Encabezados aceptados en el CSV (sin tildes, espacios ni guiones, en minúsculas)
+	private static final Map<String, BiConsumer<Paciente2Dto, String>> COLUMNAS = new HashMap<>();
+
+	static {
+		COLUMNAS.put("nombres", Paciente2Dto::setNombres);
+		COLUMNAS.put("nombre", Paciente2Dto::setNombres);
+		COLUMNAS.put("apellidos", Paciente2Dto::setApellidos);
+		COLUMNAS.put("apellido", Paciente2Dto::setApellidos);
+		COLUMNAS.put("tipodocumento", Paciente2Dto::setTipoDocumento);
+		COLUMNAS.put("documento", Paciente2Dto::setDocumento);
+		COLUMNAS.put("fechanacimiento", (p, v) -> p.setFechaNacimiento(leerFecha(v)));
+		COLUMNAS.put("genero", Paciente2Dto::setGenero);
+		COLUMNAS.put("email", Paciente2Dto::setEmail);
+		COLUMNAS.put("correo", Paciente2Dto::setEmail);
+		COLUMNAS.put("telefono", Paciente2Dto::setTelefono);
+		COLUMNAS.put("direccion", Paciente2Dto::setDireccion);
+		COLUMNAS.put("contactoemergencianombre", Paciente2Dto::setContactoEmergenciaNombre);
+		COLUMNAS.put("contactoemergenciaparentesco", Paciente2Dto::setContactoEmergenciaParentesco);
+		COLUMNAS.put("contactoemergenciatelefono", Paciente2Dto::setContactoEmergenciaTelefono);
+		COLUMNAS.put("alergias", Paciente2Dto::setAlergias);
+		COLUMNAS.put("medicamentos", Paciente2Dto::setMedicamentos);
+		COLUMNAS.put("observaciones", Paciente2Dto::setObservaciones);
+	}
+
+	@Autowired
+	private Paciente2Repository paciente2Repository;
+
+	@Autowired
+	private BusquedaPacientesService busquedaPacientesService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${odontologia.importacion.tamano-tanda:500}")
+	private int tamanoTanda;
+
+	// Fila leída del archivo: el paciente, o el motivo por el que no se pudo interpretar
+	private record Fila(long numero, Paciente2Dto paciente, String error) {
+	}
+
+	private interface Fuente {
+		// Siguiente fila con datos, o null al final del archivo
+		Fila siguiente() throws IOException;
+	}
+
+	// El archivo se lee fila a fila y se guarda por tandas: en memoria solo vive la tanda actual.
+	// Cada tanda se deduplica con una consulta por documentos y otra por emails, se inserta en
+	// lotes JDBC en su propia transacción y se suelta del contexto de persistencia.
+	@Override
+	public ResultadoImportacionDto importar(InputStream archivo, Charset charset, Formato formato, ReporteImportacion reporte) {
+		ResultadoImportacionDto resultado = new ResultadoImportacionDto(0, 0, 0, 0, true);
+		BufferedReader lector = new BufferedReader(new InputStreamReader(archivo, charset), 64 * 1024);
+		List<Fila> tanda = new ArrayList<>(tamanoTanda);
+		try {
+			Fuente fuente = formato == Formato.CSV ? fuenteCsv(lector) : fuenteNdjson(lector);
+			Fila fila;
+			while ((fila = fuente.siguiente()) != null) {
+				resultado.setProcesadas(resultado.getProcesadas() + 1);
+				String error = fila.error() != null ? fila.error() : validar(fila.paciente());
+				if (error != null) {
+					resultado.setRechazadas(resultado.getRechazadas() + 1);
+					reporte.error(fila.numero(), fila.paciente() != null ? fila.paciente().getDocumento() : null, error);
+					continue;
+				}
+				tanda.add(fila);
+				if (tanda.size() >= tamanoTanda) {
+					procesarTanda(tanda, resultado, reporte);
+					tanda.clear();
+					reporte.avance(resultado);
+				}
+			}
+		} catch (IOException e) {
+			// Lo ya leído se guarda igual; el resto del archivo queda sin procesar (fila 0: el archivo)
+			resultado.setCompleta(false);
+			reporte.error(0, null, "No se pudo leer el archivo: " + e.getMessage());
+		}
+		if (!tanda.isEmpty()) {
+			procesarTanda(tanda, resultado, reporte);
+		}
+		return resultado;
+	}
+
+	private void procesarTanda(List<Fila> tanda, ResultadoImportacionDto resultado, ReporteImportacion reporte) {
+		Set<String> documentos = new HashSet<>();
+		Set<String> emails = new HashSet<>();
+		for (Fila fila : tanda) {
+			documentos.add(fila.paciente().getDocumento());
+			if (fila.paciente().getEmail() != null) {
+				emails.add(fila.paciente().getEmail());
+			}
+		}
+		Set<String> documentosExistentes = new HashSet<>(paciente2Repository.buscarDocumentosExistentes(documentos));
+		Set<String> emailsExistentes = emails.isEmpty() ? Set.of() : new HashSet<>(paciente2Repository.buscarEmailsExistentes(emails));
+
+		// Duplicados contra la base y contra filas anteriores de la misma tanda
+		Set<String> documentosVistos = new HashSet<>();
+		Set<String> emailsVistos = new HashSet<>();
+		List<Fila> nuevas = new ArrayList<>(tanda.size());
+		for (Fila fila : tanda) {
+			String documento = fila.paciente().getDocumento();
+			String email = fila.paciente().getEmail();
+			if (documentosExistentes.contains(documento) || documentosVistos.contains(documento)) {
+				duplicada(fila, "Ya existe un paciente con el documento " + documento, resultado, reporte);
+			} else if (email != null && (emailsExistentes.contains(email) || emailsVistos.contains(email))) {
+				duplicada(fila, "Ya existe un paciente con el email " + email, resultado, reporte);
+			} else {
+				documentosVistos.add(documento);
+				if (email != null) {
+					emailsVistos.add(email);
+				}
+				nuevas.add(fila);
+			}
+		}
+		if (nuevas.isEmpty()) {
+			return;
+		}
+
+		TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+		List<Paciente2> entidades = nuevas.stream().map(f -> convertirDtoAEntity(f.paciente())).toList();
+		try {
+			transaccion.executeWithoutResult(estado -> {
+				paciente2Repository.saveAll(entidades);
+				paciente2Repository.flush();
+			});
+			registrarCreados(entidades, resultado);
+		} catch (DataIntegrityViolationException e) {
+			// Otro usuario creó alguno de estos pacientes entre la consulta y el INSERT:
+			// se reintenta fila por fila para aislar las que chocan
+			entityManager.clear();
+			for (Fila fila : nuevas) {
+				Paciente2 paciente = convertirDtoAEntity(fila.paciente());
+				try {
+					transaccion.executeWithoutResult(estado -> paciente2Repository.saveAndFlush(paciente));
+					registrarCreados(List.of(paciente), resultado);
+				} catch (DataIntegrityViolationException ex) {
+					duplicada(fila, "Ya existe un paciente con el mismo documento o email", resultado, reporte);
+				}
+			}
+		}
+		// Con open-in-view el contexto de persistencia dura toda la petición: se suelta la tanda
+		entityManager.clear();
+	}
+
+	private void registrarCreados(List<Paciente2> creados, ResultadoImportacionDto resultado) {
+		for (Paciente2 paciente : creados) {
+			busquedaPacientesService.indexar(paciente);
+		}
+		resultado.setCreadas(resultado.getCreadas() + creados.size());
+	}
+
+	private void duplicada(Fila fila, String mensaje, ResultadoImportacionDto resultado, ReporteImportacion reporte) {
+		resultado.setDuplicadas(resultado.getDuplicadas() + 1);
+		reporte.error(fila.numero(), fila.paciente().getDocumento(), mensaje);
+	}
+
+	private Fuente fuenteCsv(BufferedReader lector) throws IOException {
+		LectorCsv csv = new LectorCsv(lector);
+		List<String> encabezado = csv.siguiente();
+		if (encabezado == null) {
+			return () -> null;
+		}
+		List<BiConsumer<Paciente2Dto, String>> columnas = new ArrayList<>();
+		for (String nombre : encabezado) {
+			columnas.add(COLUMNAS.get(normalizarEncabezado(nombre)));
+		}
+		if (!columnas.contains(COLUMNAS.get("documento"))) {
+			throw new IOException("El encabezado no tiene la columna documento");
+		}
+		return () -> {
+			while (true) {
+				long numero = csv.lineaActual();
+				List<String> campos = csv.siguiente();
+				if (campos == null) {
+					return null;
+				}
+				if (campos.stream().allMatch(String::isBlank)) {
+					continue;
+				}
+				Paciente2Dto paciente = new Paciente2Dto();
+				try {
+					for (int i = 0; i < Math.min(campos.size(), columnas.size()); i++) {
+						String valor = limpiar(campos.get(i));
+						if (columnas.get(i) != null && valor != null) {
+							columnas.get(i).accept(paciente, valor);
+						}
+					}
+				} catch (DateTimeParseException e) {
+					return new Fila(numero, paciente, "Fecha de nacimiento inválida: " + e.getParsedString());
+				}
+				return new Fila(numero, paciente, null);
+			}
+		};
+	}
+
+	private Fuente fuenteNdjson(BufferedReader lector) {
+		long[] numero = {0};
+		return () -> {
+			String linea;
+			while ((linea = lector.readLine()) != null) {
+				numero[0]++;
+				if (linea.isBlank()) {
+					continue;
+				}
+				try {
+					Paciente2Dto paciente = objectMapper.readValue(linea, Paciente2Dto.class);
+					// Una línea "null" es JSON válido pero no trae paciente; cadenas, números y
+					// arreglos ya fallan al leerse como Paciente2Dto
+					if (paciente == null) {
+						return new Fila(numero[0], null, "JSON inválido: se esperaba un objeto por línea");
+					}
+					paciente.setId(null);
+					limpiar(paciente);
+					return new Fila(numero[0], paciente, null);
+				} catch (JsonProcessingException e) {
+					return new Fila(numero[0], null, "JSON inválido: " + e.getOriginalMessage());
+				}
+			}
+			return null;
+		};
+	}
+
+	// Mismos límites que las columnas de la tabla pacientes
+	private String validar(Paciente2Dto p) {
+		if (p.getNombres() == null || p.getApellidos() == null) {
+			return "Nombres y apellidos son obligatorios";
+		}
+		if (p.getTipoDocumento() == null || p.getDocumento() == null) {
+			return "Tipo de documento y documento son obligatorios";
+		}
+		if (p.getFechaNacimiento() == null) {
+			return "La fecha de nacimiento es obligatoria";
+		}
+		if (p.getGenero() == null || p.getTelefono() == null) {
+			return "Género y teléfono son obligatorios";
+		}
+		if (p.getNombres().length() > 100 || p.getApellidos().length() > 100) {
+			return "Nombres y apellidos admiten hasta 100 caracteres";
+		}
+		if (p.getTipoDocumento().length() > 10 || p.getDocumento().length() > 20) {
+			return "Documento demasiado largo";
+		}
+		if (p.getGenero().length() != 1) {
+			return "El género debe ser una sola letra";
+		}
+		if (p.getTelefono().length() > 15) {
+			return "El teléfono admite hasta 15 caracteres";
+		}
+		if (p.getEmail() != null && (p.getEmail().length() > 150 || !p.getEmail().contains("@"))) {
+			return "Email inválido";
+		}
+		if (largo(p.getDireccion()) > 255 || largo(p.getContactoEmergenciaNombre()) > 100
+				|| largo(p.getContactoEmergenciaParentesco()) > 50 || largo(p.getContactoEmergenciaTelefono()) > 15) {
+			return "Dirección o contacto de emergencia demasiado largos";
+		}
+		if (p.getFechaNacimiento().isAfter(LocalDate.now())) {
+			return "La fecha de nacimiento no puede ser futura";
+		}
+		return null;
+	}
+
+	private static int largo(String valor) {
+		return valor != null ? valor.length() : 0;
+	}
+
+	private static LocalDate leerFecha(String valor) {
+		return valor.indexOf('/') >= 0 ? LocalDate.parse(valor, FECHA_DIA_MES_ANO) : LocalDate.parse(valor);
+	}
+
+	private static String normalizarEncabezado(String nombre) {
+		String sinTildes = Normalizer.normalize(nombre, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+		return sinTildes.toLowerCase().replaceAll("[^a-z0-9]", "");
+	}
+
+	private static String limpiar(String valor) {
+		if (valor == null) {
+			return null;
+		}
+		String recortado = valor.strip();
+		return recortado.isEmpty() ? null : recortado;
+	}
+
+	private static void limpiar(Paciente2Dto p) {
+		p.setNombres(limpiar(p.getNombres()));
+		p.setApellidos(limpiar(p.getApellidos()));
+		p.setTipoDocumento(limpiar(p.getTipoDocumento()));
+		p.setDocumento(limpiar(p.getDocumento()));
+		p.setGenero(limpiar(p.getGenero()));
+		p.setEmail(limpiar(p.getEmail()));
+		p.setTelefono(limpiar(p.getTelefono()));
+		p.setDireccion(limpiar(p.getDireccion()));
+		p.setContactoEmergenciaNombre(limpiar(p.getContactoEmergenciaNombre()));
+		p.setContactoEmergenciaParentesco(limpiar(p.getContactoEmergenciaParentesco()));
+		p.setContactoEmergenciaTelefono(limpiar(p.getContactoEmergenciaTelefono()));
+	}
+
+	private Paciente2 convertirDtoAEntity(Paciente2Dto dto) {
+		Paciente2 p = new Paciente2();
+		p.setNombres(dto.getNombres());
+		p.setApellidos(dto.getApellidos());
+		p.setTipoDocumento(dto.getTipoDocumento());
+		p.setDocumento(dto.getDocumento());
+		p.setFechaNacimiento(dto.getFechaNacimiento());
+		p.setGenero(dto.getGenero());
+		p.setEmail(dto.getEmail());
+		p.setTelefono(dto.getTelefono());
+		p.setDireccion(dto.getDireccion());
+		p.setContactoEmergenciaNombre(dto.getContactoEmergenciaNombre());
+		p.setContactoEmergenciaParentesco(dto.getContactoEmergenciaParentesco());
+		p.setContactoEmergenciaTelefono(dto.getContactoEmergenciaTelefono());
+		p.setAlergias(dto.getAlergias());
+		p.setMedicamentos(dto.getMedicamentos());
+		p.setObservaciones(dto.getObservaciones());
+		return p;
+	}
+}
@@ -0,0 +1,345 @@
+package com.odontologia.odontologia.Impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Índice invertido de trigramas en memoria (mismo esquema que pg_trgm: cada palabra se
+// rellena con dos espacios delante y uno detrás). Tolera errores de escritura porque un
+// apellido mal escrito sigue compartiendo la mayoría de sus trigramas con el correcto.
+// Los trigramas "  x" (solo la inicial) no se indexan: aparecen en casi todos los pacientes
+// y dominarían el conteo sin ayudar a distinguir; el inicio de palabra ya lo cubre " xy".
+// No es seguro para hilos: BusquedaPacientesServiceImpl lo protege con un ReadWriteLock.
+class IndiceTrigramas {
+
+	// Alfabeto de 6 bits (espacio, a-z, 0-9, otros): un trigrama cabe en 18 bits y las
+	// listas de documentos se indexan directamente por su código, sin tabla hash
+	private static final int BITS_SIMBOLO = 6;
+	private static final int TOTAL_TRIGRAMAS = 1 << (3 * BITS_SIMBOLO);
+	// Proporción mínima de trigramas de la consulta que debe contener un documento
+	private static final double COINCIDENCIA_MINIMA = 0.5;
+	static final int LARGO_MAXIMO_CONSULTA = 64;
+
+	private final int[][] documentosPorTrigrama = new int[TOTAL_TRIGRAMAS][];
+	private final int[] tamanos = new int[TOTAL_TRIGRAMAS];
+
+	// Documento interno d -> id del paciente, texto normalizado y su largo (0 y null si se
+	// reemplazó o eliminó). Los documentos solo se agregan al final, así cada lista queda
+	// ordenada sin esfuerzo. El largo aparte evita leer el texto de cada candidato.
+	private long[] ids = new long[1024];
+	private String[] textos = new String[1024];
+	private int[] largos = new int[1024];
+	private int totalDocumentos;
+	private int documentosMuertos;
+	private final Map<Long, Integer> documentoPorId = new HashMap<>();
+
+	private record Candidato(int documento, double puntaje, int largo) {
+	}
+
+	// Contadores reutilizados entre búsquedas del mismo hilo; se dejan en cero al terminar
+	private static final class Memoria {
+		private byte[] conteo = new byte[0];
+		private int[] tocados = new int[1024];
+
+		byte[] conteo(int totalDocumentos) {
+			if (conteo.length < totalDocumentos) {
+				conteo = new byte[totalDocumentos + totalDocumentos / 8];
+			}
+			return conteo;
+		}
+	}
+
+	private final ThreadLocal<Memoria> memoriaPorHilo = ThreadLocal.withInitial(Memoria::new);
+
+	// De peor a mejor: la cabeza del montículo es la que se descarta primero
+	private static final Comparator<Candidato> PEOR_PRIMERO = Comparator
+			.comparingDouble(Candidato::puntaje)
+			.thenComparing(Comparator.comparingInt(Candidato::largo).reversed())
+			.thenComparing(Comparator.comparingInt(Candidato::documento).reversed());
+
+	// Agrega o reemplaza el texto indexado de un id
+	void indexar(long id, String... campos) {
+		quitar(id);
+		StringBuilder texto = new StringBuilder();
+		for (String campo : campos) {
+			String normalizado = normalizar(campo);
+			if (!normalizado.isEmpty()) {
+				texto.append(texto.length() == 0 ? "" : " ").append(normalizado);
+			}
+		}
+		if (texto.length() == 0) {
+			return;
+		}
+		if (totalDocumentos == ids.length) {
+			ids = Arrays.copyOf(ids, ids.length * 2);
+			textos = Arrays.copyOf(textos, textos.length * 2);
+			largos = Arrays.copyOf(largos, largos.length * 2);
+		}
+		int documento = totalDocumentos++;
+		ids[documento] = id;
+		textos[documento] = texto.toString();
+		largos[documento] = texto.length();
+		documentoPorId.put(id, documento);
+		for (int trigrama : trigramas(textos[documento])) {
+			int[] lista = documentosPorTrigrama[trigrama];
+			if (lista == null) {
+				lista = documentosPorTrigrama[trigrama] = new int[4];
+			} else if (tamanos[trigrama] == lista.length) {
+				lista = documentosPorTrigrama[trigrama] = Arrays.copyOf(lista, lista.length * 2);
+			}
+			lista[tamanos[trigrama]++] = documento;
+		}
+		if (documentosMuertos > 10_000 && documentosMuertos > totalDocumentos / 2) {
+			compactar();
+		}
+	}
+
+	void quitar(long id) {
+		Integer anterior = documentoPorId.remove(id);
+		if (anterior != null) {
+			textos[anterior] = null;
+			largos[anterior] = 0;
+			documentosMuertos++;
+		}
+	}
+
+	int tamano() {
+		return documentoPorId.size();
+	}
+
+	// Ids indexados (vista, no copia: leer con el mismo bloqueo que el índice)
+	Set<Long> ids() {
+		return documentoPorId.keySet();
+	}
+
+	// Ids ordenados por relevancia: primero quienes contienen la consulta al inicio de una
+	// palabra, luego en cualquier posición y después por proporción de trigramas compartidos
+	List<Long> buscar(String consulta, int limite) {
+		String q = normalizar(consulta);
+		if (q.length() > LARGO_MAXIMO_CONSULTA) {
+			q = q.substring(0, LARGO_MAXIMO_CONSULTA).trim();
+		}
+		if (q.isEmpty() || totalDocumentos == 0) {
+			return List.of();
+		}
+		int[] trigramasConsulta = trigramas(q);
+		int umbral = Math.max(1, (int) Math.ceil(trigramasConsulta.length * COINCIDENCIA_MINIMA));
+
+		// Un documento con al menos "umbral" trigramas de la consulta aparece en alguna de las
+		// (total - umbral + 1) listas más cortas: solo esas generan candidatos y las listas
+		// frecuentes (inicios de palabra comunes, terminaciones como "ez ") solo suman puntos
+		Integer[] orden = new Integer[trigramasConsulta.length];
+		for (int i = 0; i < orden.length; i++) {
+			orden[i] = trigramasConsulta[i];
+		}
+		Arrays.sort(orden, Comparator.comparingInt(t -> tamanos[t]));
+		int generadoras = trigramasConsulta.length - umbral + 1;
+
+		Memoria memoria = memoriaPorHilo.get();
+		byte[] conteo = memoria.conteo(totalDocumentos);
+		int[] tocados = memoria.tocados;
+		int totalTocados = 0;
+		try {
+			// Sin ramas en los bucles: si un documento ya se había visto es impredecible y los
+			// saltos mal predichos costaban más que el propio conteo
+			for (int j = 0; j < generadoras; j++) {
+				int trigrama = orden[j];
+				int[] lista = documentosPorTrigrama[trigrama];
+				int tamano = tamanos[trigrama];
+				if (tocados.length < totalTocados + tamano) {
+					tocados = memoria.tocados = Arrays.copyOf(tocados, Math.max(tocados.length * 2, totalTocados + tamano));
+				}
+				for (int i = 0; i < tamano; i++) {
+					int documento = lista[i];
+					int previo = conteo[documento];
+					conteo[documento] = (byte) (previo + 1);
+					tocados[totalTocados] = documento;
+					totalTocados += (previo - 1) >>> 31;
+				}
+			}
+			// Las listas frecuentes solo suman a los candidatos ya generados
+			for (int j = generadoras; j < orden.length; j++) {
+				int trigrama = orden[j];
+				int[] lista = documentosPorTrigrama[trigrama];
+				int tamano = tamanos[trigrama];
+				for (int i = 0; i < tamano; i++) {
+					int documento = lista[i];
+					int previo = conteo[documento];
+					conteo[documento] = (byte) (previo + ((-previo) >>> 31));
+				}
+			}
+			return mejores(q, trigramasConsulta.length, umbral, limite, conteo, tocados, totalTocados);
+		} finally {
+			for (int i = 0; i < totalTocados; i++) {
+				conteo[tocados[i]] = 0;
+			}
+		}
+	}
+
+	private List<Long> mejores(String q, int totalTrigramas, int umbral, int limite, byte[] conteo, int[] tocados, int totalTocados) {
+		// Contener la consulta completa implica tener casi todos sus trigramas: a lo sumo faltan
+		// el de inicio de la primera palabra (si está a mitad de palabra) y el final de la última
+		boolean puedeContener = puedeContener(q);
+		int minimoParaContener = totalTrigramas - 2;
+		String inicioPalabra = " " + q;
+		PriorityQueue<Candidato> mejores = new PriorityQueue<>(limite + 1, PEOR_PRIMERO);
+		for (int i = 0; i < totalTocados; i++) {
+			int documento = tocados[i];
+			int largo = largos[documento];
+			if (conteo[documento] < umbral || largo == 0) {
+				continue;
+			}
+			double puntaje = (double) conteo[documento] / totalTrigramas;
+			Candidato peor = mejores.size() == limite ? mejores.peek() : null;
+			// El texto solo se lee si la bonificación por contener la consulta puede cambiar algo
+			if (puedeContener && conteo[documento] >= minimoParaContener
+					&& (peor == null || supera(puntaje + 2, largo, peor))) {
+				String texto = textos[documento];
+				int posicion = texto.indexOf(q);
+				if (posicion >= 0) {
+					puntaje += posicion == 0 || texto.contains(inicioPalabra) ? 2 : 1;
+				}
+			}
+			// Solo se crea el candidato si desplaza al peor de los que ya están
+			if (peor != null) {
+				if (!supera(puntaje, largo, peor)) {
+					continue;
+				}
+				mejores.poll();
+			}
+			mejores.offer(new Candidato(documento, puntaje, largo));
+		}
+
+		List<Candidato> ordenados = new ArrayList<>(mejores);
+		ordenados.sort(PEOR_PRIMERO.reversed());
+		return ordenados.stream().map(c -> ids[c.documento()]).toList();
+	}
+
+	private static boolean supera(double puntaje, int largo, Candidato peor) {
+		return puntaje > peor.puntaje() || (puntaje == peor.puntaje() && largo < peor.largo());
+	}
+
+	// Si algún trigrama interior de una palabra de la consulta no está en el índice, ningún
+	// texto puede contenerla (típico de un apellido mal escrito) y no hace falta buscarla
+	private boolean puedeContener(String q) {
+		for (String palabra : q.split(" ")) {
+			for (int i = 0; i + 3 <= palabra.length(); i++) {
+				int trigrama = (simbolo(palabra.charAt(i)) << (2 * BITS_SIMBOLO))
+						| (simbolo(palabra.charAt(i + 1)) << BITS_SIMBOLO) | simbolo(palabra.charAt(i + 2));
+				if (tamanos[trigrama] == 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// Minúsculas sin tildes; puntos y guiones se eliminan para que "1.234.567-8" y "12345678"
+	// coincidan, el resto de signos separa palabras
+	static String normalizar(String valor) {
+		if (valor == null || valor.isBlank()) {
+			return "";
+		}
+		String sinTildes = esAscii(valor) ? valor
+				: Normalizer.normalize(valor, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+		StringBuilder sb = new StringBuilder(sinTildes.length());
+		boolean espacio = true;
+		for (int i = 0; i < sinTildes.length(); i++) {
+			char c = Character.toLowerCase(sinTildes.charAt(i));
+			if (c == '.' || c == '-') {
+				continue;
+			}
+			if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+				sb.append(c);
+				espacio = false;
+			} else if (!espacio) {
+				sb.append(' ');
+				espacio = true;
+			}
+		}
+		int fin = sb.length();
+		return espacio && fin > 0 ? sb.substring(0, fin - 1) : sb.toString();
+	}
+
+	private static boolean esAscii(String valor) {
+		for (int i = 0; i < valor.length(); i++) {
+			if (valor.charAt(i) > 127) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Trigramas distintos de un texto normalizado, ordenados
+	private static int[] trigramas(String texto) {
+		int[] resultado = new int[texto.length() * 3 + 3];
+		int total = 0;
+		int inicio = 0;
+		while (inicio < texto.length()) {
+			int fin = texto.indexOf(' ', inicio);
+			if (fin < 0) {
+				fin = texto.length();
+			}
+			// "  palabra ": dos espacios al inicio y uno al final
+			int a = 0, b = 0;
+			for (int i = inicio; i <= fin; i++) {
+				int c = i < fin ? simbolo(texto.charAt(i)) : 0;
+				if (i > inicio) {
+					resultado[total++] = (a << (2 * BITS_SIMBOLO)) | (b << BITS_SIMBOLO) | c;
+				}
+				a = b;
+				b = c;
+			}
+			inicio = fin + 1;
+		}
+		int[] distintos = Arrays.copyOf(resultado, total);
+		Arrays.sort(distintos);
+		int unicos = 0;
+		for (int i = 0; i < distintos.length; i++) {
+			if (i == 0 || distintos[i] != distintos[i - 1]) {
+				distintos[unicos++] = distintos[i];
+			}
+		}
+		return Arrays.copyOf(distintos, unicos);
+	}
+
+	private static int simbolo(char c) {
+		if (c >= 'a' && c <= 'z') {
+			return 1 + c - 'a';
+		}
+		if (c >= '0' && c <= '9') {
+			return 27 + c - '0';
+		}
+		return c == ' ' ? 0 : 37;
+	}
+
+	// Reconstruye las listas sin los documentos reemplazados o eliminados
+	private void compactar() {
+		long[] idsVivos = new long[documentoPorId.size()];
+		String[] textosVivos = new String[documentoPorId.size()];
+		int vivos = 0;
+		for (int d = 0; d < totalDocumentos; d++) {
+			if (textos[d] != null) {
+				idsVivos[vivos] = ids[d];
+				textosVivos[vivos++] = textos[d];
+			}
+		}
+		Arrays.fill(documentosPorTrigrama, null);
+		Arrays.fill(tamanos, 0);
+		documentoPorId.clear();
+		ids = new long[Math.max(1024, vivos * 2)];
+		textos = new String[ids.length];
+		largos = new int[ids.length];
+		totalDocumentos = 0;
+		documentosMuertos = 0;
+		for (int i = 0; i < vivos; i++) {
+			indexar(idsVivos[i], textosVivos[i]);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector de CSV (RFC 4180) registro a registro, sin cargar el archivo: admite campos entre
+// comillas con separadores, saltos de línea y comillas dobladas. El separador (',' o ';',
+// el que usa Excel en español) se detecta en la primera línea.
+class LectorCsv {
+
+	private static final int LARGO_MAXIMO_CAMPO = 100_000;
+
+	private final Reader entrada;
+	private char separador;
+	private boolean separadorDetectado;
+	private int pendiente = -2; // carácter leído de más; -2 si no hay
+	private long linea = 1;
+
+	LectorCsv(Reader entrada) {
+		this.entrada = entrada;
+	}
+
+	// Línea donde empieza el próximo registro (los campos entre comillas pueden ocupar varias)
+	long lineaActual() {
+		return linea;
+	}
+
+	// Campos del siguiente registro, o null al final del archivo
+	List<String> siguiente() throws IOException {
+		int c = leer();
+		if (c == -1) {
+			return null;
+		}
+		List<String> campos = new ArrayList<>();
+		StringBuilder campo = new StringBuilder();
+		boolean entreComillas = false;
+		boolean campoConComillas = false;
+		while (true) {
+			if (entreComillas) {
+				if (c == -1) {
+					throw new IOException("Comillas sin cerrar en el registro que empieza antes de la línea " + linea);
+				}
+				if (c == '"') {
+					int siguiente = leer();
+					if (siguiente == '"') {
+						campo.append('"');
+					} else {
+						entreComillas = false;
+						c = siguiente;
+						continue;
+					}
+				} else {
+					if (c == '\n') {
+						linea++;
+					}
+					agregar(campo, (char) c);
+				}
+			} else if (c == '"' && campo.isEmpty() && !campoConComillas) {
+				entreComillas = true;
+				campoConComillas = true;
+			} else if (c == '\r') {
+				// CRLF o CR solo: fin de registro
+				int siguiente = leer();
+				if (siguiente != '\n') {
+					pendiente = siguiente;
+				}
+				linea++;
+				campos.add(campo.toString());
+				return campos;
+			} else if (c == '\n' || c == -1) {
+				if (c == '\n') {
+					linea++;
+				}
+				campos.add(campo.toString());
+				return campos;
+			} else if (esSeparador((char) c)) {
+				campos.add(campo.toString());
+				campo.setLength(0);
+				campoConComillas = false;
+			} else {
+				agregar(campo, (char) c);
+			}
+			c = leer();
+		}
+	}
+
+	private boolean esSeparador(char c) {
+		if (!separadorDetectado && (c == ',' || c == ';')) {
+			separador = c;
+			separadorDetectado = true;
+		}
+		return separadorDetectado && c == separador;
+	}
+
+	private void agregar(StringBuilder campo, char c) throws IOException {
+		if (campo.length() >= LARGO_MAXIMO_CAMPO) {
+			throw new IOException("Campo demasiado largo en la línea " + linea);
+		}
+		campo.append(c);
+	}
+
+	private int leer() throws IOException {
+		if (pendiente != -2) {
+			int c = pendiente;
+			pendiente = -2;
+			return c;
+		}
+		int c = entrada.read();
+		// Marca de orden de bytes que agregan algunos editores al inicio del archivo
+		if (c == '\uFEFF' && linea == 1) {
+			return entrada.read();
+		}
+		return c;
+	}
+}
@@ -0,0 +1,153 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Service.NotificacionCitaService;
+
+import jakarta.annotation.PreDestroy;
+
+// Reenvía a las pantallas abiertas los cambios de citas ya confirmados en la base.
+// Cada evento se serializa una sola vez y se encola en cada suscriptor interesado; el envío
+// lo hace un hilo virtual por suscriptor solo mientras tiene mensajes pendientes, así que un
+// cliente lento no frena a los demás. Si su cola se llena se descartan sus pendientes y se le
+// envía "recargar" para que vuelva a pedir los datos.
+@Service
+public class NotificacionCitaServiceImpl implements NotificacionCitaService {
+
+	// El navegador reconecta solo al vencer (EventSource)
+	private static final long DURACION_CONEXION_MS = 30 * 60 * 1000L;
+	private static final int MAX_PENDIENTES = 256;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+	private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+	@Override
+	public SseEmitter suscribir(Long odontologoId, LocalDate fecha) {
+		SseEmitter emitter = new SseEmitter(DURACION_CONEXION_MS);
+		Suscriptor suscriptor = new Suscriptor(emitter, odontologoId, fecha);
+		emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+		emitter.onTimeout(() -> {
+			suscriptores.remove(suscriptor);
+			emitter.complete();
+		});
+		emitter.onError(e -> suscriptores.remove(suscriptor));
+		suscriptores.add(suscriptor);
+		suscriptor.encolar(new Mensaje("conectado", ""));
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCitaCambio(CitaCambioEvent evento) {
+		if (suscriptores.isEmpty()) {
+			return;
+		}
+		Mensaje mensaje;
+		try {
+			mensaje = new Mensaje("cita", objectMapper.writeValueAsString(evento));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("No se pudo serializar el cambio de la cita " + evento.getCitaId(), e);
+		}
+		for (Suscriptor suscriptor : suscriptores) {
+			if (suscriptor.interesa(evento)) {
+				suscriptor.encolar(mensaje);
+			}
+		}
+	}
+
+	// Comentario periódico: mantiene viva la conexión en proxies y detecta clientes que se fueron
+	@Scheduled(fixedRate = 25_000)
+	void latido() {
+		suscriptores.forEach(s -> s.encolar(Mensaje.LATIDO));
+	}
+
+	@PreDestroy
+	void cerrar() {
+		suscriptores.forEach(s -> s.emitter.complete());
+		envios.shutdownNow();
+	}
+
+	// nombre null = comentario SSE (no llega a los listeners del cliente)
+	private record Mensaje(String nombre, String datos) {
+		static final Mensaje LATIDO = new Mensaje(null, "latido");
+		static final Mensaje RECARGAR = new Mensaje("recargar", "");
+
+		SseEmitter.SseEventBuilder construir() {
+			return nombre == null ? SseEmitter.event().comment(datos) : SseEmitter.event().name(nombre).data(datos);
+		}
+	}
+
+	private final class Suscriptor {
+		private final SseEmitter emitter;
+		private final Long odontologoId;
+		private final LocalDate fecha;
+		private final ArrayBlockingQueue<Mensaje> pendientes = new ArrayBlockingQueue<>(MAX_PENDIENTES);
+		private final AtomicBoolean enviando = new AtomicBoolean();
+
+		Suscriptor(SseEmitter emitter, Long odontologoId, LocalDate fecha) {
+			this.emitter = emitter;
+			this.odontologoId = odontologoId;
+			this.fecha = fecha;
+		}
+
+		// Una cita que se mueve interesa tanto a la agenda de origen como a la de destino
+		boolean interesa(CitaCambioEvent evento) {
+			return coincide(evento.getAnterior()) || coincide(evento.getActual());
+		}
+
+		private boolean coincide(CitaCambioEvent.DatosCita datos) {
+			return datos != null
+					&& (odontologoId == null || odontologoId.equals(datos.getOdontologoId()))
+					&& (fecha == null || fecha.equals(datos.getFecha()));
+		}
+
+		void encolar(Mensaje mensaje) {
+			if (!pendientes.offer(mensaje)) {
+				pendientes.clear();
+				pendientes.offer(Mensaje.RECARGAR);
+			}
+			if (enviando.compareAndSet(false, true)) {
+				envios.execute(this::vaciar);
+			}
+		}
+
+		private void vaciar() {
+			try {
+				Mensaje mensaje;
+				while ((mensaje = pendientes.poll()) != null) {
+					emitter.send(mensaje.construir());
+				}
+			} catch (IOException | IllegalStateException e) {
+				// Cliente desconectado: se libera sin reintentar
+				suscriptores.remove(this);
+				pendientes.clear();
+				emitter.completeWithError(e);
+				return;
+			} finally {
+				enviando.set(false);
+			}
+			// Un mensaje pudo llegar entre el último poll y liberar el envío
+			if (!pendientes.isEmpty() && enviando.compareAndSet(false, true)) {
+				envios.execute(this::vaciar);
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// Odontograma empaquetado en bits. Cada uno de los 52 dientes (32 permanentes y 20 temporales,
+// notación FDI) ocupa 24 bits: 4 para el estado del diente y 4 por cada una de sus cinco caras.
+// Guardado: un mapa de 52 bits (7 bytes) con los dientes que tienen algo registrado y luego
+// 3 bytes por cada uno de ellos; un odontograma habitual queda en unas pocas decenas de bytes.
+//
+// Un evento es una lista de cambios de 2 bytes: índice del diente (6 bits), posición (3 bits:
+// 0 el diente completo, 1 a 5 una cara) y código del estado (4 bits).
+class OdontogramaCompacto {
+
+	static final int[] DIENTES = {
+			18, 17, 16, 15, 14, 13, 12, 11, 21, 22, 23, 24, 25, 26, 27, 28,
+			48, 47, 46, 45, 44, 43, 42, 41, 31, 32, 33, 34, 35, 36, 37, 38,
+			55, 54, 53, 52, 51, 61, 62, 63, 64, 65,
+			85, 84, 83, 82, 81, 71, 72, 73, 74, 75 };
+
+	static final int CARAS = 5;
+	private static final int BYTES_MAPA = (DIENTES.length + 7) / 8;
+	private static final int[] INDICE = new int[100];
+
+	static {
+		Arrays.fill(INDICE, -1);
+		for (int i = 0; i < DIENTES.length; i++) {
+			INDICE[DIENTES[i]] = i;
+		}
+	}
+
+	private final int[] dientes = new int[DIENTES.length];
+
+	static int indice(int numeroFdi) {
+		int i = numeroFdi >= 0 && numeroFdi < INDICE.length ? INDICE[numeroFdi] : -1;
+		if (i < 0) {
+			throw new RuntimeException("Número de diente inválido (notación FDI): " + numeroFdi);
+		}
+		return i;
+	}
+
+	static OdontogramaCompacto leer(byte[] estado) {
+		OdontogramaCompacto o = new OdontogramaCompacto();
+		if (estado == null || estado.length == 0) {
+			return o;
+		}
+		int p = BYTES_MAPA;
+		for (int i = 0; i < DIENTES.length; i++) {
+			if ((estado[i >> 3] & (1 << (i & 7))) != 0) {
+				o.dientes[i] = (estado[p] & 0xFF) | (estado[p + 1] & 0xFF) << 8 | (estado[p + 2] & 0xFF) << 16;
+				p += 3;
+			}
+		}
+		return o;
+	}
+
+	byte[] escribir() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(BYTES_MAPA + 3 * DIENTES.length);
+		byte[] mapa = new byte[BYTES_MAPA];
+		for (int i = 0; i < DIENTES.length; i++) {
+			if (dientes[i] != 0) {
+				mapa[i >> 3] |= (byte) (1 << (i & 7));
+			}
+		}
+		bytes.writeBytes(mapa);
+		for (int valor : dientes) {
+			if (valor != 0) {
+				bytes.write(valor);
+				bytes.write(valor >>> 8);
+				bytes.write(valor >>> 16);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	boolean registrado(int indice) {
+		return dientes[indice] != 0;
+	}
+
+	// posicion 0: estado del diente; 1 a 5: cara (ordinal de SuperficieDentalEnum + 1)
+	int codigo(int indice, int posicion) {
+		return dientes[indice] >>> (posicion * 4) & 0xF;
+	}
+
+	void cambiar(int indice, int posicion, int codigo) {
+		int desplazamiento = posicion * 4;
+		dientes[indice] = dientes[indice] & ~(0xF << desplazamiento) | codigo << desplazamiento;
+	}
+
+	static void agregarCambio(ByteArrayOutputStream evento, int indice, int posicion, int codigo) {
+		if (posicion < 0 || posicion > CARAS || codigo < 0 || codigo > 0xF) {
+			throw new IllegalArgumentException("Cambio de odontograma fuera de rango");
+		}
+		int cambio = indice << 7 | posicion << 4 | codigo;
+		evento.write(cambio >>> 8);
+		evento.write(cambio);
+	}
+
+	void aplicar(byte[] evento) {
+		for (int p = 0; p + 1 < evento.length; p += 2) {
+			int cambio = (evento[p] & 0xFF) << 8 | evento[p + 1] & 0xFF;
+			cambiar(cambio >>> 7, cambio >>> 4 & 0x7, cambio & 0xF);
+		}
+	}
+
+	// Para listar un evento: {indice, posicion, codigo} de cada cambio
+	static int[][] cambios(byte[] evento) {
+		int[][] cambios = new int[evento.length / 2][];
+		for (int c = 0; c < cambios.length; c++) {
+			int cambio = (evento[2 * c] & 0xFF) << 8 | evento[2 * c + 1] & 0xFF;
+			cambios[c] = new int[] { cambio >>> 7, cambio >>> 4 & 0x7, cambio & 0xF };
+		}
+		return cambios;
+	}
+}
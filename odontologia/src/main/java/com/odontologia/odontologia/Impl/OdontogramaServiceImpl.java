@@ -0,0 +1,161 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.CambioOdontogramaDto;
+import com.odontologia.odontologia.Dto.DienteOdontogramaDto;
+import com.odontologia.odontologia.Dto.EventoOdontogramaDto;
+import com.odontologia.odontologia.Dto.OdontogramaDto;
+import com.odontologia.odontologia.Entity.EstadoDienteEnum;
+import com.odontologia.odontologia.Entity.EstadoSuperficieEnum;
+import com.odontologia.odontologia.Entity.EventoOdontograma;
+import com.odontologia.odontologia.Entity.Odontograma;
+import com.odontologia.odontologia.Entity.SuperficieDentalEnum;
+import com.odontologia.odontologia.Repository.EventoOdontogramaRepository;
+import com.odontologia.odontologia.Repository.OdontogramaRepository;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Service.OdontogramaService;
+
+// El estado actual se lee de una sola fila (odontogramas) y cada registro agrega un evento.
+// Los eventos ocupan dos bytes por cambio, así que reconstruir un estado anterior reproduciendo
+// todos los eventos del paciente desde el principio es barato y no hacen falta copias intermedias.
+@Service
+public class OdontogramaServiceImpl implements OdontogramaService {
+
+	private static final SuperficieDentalEnum[] SUPERFICIES = SuperficieDentalEnum.values();
+	private static final EstadoDienteEnum[] ESTADOS_DIENTE = EstadoDienteEnum.values();
+	private static final EstadoSuperficieEnum[] ESTADOS_SUPERFICIE = EstadoSuperficieEnum.values();
+
+	@Autowired
+	private OdontogramaRepository odontogramaRepository;
+
+	@Autowired
+	private EventoOdontogramaRepository eventoRepository;
+
+	@Autowired
+	private Paciente2Repository paciente2Repository;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	@Override
+	public OdontogramaDto obtenerOdontograma(Long pacienteId) {
+		return odontogramaRepository.findById(pacienteId)
+				.map(o -> convertir(pacienteId, o.getUltimoEvento(), o.getActualizado(), OdontogramaCompacto.leer(o.getEstado())))
+				.orElseGet(() -> {
+					verificarPaciente(pacienteId);
+					return convertir(pacienteId, 0, null, new OdontogramaCompacto());
+				});
+	}
+
+	@Override
+	@Transactional
+	public OdontogramaDto registrarEvento(Long pacienteId, EventoOdontogramaDto evento) {
+		if (evento.getCambios() == null || evento.getCambios().isEmpty()) {
+			throw new RuntimeException("El evento del odontograma no tiene cambios");
+		}
+		if (evento.getOdontologoId() != null && !odontologoRepository.existsById(evento.getOdontologoId())) {
+			throw new RuntimeException("Odontologo no encontrado con ID: " + evento.getOdontologoId());
+		}
+		Odontograma odontograma = odontogramaRepository.findById(pacienteId).orElseGet(() -> {
+			verificarPaciente(pacienteId);
+			return new Odontograma(pacienteId, 0, null, null);
+		});
+		byte[] cambios = codificar(evento.getCambios());
+		OdontogramaCompacto estado = OdontogramaCompacto.leer(odontograma.getEstado());
+		estado.aplicar(cambios);
+
+		LocalDateTime ahora = LocalDateTime.now();
+		int numero = odontograma.getUltimoEvento() + 1;
+		eventoRepository.save(new EventoOdontograma(null, pacienteId, numero, ahora, evento.getOdontologoId(), cambios));
+		odontograma.setUltimoEvento(numero);
+		odontograma.setActualizado(ahora);
+		odontograma.setEstado(estado.escribir());
+		odontogramaRepository.save(odontograma);
+		return convertir(pacienteId, numero, ahora, estado);
+	}
+
+	@Override
+	public List<EventoOdontogramaDto> listarEventos(Long pacienteId) {
+		verificarPaciente(pacienteId);
+		List<EventoOdontogramaDto> eventos = new ArrayList<>();
+		for (EventoOdontograma e : eventoRepository.findByPacienteIdOrderByNumeroAsc(pacienteId)) {
+			List<CambioOdontogramaDto> cambios = new ArrayList<>();
+			for (int[] c : OdontogramaCompacto.cambios(e.getCambios())) {
+				int diente = OdontogramaCompacto.DIENTES[c[0]];
+				cambios.add(c[1] == 0
+						? new CambioOdontogramaDto(diente, null, ESTADOS_DIENTE[c[2]], null)
+						: new CambioOdontogramaDto(diente, SUPERFICIES[c[1] - 1], null, ESTADOS_SUPERFICIE[c[2]]));
+			}
+			eventos.add(new EventoOdontogramaDto(e.getNumero(), e.getFecha(), e.getOdontologoId(), cambios));
+		}
+		return eventos;
+	}
+
+	@Override
+	public OdontogramaDto obtenerVersion(Long pacienteId, int evento) {
+		List<EventoOdontograma> eventos = eventoRepository.findByPacienteIdAndNumeroLessThanEqualOrderByNumeroAsc(pacienteId, evento);
+		if (evento < 1 || eventos.size() != evento) {
+			verificarPaciente(pacienteId);
+			throw new RuntimeException("El odontograma del paciente " + pacienteId + " no tiene el evento " + evento);
+		}
+		OdontogramaCompacto estado = new OdontogramaCompacto();
+		for (EventoOdontograma e : eventos) {
+			estado.aplicar(e.getCambios());
+		}
+		return convertir(pacienteId, evento, eventos.get(eventos.size() - 1).getFecha(), estado);
+	}
+
+	private void verificarPaciente(Long pacienteId) {
+		if (!paciente2Repository.existsById(pacienteId)) {
+			throw new RuntimeException("Paciente no encontrado con ID: " + pacienteId);
+		}
+	}
+
+	private static byte[] codificar(List<CambioOdontogramaDto> cambios) {
+		ByteArrayOutputStream evento = new ByteArrayOutputStream(cambios.size() * 2);
+		for (CambioOdontogramaDto c : cambios) {
+			int indice = OdontogramaCompacto.indice(c.getDiente());
+			if (c.getSuperficie() == null) {
+				if (c.getEstadoDiente() == null) {
+					throw new RuntimeException("Falta el estado del diente " + c.getDiente());
+				}
+				OdontogramaCompacto.agregarCambio(evento, indice, 0, c.getEstadoDiente().ordinal());
+			} else {
+				if (c.getEstadoSuperficie() == null) {
+					throw new RuntimeException("Falta el estado de la cara " + c.getSuperficie() + " del diente " + c.getDiente());
+				}
+				OdontogramaCompacto.agregarCambio(evento, indice, c.getSuperficie().ordinal() + 1, c.getEstadoSuperficie().ordinal());
+			}
+		}
+		return evento.toByteArray();
+	}
+
+	private static OdontogramaDto convertir(Long pacienteId, int evento, LocalDateTime fecha, OdontogramaCompacto estado) {
+		List<DienteOdontogramaDto> dientes = new ArrayList<>();
+		for (int i = 0; i < OdontogramaCompacto.DIENTES.length; i++) {
+			if (!estado.registrado(i)) {
+				continue;
+			}
+			Map<SuperficieDentalEnum, EstadoSuperficieEnum> superficies = new EnumMap<>(SuperficieDentalEnum.class);
+			for (int cara = 1; cara <= OdontogramaCompacto.CARAS; cara++) {
+				int codigo = estado.codigo(i, cara);
+				if (codigo != 0) {
+					superficies.put(SUPERFICIES[cara - 1], ESTADOS_SUPERFICIE[codigo]);
+				}
+			}
+			dientes.add(new DienteOdontogramaDto(OdontogramaCompacto.DIENTES[i], ESTADOS_DIENTE[estado.codigo(i, 0)], superficies));
+		}
+		return new OdontogramaDto(pacienteId, evento, fecha, dientes);
+	}
+}
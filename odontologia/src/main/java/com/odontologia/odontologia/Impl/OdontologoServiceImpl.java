@@ -1,14 +1,29 @@
 package com.odontologia.odontologia.Impl;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.odontologia.odontologia.Dto.ExcepcionHorarioDto;
+import com.odontologia.odontologia.Dto.HorarioSemanalDto;
 import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.OdontologoResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
 import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Repository.Cita2Repository;
 import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.SerieCitaRepository;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+import com.odontologia.odontologia.Service.CatalogoService;
+import com.odontologia.odontologia.Service.DisponibilidadService;
 import com.odontologia.odontologia.Service.OdontologoService;
 
 @Service
@@ -17,15 +32,45 @@ public class OdontologoServiceImpl implements OdontologoService {
 	@Autowired
 	private OdontologoRepository odontologoRepository;
 
+	@Autowired
+	private DisponibilidadService disponibilidadService;
+
+	@Autowired
+	private AgendaDiaService agendaDiaService;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private SerieCitaRepository serieCitaRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
 	@Override
 	public List<OdontologoDto> listarOdontologos() {
 		List<Odontologo> list = odontologoRepository.findAll();
 		return list.stream().map(this::convertirEntityADto).collect(Collectors.toList());
 	}
 
+	@Override
+	public PaginaDto<OdontologoDto> listarOdontologosPaginado(Long after, Integer limit) {
+		int limite = PaginaDto.normalizarLimite(limit);
+		List<Odontologo> list = odontologoRepository.findByIdGreaterThanOrderByIdAsc(PaginaDto.normalizarCursor(after), Limit.of(limite + 1));
+		return PaginaDto.desde(list, limite, Odontologo::getId, this::convertirEntityADto);
+	}
+
+	@Override
+	public List<OdontologoResumenDto> listarOdontologosResumen(Integer limit) {
+		Limit limite = limit != null ? Limit.of(PaginaDto.normalizarLimite(limit)) : Limit.unlimited();
+		return odontologoRepository.buscarResumen(limite).stream()
+				.map(o -> new OdontologoResumenDto(o.getId(), o.getNombre(), o.getApellido(), o.getTipoDocumento(), o.getDocumento()))
+				.collect(Collectors.toList());
+	}
+
 	@Override
 	public OdontologoDto obtenerOdontologoPorId(Long id) {
-		Odontologo o = odontologoRepository.findById(id)
+		Odontologo o = odontologoRepository.findCompletoById(id)
 				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + id));
 		return convertirEntityADto(o);
 	}
@@ -33,13 +78,15 @@ public class OdontologoServiceImpl implements OdontologoService {
 	@Override
 	public OdontologoDto crearOdontologo(OdontologoDto odontologoDto) {
 		Odontologo o = convertirDtoAEntity(odontologoDto);
+		o.setHorario(compilarCamposLibres(o, List.of()).escribir());
 		Odontologo guardado = odontologoRepository.save(o);
 		return convertirEntityADto(guardado);
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_ODONTOLOGOS, key = "#id")
 	public OdontologoDto actualizarOdontologo(Long id, OdontologoDto odontologoDto) {
-		Odontologo existente = odontologoRepository.findById(id)
+		Odontologo existente = odontologoRepository.findConHorarioById(id)
 				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + id));
 
 		// Actualizar todos los campos
@@ -60,21 +107,71 @@ public class OdontologoServiceImpl implements OdontologoService {
 		existente.setContactoEmergenciaNombre(odontologoDto.getContactoEmergenciaNombre());
 		existente.setContactoEmergenciaParentesco(odontologoDto.getContactoEmergenciaParentesco());
 		existente.setContactoEmergenciaTelefono(odontologoDto.getContactoEmergenciaTelefono());
-		existente.setDiasTrabajo(odontologoDto.getDiasTrabajo());
-		existente.setHoraInicio(odontologoDto.getHoraInicio());
-		existente.setHoraFin(odontologoDto.getHoraFin());
+		// El formulario sigue editando el horario como texto: solo si cambió se recompila,
+		// conservando las excepciones que ya tenía
+		if (!Objects.equals(existente.getDiasTrabajo(), odontologoDto.getDiasTrabajo())
+				|| !Objects.equals(existente.getHoraInicio(), odontologoDto.getHoraInicio())
+				|| !Objects.equals(existente.getHoraFin(), odontologoDto.getHoraFin())) {
+			List<ExcepcionHorarioDto> excepciones = HorarioCompilado.de(existente).aDto().getExcepciones();
+			existente.setDiasTrabajo(odontologoDto.getDiasTrabajo());
+			existente.setHoraInicio(odontologoDto.getHoraInicio());
+			existente.setHoraFin(odontologoDto.getHoraFin());
+			existente.setHorario(compilarCamposLibres(existente, excepciones).escribir());
+		}
 		existente.setObservaciones(odontologoDto.getObservaciones());
 
 		Odontologo actualizado = odontologoRepository.save(existente);
+		// El horario pudo cambiar: la agenda en memoria se reconstruye en la próxima consulta
+		disponibilidadService.invalidarOdontologo(id);
+		agendaDiaService.invalidarTodo();
 		return convertirEntityADto(actualizado);
 	}
 
 	@Override
+	public HorarioSemanalDto obtenerHorario(Long id) {
+		Odontologo o = odontologoRepository.findConHorarioById(id)
+				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + id));
+		return HorarioCompilado.de(o).aDto();
+	}
+
+	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_ODONTOLOGOS, key = "#id")
+	public HorarioSemanalDto actualizarHorario(Long id, HorarioSemanalDto horarioDto) {
+		Odontologo existente = odontologoRepository.findConHorarioById(id)
+				.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + id));
+		HorarioCompilado horario = HorarioCompilado.compilar(horarioDto);
+		existente.setHorario(horario.escribir());
+		existente.setDiasTrabajo(horario.diasTrabajo());
+		existente.setHoraInicio(horario.horaInicio());
+		existente.setHoraFin(horario.horaFin());
+		odontologoRepository.save(existente);
+		disponibilidadService.invalidarOdontologo(id);
+		agendaDiaService.invalidarTodo();
+		return horario.aDto();
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(cacheNames = CatalogoService.CACHE_ODONTOLOGOS, key = "#id")
 	public void eliminarOdontologo(Long id) {
 		if (!odontologoRepository.existsById(id)) {
 			throw new RuntimeException("Odontólogo no encontrado con ID: " + id);
 		}
+		// Las citas se borran en cascada con el odontólogo: se avisa de cada una, como en
+		// Paciente2ServiceImpl.eliminarPaciente, para que las pantallas conectadas las quiten
+		List<Cita2Repository.PosicionCita> citas = citaRepository.buscarPosicionesDeOdontologo(id);
+		serieCitaRepository.desvincularCitasDeOdontologo(id);
+		serieCitaRepository.eliminarDeOdontologo(id);
 		odontologoRepository.deleteById(id);
+		citas.forEach(c -> eventPublisher.publishEvent(CitaCambioEvent.eliminada(new CitaCambioEvent.DatosCita(
+				c.getCitaId(), c.getOdontologoId(), c.getPacienteId(), c.getFecha(), c.getHora(), c.getMinutos(), c.getEstado()))));
+		disponibilidadService.invalidarOdontologo(id);
+		agendaDiaService.invalidarTodo();
+	}
+
+	private static HorarioCompilado compilarCamposLibres(Odontologo o, List<ExcepcionHorarioDto> excepciones) {
+		return HorarioCompilado.compilar(new HorarioSemanalDto(
+				HorarioCompilado.intervalosDeCamposLibres(o.getDiasTrabajo(), o.getHoraInicio(), o.getHoraFin()), excepciones));
 	}
 
 	private OdontologoDto convertirEntityADto(Odontologo o) {
@@ -1,49 +1,147 @@
 package com.odontologia.odontologia.Impl;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.odontologia.odontologia.Dto.FichaPacienteDto;
+import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
 import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.PacienteResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
 import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Repository.Cita2Repository;
 import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.SerieCitaRepository;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+import com.odontologia.odontologia.Service.BusquedaPacientesService;
+import com.odontologia.odontologia.Service.Cita2Service;
 import com.odontologia.odontologia.Service.Paciente2Service;
 
 @Service
 public class Paciente2ServiceImpl  implements Paciente2Service {
 
+	private static final int CITAS_EN_FICHA = 10;
+
 	@Autowired
 	private Paciente2Repository paciente2Repository;
 
+	@Autowired
+	private AgendaDiaService agendaDiaService;
+
+	@Autowired
+	private BusquedaPacientesService busquedaPacientesService;
+
+	@Autowired
+	private Cita2Service cita2Service;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private SerieCitaRepository serieCitaRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
 	@Override
 	public List<Paciente2Dto> listarPacientes() {
 		List<Paciente2> list = paciente2Repository.findAll();
 		return list.stream().map(this::convertirEntityADto).collect(Collectors.toList());
 	}
 
+	@Override
+	public PaginaDto<Paciente2Dto> listarPacientesPaginado(Long after, Integer limit) {
+		int limite = PaginaDto.normalizarLimite(limit);
+		List<Paciente2> list = paciente2Repository.findByIdGreaterThanOrderByIdAsc(PaginaDto.normalizarCursor(after), Limit.of(limite + 1));
+		return PaginaDto.desde(list, limite, Paciente2::getId, this::convertirEntityADto);
+	}
+
+	@Override
+	public List<PacienteResumenDto> listarPacientesResumen(Integer limit) {
+		Limit limite = limit != null ? Limit.of(PaginaDto.normalizarLimite(limit)) : Limit.unlimited();
+		return paciente2Repository.buscarResumen(limite).stream()
+				.map(p -> new PacienteResumenDto(p.getId(), p.getNombres(), p.getApellidos(), p.getTipoDocumento(), p.getDocumento()))
+				.collect(Collectors.toList());
+	}
+
+	// El DTO lleva los campos TEXT perezosos: se traen en la misma consulta, también fuera de una petición web
 	@Override
 	public Paciente2Dto obtenerPacientePorId(Long id) {
-		Paciente2 p = paciente2Repository.findById(id)
+		Paciente2 p = paciente2Repository.findConHistoriaById(id)
 				.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + id));
 		return convertirEntityADto(p);
 	}
 
+	// Tres consultas en total: paciente con su historia y las dos listas de citas. Al compartir el
+	// contexto de persistencia, las citas encuentran al paciente ya cargado y no lo vuelven a leer.
+	@Override
+	@Transactional(readOnly = true)
+	public FichaPacienteDto obtenerFicha(Long id) {
+		Paciente2 p = paciente2Repository.findConHistoriaById(id)
+				.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + id));
+		LocalDateTime ahora = LocalDateTime.now();
+		HistoriaClinicaDto historia = null;
+		if (p.getHistoriaClinica() != null) {
+			HistoriaClinica h = p.getHistoriaClinica();
+			historia = new HistoriaClinicaDto();
+			historia.setId(h.getId());
+			historia.setAntecedentes(h.getAntecedentes());
+			historia.setAlergias(h.getAlergias());
+			historia.setMedicamentos(h.getMedicamentos());
+			historia.setRevision(h.getRevision());
+		}
+		return new FichaPacienteDto(convertirEntityADto(p), historia,
+				cita2Service.listarCitasDePaciente(id, ahora, true, CITAS_EN_FICHA),
+				cita2Service.listarCitasDePaciente(id, ahora, false, CITAS_EN_FICHA));
+	}
+
+	@Override
+	public List<Paciente2Dto> buscarPacientes(String consulta, Integer limit) {
+		int limite = Math.min(PaginaDto.normalizarLimite(limit != null ? limit : 20), 100);
+		List<Long> ids = busquedaPacientesService.buscarIds(consulta, limite);
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		// Se respeta el orden de relevancia del índice
+		Map<Long, Integer> posicion = new HashMap<>();
+		for (int i = 0; i < ids.size(); i++) {
+			posicion.put(ids.get(i), i);
+		}
+		return paciente2Repository.findByIdIn(ids).stream()
+				.sorted(Comparator.comparing(p -> posicion.get(p.getId())))
+				.map(this::convertirEntityADto)
+				.collect(Collectors.toList());
+	}
+
 	@Override
 	public Paciente2Dto crearPaciente(Paciente2Dto pacienteDto) {
 		try {
 			Paciente2 p = convertirDtoAEntity(pacienteDto);
 			Paciente2 guardado = paciente2Repository.save(p);
+			busquedaPacientesService.indexar(guardado);
 			return convertirEntityADto(guardado);
 		} catch (Exception e) {
 			throw new RuntimeException("Error al crear paciente: " + e.getMessage(), e);
 		}
 	}
 
+	// En una transacción: el save no vuelve a leer al paciente para fusionarlo
 	@Override
+	@Transactional
 	public Paciente2Dto actualizarPaciente(Long id, Paciente2Dto pacienteDto) {
-		Paciente2 existente = paciente2Repository.findById(id)
+		Paciente2 existente = paciente2Repository.findConHistoriaById(id)
 				.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + id));
 
 		existente.setNombres(pacienteDto.getNombres());
@@ -63,15 +161,28 @@ public class Paciente2ServiceImpl  implements Paciente2Service {
 		existente.setObservaciones(pacienteDto.getObservaciones());
 
 		Paciente2 actualizado = paciente2Repository.save(existente);
+		busquedaPacientesService.indexar(actualizado);
+		// Las agendas en caché muestran el nombre del paciente
+		agendaDiaService.invalidarTodo();
 		return convertirEntityADto(actualizado);
 	}
 
 	@Override
+	@Transactional
 	public void eliminarPaciente(Long id) {
 		if (!paciente2Repository.existsById(id)) {
 			throw new RuntimeException("Paciente no encontrado con ID: " + id);
 		}
+		// Las citas se borran en cascada con el paciente: se avisa de cada una como en Cita2ServiceImpl.eliminarCita
+		// para que la disponibilidad libere sus horarios y las pantallas conectadas las quiten
+		List<Cita2Repository.PosicionCita> citas = citaRepository.buscarPosicionesDePaciente(id);
+		serieCitaRepository.desvincularCitasDePaciente(id);
+		serieCitaRepository.eliminarDePaciente(id);
 		paciente2Repository.deleteById(id);
+		citas.forEach(c -> eventPublisher.publishEvent(CitaCambioEvent.eliminada(new CitaCambioEvent.DatosCita(
+				c.getCitaId(), c.getOdontologoId(), c.getPacienteId(), c.getFecha(), c.getHora(), c.getMinutos(), c.getEstado()))));
+		busquedaPacientesService.quitar(id);
+		agendaDiaService.invalidarTodo();
 	}
 
 	private Paciente2Dto convertirEntityADto(Paciente2 p) {
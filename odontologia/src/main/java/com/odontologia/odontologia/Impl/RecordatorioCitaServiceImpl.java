@@ -0,0 +1,217 @@
+package com.odontologia.odontologia.Impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.odontologia.odontologia.Dto.ResumenRecordatoriosDto;
+import com.odontologia.odontologia.Entity.EstadoRecordatorioEnum;
+import com.odontologia.odontologia.Entity.RecordatorioCita;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.RecordatorioCitaRepository;
+import com.odontologia.odontologia.Service.RecordatorioCitaService;
+import com.odontologia.odontologia.Service.RemitenteRecordatorio;
+
+import jakarta.annotation.PostConstruct;
+
+// Recordatorios de citas próximas. Recorre la ventana por tandas paginadas por cursor (nunca
+// tiene más de una tanda en memoria), envía cada tanda en paralelo sobre hilos virtuales y
+// guarda el resultado antes de pedir la siguiente. Las citas con recordatorio enviado, o que
+// agotaron sus intentos, ya no aparecen en la consulta: volver a correr el proceso no reenvía.
+// Con varias instancias de la aplicación, en PostgreSQL solo recorre la ventana la que obtiene
+// el lock de sesión pg_try_advisory_lock; las demás omiten esa ejecución. Sin un
+// RemitenteRecordatorio registrado el proceso falla sin tocar ninguna cita.
+@Service
+public class RecordatorioCitaServiceImpl implements RecordatorioCitaService {
+
+	private static final int MAX_INTENTOS = 3;
+	// Clave de un solo bigint: no se cruza con las de dos enteros de BloqueoAgendaServiceImpl
+	private static final long CLAVE_BLOQUEO = 0x5245434f5244L;
+	private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+	private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private RecordatorioCitaRepository recordatorioRepository;
+
+	@Autowired(required = false)
+	private RemitenteRecordatorio remitente;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${odontologia.recordatorios.tamano-tanda:200}")
+	private int tamanoTanda;
+
+	// Tope de envíos en curso: protege al servidor de correo/SMS, no a la aplicación
+	@Value("${odontologia.recordatorios.envios-simultaneos:50}")
+	private int enviosSimultaneos;
+
+	private final AtomicBoolean enCurso = new AtomicBoolean();
+
+	private boolean postgres;
+
+	@PostConstruct
+	void inicializar() {
+		String producto = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+		postgres = "PostgreSQL".equalsIgnoreCase(producto);
+	}
+
+	@Scheduled(cron = "${odontologia.recordatorios.cron:0 */15 * * * *}")
+	void enviarProgramados() {
+		enviarRecordatorios(LocalDateTime.now());
+	}
+
+	@Override
+	public ResumenRecordatoriosDto enviarRecordatorios(LocalDateTime ahora) {
+		if (remitente == null) {
+			throw new IllegalStateException("No hay un remitente de recordatorios configurado");
+		}
+		// Una ejecución a la vez: si la anterior sigue, en esta instancia o en otra, esta se omite
+		if (!enCurso.compareAndSet(false, true)) {
+			return new ResumenRecordatoriosDto(0, 0);
+		}
+		try {
+			if (!postgres) {
+				return recorrerVentana(ahora);
+			}
+			// El lock es de la sesión que lo toma: se pide y se suelta en la misma conexión, que
+			// queda apartada mientras dura la ejecución. Si la instancia cae, se libera con ella.
+			return jdbcTemplate.execute((ConnectionCallback<ResumenRecordatoriosDto>) c -> {
+				if (!bloqueo(c, "SELECT pg_try_advisory_lock(?)")) {
+					return new ResumenRecordatoriosDto(0, 0);
+				}
+				try {
+					return recorrerVentana(ahora);
+				} finally {
+					bloqueo(c, "SELECT pg_advisory_unlock(?)");
+				}
+			});
+		} finally {
+			enCurso.set(false);
+		}
+	}
+
+	private ResumenRecordatoriosDto recorrerVentana(LocalDateTime ahora) {
+		LocalDateTime desde = ahora.plusHours(24);
+		LocalDateTime hasta = ahora.plusHours(48);
+		ResumenRecordatoriosDto resumen = new ResumenRecordatoriosDto(0, 0);
+		long cursor = 0L;
+		List<Cita2Repository.CitaParaRecordatorio> tanda;
+		do {
+			tanda = citaRepository.buscarParaRecordatorio(desde.toLocalDate(), desde.toLocalTime(),
+					hasta.toLocalDate(), hasta.toLocalTime(), MAX_INTENTOS, cursor, Limit.of(tamanoTanda));
+			if (!tanda.isEmpty()) {
+				enviarTanda(tanda, ahora, resumen);
+				cursor = tanda.get(tanda.size() - 1).getCitaId();
+			}
+		} while (tanda.size() == tamanoTanda);
+		return resumen;
+	}
+
+	private boolean bloqueo(Connection conexion, String sql) throws SQLException {
+		try (PreparedStatement ps = conexion.prepareStatement(sql)) {
+			ps.setLong(1, CLAVE_BLOQUEO);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() && rs.getBoolean(1);
+			}
+		}
+	}
+
+	private void enviarTanda(List<Cita2Repository.CitaParaRecordatorio> tanda, LocalDateTime ahora, ResumenRecordatoriosDto resumen) {
+		Semaphore permisos = new Semaphore(enviosSimultaneos);
+		List<RemitenteRecordatorio.Mensaje> mensajes = tanda.stream().map(this::redactar).collect(Collectors.toList());
+		List<Future<String>> envios = new ArrayList<>(mensajes.size());
+		// close() espera a que terminen todos los envíos de la tanda
+		try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (RemitenteRecordatorio.Mensaje mensaje : mensajes) {
+				envios.add(hilos.submit(() -> enviar(mensaje, permisos)));
+			}
+		}
+
+		Map<Long, RecordatorioCita> existentes = recordatorioRepository
+				.findByCitaIdIn(tanda.stream().map(Cita2Repository.CitaParaRecordatorio::getCitaId).collect(Collectors.toList()))
+				.stream()
+				.collect(Collectors.toMap(r -> r.getCita().getId(), Function.identity()));
+		List<RecordatorioCita> recordatorios = new ArrayList<>(tanda.size());
+		for (int i = 0; i < mensajes.size(); i++) {
+			RemitenteRecordatorio.Mensaje mensaje = mensajes.get(i);
+			String error = envios.get(i).resultNow();
+			RecordatorioCita recordatorio = existentes.get(mensaje.citaId());
+			if (recordatorio == null) {
+				recordatorio = new RecordatorioCita();
+				recordatorio.setCita(citaRepository.getReferenceById(mensaje.citaId()));
+			}
+			recordatorio.setDestinatario(mensaje.destinatario());
+			recordatorio.setUltimoIntento(ahora);
+			if (error == null) {
+				recordatorio.setEstado(EstadoRecordatorioEnum.ENVIADO);
+				recordatorio.setIntentos(recordatorio.getIntentos() + 1);
+				recordatorio.setError(null);
+				resumen.setEnviados(resumen.getEnviados() + 1);
+			} else {
+				recordatorio.setEstado(EstadoRecordatorioEnum.FALLIDO);
+				// Sin destinatario no tiene sentido reintentar
+				recordatorio.setIntentos(mensaje.destinatario() == null ? MAX_INTENTOS : recordatorio.getIntentos() + 1);
+				recordatorio.setError(error.length() > 255 ? error.substring(0, 255) : error);
+				resumen.setFallidos(resumen.getFallidos() + 1);
+			}
+			recordatorios.add(recordatorio);
+		}
+		recordatorioRepository.saveAll(recordatorios);
+	}
+
+	// Devuelve null si se envió o el motivo del fallo
+	private String enviar(RemitenteRecordatorio.Mensaje mensaje, Semaphore permisos) {
+		if (mensaje.destinatario() == null) {
+			return "El paciente no tiene email ni teléfono";
+		}
+		try {
+			permisos.acquire();
+			try {
+				remitente.enviar(mensaje);
+				return null;
+			} finally {
+				permisos.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "Envío interrumpido";
+		} catch (Exception e) {
+			return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+		}
+	}
+
+	private RemitenteRecordatorio.Mensaje redactar(Cita2Repository.CitaParaRecordatorio c) {
+		String destinatario = c.getEmail() != null && !c.getEmail().isBlank() ? c.getEmail()
+				: c.getTelefono() != null && !c.getTelefono().isBlank() ? c.getTelefono() : null;
+		String cuerpo = "Hola " + c.getPacienteNombres() + " " + c.getPacienteApellidos()
+				+ ", le recordamos su cita de " + c.getTipoCita()
+				+ " con Dr(a). " + c.getOdontologoNombre() + " " + c.getOdontologoApellido()
+				+ " el " + c.getFecha().format(FORMATO_FECHA) + " a las " + c.getHora().format(FORMATO_HORA) + ".";
+		return new RemitenteRecordatorio.Mensaje(c.getCitaId(), destinatario, "Recordatorio de su cita odontológica", cuerpo);
+	}
+}
@@ -0,0 +1,32 @@
+package com.odontologia.odontologia.Impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.odontologia.odontologia.Service.RemitenteRecordatorio;
+
+// Remitente local: agrega cada recordatorio a un archivo de texto en lugar de enviarlo.
+// Solo para desarrollo y pruebas: se activa con odontologia.recordatorios.remitente=archivo.
+// Marca los recordatorios como enviados sin que salgan, así que no debe usarse en producción.
+@Service
+@ConditionalOnProperty(name = "odontologia.recordatorios.remitente", havingValue = "archivo")
+public class RemitenteArchivoRecordatorio implements RemitenteRecordatorio {
+
+	@Value("${odontologia.recordatorios.archivo:recordatorios.log}")
+	private Path archivo;
+
+	@Override
+	public synchronized void enviar(Mensaje mensaje) throws IOException {
+		String linea = LocalDateTime.now() + " | cita " + mensaje.citaId() + " | para " + mensaje.destinatario()
+				+ " | " + mensaje.asunto() + " | " + mensaje.cuerpo() + System.lineSeparator();
+		Files.writeString(archivo, linea, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+}
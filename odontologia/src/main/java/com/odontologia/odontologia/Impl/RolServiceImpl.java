@@ -4,11 +4,13 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
 import com.odontologia.odontologia.Dto.RolDto;
 import com.odontologia.odontologia.Entity.Rol;
 import com.odontologia.odontologia.Repository.RolRepository;
+import com.odontologia.odontologia.Service.CatalogoService;
 import com.odontologia.odontologia.Service.RolService;
 
 @Service
@@ -38,6 +40,7 @@ public class RolServiceImpl implements RolService {
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_ROLES, key = "#id")
 	public RolDto actualizarRol(Long id, RolDto rolDto) {
 		Rol existente = rolRepository.findById(id)
 				.orElseThrow(() -> new RuntimeException("Rol no encontrado con ID: " + id));
@@ -49,6 +52,7 @@ public class RolServiceImpl implements RolService {
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_ROLES, key = "#id")
 	public void eliminarRol(Long id) {
 		if (!rolRepository.existsById(id)) {
 			throw new RuntimeException("Rol no encontrado con ID: " + id);
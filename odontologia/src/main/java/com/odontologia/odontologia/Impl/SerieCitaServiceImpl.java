@@ -0,0 +1,386 @@
+package com.odontologia.odontologia.Impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
+import com.odontologia.odontologia.Dto.SerieCitaDto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.SerieCita;
+import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Event.CitaCambioEvent;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.SerieCitaRepository;
+import com.odontologia.odontologia.Repository.TipoCitaRepository;
+import com.odontologia.odontologia.Service.BloqueoAgendaService;
+import com.odontologia.odontologia.Service.SerieCitaService;
+
+import jakarta.persistence.EntityManager;
+
+@Service
+public class SerieCitaServiceImpl implements SerieCitaService {
+
+	// Dos años de controles diarios; una serie más larga se parte en varias
+	private static final int MAX_OCURRENCIAS = 730;
+
+	// Igual que hibernate.jdbc.batch_size: cada tanda sale en un solo lote JDBC
+	private static final int TAMANO_TANDA = 50;
+
+	@Autowired
+	private SerieCitaRepository serieRepository;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	@Autowired
+	private TipoCitaRepository tipoCitaRepository;
+
+	@Autowired
+	private BloqueoAgendaService bloqueoAgendaService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Value("${odontologia.agenda.minutos-por-espacio:30}")
+	private int minutosPorEspacio;
+
+	// Guarda la regla y genera las ocurrencias a medida que se insertan: las fechas salen de un
+	// Stream perezoso y las citas se envían en tandas que luego se sueltan del contexto de
+	// persistencia. Los choques se validan contra una sola consulta de horas ocupadas del
+	// odontólogo en todo el rango; las ocurrencias que chocan se informan y no se crean.
+	@Override
+	@Transactional
+	public SerieCitaDto crearSerie(SerieCitaDto serieDto) {
+		SerieCita serie = convertirDtoAEntity(serieDto);
+		validarRegla(serie);
+		serie = serieRepository.save(serie);
+
+		Long odontologoId = serie.getOdontologo().getId();
+		bloqueoAgendaService.bloquear(ocurrencias(serie)
+				.map(f -> new BloqueoAgendaService.Clave(odontologoId, f))
+				.collect(Collectors.toList()));
+		AgendaOcupada ocupados = new AgendaOcupada(minutosPorEspacio);
+		citaRepository.buscarHorariosOcupados(odontologoId, serie.getFechaInicio(), ultimaFecha(serie))
+				.forEach(h -> ocupados.ocupar(odontologoId, h.getFecha(), h.getHora(), h.getMinutos()));
+
+		List<ResultadoLoteDto.Item> resultados = new ArrayList<>();
+		int creadas = 0;
+		Iterator<LocalDate> fechas = ocurrencias(serie).iterator();
+		for (int i = 0; fechas.hasNext(); i++) {
+			LocalDate fecha = fechas.next();
+			if (!ocupados.reservar(odontologoId, fecha, serie.getHora())) {
+				resultados.add(new ResultadoLoteDto.Item(i, null, AgendaOcupada.mensajeChoque(fecha, serie.getHora())));
+				continue;
+			}
+			Cita2 cita = new Cita2();
+			cita.setSerie(serie);
+			cita.setPaciente(serie.getPaciente());
+			cita.setOdontologo(serie.getOdontologo());
+			cita.setTipoCita(serie.getTipoCita());
+			cita.setFecha(fecha);
+			cita.setHora(serie.getHora());
+			cita.setMinutos(minutosPorEspacio);
+			cita.setEstado(EstadoCitaEnum.PENDIENTE);
+			cita.setObservaciones(serie.getObservaciones());
+			citaRepository.save(cita);
+			eventPublisher.publishEvent(CitaCambioEvent.creada(cita));
+			resultados.add(new ResultadoLoteDto.Item(i, cita.getId(), null));
+			if (++creadas % TAMANO_TANDA == 0) {
+				enviarTanda();
+			}
+		}
+		enviarTanda();
+
+		SerieCitaDto dto = convertirEntityADto(serie);
+		dto.setOcurrencias(new ResultadoLoteDto(creadas, resultados.size() - creadas, resultados));
+		return dto;
+	}
+
+	@Override
+	public SerieCitaDto obtenerSeriePorId(Long id) {
+		SerieCita serie = serieRepository.findConDetallesById(id)
+				.orElseThrow(() -> new RuntimeException("Serie de citas no encontrada con ID: " + id));
+		return convertirEntityADto(serie);
+	}
+
+	// Cambia hora, odontólogo, tipo u observaciones de las ocurrencias activas desde 'desde'.
+	// Si alguna ocurrencia movida choca con otra cita no se cambia ninguna.
+	@Override
+	@Transactional
+	public int actualizarDesde(Long serieId, LocalDate desde, SerieCitaDto cambios) {
+		SerieCita serie = serieRepository.findById(serieId)
+				.orElseThrow(() -> new RuntimeException("Serie de citas no encontrada con ID: " + serieId));
+		if (desde == null) {
+			throw new RuntimeException("Se requiere la fecha desde la que se aplican los cambios");
+		}
+		Odontologo odontologo = null;
+		if (cambios.getOdontologo() != null && cambios.getOdontologo().getId() != null) {
+			odontologo = odontologoRepository.findById(cambios.getOdontologo().getId())
+					.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + cambios.getOdontologo().getId()));
+		}
+		TipoCita tipo = null;
+		if (cambios.getTipoCita() != null && cambios.getTipoCita().getId() != null) {
+			tipo = tipoCitaRepository.findById(cambios.getTipoCita().getId())
+					.orElseThrow(() -> new RuntimeException("Tipo de cita no encontrado con ID: " + cambios.getTipoCita().getId()));
+		}
+
+		List<Cita2> citas = citaRepository.buscarOcurrenciasActivas(serieId, desde);
+		if (citas.isEmpty()) {
+			return 0;
+		}
+		List<CitaCambioEvent.DatosCita> anteriores = citas.stream()
+				.map(CitaCambioEvent.DatosCita::de)
+				.collect(Collectors.toList());
+
+		if (odontologo != null || cambios.getHora() != null) {
+			moverOcurrencias(citas, odontologo, cambios.getHora());
+		}
+		for (Cita2 cita : citas) {
+			if (tipo != null) {
+				cita.setTipoCita(tipo);
+			}
+			if (cambios.getObservaciones() != null) {
+				cita.setObservaciones(cambios.getObservaciones());
+			}
+		}
+
+		// Si el cambio abarca toda la serie, la regla también pasa a reflejarlo
+		if (!desde.isAfter(serie.getFechaInicio())) {
+			if (odontologo != null) {
+				serie.setOdontologo(odontologo);
+			}
+			if (cambios.getHora() != null) {
+				serie.setHora(cambios.getHora());
+			}
+			if (tipo != null) {
+				serie.setTipoCita(tipo);
+			}
+			if (cambios.getObservaciones() != null) {
+				serie.setObservaciones(cambios.getObservaciones());
+			}
+		}
+
+		enviarTanda();
+		for (int i = 0; i < citas.size(); i++) {
+			eventPublisher.publishEvent(CitaCambioEvent.actualizada(anteriores.get(i), citas.get(i)));
+		}
+		return citas.size();
+	}
+
+	// Cancela las ocurrencias activas desde 'desde' y acorta la regla para que termine antes
+	@Override
+	@Transactional
+	public int cancelarDesde(Long serieId, LocalDate desde) {
+		SerieCita serie = serieRepository.findById(serieId)
+				.orElseThrow(() -> new RuntimeException("Serie de citas no encontrada con ID: " + serieId));
+		if (desde == null) {
+			throw new RuntimeException("Se requiere la fecha desde la que se cancela la serie");
+		}
+		List<Cita2> citas = citaRepository.buscarOcurrenciasActivas(serieId, desde);
+		List<CitaCambioEvent.DatosCita> anteriores = citas.stream()
+				.map(CitaCambioEvent.DatosCita::de)
+				.collect(Collectors.toList());
+		citas.forEach(c -> c.setEstado(EstadoCitaEnum.CANCELADA));
+
+		LocalDate finNuevo = desde.minusDays(1);
+		if (!finNuevo.isBefore(serie.getFechaInicio()) && (serie.getFechaFin() == null || serie.getFechaFin().isAfter(finNuevo))) {
+			serie.setFechaFin(finNuevo);
+		}
+
+		enviarTanda();
+		for (int i = 0; i < citas.size(); i++) {
+			eventPublisher.publishEvent(CitaCambioEvent.actualizada(anteriores.get(i), citas.get(i)));
+		}
+		return citas.size();
+	}
+
+	// Valida los nuevos horarios de todas las ocurrencias con una sola consulta y los aplica
+	private void moverOcurrencias(List<Cita2> citas, Odontologo odontologo, LocalTime hora) {
+		Long destinoId = odontologo != null ? odontologo.getId() : null;
+		bloqueoAgendaService.bloquear(citas.stream()
+				.map(c -> new BloqueoAgendaService.Clave(destinoId != null ? destinoId : c.getOdontologo().getId(), c.getFecha()))
+				.collect(Collectors.toList()));
+
+		LocalDate primera = citas.get(0).getFecha();
+		LocalDate ultima = citas.get(citas.size() - 1).getFecha();
+		List<Long> odontologoIds = citas.stream()
+				.map(c -> destinoId != null ? destinoId : c.getOdontologo().getId())
+				.distinct()
+				.collect(Collectors.toList());
+		AgendaOcupada ocupados = new AgendaOcupada(minutosPorEspacio);
+		citaRepository.buscarHorariosOcupados(odontologoIds, primera, ultima)
+				.forEach(h -> ocupados.ocupar(h.getOdontologoId(), h.getFecha(), h.getHora(), h.getMinutos()));
+		// Las propias ocurrencias dejan libre su horario actual
+		citas.forEach(c -> ocupados.liberar(c.getOdontologo().getId(), c.getFecha(), c.getHora()));
+
+		for (Cita2 cita : citas) {
+			Long odontologoId = destinoId != null ? destinoId : cita.getOdontologo().getId();
+			LocalTime nuevaHora = hora != null ? hora : cita.getHora();
+			if (!ocupados.reservar(odontologoId, cita.getFecha(), nuevaHora)) {
+				throw new RuntimeException(AgendaOcupada.mensajeChoque(cita.getFecha(), nuevaHora));
+			}
+			if (odontologo != null) {
+				cita.setOdontologo(odontologo);
+			}
+			cita.setHora(nuevaHora);
+			cita.setMinutos(minutosPorEspacio);
+		}
+	}
+
+	// Envía los cambios pendientes como lote JDBC y suelta las citas ya guardadas del contexto
+	private void enviarTanda() {
+		try {
+			citaRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			if (!AgendaOcupada.esChoque(e)) {
+				throw e;
+			}
+			throw new RuntimeException("No se pudo guardar la serie: alguno de los horarios fue ocupado por otra reserva", e);
+		}
+		entityManager.clear();
+	}
+
+	// Fechas de la serie, calculadas una a una según se consumen
+	private Stream<LocalDate> ocurrencias(SerieCita serie) {
+		LocalDate fin = serie.getFechaFin();
+		int limite = serie.getRepeticiones() != null ? serie.getRepeticiones() : MAX_OCURRENCIAS;
+		return LongStream.iterate(0, n -> n + 1)
+				.mapToObj(n -> serie.getFrecuencia().ocurrencia(serie.getFechaInicio(), serie.getIntervalo(), n))
+				.takeWhile(f -> fin == null || !f.isAfter(fin))
+				.limit(limite);
+	}
+
+	private LocalDate ultimaFecha(SerieCita serie) {
+		return ocurrencias(serie).reduce((a, b) -> b).orElse(serie.getFechaInicio());
+	}
+
+	private void validarRegla(SerieCita serie) {
+		if (serie.getFrecuencia() == null) {
+			throw new RuntimeException("Se requiere la frecuencia de la serie");
+		}
+		if (serie.getFechaInicio() == null || serie.getHora() == null) {
+			throw new RuntimeException("Se requieren la fecha de inicio y la hora de la serie");
+		}
+		if (serie.getIntervalo() < 1) {
+			throw new RuntimeException("El intervalo de la serie debe ser al menos 1");
+		}
+		if (serie.getRepeticiones() == null && serie.getFechaFin() == null) {
+			throw new RuntimeException("La serie necesita un número de repeticiones o una fecha de fin");
+		}
+		if (serie.getRepeticiones() != null && (serie.getRepeticiones() < 1 || serie.getRepeticiones() > MAX_OCURRENCIAS)) {
+			throw new RuntimeException("Las repeticiones deben estar entre 1 y " + MAX_OCURRENCIAS);
+		}
+		if (serie.getFechaFin() != null) {
+			if (serie.getFechaFin().isBefore(serie.getFechaInicio())) {
+				throw new RuntimeException("La fecha de fin no puede ser anterior a la de inicio");
+			}
+			if (serie.getRepeticiones() == null && !serie.getFrecuencia()
+					.ocurrencia(serie.getFechaInicio(), serie.getIntervalo(), MAX_OCURRENCIAS).isAfter(serie.getFechaFin())) {
+				throw new RuntimeException("La serie no puede tener más de " + MAX_OCURRENCIAS + " ocurrencias");
+			}
+		}
+	}
+
+	// Conversión Entity -> DTO
+	private SerieCitaDto convertirEntityADto(SerieCita serie) {
+		SerieCitaDto dto = new SerieCitaDto();
+		dto.setId(serie.getId());
+		dto.setFrecuencia(serie.getFrecuencia());
+		dto.setIntervalo(serie.getIntervalo());
+		dto.setFechaInicio(serie.getFechaInicio());
+		dto.setHora(serie.getHora());
+		dto.setRepeticiones(serie.getRepeticiones());
+		dto.setFechaFin(serie.getFechaFin());
+		dto.setObservaciones(serie.getObservaciones());
+
+		Paciente2 p = serie.getPaciente();
+		Paciente2Dto pdto = new Paciente2Dto();
+		pdto.setId(p.getId());
+		pdto.setNombres(p.getNombres());
+		pdto.setApellidos(p.getApellidos());
+		dto.setPaciente(pdto);
+
+		Odontologo o = serie.getOdontologo();
+		OdontologoDto odto = new OdontologoDto();
+		odto.setId(o.getId());
+		odto.setNombre(o.getNombre());
+		odto.setApellido(o.getApellido());
+		dto.setOdontologo(odto);
+
+		TipoCita t = serie.getTipoCita();
+		TipoCitaDto tdto = new TipoCitaDto();
+		tdto.setId(t.getId());
+		tdto.setNombre(t.getNombre());
+		dto.setTipoCita(tdto);
+
+		return dto;
+	}
+
+	// Conversión DTO -> Entity (resuelve relaciones por id)
+	private SerieCita convertirDtoAEntity(SerieCitaDto dto) {
+		SerieCita serie = new SerieCita();
+		serie.setFrecuencia(dto.getFrecuencia());
+		serie.setIntervalo(dto.getIntervalo() != null ? dto.getIntervalo() : 1);
+		serie.setFechaInicio(dto.getFechaInicio());
+		serie.setHora(dto.getHora());
+		serie.setRepeticiones(dto.getRepeticiones());
+		serie.setFechaFin(dto.getFechaFin());
+		serie.setObservaciones(dto.getObservaciones());
+
+		if (dto.getPaciente() != null && dto.getPaciente().getId() != null) {
+			Paciente2 paciente = pacienteRepository.findById(dto.getPaciente().getId())
+					.orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + dto.getPaciente().getId()));
+			serie.setPaciente(paciente);
+		} else {
+			throw new RuntimeException("Se requiere el paciente (id) para crear la serie");
+		}
+
+		if (dto.getOdontologo() != null && dto.getOdontologo().getId() != null) {
+			Odontologo odontologo = odontologoRepository.findById(dto.getOdontologo().getId())
+					.orElseThrow(() -> new RuntimeException("Odontólogo no encontrado con ID: " + dto.getOdontologo().getId()));
+			serie.setOdontologo(odontologo);
+		} else {
+			throw new RuntimeException("Se requiere el odontólogo (id) para crear la serie");
+		}
+
+		if (dto.getTipoCita() != null && dto.getTipoCita().getId() != null) {
+			TipoCita tipo = tipoCitaRepository.findById(dto.getTipoCita().getId())
+					.orElseThrow(() -> new RuntimeException("Tipo de cita no encontrado con ID: " + dto.getTipoCita().getId()));
+			serie.setTipoCita(tipo);
+		} else {
+			throw new RuntimeException("Se requiere el tipo de cita (id) para crear la serie");
+		}
+
+		return serie;
+	}
+}
@@ -4,11 +4,14 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
 import com.odontologia.odontologia.Dto.TipoCitaDto;
 import com.odontologia.odontologia.Entity.TipoCita;
 import com.odontologia.odontologia.Repository.TipoCitaRepository;
+import com.odontologia.odontologia.Service.AgendaDiaService;
+import com.odontologia.odontologia.Service.CatalogoService;
 import com.odontologia.odontologia.Service.TipoCitaService;
 
 @Service
@@ -17,6 +20,9 @@ public class TipoCitaServiceImpl implements TipoCitaService {
 	@Autowired
 	private TipoCitaRepository tipoCitaRepository;
 
+	@Autowired
+	private AgendaDiaService agendaDiaService;
+
 	@Override
 	public List<TipoCitaDto> listarTipoCitas() {
 		List<TipoCita> list = tipoCitaRepository.findAll();
@@ -38,6 +44,7 @@ public class TipoCitaServiceImpl implements TipoCitaService {
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_TIPOS_CITA, key = "#id")
 	public TipoCitaDto actualizarTipoCita(Long id, TipoCitaDto tipoCitaDto) {
 		TipoCita existente = tipoCitaRepository.findById(id)
 				.orElseThrow(() -> new RuntimeException("TipoCita no encontrado con ID: " + id));
@@ -46,15 +53,19 @@ public class TipoCitaServiceImpl implements TipoCitaService {
 		existente.setDescripcion(tipoCitaDto.getDescripcion());
 
 		TipoCita actualizado = tipoCitaRepository.save(existente);
+		// Las agendas en caché muestran el nombre del tipo de cita
+		agendaDiaService.invalidarTodo();
 		return convertirEntityADto(actualizado);
 	}
 
 	@Override
+	@CacheEvict(cacheNames = CatalogoService.CACHE_TIPOS_CITA, key = "#id")
 	public void eliminarTipoCita(Long id) {
 		if (!tipoCitaRepository.existsById(id)) {
 			throw new RuntimeException("TipoCita no encontrado con ID: " + id);
 		}
 		tipoCitaRepository.deleteById(id);
+		agendaDiaService.invalidarTodo();
 	}
 
 	private TipoCitaDto convertirEntityADto(TipoCita t) {
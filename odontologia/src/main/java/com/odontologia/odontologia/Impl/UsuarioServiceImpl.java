@@ -3,15 +3,19 @@ package com.odontologia.odontologia.Impl;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import com.odontologia.odontologia.Dto.PaginaDto;
 import com.odontologia.odontologia.Dto.RolDto;
 import com.odontologia.odontologia.Dto.UsuarioDto;
 import com.odontologia.odontologia.Entity.Rol;
 import com.odontologia.odontologia.Entity.Usuario;
 import com.odontologia.odontologia.Repository.RolRepository;
 import com.odontologia.odontologia.Repository.UsuarioRepository;
+import com.odontologia.odontologia.Service.CatalogoService;
 import com.odontologia.odontologia.Service.UsuarioService;
 
 @Service
@@ -23,12 +27,22 @@ public class UsuarioServiceImpl implements UsuarioService {
 	@Autowired
 	private RolRepository rolRepository;
 
+	@Autowired
+	private CatalogoService catalogoService;
+
 	@Override
 	public List<UsuarioDto> listarUsuarios() {
 		List<Usuario> list = usuarioRepository.findAll();
 		return list.stream().map(this::convertirEntityADto).collect(Collectors.toList());
 	}
 
+	@Override
+	public PaginaDto<UsuarioDto> listarUsuariosPaginado(Long after, Integer limit) {
+		int limite = PaginaDto.normalizarLimite(limit);
+		List<Usuario> list = usuarioRepository.findByIdGreaterThanOrderByIdAsc(PaginaDto.normalizarCursor(after), Limit.of(limite + 1));
+		return PaginaDto.desde(list, limite, Usuario::getId, this::convertirEntityADto);
+	}
+
 	@Override
 	public UsuarioDto obtenerUsuarioPorId(Long id) {
 		Usuario u = usuarioRepository.findById(id)
@@ -83,14 +97,10 @@ public class UsuarioServiceImpl implements UsuarioService {
 			// Manejar el rol
 			if (usuarioDto.getRol() == null || usuarioDto.getRol().getId() == null) {
 				// Asignar rol por defecto: recepcionista
-				Rol rolPorDefecto = rolRepository.findById(3L)
-					.orElseThrow(() -> new RuntimeException("Rol por defecto no encontrado"));
-				u.setRol(rolPorDefecto);
+				u.setRol(referenciaRol(3L, "Rol por defecto no encontrado"));
 			} else {
 				// Validar que el rol proporcionado existe
-				Rol rolExistente = rolRepository.findById(usuarioDto.getRol().getId())
-					.orElseThrow(() -> new RuntimeException("El rol especificado no existe"));
-				u.setRol(rolExistente);
+				u.setRol(referenciaRol(usuarioDto.getRol().getId(), "El rol especificado no existe"));
 			}
 			
 			Usuario guardado = usuarioRepository.save(u);
@@ -159,12 +169,26 @@ public class UsuarioServiceImpl implements UsuarioService {
 		if (u.getRol() != null) {
 			RolDto r = new RolDto();
 			r.setId(u.getRol().getId());
-			r.setNombre(u.getRol().getNombre());
+			// Un rol recién asignado es un proxy sin cargar: el nombre sale de la caché
+			r.setNombre(Hibernate.isInitialized(u.getRol())
+					? u.getRol().getNombre()
+					: catalogoService.obtenerRol(r.getId()).getNombre());
 			dto.setRol(r);
 		}
 		return dto;
 	}
 
+	// La existencia del rol se valida contra la caché de catálogos y la entidad se
+	// asigna como referencia, sin un SELECT a roles por cada usuario creado
+	private Rol referenciaRol(Long id, String error) {
+		try {
+			catalogoService.obtenerRol(id);
+		} catch (RuntimeException e) {
+			throw new RuntimeException(error);
+		}
+		return rolRepository.getReferenceById(id);
+	}
+
 	private Usuario convertirDtoAEntity(UsuarioDto dto) {
 		Usuario u = new Usuario();
 		u.setId(dto.getId());
@@ -0,0 +1,21 @@
+package com.odontologia.odontologia.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.AdjuntoHistoria;
+
+@Repository
+public interface AdjuntoHistoriaRepository extends JpaRepository<AdjuntoHistoria, Long> {
+    List<AdjuntoHistoria> findByHistoriaIdOrderByIdAsc(Long historiaId);
+
+    // Fusión de pacientes: los adjuntos de la historia que se elimina pasan a la que queda
+    @Modifying
+    @Query("UPDATE AdjuntoHistoria a SET a.historiaId = :sobreviviente WHERE a.historiaId = :duplicado")
+    int reasignarHistoria(@Param("sobreviviente") Long sobreviviente, @Param("duplicado") Long duplicado);
+}
@@ -0,0 +1,20 @@
+package com.odontologia.odontologia.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.CargaAdjunto;
+
+@Repository
+public interface CargaAdjuntoRepository extends JpaRepository<CargaAdjunto, String> {
+    List<CargaAdjunto> findByCreadaBefore(LocalDateTime limite);
+
+    // Consulta directa a la base: no devuelve la entidad que ya esté en el contexto de persistencia
+    @Query("SELECT c.adjuntoId FROM CargaAdjunto c WHERE c.id = :id")
+    Long buscarAdjuntoId(@Param("id") String id);
+}
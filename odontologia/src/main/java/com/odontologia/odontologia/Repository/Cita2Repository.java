@@ -1,11 +1,275 @@
 package com.odontologia.odontologia.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Paciente2;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface Cita2Repository extends JpaRepository<Cita2, Long>{
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
+
+    // Las asociaciones que usa el DTO se cargan en la misma consulta (evita N+1).
+    // paciente.historiaClinica es el lado inverso de un OneToOne y Hibernate siempre
+    // lo resuelve; incluirlo en el grafo evita una consulta extra por paciente.
+    @Override
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    List<Cita2> findAll();
+
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    Optional<Cita2> findConDetallesById(Long id);
+
+    // Búsqueda con filtros opcionales (un parámetro nulo no filtra)
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    @Query("SELECT c FROM Cita2 c "
+            + "WHERE (:desde IS NULL OR c.fecha >= :desde) "
+            + "AND (:hasta IS NULL OR c.fecha <= :hasta) "
+            + "AND (:odontologoId IS NULL OR c.odontologo.id = :odontologoId) "
+            + "AND (:pacienteId IS NULL OR c.paciente.id = :pacienteId) "
+            + "AND (:estado IS NULL OR c.estado = :estado) "
+            + "ORDER BY c.fecha, c.hora")
+    List<Cita2> buscarConFiltros(@Param("desde") LocalDate desde,
+                                 @Param("hasta") LocalDate hasta,
+                                 @Param("odontologoId") Long odontologoId,
+                                 @Param("pacienteId") Long pacienteId,
+                                 @Param("estado") EstadoCitaEnum estado);
+
+    // Misma búsqueda paginada por cursor: busca por id > after en lugar de usar OFFSET
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    @Query("SELECT c FROM Cita2 c "
+            + "WHERE c.id > :after "
+            + "AND (:desde IS NULL OR c.fecha >= :desde) "
+            + "AND (:hasta IS NULL OR c.fecha <= :hasta) "
+            + "AND (:odontologoId IS NULL OR c.odontologo.id = :odontologoId) "
+            + "AND (:pacienteId IS NULL OR c.paciente.id = :pacienteId) "
+            + "AND (:estado IS NULL OR c.estado = :estado) "
+            + "ORDER BY c.id")
+    List<Cita2> buscarPaginaConFiltros(@Param("desde") LocalDate desde,
+                                       @Param("hasta") LocalDate hasta,
+                                       @Param("odontologoId") Long odontologoId,
+                                       @Param("pacienteId") Long pacienteId,
+                                       @Param("estado") EstadoCitaEnum estado,
+                                       @Param("after") Long after,
+                                       Limit limit);
+
+    // Ocurrencias de una serie
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    List<Cita2> findBySerieIdOrderByFechaAsc(Long serieId);
+
+    // Ocurrencias de una serie que aún pueden cambiar (pendientes o confirmadas) desde una fecha
+    @Query("SELECT c FROM Cita2 c "
+            + "WHERE c.serie.id = :serieId "
+            + "AND c.fecha >= :desde "
+            + "AND c.estado IN (com.odontologia.odontologia.Entity.EstadoCitaEnum.PENDIENTE, "
+            + "com.odontologia.odontologia.Entity.EstadoCitaEnum.CONFIRMADA) "
+            + "ORDER BY c.fecha")
+    List<Cita2> buscarOcurrenciasActivas(@Param("serieId") Long serieId, @Param("desde") LocalDate desde);
+
+    // Horas ocupadas de un odontólogo en un rango de días (recorre idx_citas_odontologo_fecha_hora)
+    @Query("SELECT c.fecha AS fecha, c.hora AS hora, c.minutos AS minutos FROM Cita2 c "
+            + "WHERE c.odontologo.id = :odontologoId "
+            + "AND c.fecha BETWEEN :desde AND :hasta "
+            + "AND c.estado <> com.odontologia.odontologia.Entity.EstadoCitaEnum.CANCELADA")
+    List<HorarioOcupado> buscarHorariosOcupados(@Param("odontologoId") Long odontologoId,
+                                                @Param("desde") LocalDate desde,
+                                                @Param("hasta") LocalDate hasta);
+
+    // Lo mismo para varios odontólogos a la vez (validación de reservas en lote)
+    @Query("SELECT c.odontologo.id AS odontologoId, c.fecha AS fecha, c.hora AS hora, c.minutos AS minutos FROM Cita2 c "
+            + "WHERE c.odontologo.id IN :odontologoIds "
+            + "AND c.fecha BETWEEN :desde AND :hasta "
+            + "AND c.estado <> com.odontologia.odontologia.Entity.EstadoCitaEnum.CANCELADA")
+    List<HorarioOcupadoOdontologo> buscarHorariosOcupados(@Param("odontologoIds") Collection<Long> odontologoIds,
+                                                          @Param("desde") LocalDate desde,
+                                                          @Param("hasta") LocalDate hasta);
+
+    // ¿Otra cita activa del odontólogo se solapa ese día con [inicio, fin) (minutos desde las 00:00)?
+    // Cada cita guardada ocupa los minutos con que se reservó, como en la restricción de
+    // schema-postgresql.sql; las que no los tienen, minutosPorDefecto. excluirId permite ignorar
+    // la propia cita al reprogramarla
+    @Query("SELECT COUNT(c) > 0 FROM Cita2 c "
+            + "WHERE c.odontologo.id = :odontologoId "
+            + "AND c.fecha = :fecha "
+            + "AND extract(hour from c.hora) * 60 + extract(minute from c.hora) < :fin "
+            + "AND extract(hour from c.hora) * 60 + extract(minute from c.hora) "
+            + "+ coalesce(c.minutos, :minutosPorDefecto) > :inicio "
+            + "AND c.estado <> com.odontologia.odontologia.Entity.EstadoCitaEnum.CANCELADA "
+            + "AND (:excluirId IS NULL OR c.id <> :excluirId)")
+    boolean existeChoque(@Param("odontologoId") Long odontologoId,
+                         @Param("fecha") LocalDate fecha,
+                         @Param("inicio") int inicio,
+                         @Param("fin") int fin,
+                         @Param("minutosPorDefecto") int minutosPorDefecto,
+                         @Param("excluirId") Long excluirId);
+
+    // Agenda de un día ya unida con odontólogo, paciente y tipo (una sola consulta, sin entidades)
+    @Query("SELECT c.id AS citaId, c.hora AS hora, c.estado AS estado, c.observaciones AS observaciones, "
+            + "o.id AS odontologoId, o.nombre AS odontologoNombre, o.apellido AS odontologoApellido, "
+            + "p.id AS pacienteId, p.nombres AS pacienteNombres, p.apellidos AS pacienteApellidos, "
+            + "t.nombre AS tipoCita "
+            + "FROM Cita2 c JOIN c.odontologo o JOIN c.paciente p JOIN c.tipoCita t "
+            + "WHERE c.fecha = :fecha "
+            + "ORDER BY o.apellido, o.nombre, o.id, c.hora")
+    List<EntradaAgenda> buscarAgendaDelDia(@Param("fecha") LocalDate fecha);
+
+    // Citas activas entre dos instantes que aún necesitan recordatorio (nunca enviado y con
+    // intentos disponibles), con los datos para redactarlo. Paginada por cursor sobre el id.
+    @Query("SELECT c.id AS citaId, c.fecha AS fecha, c.hora AS hora, "
+            + "p.nombres AS pacienteNombres, p.apellidos AS pacienteApellidos, p.email AS email, p.telefono AS telefono, "
+            + "o.nombre AS odontologoNombre, o.apellido AS odontologoApellido, t.nombre AS tipoCita "
+            + "FROM Cita2 c JOIN c.paciente p JOIN c.odontologo o JOIN c.tipoCita t "
+            + "WHERE c.id > :after "
+            + "AND c.estado IN (com.odontologia.odontologia.Entity.EstadoCitaEnum.PENDIENTE, "
+            + "com.odontologia.odontologia.Entity.EstadoCitaEnum.CONFIRMADA) "
+            + "AND (c.fecha > :fechaDesde OR (c.fecha = :fechaDesde AND c.hora >= :horaDesde)) "
+            + "AND (c.fecha < :fechaHasta OR (c.fecha = :fechaHasta AND c.hora < :horaHasta)) "
+            + "AND NOT EXISTS (SELECT r.id FROM RecordatorioCita r WHERE r.cita = c "
+            + "AND (r.estado = com.odontologia.odontologia.Entity.EstadoRecordatorioEnum.ENVIADO "
+            + "OR r.intentos >= :maxIntentos)) "
+            + "ORDER BY c.id")
+    List<CitaParaRecordatorio> buscarParaRecordatorio(@Param("fechaDesde") LocalDate fechaDesde,
+                                                      @Param("horaDesde") LocalTime horaDesde,
+                                                      @Param("fechaHasta") LocalDate fechaHasta,
+                                                      @Param("horaHasta") LocalTime horaHasta,
+                                                      @Param("maxIntentos") int maxIntentos,
+                                                      @Param("after") Long after,
+                                                      Limit limit);
+
+    // Posición en la agenda y estado de varias citas, sin cargar las entidades
+    @Query("SELECT c.id AS citaId, c.odontologo.id AS odontologoId, c.paciente.id AS pacienteId, "
+            + "c.fecha AS fecha, c.hora AS hora, c.minutos AS minutos, c.estado AS estado FROM Cita2 c WHERE c.id IN :ids")
+    List<PosicionCita> buscarPosiciones(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id AS citaId, c.odontologo.id AS odontologoId, c.paciente.id AS pacienteId, "
+            + "c.fecha AS fecha, c.hora AS hora, c.minutos AS minutos, c.estado AS estado FROM Cita2 c WHERE c.paciente.id = :pacienteId")
+    List<PosicionCita> buscarPosicionesDePaciente(@Param("pacienteId") Long pacienteId);
+
+    @Query("SELECT c.id AS citaId, c.odontologo.id AS odontologoId, c.paciente.id AS pacienteId, "
+            + "c.fecha AS fecha, c.hora AS hora, c.minutos AS minutos, c.estado AS estado FROM Cita2 c WHERE c.odontologo.id = :odontologoId")
+    List<PosicionCita> buscarPosicionesDeOdontologo(@Param("odontologoId") Long odontologoId);
+
+    // Cambio de estado condicional: solo afecta a las citas que siguen en el estado esperado
+    @Modifying
+    @Query("UPDATE Cita2 c SET c.estado = :nuevo WHERE c.id IN :ids AND c.estado = :actual")
+    int cambiarEstado(@Param("ids") Collection<Long> ids,
+                      @Param("actual") EstadoCitaEnum actual,
+                      @Param("nuevo") EstadoCitaEnum nuevo);
+
+    // Citas de un paciente a partir de un momento (próximas) o antes de él (recientes). El
+    // paciente no se incluye en el grafo: quien llama ya lo tiene en el contexto de persistencia.
+    @EntityGraph(attributePaths = {"odontologo", "tipoCita"})
+    @Query("SELECT c FROM Cita2 c WHERE c.paciente.id = :pacienteId "
+            + "AND (c.fecha > :fecha OR (c.fecha = :fecha AND c.hora >= :hora)) "
+            + "ORDER BY c.fecha, c.hora")
+    List<Cita2> buscarProximasDePaciente(@Param("pacienteId") Long pacienteId,
+                                         @Param("fecha") LocalDate fecha,
+                                         @Param("hora") LocalTime hora,
+                                         Limit limit);
+
+    @EntityGraph(attributePaths = {"odontologo", "tipoCita"})
+    @Query("SELECT c FROM Cita2 c WHERE c.paciente.id = :pacienteId "
+            + "AND (c.fecha < :fecha OR (c.fecha = :fecha AND c.hora < :hora)) "
+            + "ORDER BY c.fecha DESC, c.hora DESC")
+    List<Cita2> buscarRecientesDePaciente(@Param("pacienteId") Long pacienteId,
+                                          @Param("fecha") LocalDate fecha,
+                                          @Param("hora") LocalTime hora,
+                                          Limit limit);
+
+    // Fusión de pacientes duplicados: un UPDATE por tabla, sin cargar las citas
+    @Modifying
+    @Query("UPDATE Cita2 c SET c.paciente = :sobreviviente WHERE c.paciente = :duplicado")
+    int reasignarPaciente(@Param("sobreviviente") Paciente2 sobreviviente, @Param("duplicado") Paciente2 duplicado);
+
+    @Modifying
+    @Query("UPDATE Cita2 c SET c.historiaClinica = :destino WHERE c.historiaClinica = :origen")
+    int reasignarHistoria(@Param("destino") HistoriaClinica destino, @Param("origen") HistoriaClinica origen);
+
+    // Exportación por cursor, en filas planas (ver Paciente2Repository.exportar)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.id AS id, c.fecha AS fecha, c.hora AS hora, c.estado AS estado, "
+            + "p.id AS pacienteId, p.documento AS pacienteDocumento, o.id AS odontologoId, "
+            + "t.id AS tipoCitaId, t.nombre AS tipoCita, s.id AS serieId, c.observaciones AS observaciones "
+            + "FROM Cita2 c LEFT JOIN c.paciente p LEFT JOIN c.odontologo o LEFT JOIN c.tipoCita t LEFT JOIN c.serie s "
+            + "ORDER BY c.id")
+    Stream<CitaExportable> exportar();
+
+    interface EntradaAgenda {
+        Long getCitaId();
+        LocalTime getHora();
+        EstadoCitaEnum getEstado();
+        String getObservaciones();
+        Long getOdontologoId();
+        String getOdontologoNombre();
+        String getOdontologoApellido();
+        Long getPacienteId();
+        String getPacienteNombres();
+        String getPacienteApellidos();
+        String getTipoCita();
+    }
+
+    interface CitaExportable {
+        Long getId();
+        LocalDate getFecha();
+        LocalTime getHora();
+        EstadoCitaEnum getEstado();
+        Long getPacienteId();
+        String getPacienteDocumento();
+        Long getOdontologoId();
+        Long getTipoCitaId();
+        String getTipoCita();
+        Long getSerieId();
+        String getObservaciones();
+    }
+
+    interface CitaParaRecordatorio {
+        Long getCitaId();
+        LocalDate getFecha();
+        LocalTime getHora();
+        String getPacienteNombres();
+        String getPacienteApellidos();
+        String getEmail();
+        String getTelefono();
+        String getOdontologoNombre();
+        String getOdontologoApellido();
+        String getTipoCita();
+    }
+
+    interface PosicionCita {
+        Long getCitaId();
+        Long getOdontologoId();
+        Long getPacienteId();
+        LocalDate getFecha();
+        LocalTime getHora();
+        Integer getMinutos();
+        EstadoCitaEnum getEstado();
+    }
+
+    interface HorarioOcupado {
+        LocalDate getFecha();
+        LocalTime getHora();
+        Integer getMinutos();
+    }
+
+    interface HorarioOcupadoOdontologo extends HorarioOcupado {
+        Long getOdontologoId();
+    }
 }
@@ -0,0 +1,23 @@
+package com.odontologia.odontologia.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.EventoOdontograma;
+
+@Repository
+public interface EventoOdontogramaRepository extends JpaRepository<EventoOdontograma, Long> {
+    List<EventoOdontograma> findByPacienteIdOrderByNumeroAsc(Long pacienteId);
+
+    // Eventos a reproducir para reconstruir el estado tras el evento "hasta", por el índice único
+    List<EventoOdontograma> findByPacienteIdAndNumeroLessThanEqualOrderByNumeroAsc(Long pacienteId, int hasta);
+
+    @Modifying
+    @Query("UPDATE EventoOdontograma e SET e.pacienteId = :sobreviviente WHERE e.pacienteId = :duplicado")
+    int reasignarPaciente(@Param("sobreviviente") Long sobreviviente, @Param("duplicado") Long duplicado);
+}
@@ -1,11 +1,56 @@
 package com.odontologia.odontologia.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Paciente2;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica, Long>{
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
+    // Paginación por cursor (keyset) sobre la clave primaria
+    List<HistoriaClinica> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Historia de uno o varios pacientes por el índice único de paciente_id (sin unir con pacientes)
+    Optional<HistoriaClinica> findByPacienteId(Long pacienteId);
+
+    List<HistoriaClinica> findByPacienteIdIn(Collection<Long> pacienteIds);
+
+    // Fusión de pacientes duplicados
+    @Modifying
+    @Query("UPDATE HistoriaClinica h SET h.paciente = :sobreviviente WHERE h.paciente = :duplicado")
+    int reasignarPaciente(@Param("sobreviviente") Paciente2 sobreviviente, @Param("duplicado") Paciente2 duplicado);
+
+    @Modifying
+    @Query("DELETE FROM HistoriaClinica h WHERE h.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+
+    // Exportación por cursor, en filas planas (ver Paciente2Repository.exportar)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT h.id AS id, p.id AS pacienteId, p.documento AS pacienteDocumento, "
+            + "h.antecedentes AS antecedentes, h.alergias AS alergias, h.medicamentos AS medicamentos "
+            + "FROM HistoriaClinica h LEFT JOIN h.paciente p ORDER BY h.id")
+    Stream<HistoriaExportable> exportar();
+
+    interface HistoriaExportable {
+        Long getId();
+        Long getPacienteId();
+        String getPacienteDocumento();
+        String getAntecedentes();
+        String getAlergias();
+        String getMedicamentos();
+    }
 }
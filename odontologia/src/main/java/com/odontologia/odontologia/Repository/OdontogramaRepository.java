@@ -0,0 +1,18 @@
+package com.odontologia.odontologia.Repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.Odontograma;
+
+@Repository
+public interface OdontogramaRepository extends JpaRepository<Odontograma, Long> {
+    // Fusión de pacientes: el odontograma del duplicado pasa al sobreviviente si este no tiene uno
+    @Modifying
+    @Query("UPDATE Odontograma o SET o.pacienteId = :sobreviviente WHERE o.pacienteId = :duplicado "
+            + "AND NOT EXISTS (SELECT 1 FROM Odontograma x WHERE x.pacienteId = :sobreviviente)")
+    int reasignarPaciente(@Param("sobreviviente") Long sobreviviente, @Param("duplicado") Long duplicado);
+}
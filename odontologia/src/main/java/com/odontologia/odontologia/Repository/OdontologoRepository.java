@@ -1,11 +1,52 @@
 package com.odontologia.odontologia.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.odontologia.odontologia.Entity.Odontologo;
 
 @Repository
 public interface OdontologoRepository extends JpaRepository<Odontologo, Long> {
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
+    // Los listados devuelven el DTO completo: los campos TEXT perezosos se piden en la misma consulta
+    @Override
+    @EntityGraph(attributePaths = {"especialidades", "diasTrabajo", "observaciones"})
+    List<Odontologo> findAll();
+
+    // Paginación por cursor (keyset) sobre la clave primaria
+    @EntityGraph(attributePaths = {"especialidades", "diasTrabajo", "observaciones"})
+    List<Odontologo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Un odontólogo para el DTO completo, con los mismos campos TEXT que los listados
+    @EntityGraph(attributePaths = {"especialidades", "diasTrabajo", "observaciones"})
+    Optional<Odontologo> findCompletoById(Long id);
+
+    // Con el horario ya cargado: la agenda se arma fuera de una transacción
+    @EntityGraph(attributePaths = {"diasTrabajo", "horario"})
+    Optional<Odontologo> findConHorarioById(Long id);
+
+    // Cuáles de los ids existen, en una sola consulta y sin cargar las entidades
+    @Query("SELECT o.id FROM Odontologo o WHERE o.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Solo las columnas del selector: sin especialidades, observaciones ni demás campos TEXT
+    @Query("SELECT o.id AS id, o.nombre AS nombre, o.apellido AS apellido, "
+            + "o.tipoDocumento AS tipoDocumento, o.documento AS documento "
+            + "FROM Odontologo o ORDER BY o.apellido, o.nombre, o.id")
+    List<OdontologoResumen> buscarResumen(Limit limit);
+
+    interface OdontologoResumen {
+        Long getId();
+        String getNombre();
+        String getApellido();
+        String getTipoDocumento();
+        String getDocumento();
+    }
 }
@@ -1,11 +1,129 @@
 package com.odontologia.odontologia.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.odontologia.odontologia.Entity.Paciente2;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface Paciente2Repository extends JpaRepository<Paciente2, Long> {
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
+    // historiaClinica es el lado inverso de un OneToOne que Hibernate siempre resuelve:
+    // se trae en la misma consulta para no lanzar un SELECT por paciente. Los métodos que
+    // devuelven el DTO completo piden también los campos TEXT perezosos, por el mismo motivo.
+    @Override
+    @EntityGraph(attributePaths = {"historiaClinica", "alergias", "medicamentos", "observaciones"})
+    List<Paciente2> findAll();
+
+    @EntityGraph(attributePaths = {"historiaClinica", "alergias", "medicamentos", "observaciones"})
+    Optional<Paciente2> findConHistoriaById(Long id);
+
+    // Paginación por cursor (keyset) sobre la clave primaria
+    @EntityGraph(attributePaths = {"historiaClinica", "alergias", "medicamentos", "observaciones"})
+    List<Paciente2> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Cuáles de los ids existen, en una sola consulta y sin cargar las entidades
+    @Query("SELECT p.id FROM Paciente2 p WHERE p.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Cuáles de los documentos / emails ya están registrados: una consulta por tanda de importación
+    @Query("SELECT p.documento FROM Paciente2 p WHERE p.documento IN :documentos")
+    List<String> buscarDocumentosExistentes(@Param("documentos") Collection<String> documentos);
+
+    @Query("SELECT p.email FROM Paciente2 p WHERE p.email IN :emails")
+    List<String> buscarEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    // Borrado directo, sin cascadas: lo usa la fusión después de reasignar citas e historia
+    @Modifying
+    @Query("DELETE FROM Paciente2 p WHERE p.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+
+    // Pacientes con su historia clínica, para devolver resultados de búsqueda sin N+1
+    @EntityGraph(attributePaths = {"historiaClinica", "alergias", "medicamentos", "observaciones"})
+    List<Paciente2> findByIdIn(Collection<Long> ids);
+
+    // Solo los campos buscables, por tandas, para construir el índice de búsqueda
+    @Query("SELECT p.id AS id, p.nombres AS nombres, p.apellidos AS apellidos, p.documento AS documento, "
+            + "p.telefono AS telefono, p.email AS email "
+            + "FROM Paciente2 p WHERE p.id > :after ORDER BY p.id")
+    List<PacienteIndexable> buscarParaIndice(@Param("after") Long after, Limit limit);
+
+    // Los guardados desde un momento dado, también por tandas: la sincronización del índice
+    @Query("SELECT p.id AS id, p.nombres AS nombres, p.apellidos AS apellidos, p.documento AS documento, "
+            + "p.telefono AS telefono, p.email AS email "
+            + "FROM Paciente2 p WHERE p.actualizado >= :desde AND p.id > :after ORDER BY p.id")
+    List<PacienteIndexable> buscarParaIndiceDesde(@Param("desde") LocalDateTime desde, @Param("after") Long after, Limit limit);
+
+    @Query("SELECT p.id FROM Paciente2 p")
+    List<Long> buscarIds();
+
+    // Solo las columnas del selector: ni historia clínica ni campos TEXT
+    @Query("SELECT p.id AS id, p.nombres AS nombres, p.apellidos AS apellidos, "
+            + "p.tipoDocumento AS tipoDocumento, p.documento AS documento "
+            + "FROM Paciente2 p ORDER BY p.apellidos, p.nombres, p.id")
+    List<PacienteResumen> buscarResumen(Limit limit);
+
+    // Exportación: filas planas leídas con cursor, sin entidades en el contexto de persistencia.
+    // Debe consumirse dentro de una transacción y cerrarse al terminar.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS id, p.nombres AS nombres, p.apellidos AS apellidos, p.tipoDocumento AS tipoDocumento, "
+            + "p.documento AS documento, p.fechaNacimiento AS fechaNacimiento, p.genero AS genero, p.email AS email, "
+            + "p.telefono AS telefono, p.direccion AS direccion, p.contactoEmergenciaNombre AS contactoEmergenciaNombre, "
+            + "p.contactoEmergenciaParentesco AS contactoEmergenciaParentesco, "
+            + "p.contactoEmergenciaTelefono AS contactoEmergenciaTelefono, p.alergias AS alergias, "
+            + "p.medicamentos AS medicamentos, p.observaciones AS observaciones "
+            + "FROM Paciente2 p ORDER BY p.id")
+    Stream<PacienteExportable> exportar();
+
+    interface PacienteResumen {
+        Long getId();
+        String getNombres();
+        String getApellidos();
+        String getTipoDocumento();
+        String getDocumento();
+    }
+
+    interface PacienteExportable {
+        Long getId();
+        String getNombres();
+        String getApellidos();
+        String getTipoDocumento();
+        String getDocumento();
+        LocalDate getFechaNacimiento();
+        String getGenero();
+        String getEmail();
+        String getTelefono();
+        String getDireccion();
+        String getContactoEmergenciaNombre();
+        String getContactoEmergenciaParentesco();
+        String getContactoEmergenciaTelefono();
+        String getAlergias();
+        String getMedicamentos();
+        String getObservaciones();
+    }
+
+    interface PacienteIndexable {
+        Long getId();
+        String getNombres();
+        String getApellidos();
+        String getDocumento();
+        String getTelefono();
+        String getEmail();
+    }
 }
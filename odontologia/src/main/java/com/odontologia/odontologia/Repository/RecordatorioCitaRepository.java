@@ -0,0 +1,14 @@
+package com.odontologia.odontologia.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.RecordatorioCita;
+
+@Repository
+public interface RecordatorioCitaRepository extends JpaRepository<RecordatorioCita, Long> {
+    List<RecordatorioCita> findByCitaIdIn(Collection<Long> citaIds);
+}
@@ -0,0 +1,28 @@
+package com.odontologia.odontologia.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.RevisionHistoriaClinica;
+
+@Repository
+public interface RevisionHistoriaClinicaRepository extends JpaRepository<RevisionHistoriaClinica, Long> {
+    // Tramo a reconstruir: desde la última copia completa hasta la revisión pedida, por el índice único
+    List<RevisionHistoriaClinica> findByHistoriaIdAndNumeroBetweenOrderByNumeroAsc(Long historiaId, int desde, int hasta);
+
+    // Listado de revisiones sin traer el contenido
+    @Query("SELECT r.numero AS numero, r.fecha AS fecha, r.completa AS completa "
+            + "FROM RevisionHistoriaClinica r WHERE r.historiaId = :historiaId ORDER BY r.numero")
+    List<RevisionResumen> buscarResumen(@Param("historiaId") Long historiaId);
+
+    interface RevisionResumen {
+        int getNumero();
+        LocalDateTime getFecha();
+        boolean isCompleta();
+    }
+}
@@ -0,0 +1,44 @@
+package com.odontologia.odontologia.Repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.SerieCita;
+
+@Repository
+public interface SerieCitaRepository extends JpaRepository<SerieCita, Long> {
+    @EntityGraph(attributePaths = {"paciente", "paciente.historiaClinica", "odontologo", "tipoCita"})
+    Optional<SerieCita> findConDetallesById(Long id);
+
+    // Fusión de pacientes duplicados
+    @Modifying
+    @Query("UPDATE SerieCita s SET s.paciente = :sobreviviente WHERE s.paciente = :duplicado")
+    int reasignarPaciente(@Param("sobreviviente") Paciente2 sobreviviente, @Param("duplicado") Paciente2 duplicado);
+
+    // Borrado de un paciente u odontólogo: sus series se eliminan con él. Las ocurrencias que
+    // sobreviven (movidas a otro odontólogo) primero se desvinculan y quedan como citas sueltas.
+    @Modifying
+    @Query("UPDATE Cita2 c SET c.serie = null "
+            + "WHERE c.serie.id IN (SELECT s.id FROM SerieCita s WHERE s.paciente.id = :pacienteId)")
+    int desvincularCitasDePaciente(@Param("pacienteId") Long pacienteId);
+
+    @Modifying
+    @Query("DELETE FROM SerieCita s WHERE s.paciente.id = :pacienteId")
+    int eliminarDePaciente(@Param("pacienteId") Long pacienteId);
+
+    @Modifying
+    @Query("UPDATE Cita2 c SET c.serie = null "
+            + "WHERE c.serie.id IN (SELECT s.id FROM SerieCita s WHERE s.odontologo.id = :odontologoId)")
+    int desvincularCitasDeOdontologo(@Param("odontologoId") Long odontologoId);
+
+    @Modifying
+    @Query("DELETE FROM SerieCita s WHERE s.odontologo.id = :odontologoId")
+    int eliminarDeOdontologo(@Param("odontologoId") Long odontologoId);
+}
@@ -1,11 +1,18 @@
 package com.odontologia.odontologia.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.odontologia.odontologia.Entity.TipoCita;
 
 @Repository
 public interface TipoCitaRepository extends JpaRepository<TipoCita, Long>{
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
+    // Cuáles de los ids existen, en una sola consulta y sin cargar las entidades
+    @Query("SELECT t.id FROM TipoCita t WHERE t.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
 }
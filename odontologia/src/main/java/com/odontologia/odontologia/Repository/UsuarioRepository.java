@@ -1,5 +1,9 @@
 package com.odontologia.odontologia.Repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -7,6 +11,7 @@ import com.odontologia.odontologia.Entity.Usuario;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-    // Puedes agregar métodos personalizados de consulta aquí si es necesario
-    
+    // Paginación por cursor (keyset) sobre la clave primaria; el rol viaja en el DTO
+    @EntityGraph(attributePaths = {"rol"})
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,24 @@
+package com.odontologia.odontologia.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import com.odontologia.odontologia.Dto.AdjuntoHistoriaDto;
+import com.odontologia.odontologia.Dto.CargaAdjuntoDto;
+
+public interface AdjuntoHistoriaService {
+    // Subida reanudable: se declara el archivo, se envían tramos en orden y con el último se crea el adjunto
+    CargaAdjuntoDto iniciarCarga(Long historiaId, CargaAdjuntoDto datos);
+    CargaAdjuntoDto obtenerCarga(String cargaId);
+    CargaAdjuntoDto recibirTramo(String cargaId, long desde, InputStream datos) throws IOException;
+
+    List<AdjuntoHistoriaDto> listarAdjuntos(Long historiaId);
+    AdjuntoHistoriaDto obtenerAdjunto(Long id);
+
+    // Ubicación en disco del contenido y de la miniatura (vacío si no hay)
+    Path archivo(AdjuntoHistoriaDto adjunto);
+    Optional<Path> miniatura(AdjuntoHistoriaDto adjunto);
+}
@@ -0,0 +1,11 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDate;
+
+import com.odontologia.odontologia.Dto.AgendaDiaDto;
+
+public interface AgendaDiaService {
+    AgendaDiaDto obtenerAgenda(LocalDate fecha);
+    // Para cambios que afectan a los nombres mostrados (pacientes, odontólogos, tipos de cita)
+    void invalidarTodo();
+}
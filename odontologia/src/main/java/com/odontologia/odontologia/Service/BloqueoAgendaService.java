@@ -0,0 +1,14 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface BloqueoAgendaService {
+    // Bloquea la agenda de un odontólogo en un día hasta que termine la transacción actual
+    void bloquear(Long odontologoId, LocalDate fecha);
+    // Bloquea varias agendas a la vez en un orden fijo (evita interbloqueos entre reservas masivas)
+    void bloquear(Collection<Clave> claves);
+
+    record Clave(Long odontologoId, LocalDate fecha) {
+    }
+}
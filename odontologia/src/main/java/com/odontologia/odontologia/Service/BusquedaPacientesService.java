@@ -0,0 +1,15 @@
+package com.odontologia.odontologia.Service;
+
+import java.util.List;
+
+import com.odontologia.odontologia.Entity.Paciente2;
+
+// Búsqueda aproximada de pacientes por nombres, apellidos, documento, teléfono o email.
+// Quien escribe pacientes avisa con indexar/quitar después de guardar; dentro de una
+// transacción el índice cambia solo si se confirma.
+public interface BusquedaPacientesService {
+    // Ids de pacientes ordenados por relevancia
+    List<Long> buscarIds(String consulta, int limite);
+    void indexar(Paciente2 paciente);
+    void quitar(Long pacienteId);
+}
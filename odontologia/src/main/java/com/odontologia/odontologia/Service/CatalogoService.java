@@ -0,0 +1,22 @@
+package com.odontologia.odontologia.Service;
+
+import java.util.List;
+
+import com.odontologia.odontologia.Dto.EstadisticaCacheDto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.RolDto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+
+// Consultas de datos de referencia (tablas pequeñas que casi no cambian) servidas desde caché.
+// Los servicios que escriben esas tablas desalojan la caché correspondiente.
+public interface CatalogoService {
+    String CACHE_ROLES = "roles";
+    String CACHE_TIPOS_CITA = "tiposCita";
+    String CACHE_ODONTOLOGOS = "odontologosResumen";
+
+    RolDto obtenerRol(Long id);
+    TipoCitaDto obtenerTipoCita(Long id);
+    // Solo id, nombre, apellido y matrícula: lo que se muestra junto a una cita
+    OdontologoDto obtenerResumenOdontologo(Long id);
+    List<EstadisticaCacheDto> estadisticas();
+}
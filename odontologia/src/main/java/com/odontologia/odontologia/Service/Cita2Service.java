@@ -1,14 +1,29 @@
 package com.odontologia.odontologia.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import com.odontologia.odontologia.Dto.CambioEstadoDto;
 import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.EstadoCitaDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
 
 public interface Cita2Service {
     // aqui van los metodos del servicio
     List<Cita2Dto> listarCitas();
+    List<Cita2Dto> listarCitas(LocalDate desde, LocalDate hasta, Long odontologoId, Long pacienteId, EstadoCitaEnum estado);
+    PaginaDto<Cita2Dto> listarCitasPaginado(LocalDate desde, LocalDate hasta, Long odontologoId, Long pacienteId, EstadoCitaEnum estado, Long after, Integer limit);
     Cita2Dto obtenerCitaPorId(Long id);
+    // Próximas (desde 'ahora', de la más cercana en adelante) o recientes (antes de 'ahora', de la última hacia atrás)
+    List<Cita2Dto> listarCitasDePaciente(Long pacienteId, LocalDateTime ahora, boolean proximas, int limite);
+    List<Cita2Dto> listarCitasDeSerie(Long serieId);
     Cita2Dto crearCita(Cita2Dto citaDto);
+    ResultadoLoteDto crearCitasEnLote(List<Cita2Dto> citasDto);
     Cita2Dto actualizarCita(Long id, Cita2Dto citaDto);
     void eliminarCita(Long id);
+    EstadoCitaDto cambiarEstado(Long id, CambioEstadoDto cambio);
+    List<EstadoCitaDto> cambiarEstados(CambioEstadoDto cambio);
 }
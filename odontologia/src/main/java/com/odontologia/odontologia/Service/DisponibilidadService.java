@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.odontologia.odontologia.Dto.DisponibilidadDto;
+import com.odontologia.odontologia.Dto.EspacioLibreDto;
+
+public interface DisponibilidadService {
+    List<DisponibilidadDto> consultarDisponibilidad(Long odontologoId, LocalDate desde, LocalDate hasta);
+    EspacioLibreDto buscarProximoEspacioLibre(Long odontologoId, LocalDateTime desde);
+    // Según el horario compilado del odontólogo, con sus excepciones
+    boolean estaTrabajando(Long odontologoId, LocalDateTime instante);
+    long minutosTrabajados(Long odontologoId, LocalDateTime desde, LocalDateTime hasta);
+    void invalidarOdontologo(Long odontologoId);
+}
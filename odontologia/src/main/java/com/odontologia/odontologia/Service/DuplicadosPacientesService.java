@@ -0,0 +1,13 @@
+package com.odontologia.odontologia.Service;
+
+import java.util.List;
+
+import com.odontologia.odontologia.Dto.DuplicadoPacienteDto;
+import com.odontologia.odontologia.Dto.FusionPacientesDto;
+
+public interface DuplicadosPacientesService {
+    List<DuplicadoPacienteDto> buscarDuplicados(Double puntajeMinimo, Integer limit);
+
+    // Pasa citas, series e historia clínica del duplicado al sobreviviente y elimina el duplicado
+    FusionPacientesDto fusionar(Long sobrevivienteId, Long duplicadoId);
+}
@@ -0,0 +1,21 @@
+package com.odontologia.odontologia.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+// Volcado completo de tablas para BI y archivo: las filas pasan del cursor de la base a la
+// salida sin acumularse en memoria.
+public interface ExportacionService {
+    enum Tabla { PACIENTES, CITAS, HISTORIAS }
+
+    enum Formato { CSV, NDJSON }
+
+    // Escribe la tabla en la salida (sin cerrarla) y devuelve la cantidad de filas
+    long exportar(Tabla tabla, Formato formato, OutputStream salida) throws IOException;
+
+    // Exporta todas las tablas a archivos del directorio configurado, con la fecha en el nombre
+    List<Path> exportarADirectorio(LocalDate fecha) throws IOException;
+}
@@ -1,15 +1,32 @@
 package com.odontologia.odontologia.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.RevisionHistoriaDto;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
 
 public interface HistoriaClinicaService {
     // aqui van los metodos del servicio
 
     List<HistoriaClinicaDto> listarHistoriaClinicas();
+    PaginaDto<HistoriaClinicaDto> listarHistoriaClinicasPaginado(Long after, Integer limit);
     HistoriaClinicaDto obtenerHistoriaClinicaPorId(Long id);
     HistoriaClinicaDto crearHistoriaClinica(HistoriaClinicaDto historiaClinicaDto);
     HistoriaClinicaDto actualizarHistoriaClinica(Long id, HistoriaClinicaDto historiaClinicaDto);
     void eliminarHistoriaClinica(Long id);
+
+    // Búsqueda por paciente: vacío si el paciente todavía no tiene historia
+    Optional<HistoriaClinicaDto> obtenerPorPaciente(Long pacienteId);
+    List<HistoriaClinicaDto> listarPorPacientes(List<Long> pacienteIds);
+
+    // Versiones anteriores: cada cambio de antecedentes, alergias o medicamentos queda como revisión
+    List<RevisionHistoriaDto> listarRevisiones(Long id);
+    HistoriaClinicaDto obtenerVersion(Long id, int numero);
+
+    // Aplica los cambios sobre una historia ya cargada y guarda la revisión (dentro de la transacción
+    // de quien llama). Todo cambio de esos campos debe pasar por aquí.
+    void registrarCambios(HistoriaClinica historia, String antecedentes, String alergias, String medicamentos);
 }
@@ -0,0 +1,19 @@
+package com.odontologia.odontologia.Service;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import com.odontologia.odontologia.Dto.ResultadoImportacionDto;
+
+// Alta masiva de pacientes desde un archivo, leído en streaming y guardado por tandas.
+// Los errores por fila y el avance se informan al reporte a medida que ocurren.
+public interface ImportacionPacientesService {
+    enum Formato { CSV, NDJSON }
+
+    interface ReporteImportacion {
+        void error(long fila, String documento, String mensaje);
+        void avance(ResultadoImportacionDto parcial);
+    }
+
+    ResultadoImportacionDto importar(InputStream archivo, Charset charset, Formato formato, ReporteImportacion reporte);
+}
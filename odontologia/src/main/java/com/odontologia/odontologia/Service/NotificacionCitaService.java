@@ -0,0 +1,10 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDate;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface NotificacionCitaService {
+    // Abre un flujo SSE con los cambios de citas; odontologoId y fecha son filtros opcionales
+    SseEmitter suscribir(Long odontologoId, LocalDate fecha);
+}
@@ -0,0 +1,17 @@
+package com.odontologia.odontologia.Service;
+
+import java.util.List;
+
+import com.odontologia.odontologia.Dto.EventoOdontogramaDto;
+import com.odontologia.odontologia.Dto.OdontogramaDto;
+
+public interface OdontogramaService {
+    OdontogramaDto obtenerOdontograma(Long pacienteId);
+
+    // Registra los cambios de una atención como un evento nuevo y devuelve el odontograma resultante
+    OdontogramaDto registrarEvento(Long pacienteId, EventoOdontogramaDto evento);
+
+    // Historia del odontograma: los eventos en orden y el estado tras cualquiera de ellos
+    List<EventoOdontogramaDto> listarEventos(Long pacienteId);
+    OdontogramaDto obtenerVersion(Long pacienteId, int evento);
+}
@@ -2,13 +2,22 @@ package com.odontologia.odontologia.Service;
 
 import java.util.List;
 
+import com.odontologia.odontologia.Dto.HorarioSemanalDto;
 import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.OdontologoResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
 
 public interface OdontologoService {
     // aqui van los metodos del servicio
     List<OdontologoDto> listarOdontologos();
+    PaginaDto<OdontologoDto> listarOdontologosPaginado(Long after, Integer limit);
+    // Para selectores: id, nombre y documento, ordenados por apellido (limit opcional)
+    List<OdontologoResumenDto> listarOdontologosResumen(Integer limit);
     OdontologoDto obtenerOdontologoPorId(Long id);
     OdontologoDto crearOdontologo(OdontologoDto odontologoDto);
     OdontologoDto actualizarOdontologo(Long id, OdontologoDto odontologoDto);
     void eliminarOdontologo(Long id);
+    // Horario estructurado: intervalos por día de la semana (los descansos son los huecos) y excepciones por fecha
+    HorarioSemanalDto obtenerHorario(Long id);
+    HorarioSemanalDto actualizarHorario(Long id, HorarioSemanalDto horario);
 }
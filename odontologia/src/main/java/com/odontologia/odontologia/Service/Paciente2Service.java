@@ -2,12 +2,22 @@ package com.odontologia.odontologia.Service;
 
 import java.util.List;
 
+import com.odontologia.odontologia.Dto.FichaPacienteDto;
 import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.PacienteResumenDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
 
 public interface Paciente2Service {
     // aqui van los metodos del servicio
     List<Paciente2Dto> listarPacientes();
+    PaginaDto<Paciente2Dto> listarPacientesPaginado(Long after, Integer limit);
+    // Para selectores: id, nombre y documento, ordenados por apellido (limit opcional)
+    List<PacienteResumenDto> listarPacientesResumen(Integer limit);
     Paciente2Dto obtenerPacientePorId(Long id);
+    // Paciente, historia clínica y citas próximas / recientes en una sola respuesta
+    FichaPacienteDto obtenerFicha(Long id);
+    // Búsqueda aproximada y ordenada por relevancia (admite errores de escritura)
+    List<Paciente2Dto> buscarPacientes(String consulta, Integer limit);
     Paciente2Dto crearPaciente(Paciente2Dto pacienteDto);
     Paciente2Dto actualizarPaciente(Long id, Paciente2Dto pacienteDto);
     void eliminarPaciente(Long id);
@@ -0,0 +1,10 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDateTime;
+
+import com.odontologia.odontologia.Dto.ResumenRecordatoriosDto;
+
+public interface RecordatorioCitaService {
+    // Envía los recordatorios de las citas que empiezan entre 24 y 48 horas después de 'ahora'
+    ResumenRecordatoriosDto enviarRecordatorios(LocalDateTime ahora);
+}
@@ -0,0 +1,11 @@
+package com.odontologia.odontologia.Service;
+
+// Canal por el que salen los recordatorios (correo, SMS, archivo...). Se invoca desde varios
+// hilos virtuales a la vez; una excepción marca ese recordatorio como fallido.
+public interface RemitenteRecordatorio {
+
+    void enviar(Mensaje mensaje) throws Exception;
+
+    record Mensaje(Long citaId, String destinatario, String asunto, String cuerpo) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.odontologia.odontologia.Service;
+
+import java.time.LocalDate;
+
+import com.odontologia.odontologia.Dto.SerieCitaDto;
+
+public interface SerieCitaService {
+    SerieCitaDto crearSerie(SerieCitaDto serieDto);
+    SerieCitaDto obtenerSeriePorId(Long id);
+    // "Esta y las siguientes": afectan a las ocurrencias pendientes o confirmadas desde la fecha dada
+    int actualizarDesde(Long serieId, LocalDate desde, SerieCitaDto cambios);
+    int cancelarDesde(Long serieId, LocalDate desde);
+}
@@ -0,0 +1,85 @@
+-- ============================================
+-- Objetos que Hibernate (ddl-auto=update) no sabe crear.
+-- Se ejecuta en cada arranque después de Hibernate: todas las sentencias son idempotentes.
+-- ============================================
+
+-- Respaldo del bloqueo de agenda: un odontólogo no puede tener dos citas activas que se solapen,
+-- aunque las reservas lleguen a instancias distintas. Cada cita ocupa el intervalo [hora, hora + minutos),
+-- donde minutos es odontologia.agenda.minutos-por-espacio al reservarla (ver Cita2.minutos): al cambiar
+-- la propiedad, las citas nuevas usan la duración nueva y las ya reservadas conservan la suya.
+-- Reemplaza al índice único uk_citas_odontologo_horario_activo, que solo detectaba horas idénticas.
+-- Si falla por citas que ya se solapan, se pueden ubicar con:
+--   SELECT a.id, b.id FROM citas a JOIN citas b ON a.odontologo_id = b.odontologo_id AND a.id < b.id
+--   WHERE a.estado <> 'CANCELADA' AND b.estado <> 'CANCELADA'
+--     AND a.fecha + a.hora < b.fecha + b.hora + b.minutos * interval '1 minute'
+--     AND b.fecha + b.hora < a.fecha + a.hora + a.minutos * interval '1 minute';
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DROP INDEX IF EXISTS uk_citas_odontologo_horario_activo;
+
+-- Las citas anteriores a la columna minutos se reservaron con espacios fijos de 30 minutos
+UPDATE citas SET minutos = 30 WHERE minutos IS NULL;
+ALTER TABLE citas ALTER COLUMN minutos SET NOT NULL;
+
+-- La versión anterior de la restricción tenía los 30 minutos fijos: se reemplaza por la que lee la columna
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''ex_citas_odontologo_horario_activo''
+               AND pg_get_constraintdef(oid) NOT LIKE ''%minutos%'') THEN
+        ALTER TABLE citas DROP CONSTRAINT ex_citas_odontologo_horario_activo;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''ex_citas_odontologo_horario_activo'') THEN
+        ALTER TABLE citas ADD CONSTRAINT ex_citas_odontologo_horario_activo EXCLUDE USING gist (
+            odontologo_id WITH =,
+            tsrange(fecha + hora, fecha + hora + minutos * interval ''1 minute'') WITH &&)
+            WHERE (estado <> ''CANCELADA'');
+    END IF;
+END';
+
+-- citas pasó de IDENTITY a la secuencia citas_seq (bloques de 50, ver Cita2).
+-- Hibernate la crea empezando en 1: se adelanta por encima de los ids existentes
+-- y nunca se retrocede (otras instancias pueden tener bloques ya reservados).
+SELECT setval('citas_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM citas) + 50,
+    (SELECT last_value FROM citas_seq)));
+
+-- pacientes pasó de IDENTITY a la secuencia pacientes_seq (bloques de 50, ver Paciente2),
+-- con el mismo ajuste que citas_seq.
+SELECT setval('pacientes_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM pacientes) + 50,
+    (SELECT last_value FROM pacientes_seq)));
+
+-- Notas clínicas comprimidas (ver TextoComprimidoConverter): las columnas de texto pasan a bytea.
+-- El contenido existente queda como UTF-8 sin marco, que el convertidor lee tal cual; se comprime
+-- la próxima vez que se guarde. Solo convierte las columnas que todavía no son bytea.
+-- El cuerpo va entre comillas simples: el separador de sentencias de Spring no reconoce $$.
+DO '
+DECLARE
+    c RECORD;
+BEGIN
+    FOR c IN SELECT table_name, column_name FROM information_schema.columns
+             WHERE table_schema = current_schema() AND data_type <> ''bytea''
+               AND (table_name, column_name) IN (
+                   (''pacientes'', ''alergias''), (''pacientes'', ''medicamentos''), (''pacientes'', ''observaciones''),
+                   (''historias_clinicas'', ''antecedentes''), (''historias_clinicas'', ''alergias''),
+                   (''historias_clinicas'', ''medicamentos''))
+    LOOP
+        EXECUTE format(''ALTER TABLE %I ALTER COLUMN %I TYPE bytea USING convert_to(%I, ''''UTF8'''')'',
+                       c.table_name, c.column_name, c.column_name);
+    END LOOP;
+END';
+
+-- Una historia clínica por paciente (ver HistoriaClinica.paciente). En tablas creadas antes
+-- de declarar la restricción se agrega aquí, solo si no hay ya un índice único sobre
+-- paciente_id. Si falla por pacientes con más de una historia, se ubican con:
+--   SELECT paciente_id, COUNT(*) FROM historias_clinicas GROUP BY 1 HAVING COUNT(*) > 1;
+-- y se resuelven fusionando o eliminando las historias sobrantes.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_index i
+                   JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+                   WHERE i.indrelid = ''historias_clinicas''::regclass AND i.indisunique
+                     AND i.indnatts = 1 AND a.attname = ''paciente_id'') THEN
+        CREATE UNIQUE INDEX uk_historias_clinicas_paciente ON historias_clinicas (paciente_id);
+    END IF;
+END';
@@ -36,7 +36,9 @@ const AppointmentsModule = {
         { id: 'urgencia', name: 'Urgencia', icon: 'fa-exclamation-triangle', color: 'red' }
     ],
     currentDate: new Date(),
-    apiBaseUrl: '/api'
+    apiBaseUrl: '/api',
+    citas: [],      // última lista cargada, se mantiene al día con los eventos del servidor
+    eventos: null   // conexión SSE con /api/citas/eventos
 };
 
 // API Functions para comunicación con el backend
@@ -53,6 +55,36 @@ const CitasAPI = {
         }
     },
 
+    // Obtener citas filtradas en el servidor (desde, hasta, odontologoId, pacienteId, estado)
+    async getCitas(filtros = {}) {
+        try {
+            const params = new URLSearchParams();
+            Object.entries(filtros).forEach(([clave, valor]) => {
+                if (valor !== undefined && valor !== null && valor !== '') {
+                    params.append(clave, valor);
+                }
+            });
+            const response = await fetch(`${AppointmentsModule.apiBaseUrl}/citas?${params.toString()}`);
+            if (!response.ok) throw new Error('Error al cargar las citas');
+            return await response.json();
+        } catch (error) {
+            console.error('Error en getCitas:', error);
+            throw error;
+        }
+    },
+
+    // Obtener la agenda de un día agrupada por odontólogo
+    async getAgenda(fecha) {
+        try {
+            const response = await fetch(`${AppointmentsModule.apiBaseUrl}/citas/agenda?fecha=${fecha}`);
+            if (!response.ok) throw new Error('Error al cargar la agenda del día');
+            return await response.json();
+        } catch (error) {
+            console.error('Error en getAgenda:', error);
+            throw error;
+        }
+    },
+
     // Obtener cita por ID
     async getCitaById(id) {
         try {
@@ -131,6 +163,30 @@ const CitasAPI = {
         }
     },
 
+    // Cambiar solo el estado de una cita (PENDIENTE, CONFIRMADA, CANCELADA, COMPLETADA)
+    async cambiarEstado(id, estado) {
+        try {
+            const response = await fetch(`${AppointmentsModule.apiBaseUrl}/citas/${id}/estado`, {
+                method: 'PATCH',
+                headers: {
+                    'Content-Type': 'application/json',
+                },
+                body: JSON.stringify({ estado })
+            });
+
+            if (!response.ok) {
+                const errorText = await response.text();
+                console.error(`Error HTTP ${response.status}:`, errorText);
+                throw new Error(`Error ${response.status}: ${response.statusText}`);
+            }
+
+            return await response.json();
+        } catch (error) {
+            console.error('Error en cambiarEstado:', error);
+            throw error;
+        }
+    },
+
     // Eliminar cita
     async deleteCita(id) {
         try {
@@ -164,6 +220,9 @@ function initializeAppointmentsModule() {
     
     // Cargar datos iniciales
     loadAppointments();
+
+    // Recibir los cambios de otras pantallas en lugar de recargar la lista completa
+    conectarEventosCitas();
     
     // Configurar filtros
     setupFilters();
@@ -190,6 +249,12 @@ function setupEventListeners() {
     if (searchInput) {
         searchInput.addEventListener('input', debounce(handleSearchInput, 300));
     }
+
+    // Búsqueda de paciente dentro del formulario de cita
+    const buscarPacienteInput = document.getElementById('buscarPaciente');
+    if (buscarPacienteInput) {
+        buscarPacienteInput.addEventListener('input', debounce(e => loadPacientesSelect(e.target.value.trim()), 300));
+    }
     
     // Mobile menu toggle
     const mobileMenuToggle = document.getElementById('mobileMenuToggle');
@@ -268,6 +333,10 @@ async function openNewAppointmentModal(editData = null) {
                     // Paciente
                     const pacienteId = editData.paciente?.id || editData.pacienteId;
                     if (pacienteId) {
+                        // El select solo trae una página: se agrega el paciente de la cita si falta
+                        if (!pacienteSelect.querySelector(`option[value="${pacienteId}"]`) && editData.paciente) {
+                            agregarOpcionPaciente(pacienteSelect, { id: pacienteId, ...editData.paciente });
+                        }
                         pacienteSelect.value = pacienteId;
                         console.log('Paciente ID asignado:', pacienteId);
                     } else {
@@ -501,7 +570,7 @@ async function handleNewAppointmentSubmit(e) {
         });
         
         // Recargar lista
-        await loadAppointments();
+        await refrescarTrasCambio();
         
     } catch (error) {
         console.error('Error al procesar cita:', error);
@@ -799,8 +868,7 @@ async function confirmAppointment(appointmentId) {
             });
 
             // Llamada real para confirmar: actualizar estado en backend
-            // Intentamos usar la API para actualizar el estado a CONFIRMADA
-            await CitasAPI.updateCita(appointmentId, { estado: 'CONFIRMADA' });
+            await CitasAPI.cambiarEstado(appointmentId, 'CONFIRMADA');
 
             // Confirmar éxito
             await Swal.fire({
@@ -822,8 +890,7 @@ async function confirmAppointment(appointmentId) {
             });
 
             // Recargar lista
-            await loadAppointments();
-            updateTodayTimeline();
+            await refrescarTrasCambio();
 
         } catch (error) {
             console.error('Error al confirmar cita:', error);
@@ -900,7 +967,7 @@ async function cancelAppointment(appointmentId) {
             });
 
             // Llamada real para cancelar (actualizar estado a CANCELADA)
-            await CitasAPI.updateCita(appointmentId, { estado: 'CANCELADA', motivoCancelacion: reason });
+            await CitasAPI.cambiarEstado(appointmentId, 'CANCELADA');
 
             // Confirmar cancelación
             await Swal.fire({
@@ -922,8 +989,7 @@ async function cancelAppointment(appointmentId) {
             });
 
             // Recargar lista
-            await loadAppointments();
-            updateTodayTimeline();
+            await refrescarTrasCambio();
 
         } catch (error) {
             console.error('Error al cancelar cita:', error);
@@ -1031,22 +1097,19 @@ async function updateTodayTimeline() {
             </div>
         `;
         
-        // Obtener todas las citas
-        const allCitas = await CitasAPI.getAllCitas();
-        
-        // Filtrar citas del día actual
+        // Agenda del día ya armada en el servidor (agrupada por odontólogo); se une en una sola línea por hora
         const today = AppointmentsModule.currentDate.toISOString().split('T')[0]; // YYYY-MM-DD
-        const citasDelDia = allCitas.filter(cita => {
-            const citaFecha = new Date(cita.fecha).toISOString().split('T')[0];
-            return citaFecha === today;
-        });
-        
-        // Ordenar por hora
-        citasDelDia.sort((a, b) => {
-            const horaA = a.hora || '00:00';
-            const horaB = b.hora || '00:00';
-            return horaA.localeCompare(horaB);
-        });
+        const agenda = await CitasAPI.getAgenda(today);
+        const citasDelDia = agenda.odontologos
+            .flatMap(o => o.citas.map(c => ({
+                id: c.citaId,
+                hora: c.hora,
+                estado: c.estado,
+                paciente: { nombres: c.pacienteNombres, apellidos: c.pacienteApellidos },
+                tipoCita: { nombre: c.tipoCita },
+                odontologo: { nombre: o.nombre, apellido: o.apellido }
+            })))
+            .sort((a, b) => a.hora.localeCompare(b.hora));
         
         if (citasDelDia.length === 0) {
             timelineContainer.innerHTML = `
@@ -1114,6 +1177,62 @@ async function updateTodayTimeline() {
     }
 }
 
+/**
+ * Se suscribe a los cambios de citas del servidor (Server-Sent Events)
+ */
+function conectarEventosCitas() {
+    if (!window.EventSource || AppointmentsModule.eventos) return;
+
+    const eventos = new EventSource(`${AppointmentsModule.apiBaseUrl}/citas/eventos`);
+    eventos.addEventListener('cita', (e) => aplicarCambioCita(JSON.parse(e.data)));
+    // El servidor descartó eventos porque esta pantalla no los leía a tiempo
+    eventos.addEventListener('recargar', () => loadAppointments());
+    eventos.onerror = () => console.warn('⚠️ Conexión de eventos de citas interrumpida, reintentando...');
+    AppointmentsModule.eventos = eventos;
+}
+
+/**
+ * Aplica un cambio recibido del servidor sobre la lista cargada
+ */
+async function aplicarCambioCita(cambio) {
+    const citas = AppointmentsModule.citas;
+    const indice = citas.findIndex(c => c.id === cambio.citaId);
+
+    if (cambio.tipo === 'ELIMINADA') {
+        if (indice >= 0) citas.splice(indice, 1);
+    } else {
+        try {
+            const cita = await CitasAPI.getCitaById(cambio.citaId);
+            if (indice >= 0) {
+                citas[indice] = cita;
+            } else {
+                citas.push(cita);
+            }
+        } catch (error) {
+            console.error('Error al aplicar cambio de cita:', error);
+            return;
+        }
+    }
+
+    updateAppointmentsTable(citas);
+    updateAppointmentStats(citas);
+
+    const today = AppointmentsModule.currentDate.toISOString().split('T')[0];
+    if (cambio.anterior?.fecha === today || cambio.actual?.fecha === today) {
+        await updateTodayTimeline();
+    }
+}
+
+/**
+ * Después de un cambio propio: si la conexión de eventos está abierta, el cambio llega por ahí
+ */
+async function refrescarTrasCambio() {
+    if (AppointmentsModule.eventos && AppointmentsModule.eventos.readyState === EventSource.OPEN) {
+        return;
+    }
+    await loadAppointments();
+}
+
 /**
  * Carga la lista de citas
  */
@@ -1123,6 +1242,7 @@ async function loadAppointments() {
         
         // Cargar citas usando la API
         const citas = await CitasAPI.getAllCitas();
+        AppointmentsModule.citas = citas;
         
         console.log('✅ Citas cargadas exitosamente:', citas.length, 'citas encontradas');
         
@@ -1590,7 +1710,7 @@ async function deleteAppointment(citaId) {
             });
             
             // Recargar lista
-            await loadAppointments();
+            await refrescarTrasCambio();
             
         } catch (error) {
             console.error('Error al eliminar cita:', error);
@@ -1608,22 +1728,25 @@ async function deleteAppointment(citaId) {
 /**
  * Carga la lista de pacientes en el select
  */
-async function loadPacientesSelect() {
+async function loadPacientesSelect(query = '') {
     try {
-        const response = await fetch('/api/pacientes');
+        // Sin texto se muestra la primera página; con texto, el índice de búsqueda del servidor
+        const url = query
+            ? `/api/pacientes/buscar?${new URLSearchParams({ q: query, limit: 50 })}`
+            : '/api/pacientes?vista=resumen&limit=50';
+        const response = await fetch(url);
         if (!response.ok) throw new Error('Error al cargar pacientes');
         
         const pacientes = await response.json();
         const select = document.getElementById('pacienteId');
         
         if (select) {
+            const seleccionado = select.value;
             select.innerHTML = '<option value="">Seleccionar paciente...</option>';
-            pacientes.forEach(paciente => {
-                const option = document.createElement('option');
-                option.value = paciente.id;
-                option.textContent = `${paciente.nombres} ${paciente.apellidos}`;
-                select.appendChild(option);
-            });
+            pacientes.forEach(paciente => agregarOpcionPaciente(select, paciente));
+            if (seleccionado && select.querySelector(`option[value="${seleccionado}"]`)) {
+                select.value = seleccionado;
+            }
         }
     } catch (error) {
         console.error('Error al cargar pacientes:', error);
@@ -1635,12 +1758,21 @@ async function loadPacientesSelect() {
     }
 }
 
+function agregarOpcionPaciente(select, paciente) {
+    const option = document.createElement('option');
+    option.value = paciente.id;
+    option.textContent = paciente.documento
+        ? `${paciente.nombres} ${paciente.apellidos} - ${paciente.documento}`
+        : `${paciente.nombres} ${paciente.apellidos}`;
+    select.appendChild(option);
+}
+
 /**
  * Carga la lista de odontólogos en el select
  */
 async function loadOdontologosSelect() {
     try {
-        const response = await fetch('/api/odontologos');
+        const response = await fetch('/api/odontologos?vista=resumen');
         if (!response.ok) throw new Error('Error al cargar odontólogos');
         
         const odontologos = await response.json();
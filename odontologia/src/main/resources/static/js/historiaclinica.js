@@ -33,6 +33,21 @@ const HistoriasAPI = {
         }
     },
 
+    /**
+     * Obtener la historia clínica de un paciente (null si todavía no tiene)
+     */
+    async getHistoriaByPaciente(pacienteId) {
+        try {
+            const response = await fetch(`/api/pacientes/${pacienteId}/historia-clinica`);
+            if (response.status === 404) return null;
+            if (!response.ok) throw new Error('Error al obtener historia clínica del paciente');
+            return await response.json();
+        } catch (error) {
+            console.error('Error en getHistoriaByPaciente:', error);
+            throw error;
+        }
+    },
+
     /**
      * Crear nueva historia clínica
      */
@@ -315,6 +330,27 @@ async function handleNewRecordSubmit(e) {
         
         // Determinar si es creación o edición
         const isEdit = MedicalRecordsModule.editMode;
+
+        // Cada paciente tiene una sola historia: si ya existe se ofrece editarla
+        if (!isEdit) {
+            const existente = await HistoriasAPI.getHistoriaByPaciente(recordData.pacienteId);
+            if (existente) {
+                const respuesta = await Swal.fire({
+                    icon: 'info',
+                    title: 'El paciente ya tiene historia clínica',
+                    text: '¿Desea abrirla para editarla?',
+                    showCancelButton: true,
+                    confirmButtonText: 'Editar historia',
+                    cancelButtonText: 'Cancelar',
+                    confirmButtonColor: '#14b8a6'
+                });
+                if (respuesta.isConfirmed) {
+                    closeNewRecordModal();
+                    await openNewRecordModal(existente);
+                }
+                return;
+            }
+        }
         const actionText = isEdit ? 'Actualizando' : 'Creando';
         const successText = isEdit ? 'actualizada' : 'creada';
         
@@ -1115,7 +1151,7 @@ async function deleteRecord(recordId) {
  */
 async function loadPacientesSelect() {
     try {
-        const response = await fetch('/api/pacientes');
+        const response = await fetch('/api/pacientes?vista=resumen');
         if (!response.ok) throw new Error('Error al cargar pacientes');
         
         const pacientes = await response.json();
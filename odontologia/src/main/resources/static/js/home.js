@@ -10,7 +10,9 @@ const DashboardModule = {
         treatments: null
     },
     updateInterval: null,
-    refreshRate: 300000, // 5 minutos
+    refreshRate: 300000, // 5 minutos (solo si el navegador no soporta EventSource)
+    eventos: null,           // conexión SSE con /api/citas/eventos
+    recargaPendiente: null,  // agrupa varios cambios seguidos en una sola recarga
     isUpdating: false,
     currentStats: {
         todayAppointments: 0,
@@ -478,6 +480,12 @@ function setupAutoRefresh() {
     if (DashboardModule.updateInterval) {
         clearInterval(DashboardModule.updateInterval);
     }
+
+    // Con EventSource el servidor avisa cuando cambia una cita de hoy: no hace falta consultar
+    if (window.EventSource) {
+        conectarEventosDashboard();
+        return;
+    }
     
     // Configurar nuevo intervalo
     DashboardModule.updateInterval = setInterval(() => {
@@ -489,6 +497,30 @@ function setupAutoRefresh() {
     console.log(`⏰ Auto-refresh configurado cada ${DashboardModule.refreshRate / 1000} segundos`);
 }
 
+/**
+ * Escucha los cambios de las citas de hoy y recarga los datos en silencio
+ */
+function conectarEventosDashboard() {
+    if (DashboardModule.eventos) return;
+
+    const today = new Date().toISOString().split('T')[0];
+    const eventos = new EventSource(`/api/citas/eventos?fecha=${today}`);
+    const programarRecarga = () => {
+        clearTimeout(DashboardModule.recargaPendiente);
+        DashboardModule.recargaPendiente = setTimeout(() => {
+            if (!DashboardModule.isUpdating) {
+                loadDashboardData();
+            }
+        }, 2000);
+    };
+    eventos.addEventListener('cita', programarRecarga);
+    eventos.addEventListener('recargar', programarRecarga);
+    eventos.onerror = () => console.warn('⚠️ Conexión de eventos de citas interrumpida, reintentando...');
+    DashboardModule.eventos = eventos;
+
+    console.log('📡 Dashboard suscrito a los cambios de citas de hoy');
+}
+
 /**
  * Ver todas las citas
  */
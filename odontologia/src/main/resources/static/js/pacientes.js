@@ -21,6 +21,23 @@ const PacientesAPI = {
         }
     },
 
+    /**
+     * Búsqueda aproximada en el servidor (nombres, apellidos, documento, teléfono o email)
+     */
+    async buscarPacientes(q, limit = 50) {
+        try {
+            const params = new URLSearchParams({ q, limit });
+            const response = await fetch(`/api/pacientes/buscar?${params}`);
+            if (!response.ok) {
+                throw new Error(`HTTP error! status: ${response.status}`);
+            }
+            return await response.json();
+        } catch (error) {
+            console.error('Error al buscar pacientes:', error);
+            throw error;
+        }
+    },
+
     /**
      * Obtener paciente por ID
      */
@@ -711,14 +728,19 @@ async function loadPatients() {
     try {
         console.log('📋 Cargando lista de pacientes...');
         
-        // Usar la nueva API
-        const patients = await PacientesAPI.getAllPacientes();
+        // Con texto de búsqueda se consulta el índice del servidor en lugar de traer todos
+        const query = PatientsModule.filters.search;
+        const patients = query
+            ? await PacientesAPI.buscarPacientes(query)
+            : await PacientesAPI.getAllPacientes();
         
         // Actualizar la tabla con los datos reales
         renderPatientsTable(patients);
         
-        // Actualizar estadísticas
-        updatePatientsStats(patients);
+        // Las estadísticas son del total, no de un resultado de búsqueda
+        if (!query) {
+            updatePatientsStats(patients);
+        }
         
         console.log('✅ Pacientes cargados exitosamente:', patients.length);
         
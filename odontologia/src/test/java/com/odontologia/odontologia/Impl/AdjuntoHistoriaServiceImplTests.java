@@ -0,0 +1,336 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Dto.AdjuntoHistoriaDto;
+import com.odontologia.odontologia.Dto.CargaAdjuntoDto;
+import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoAdjuntoEnum;
+import com.odontologia.odontologia.Repository.AdjuntoHistoriaRepository;
+import com.odontologia.odontologia.Repository.CargaAdjuntoRepository;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.RevisionHistoriaClinicaRepository;
+
+// Sin @Transactional: al completar la carga el adjunto se confirma en su propia transacción
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdjuntoHistoriaServiceImplTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private AdjuntoHistoriaServiceImpl adjuntoService;
+
+	@Autowired
+	private HistoriaClinicaServiceImpl historiaService;
+
+	@Autowired
+	private AdjuntoHistoriaRepository adjuntoRepository;
+
+	@Autowired
+	private CargaAdjuntoRepository cargaRepository;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaRepository;
+
+	@Autowired
+	private RevisionHistoriaClinicaRepository revisionRepository;
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Long historiaId;
+
+	@BeforeEach
+	void crearDatos() {
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres("Adjuntos");
+		paciente.setApellidos("Prueba");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("ADJ-1");
+		paciente.setFechaNacimiento(LocalDate.of(1985, 6, 6));
+		paciente.setGenero("F");
+		paciente.setTelefono("3000000000");
+		pacienteRepository.save(paciente);
+		HistoriaClinicaDto historia = new HistoriaClinicaDto();
+		historia.setAntecedentes("Sin antecedentes");
+		Paciente2Dto p = new Paciente2Dto();
+		p.setId(paciente.getId());
+		historia.setPaciente(p);
+		historiaId = historiaService.crearHistoriaClinica(historia).getId();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		cargaRepository.deleteAllInBatch();
+		adjuntoRepository.deleteAllInBatch();
+		revisionRepository.deleteAllInBatch();
+		historiaRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void subidaPorTramosSeRetomaYDeduplicaElContenido() throws Exception {
+		byte[] contenido = new byte[300_000];
+		new Random(22).nextBytes(contenido);
+
+		CargaAdjuntoDto carga = iniciar("panoramica.dcm", "application/dicom", contenido.length);
+		assertEquals(0, carga.getRecibidos());
+		enviarTramo(carga.getId(), 0, Arrays.copyOfRange(contenido, 0, 100_000));
+
+		// Un tramo que no continúa donde quedó el anterior se rechaza con el estado actual
+		CargaAdjuntoDto conflicto = objectMapper.readValue(mockMvc.perform(put("/api/adjuntos/cargas/" + carga.getId())
+				.param("desde", "50000").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[10]))
+				.andExpect(status().isConflict()).andReturn().getResponse().getContentAsByteArray(), CargaAdjuntoDto.class);
+		assertEquals(100_000, conflicto.getRecibidos());
+
+		CargaAdjuntoDto estado = objectMapper.readValue(mockMvc.perform(get("/api/adjuntos/cargas/" + carga.getId()))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(), CargaAdjuntoDto.class);
+		assertEquals(100_000, estado.getRecibidos());
+		assertNull(estado.getAdjunto());
+
+		enviarTramo(carga.getId(), 100_000, Arrays.copyOfRange(contenido, 100_000, 250_000));
+		CargaAdjuntoDto completa = enviarTramo(carga.getId(), 250_000, Arrays.copyOfRange(contenido, 250_000, contenido.length));
+		AdjuntoHistoriaDto adjunto = completa.getAdjunto();
+		assertNotNull(adjunto);
+		assertEquals(sha256(contenido), adjunto.getSha256());
+		assertEquals(historiaId, adjunto.getHistoriaId());
+		assertEquals(TipoAdjuntoEnum.RADIOGRAFIA, adjunto.getTipo());
+
+		// El mismo archivo subido otra vez es otro adjunto pero comparte el contenido en disco
+		CargaAdjuntoDto repetida = iniciar("copia.dcm", "application/dicom", contenido.length);
+		AdjuntoHistoriaDto copia = enviarTramo(repetida.getId(), 0, contenido).getAdjunto();
+		assertEquals(adjunto.getSha256(), copia.getSha256());
+		assertTrue(copia.getId() > adjunto.getId());
+		Path archivo = adjuntoService.archivo(adjunto);
+		try (var archivos = Files.list(archivo.getParent())) {
+			assertEquals(1, archivos.filter(a -> a.getFileName().toString().equals(adjunto.getSha256())).count());
+		}
+		try (var parciales = Files.list(archivo.getParent().getParent().resolveSibling("cargas"))) {
+			assertTrue(parciales.noneMatch(a -> a.getFileName().toString().startsWith(repetida.getId())));
+		}
+		assertEquals(2, adjuntoService.listarAdjuntos(historiaId).size());
+
+		byte[] descargado = mockMvc.perform(get("/api/adjuntos/" + adjunto.getId() + "/contenido"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + adjunto.getSha256() + "\""))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(contenido, descargado);
+	}
+
+	@Test
+	void descargaRespondeRangosYValidaElEtag() throws Exception {
+		byte[] contenido = new byte[1000];
+		for (int i = 0; i < contenido.length; i++) {
+			contenido[i] = (byte) i;
+		}
+		AdjuntoHistoriaDto adjunto = enviarTramo(iniciar("consentimiento.pdf", "application/pdf", contenido.length).getId(), 0, contenido)
+				.getAdjunto();
+		String url = "/api/adjuntos/" + adjunto.getId() + "/contenido";
+
+		byte[] tramo = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=10-19"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/1000"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(Arrays.copyOfRange(contenido, 10, 20), tramo);
+
+		byte[] final_ = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 995-999/1000"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(Arrays.copyOfRange(contenido, 995, 1000), final_);
+
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2000-3000"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"" + adjunto.getSha256() + "\""))
+				.andExpect(status().isNotModified());
+	}
+
+	// Los tipos que el navegador ejecuta no se aceptan; lo que no es imagen ni PDF se descarga
+	@Test
+	void soloSeMuestranEnElNavegadorImagenesYPdf() throws Exception {
+		for (String tipo : new String[] { "text/html", "image/svg+xml", "application/javascript" }) {
+			CargaAdjuntoDto datos = new CargaAdjuntoDto(null, null, TipoAdjuntoEnum.FOTO_INTRAORAL, "foto", tipo, 10, 0, null);
+			assertThrows(RuntimeException.class, () -> adjuntoService.iniciarCarga(historiaId, datos));
+		}
+
+		AdjuntoHistoriaDto pdf = enviarTramo(iniciar("consentimiento.pdf", "Application/PDF; charset=x", 10).getId(), 0, new byte[10])
+				.getAdjunto();
+		assertEquals("application/pdf", pdf.getContentType());
+		mockMvc.perform(get("/api/adjuntos/" + pdf.getId() + "/contenido"))
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+				.andExpect(header().string("X-Content-Type-Options", "nosniff"))
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("inline")));
+
+		AdjuntoHistoriaDto dicom = enviarTramo(iniciar("cbct.dcm", "application/dicom", 11).getId(), 0, new byte[11]).getAdjunto();
+		mockMvc.perform(get("/api/adjuntos/" + dicom.getId() + "/contenido"))
+				.andExpect(header().string("X-Content-Type-Options", "nosniff"))
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("attachment")));
+	}
+
+	@Test
+	void lasImagenesTienenMiniatura() throws Exception {
+		BufferedImage imagen = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = imagen.createGraphics();
+		g.setColor(Color.DARK_GRAY);
+		g.fillRect(0, 0, 1200, 800);
+		g.dispose();
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(imagen, "png", png);
+		byte[] contenido = png.toByteArray();
+
+		AdjuntoHistoriaDto adjunto = enviarTramo(iniciar("intraoral.png", "image/png", contenido.length).getId(), 0, contenido)
+				.getAdjunto();
+		long limite = System.currentTimeMillis() + 5000;
+		while (!adjuntoService.obtenerAdjunto(adjunto.getId()).isMiniatura() && System.currentTimeMillis() < limite) {
+			Thread.sleep(50);
+		}
+		byte[] jpg = mockMvc.perform(get("/api/adjuntos/" + adjunto.getId() + "/miniatura"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		BufferedImage miniatura = ImageIO.read(new ByteArrayInputStream(jpg));
+		assertEquals(256, miniatura.getWidth());
+		assertEquals(171, miniatura.getHeight());
+
+		// Los formatos que ImageIO no lee (DICOM, tomografías) quedan sin miniatura
+		AdjuntoHistoriaDto dicom = enviarTramo(iniciar("tomografia.dcm", "image/dicom", 64).getId(), 0, new byte[64]).getAdjunto();
+		mockMvc.perform(get("/api/adjuntos/" + dicom.getId() + "/miniatura")).andExpect(status().isNotFound());
+	}
+
+	// Un tramo repetido que leyó la carga antes de que otra petición la completara no registra un
+	// segundo adjunto: se vuelve a consultar con el archivo bloqueado
+	@Test
+	void unTramoRepetidoNoCompletaDosVecesLaCarga() throws Exception {
+		byte[] contenido = new byte[20_000];
+		new Random(7).nextBytes(contenido);
+		CargaAdjuntoDto carga = iniciar("informe.pdf", "application/pdf", contenido.length);
+
+		RuntimeException rechazo = new TransactionTemplate(transactionManager).execute(estado -> {
+			// Como en una petición con open-in-view: la carga queda en el contexto todavía sin adjunto
+			assertNull(cargaRepository.findById(carga.getId()).orElseThrow().getAdjuntoId());
+			CompletableFuture.runAsync(() -> {
+				try {
+					adjuntoService.recibirTramo(carga.getId(), 0, new ByteArrayInputStream(contenido));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).join();
+			return assertThrows(RuntimeException.class,
+					() -> adjuntoService.recibirTramo(carga.getId(), 0, new ByteArrayInputStream(contenido)));
+		});
+
+		assertTrue(rechazo.getMessage().contains("ya está completa"), rechazo.getMessage());
+		assertEquals(1, adjuntoService.listarAdjuntos(historiaId).size());
+	}
+
+	// Un archivo grande pasa del flujo de entrada al disco sin acumularse en memoria
+	@Test
+	void archivoGrandeSeEscribeDirectoAlDisco() throws Exception {
+		long tamano = 64L << 20;
+		MessageDigest esperado = MessageDigest.getInstance("SHA-256");
+		InputStream generado = new InputStream() {
+			private final Random aleatorio = new Random(64);
+			private long restantes = tamano;
+
+			@Override
+			public int read() {
+				byte[] uno = new byte[1];
+				return read(uno, 0, 1) == -1 ? -1 : uno[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] b, int desde, int largo) {
+				if (restantes == 0) {
+					return -1;
+				}
+				int n = (int) Math.min(largo, restantes);
+				byte[] tramo = new byte[n];
+				aleatorio.nextBytes(tramo);
+				esperado.update(tramo);
+				System.arraycopy(tramo, 0, b, desde, n);
+				restantes -= n;
+				return n;
+			}
+		};
+		CargaAdjuntoDto carga = adjuntoService.iniciarCarga(historiaId,
+				new CargaAdjuntoDto(null, null, TipoAdjuntoEnum.TOMOGRAFIA, "cbct.dcm", "application/dicom", tamano, 0, null));
+		CargaAdjuntoDto completa = adjuntoService.recibirTramo(carga.getId(), 0, generado);
+		assertEquals(HexFormat.of().formatHex(esperado.digest()), completa.getAdjunto().getSha256());
+		assertEquals(tamano, Files.size(adjuntoService.archivo(completa.getAdjunto())));
+	}
+
+	private CargaAdjuntoDto iniciar(String nombre, String contentType, long tamano) throws Exception {
+		TipoAdjuntoEnum tipo = contentType.startsWith("image/") ? TipoAdjuntoEnum.FOTO_INTRAORAL
+				: contentType.equals("application/pdf") ? TipoAdjuntoEnum.CONSENTIMIENTO : TipoAdjuntoEnum.RADIOGRAFIA;
+		CargaAdjuntoDto datos = new CargaAdjuntoDto(null, null, tipo, nombre, contentType, tamano, 0, null);
+		return objectMapper.readValue(mockMvc.perform(post("/api/historias-clinicas/" + historiaId + "/adjuntos/cargas")
+				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsBytes(datos)))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(), CargaAdjuntoDto.class);
+	}
+
+	private CargaAdjuntoDto enviarTramo(String cargaId, long desde, byte[] datos) throws Exception {
+		return objectMapper.readValue(mockMvc.perform(put("/api/adjuntos/cargas/" + cargaId)
+				.param("desde", String.valueOf(desde)).contentType(MediaType.APPLICATION_OCTET_STREAM).content(datos))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(), CargaAdjuntoDto.class);
+	}
+
+	private static String sha256(byte[] datos) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+	}
+}
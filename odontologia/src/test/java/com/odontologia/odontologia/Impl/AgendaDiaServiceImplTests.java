@@ -0,0 +1,134 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import com.odontologia.odontologia.Dto.AgendaDiaDto;
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+class AgendaDiaServiceImplTests {
+
+	private static final LocalDate FECHA = LocalDate.of(2030, 9, 2);
+
+	@Autowired
+	private AgendaDiaServiceImpl agendaService;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Long odontologoA;
+	private Long odontologoB;
+	private Long pacienteId;
+	private Long tipoId;
+
+	@BeforeEach
+	void prepararDatos() {
+		odontologoA = datos.odontologo("Alvarez").getId();
+		odontologoB = datos.odontologo("Benitez").getId();
+		pacienteId = datos.paciente("Lucia", "Agenda").getId();
+		tipoId = datos.tipoCita("Limpieza").getId();
+
+		citaService.crearCita(cita(odontologoB, FECHA, LocalTime.of(9, 0)));
+		citaService.crearCita(cita(odontologoA, FECHA, LocalTime.of(11, 0)));
+		citaService.crearCita(cita(odontologoA, FECHA, LocalTime.of(8, 0)));
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+		agendaService.invalidarTodo();
+	}
+
+	@Test
+	void agrupaPorOdontologoYOrdenaPorHora() {
+		AgendaDiaDto agenda = agendaService.obtenerAgenda(FECHA);
+
+		assertEquals(2, agenda.getOdontologos().size());
+		AgendaDiaDto.Odontologo primero = agenda.getOdontologos().get(0);
+		assertEquals("Alvarez", primero.getApellido());
+		assertEquals(LocalTime.of(8, 0), primero.getCitas().get(0).getHora());
+		assertEquals(LocalTime.of(11, 0), primero.getCitas().get(1).getHora());
+		assertEquals("Lucia", primero.getCitas().get(0).getPacienteNombres());
+		assertEquals("Limpieza", primero.getCitas().get(0).getTipoCita());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void unaLecturaConAciertoNoConsultaLaBase() {
+		agendaService.obtenerAgenda(FECHA);
+		statistics.clear();
+
+		agendaService.obtenerAgenda(FECHA);
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void soloSeInvalidaLaFechaQueCambio() {
+		agendaService.obtenerAgenda(FECHA);
+		citaService.crearCita(cita(odontologoB, FECHA.plusDays(1), LocalTime.of(10, 0)));
+		statistics.clear();
+
+		agendaService.obtenerAgenda(FECHA);
+		assertEquals(0, statistics.getPrepareStatementCount());
+
+		citaService.crearCita(cita(odontologoB, FECHA, LocalTime.of(10, 0)));
+		statistics.clear();
+
+		AgendaDiaDto agenda = agendaService.obtenerAgenda(FECHA);
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(2, agenda.getOdontologos().get(1).getCitas().size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void losCambiosDeOtraInstanciaSeVenAlCaducarElDia() {
+		agendaService.obtenerAgenda(FECHA);
+		// Guardada sin pasar por el servicio: no hay evento, como si viniera de otra instancia
+		datos.cita(pacienteId, odontologoB, tipoId, FECHA, LocalTime.of(15, 0), EstadoCitaEnum.PENDIENTE);
+		assertEquals(1, agendaService.obtenerAgenda(FECHA).getOdontologos().get(1).getCitas().size());
+
+		Policy.FixedExpiration<LocalDate, AgendaDiaDto> vigencia = ((Cache<LocalDate, AgendaDiaDto>) ReflectionTestUtils
+				.getField(agendaService, "cache")).policy().expireAfterWrite().orElseThrow();
+		Duration original = vigencia.getExpiresAfter();
+		try {
+			vigencia.setExpiresAfter(Duration.ZERO);
+			assertEquals(2, agendaService.obtenerAgenda(FECHA).getOdontologos().get(1).getCitas().size());
+		} finally {
+			vigencia.setExpiresAfter(original);
+		}
+	}
+
+	private Cita2Dto cita(Long odontologoId, LocalDate fecha, LocalTime hora) {
+		return DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, fecha, hora);
+	}
+}
@@ -0,0 +1,181 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+
+// Sin @Transactional: el índice solo cambia cuando se confirma la transacción del servicio
+@SpringBootTest
+class BusquedaPacientesServiceImplTests {
+
+	@Autowired
+	private Paciente2ServiceImpl pacienteService;
+
+	@Autowired
+	private BusquedaPacientesServiceImpl busquedaService;
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void encuentraPorNombreMalEscritoDocumentoParcialYTelefono() {
+		Long rodriguez = crear("María José", "Rodríguez Gómez", "1.098.765.432", "300 555 1234", "mjrodriguez@correo.com").getId();
+		crear("Mario", "Rodas", "52111222", "3104445566", "mrodas@correo.com");
+		crear("Juan", "Pérez", "80123456", "3201112233", "jperez@correo.com");
+
+		assertEquals(rodriguez, pacienteService.buscarPacientes("rodrigues", 5).get(0).getId());
+		assertEquals(rodriguez, pacienteService.buscarPacientes("Maria Rodriguez", 5).get(0).getId());
+		assertEquals(rodriguez, pacienteService.buscarPacientes("0987654", 5).get(0).getId());
+		assertEquals(rodriguez, pacienteService.buscarPacientes("3005551234", 5).get(0).getId());
+		assertEquals(rodriguez, pacienteService.buscarPacientes("mjrodriguez", 5).get(0).getId());
+		assertTrue(pacienteService.buscarPacientes("zzzz", 5).isEmpty());
+	}
+
+	@Test
+	void mantieneElIndiceAlActualizarYEliminar() {
+		Paciente2Dto paciente = crear("Ana", "Castaño", "77000111", "3150000000", "ana.c77@correo.com");
+		assertEquals(1, pacienteService.buscarPacientes("castaño", 5).size());
+
+		paciente.setApellidos("Villamizar");
+		pacienteService.actualizarPaciente(paciente.getId(), paciente);
+		assertTrue(pacienteService.buscarPacientes("castano", 5).isEmpty());
+		assertEquals(paciente.getId(), pacienteService.buscarPacientes("villamisar", 5).get(0).getId());
+
+		pacienteService.eliminarPaciente(paciente.getId());
+		assertTrue(pacienteService.buscarPacientes("villamizar", 5).isEmpty());
+	}
+
+	@Test
+	void sincronizarTraeLosCambiosDeOtrasInstancias() {
+		crear("Ana", "Castaño", "77000111", "3150000000", "ana.c77@correo.com");
+		pacienteService.buscarPacientes("castaño", 5);
+
+		// Guardado y borrado sin pasar por el servicio, como desde otra instancia
+		Paciente2 ajeno = new Paciente2();
+		ajeno.setNombres("Hernando");
+		ajeno.setApellidos("Quintero");
+		ajeno.setTipoDocumento("CC");
+		ajeno.setDocumento("91000222");
+		ajeno.setFechaNacimiento(LocalDate.of(1970, 3, 3));
+		ajeno.setGenero("M");
+		ajeno.setTelefono("3169990000");
+		Long ajenoId = pacienteRepository.save(ajeno).getId();
+		assertTrue(pacienteService.buscarPacientes("quintero", 5).isEmpty());
+
+		busquedaService.sincronizar();
+		assertEquals(ajenoId, pacienteService.buscarPacientes("quintero", 5).get(0).getId());
+
+		pacienteRepository.deleteById(ajenoId);
+		busquedaService.sincronizar();
+		assertTrue(pacienteService.buscarPacientes("quintero", 5).isEmpty());
+		assertEquals(1, pacienteService.buscarPacientes("castaño", 5).size());
+	}
+
+	@Test
+	void losCambiosDeshechosNoLleganAlIndice() {
+		Paciente2Dto paciente = crear("Ana", "Castaño", "77000111", "3150000000", "ana.c77@correo.com");
+		pacienteService.buscarPacientes("castaño", 5);
+
+		TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+		transaccion.executeWithoutResult(estado -> {
+			crear("Hernando", "Quintero", "91000222", "3169990000", "hquintero@correo.com");
+			pacienteService.eliminarPaciente(paciente.getId());
+			estado.setRollbackOnly();
+		});
+
+		assertTrue(busquedaService.buscarIds("quintero", 5).isEmpty());
+		assertTrue(busquedaService.buscarIds("castaño", 5).contains(paciente.getId()));
+	}
+
+	// 500.000 pacientes sintéticos directamente en el índice: mide el percentil 99 de consultas
+	// de recepción (apellido con errores, nombre y apellido, documento o teléfono parciales).
+	// Fuera de la ejecución normal (ver excludedGroups en el pom)
+	@Test
+	@Tag("benchmark")
+	void percentil99Sobre500MilPacientes() {
+		String[] nombres = { "maria", "jose", "juan", "ana", "luis", "carlos", "laura", "andrea", "diego", "sofia",
+				"camila", "jorge", "paula", "daniel", "valentina", "santiago", "natalia", "andres", "lucia", "miguel",
+				"isabella", "mateo", "gabriela", "sebastian", "mariana", "nicolas", "juliana", "felipe", "daniela", "alejandro",
+				"carolina", "ricardo", "monica", "fernando", "adriana", "oscar", "patricia", "hector", "claudia", "manuel" };
+		String[] silabas = { "ra", "mi", "ro", "dri", "go", "mez", "gon", "za", "lez", "mar", "ti", "nez", "gar", "cia",
+				"lo", "pez", "her", "nan", "dez", "san", "chez", "to", "rres", "var", "gas", "mo", "re", "no", "cas",
+				"tro", "ro", "jas", "ji", "me", "nes", "or", "tiz", "ruiz", "al", "va", "men", "do", "quin", "te",
+				"res", "tre", "po", "car", "de", "nas", "sa", "zar", "vi", "lla", "bel", "tran", "pa", "ri", "lla" };
+		Random random = new Random(42);
+		// 3.000 apellidos con frecuencia muy desigual, como en un registro real
+		String[] apellidos = new String[3000];
+		for (int i = 0; i < apellidos.length; i++) {
+			apellidos[i] = silabas[random.nextInt(silabas.length)] + silabas[random.nextInt(silabas.length)]
+					+ silabas[random.nextInt(silabas.length)];
+		}
+		apellidos[0] = "rodriguez";
+		apellidos[1] = "gomez";
+		apellidos[2] = "villamizar";
+		apellidos[3] = "castano";
+		IndiceTrigramas indice = new IndiceTrigramas();
+		for (long id = 1; id <= 500_000; id++) {
+			String nombre = nombres[random.nextInt(nombres.length)];
+			String apellido = apellidos[(int) (apellidos.length * Math.pow(random.nextDouble(), 3))];
+			indice.indexar(id, nombre, apellido + " " + apellidos[random.nextInt(apellidos.length)],
+					String.valueOf(10_000_000 + random.nextInt(90_000_000)),
+					"3" + (100_000_000 + random.nextInt(900_000_000)), nombre + "." + apellido + (id % 1000));
+		}
+
+		String[] consultas = { "rodrigues", "villamisar", "maria gomez", "castaño", "4561278", "3109876",
+				"juan.rodriguez45", "sofia", "gomes rodriguez", "andres castano" };
+		for (int i = 0; i < 200; i++) {
+			indice.buscar(consultas[i % consultas.length], 20);
+		}
+		long[] tiempos = new long[1000];
+		for (int i = 0; i < tiempos.length; i++) {
+			long inicio = System.nanoTime();
+			List<Long> resultado = indice.buscar(consultas[i % consultas.length], 20);
+			tiempos[i] = System.nanoTime() - inicio;
+			assertTrue(resultado.size() <= 20);
+		}
+		Arrays.sort(tiempos);
+		double p99 = tiempos[(int) (tiempos.length * 0.99)] / 1_000_000.0;
+		// Holgura para máquinas de integración compartidas; el objetivo de producción es 10 ms
+		assertTrue(p99 < 50, "p99 " + p99 + " ms");
+	}
+
+	private Paciente2Dto crear(String nombres, String apellidos, String documento, String telefono, String email) {
+		Paciente2Dto dto = new Paciente2Dto();
+		dto.setNombres(nombres);
+		dto.setApellidos(apellidos);
+		dto.setTipoDocumento("CC");
+		dto.setDocumento(documento);
+		dto.setFechaNacimiento(LocalDate.of(1985, 5, 5));
+		dto.setGenero("F");
+		dto.setTelefono(telefono);
+		dto.setEmail(email);
+		return pacienteService.crearPaciente(dto);
+	}
+}
@@ -0,0 +1,148 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Service.CatalogoService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class CatalogoServiceImplTests {
+
+	@Autowired
+	private CatalogoService catalogoService;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private TipoCitaServiceImpl tipoCitaService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Long tipoId;
+	private Long odontologoId;
+	private Long pacienteId;
+
+	@BeforeEach
+	void prepararDatos() {
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre("Limpieza");
+		entityManager.persist(tipo);
+
+		Odontologo odontologo = new Odontologo();
+		odontologo.setNombre("Lucia");
+		odontologo.setApellido("Catalogo");
+		odontologo.setMatricula("MAT-CAT");
+		entityManager.persist(odontologo);
+
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres("Paciente");
+		paciente.setApellidos("Catalogo");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("DOC-CAT");
+		paciente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+		paciente.setGenero("F");
+		paciente.setTelefono("3000000000");
+		entityManager.persist(paciente);
+		entityManager.flush();
+		entityManager.clear();
+
+		tipoId = tipo.getId();
+		odontologoId = odontologo.getId();
+		pacienteId = paciente.getId();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void reservarCitasNoReleeTipoNiOdontologo() {
+		// Las estadísticas de la caché son de todo el contexto: se compara contra el valor previo
+		long aciertosPrevios = aciertosTiposCita();
+		for (int i = 0; i < 5; i++) {
+			// Cada reserva llega en su propia petición: contexto de persistencia vacío
+			entityManager.clear();
+			Cita2Dto creada = citaService.crearCita(cita(LocalTime.of(8 + i, 0)));
+			assertEquals("Limpieza", creada.getTipoCita().getNombre());
+			assertEquals("Lucia", creada.getOdontologo().getNombre());
+		}
+
+		assertEquals(1, statistics.getEntityStatistics(TipoCita.class.getName()).getLoadCount());
+		assertEquals(1, statistics.getEntityStatistics(Odontologo.class.getName()).getLoadCount());
+		// Al menos las cuatro reservas que siguen a la primera leen el tipo desde la caché
+		assertTrue(aciertosTiposCita() - aciertosPrevios >= 4);
+	}
+
+	private long aciertosTiposCita() {
+		return catalogoService.estadisticas().stream()
+				.filter(e -> e.getCache().equals(CatalogoService.CACHE_TIPOS_CITA))
+				.findFirst().orElseThrow().getAciertos();
+	}
+
+	@Test
+	void actualizarTipoCitaDesalojaLaCache() {
+		assertEquals("Limpieza", catalogoService.obtenerTipoCita(tipoId).getNombre());
+
+		TipoCitaDto cambio = new TipoCitaDto();
+		cambio.setNombre("Limpieza profunda");
+		tipoCitaService.actualizarTipoCita(tipoId, cambio);
+
+		assertEquals("Limpieza profunda", catalogoService.obtenerTipoCita(tipoId).getNombre());
+	}
+
+	@Test
+	void idsInexistentesNoQuedanEnCache() {
+		assertThrows(RuntimeException.class, () -> catalogoService.obtenerTipoCita(-1L));
+		assertThrows(RuntimeException.class, () -> citaService.crearCita(conTipo(cita(LocalTime.of(8, 0)), -1L)));
+	}
+
+	private Cita2Dto cita(LocalTime hora) {
+		Cita2Dto dto = new Cita2Dto();
+		Paciente2Dto paciente = new Paciente2Dto();
+		paciente.setId(pacienteId);
+		OdontologoDto odontologo = new OdontologoDto();
+		odontologo.setId(odontologoId);
+		dto.setPaciente(paciente);
+		dto.setOdontologo(odontologo);
+		dto.setFecha(LocalDate.of(2031, 3, 3));
+		dto.setHora(hora);
+		dto.setEstado(EstadoCitaEnum.PENDIENTE);
+		return conTipo(dto, tipoId);
+	}
+
+	private Cita2Dto conTipo(Cita2Dto dto, Long id) {
+		TipoCitaDto tipo = new TipoCitaDto();
+		tipo.setId(id);
+		dto.setTipoCita(tipo);
+		return dto;
+	}
+}
@@ -0,0 +1,134 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+
+// Prueba de estrés: muchos hilos reservan a la vez los mismos horarios de dos odontólogos
+// (horas alineadas y desalineadas) y al final no puede quedar ningún par de citas solapadas.
+// En H2 ejercita los locks en memoria de BloqueoAgendaServiceImpl; el bloqueo entre instancias
+// sobre PostgreSQL se prueba en Cita2ServiceImplPostgresTests.
+@SpringBootTest
+class Cita2ServiceImplConcurrenciaTests {
+
+	private static final LocalDate FECHA = LocalDate.of(2030, 3, 4);
+	private static final int HILOS = 24;
+	private static final int INTENTOS_POR_HILO = 60;
+	private static final int MINUTOS_POR_CITA = 30;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	private final List<Long> odontologos = new ArrayList<>();
+	private Long pacienteId;
+	private Long tipoCitaId;
+
+	@BeforeEach
+	void prepararDatos() {
+		for (int i = 0; i < 2; i++) {
+			odontologos.add(datos.odontologo("Concurrencia" + i).getId());
+		}
+		pacienteId = datos.paciente("Paciente", "Concurrencia").getId();
+		tipoCitaId = datos.tipoCita("Control").getId();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void reservasSimultaneasNoGeneranCitasSolapadas() throws Exception {
+		// De 8:00 a 10:45 cada 15 minutos: la mitad de los intentos choca con un vecino
+		List<LocalTime> horas = new ArrayList<>();
+		for (LocalTime h = LocalTime.of(8, 0); h.isBefore(LocalTime.of(11, 0)); h = h.plusMinutes(15)) {
+			horas.add(h);
+		}
+
+		AtomicInteger reservadas = new AtomicInteger();
+		AtomicInteger rechazadas = new AtomicInteger();
+		ConcurrentLinkedQueue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+
+		for (int h = 0; h < HILOS; h++) {
+			int hilo = h;
+			executor.submit(() -> {
+				salida.await();
+				for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+					Long odontologoId = odontologos.get((hilo + i) % odontologos.size());
+					LocalTime hora = horas.get((hilo * 7 + i) % horas.size());
+					try {
+						citaService.crearCita(nuevaCita(odontologoId, hora));
+						reservadas.incrementAndGet();
+					} catch (RuntimeException e) {
+						if (e.getMessage() != null && e.getMessage().startsWith("El odontólogo ya tiene una cita")) {
+							rechazadas.incrementAndGet();
+						} else {
+							inesperados.add(e);
+						}
+					}
+				}
+				return null;
+			});
+		}
+
+		salida.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+		assertTrue(inesperados.isEmpty(), () -> "Errores inesperados: " + inesperados);
+		assertEquals(HILOS * INTENTOS_POR_HILO, reservadas.get() + rechazadas.get());
+
+		List<Cita2> citas = citaRepository.findAll();
+		assertEquals(reservadas.get(), citas.size());
+		Map<Long, List<LocalTime>> porOdontologo = citas.stream()
+				.filter(c -> c.getEstado() != EstadoCitaEnum.CANCELADA)
+				.collect(Collectors.groupingBy(c -> c.getOdontologo().getId(),
+						Collectors.mapping(Cita2::getHora, Collectors.toList())));
+		porOdontologo.forEach((odontologoId, reservasOdontologo) -> {
+			List<LocalTime> ordenadas = reservasOdontologo.stream().sorted().collect(Collectors.toList());
+			for (int i = 1; i < ordenadas.size(); i++) {
+				long separacion = Duration.between(ordenadas.get(i - 1), ordenadas.get(i)).toMinutes();
+				assertTrue(separacion >= MINUTOS_POR_CITA,
+						"Citas solapadas del odontólogo " + odontologoId + ": " + ordenadas.get(i - 1) + " y " + ordenadas.get(i));
+			}
+		});
+		// Cada odontólogo tiene al menos la mitad de los espacios de media hora ocupados
+		porOdontologo.values().forEach(r -> assertTrue(r.size() >= horas.size() / 4));
+	}
+
+	private Cita2Dto nuevaCita(Long odontologoId, LocalTime hora) {
+		return DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoCitaId, FECHA, hora);
+	}
+}
@@ -0,0 +1,283 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.odontologia.odontologia.OdontologiaApplication;
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.TipoCitaRepository;
+import com.odontologia.odontologia.Service.BloqueoAgendaService;
+import com.odontologia.odontologia.Service.Cita2Service;
+
+// Reservas contra PostgreSQL desde dos contextos de la aplicación, cada uno con su propio pool
+// de conexiones, como dos instancias detrás de un balanceador. Ejercita lo que en H2 no existe:
+// pg_advisory_xact_lock de BloqueoAgendaServiceImpl y la restricción de exclusión de
+// schema-postgresql.sql. Necesita Docker; sin él se omite.
+@Testcontainers(disabledWithoutDocker = true)
+class Cita2ServiceImplPostgresTests {
+
+	private static final LocalDate FECHA = LocalDate.of(2030, 3, 4);
+	private static final int HILOS = 16;
+	private static final int INTENTOS_POR_HILO = 40;
+	private static final int MINUTOS_POR_CITA = 30;
+
+	@Container
+	private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static ConfigurableApplicationContext primera;
+	private static ConfigurableApplicationContext segunda;
+
+	private Long odontologoId;
+	private Long pacienteId;
+	private Long tipoCitaId;
+
+	@BeforeAll
+	static void arrancarInstancias() {
+		// Una después de otra: la segunda encuentra el esquema ya creado, como al escalar
+		primera = instancia();
+		segunda = instancia();
+	}
+
+	@AfterAll
+	static void detenerInstancias() {
+		if (segunda != null) {
+			segunda.close();
+		}
+		if (primera != null) {
+			primera.close();
+		}
+	}
+
+	@BeforeEach
+	void prepararDatos() {
+		Odontologo odontologo = new Odontologo();
+		odontologo.setNombre("Odontologo");
+		odontologo.setApellido("Postgres");
+		odontologo.setMatricula("MAT-PG-" + System.nanoTime());
+		odontologoId = primera.getBean(OdontologoRepository.class).save(odontologo).getId();
+
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres("Paciente");
+		paciente.setApellidos("Postgres");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("DOC-PG-" + System.nanoTime());
+		paciente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+		paciente.setGenero("F");
+		paciente.setTelefono("3000000000");
+		pacienteId = primera.getBean(Paciente2Repository.class).save(paciente).getId();
+
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre("Control");
+		tipoCitaId = primera.getBean(TipoCitaRepository.class).save(tipo).getId();
+	}
+
+	@Test
+	void reservasSimultaneasEnDosInstanciasNoGeneranCitasSolapadas() throws Exception {
+		// De 8:00 a 10:45 cada 15 minutos: la mitad de los intentos choca con un vecino
+		List<LocalTime> horas = new ArrayList<>();
+		for (LocalTime h = LocalTime.of(8, 0); h.isBefore(LocalTime.of(11, 0)); h = h.plusMinutes(15)) {
+			horas.add(h);
+		}
+		Cita2Service[] instancias = { primera.getBean(Cita2Service.class), segunda.getBean(Cita2Service.class) };
+
+		AtomicInteger reservadas = new AtomicInteger();
+		AtomicInteger rechazadas = new AtomicInteger();
+		ConcurrentLinkedQueue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		for (int h = 0; h < HILOS; h++) {
+			int hilo = h;
+			executor.submit(() -> {
+				salida.await();
+				for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+					LocalTime hora = horas.get((hilo * 7 + i) % horas.size());
+					try {
+						instancias[(hilo + i) % 2].crearCita(nuevaCita(FECHA, hora));
+						reservadas.incrementAndGet();
+					} catch (RuntimeException e) {
+						if (e.getMessage() != null && e.getMessage().startsWith("El odontólogo ya tiene una cita")) {
+							rechazadas.incrementAndGet();
+						} else {
+							inesperados.add(e);
+						}
+					}
+				}
+				return null;
+			});
+		}
+		salida.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+		assertTrue(inesperados.isEmpty(), () -> "Errores inesperados: " + inesperados);
+		assertEquals(HILOS * INTENTOS_POR_HILO, reservadas.get() + rechazadas.get());
+
+		List<LocalTime> reservas = jdbc().queryForList(
+				"SELECT hora FROM citas WHERE odontologo_id = ? AND estado <> 'CANCELADA' ORDER BY hora",
+				LocalTime.class, odontologoId);
+		assertEquals(reservadas.get(), reservas.size());
+		for (int i = 1; i < reservas.size(); i++) {
+			assertTrue(reservas.get(i - 1).plusMinutes(MINUTOS_POR_CITA).compareTo(reservas.get(i)) <= 0,
+					"Citas solapadas: " + reservas.get(i - 1) + " y " + reservas.get(i));
+		}
+		assertTrue(reservas.size() >= horas.size() / 4);
+	}
+
+	@Test
+	void laRestriccionDeLaBaseRechazaCitasSolapadasAunqueNoEmpiecenALaMismaHora() {
+		insertar(LocalTime.of(10, 0), EstadoCitaEnum.PENDIENTE);
+
+		assertThrows(DataIntegrityViolationException.class, () -> insertar(LocalTime.of(10, 15), EstadoCitaEnum.CONFIRMADA));
+		assertThrows(DataIntegrityViolationException.class, () -> insertar(LocalTime.of(9, 45), EstadoCitaEnum.PENDIENTE));
+		// Las canceladas no ocupan la agenda y las contiguas no se solapan
+		insertar(LocalTime.of(10, 15), EstadoCitaEnum.CANCELADA);
+		insertar(LocalTime.of(10, 30), EstadoCitaEnum.PENDIENTE);
+		insertar(LocalTime.of(9, 30), EstadoCitaEnum.PENDIENTE);
+	}
+
+	@Test
+	void laRestriccionUsaLaDuracionConQueSeReservoCadaCita() {
+		// Reservada con espacios de 20 minutos: a las 11:20 ya está libre
+		insertar(LocalTime.of(11, 0), EstadoCitaEnum.PENDIENTE, 20);
+		insertar(LocalTime.of(11, 20), EstadoCitaEnum.PENDIENTE, 20);
+		assertThrows(DataIntegrityViolationException.class, () -> insertar(LocalTime.of(11, 30), EstadoCitaEnum.PENDIENTE, 20));
+		// Una de 45 minutos ocupa hasta las 12:25 aunque la siguiente empiece a más de 20 minutos
+		insertar(LocalTime.of(11, 40), EstadoCitaEnum.PENDIENTE, 45);
+		assertThrows(DataIntegrityViolationException.class, () -> insertar(LocalTime.of(12, 10), EstadoCitaEnum.PENDIENTE, 20));
+	}
+
+	@Test
+	void soloLaViolacionDeLaRestriccionDeHorarioSeInformaComoChoque() {
+		// El servicio compara horas dentro del mismo día; la base además ve que 23:45 se solapa con las 00:00 del día siguiente
+		primera.getBean(Cita2Service.class).crearCita(nuevaCita(FECHA, LocalTime.of(23, 45)));
+		RuntimeException choque = assertThrows(RuntimeException.class,
+				() -> segunda.getBean(Cita2Service.class).crearCita(nuevaCita(FECHA.plusDays(1), LocalTime.MIDNIGHT)));
+		assertFalse(choque instanceof DataIntegrityViolationException);
+		assertTrue(choque.getMessage().startsWith("El odontólogo ya tiene una cita"));
+
+		// Una columna obligatoria vacía sigue siendo un error de integridad, no un choque
+		Cita2Dto sinEstado = nuevaCita(FECHA.plusDays(2), LocalTime.of(9, 0));
+		sinEstado.setEstado(null);
+		assertThrows(DataIntegrityViolationException.class, () -> segunda.getBean(Cita2Service.class).crearCita(sinEstado));
+	}
+
+	// Una serie diaria de dos años: las 730 agendas quedan tomadas con una sola sentencia y se
+	// liberan con el commit
+	@Test
+	void variasAgendasSeBloqueanJuntasHastaElFinDeLaTransaccion() {
+		List<BloqueoAgendaService.Clave> claves = new ArrayList<>();
+		for (int dia = 0; dia < 730; dia++) {
+			claves.add(new BloqueoAgendaService.Clave(odontologoId, FECHA.plusDays(dia)));
+		}
+		claves.add(claves.get(0));
+		String tomados = "SELECT count(*) FROM pg_locks WHERE locktype = 'advisory' AND pid = pg_backend_pid()";
+
+		int dentro = new TransactionTemplate(primera.getBean(PlatformTransactionManager.class)).execute(estado -> {
+			primera.getBean(BloqueoAgendaService.class).bloquear(claves);
+			return jdbc().queryForObject(tomados, Integer.class);
+		});
+		assertEquals(730, dentro);
+		assertEquals(0, jdbc().queryForObject(tomados, Integer.class));
+	}
+
+	// Un lote repartido en 400 agendas distintas bloquea todas juntas y valida contra la base real
+	@Test
+	void unLoteEnMuchasAgendasSeCreaContraPostgres() {
+		List<Cita2Dto> lote = new ArrayList<>();
+		for (int dia = 0; dia < 400; dia++) {
+			lote.add(nuevaCita(FECHA.plusDays(100 + dia), LocalTime.of(8, 0)));
+			lote.add(nuevaCita(FECHA.plusDays(100 + dia), LocalTime.of(8, 30)));
+		}
+		lote.add(nuevaCita(FECHA.plusDays(100), LocalTime.of(8, 15)));
+
+		ResultadoLoteDto resultado = segunda.getBean(Cita2Service.class).crearCitasEnLote(lote);
+
+		assertEquals(800, resultado.getCreadas());
+		assertEquals(1, resultado.getRechazadas());
+		assertTrue(resultado.getResultados().get(800).getError().startsWith("El odontólogo ya tiene una cita"));
+	}
+
+	private void insertar(LocalTime hora, EstadoCitaEnum estado) {
+		insertar(hora, estado, MINUTOS_POR_CITA);
+	}
+
+	private void insertar(LocalTime hora, EstadoCitaEnum estado, int minutos) {
+		jdbc().update("INSERT INTO citas (id, fecha, hora, minutos, estado, paciente_id, odontologo_id, tipo_cita_id) "
+				+ "VALUES (nextval('citas_seq'), ?, ?, ?, ?, ?, ?, ?)",
+				FECHA, hora, minutos, estado.name(), pacienteId, odontologoId, tipoCitaId);
+	}
+
+	private static JdbcTemplate jdbc() {
+		return primera.getBean(JdbcTemplate.class);
+	}
+
+	private static ConfigurableApplicationContext instancia() {
+		// Como argumentos de línea de comandos: tienen prioridad sobre el application.properties de pruebas (H2)
+		return new SpringApplicationBuilder(OdontologiaApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+						"--spring.datasource.username=" + POSTGRES.getUsername(),
+						"--spring.datasource.password=" + POSTGRES.getPassword(),
+						"--spring.datasource.driver-class-name=org.postgresql.Driver",
+						"--spring.jpa.hibernate.ddl-auto=update",
+						"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+						"--spring.sql.init.mode=always",
+						"--spring.sql.init.platform=postgresql",
+						"--spring.jpa.defer-datasource-initialization=true");
+	}
+
+	private Cita2Dto nuevaCita(LocalDate fecha, LocalTime hora) {
+		Cita2Dto dto = new Cita2Dto();
+		dto.setFecha(fecha);
+		dto.setHora(hora);
+		dto.setEstado(EstadoCitaEnum.PENDIENTE);
+		Paciente2Dto paciente = new Paciente2Dto();
+		paciente.setId(pacienteId);
+		dto.setPaciente(paciente);
+		OdontologoDto odontologo = new OdontologoDto();
+		odontologo.setId(odontologoId);
+		dto.setOdontologo(odontologo);
+		TipoCitaDto tipo = new TipoCitaDto();
+		tipo.setId(tipoCitaId);
+		dto.setTipoCita(tipo);
+		return dto;
+	}
+}
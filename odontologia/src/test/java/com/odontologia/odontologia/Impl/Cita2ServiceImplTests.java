@@ -0,0 +1,430 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.CambioEstadoDto;
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.EstadoCitaDto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.ResultadoLoteDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class Cita2ServiceImplTests {
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Long primeraCitaId;
+
+	@BeforeEach
+	void prepararDatos() {
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre("Control");
+		entityManager.persist(tipo);
+
+		for (int i = 0; i < 3; i++) {
+			Odontologo odontologo = new Odontologo();
+			odontologo.setNombre("Odontologo" + i);
+			odontologo.setApellido("Prueba");
+			odontologo.setMatricula("MAT-" + i);
+			entityManager.persist(odontologo);
+
+			for (int j = 0; j < 4; j++) {
+				Paciente2 paciente = new Paciente2();
+				paciente.setNombres("Paciente" + i + j);
+				paciente.setApellidos("Prueba");
+				paciente.setTipoDocumento("CC");
+				paciente.setDocumento("DOC-" + i + j);
+				paciente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+				paciente.setGenero("F");
+				paciente.setTelefono("300000000" + j);
+				entityManager.persist(paciente);
+
+				Cita2 cita = new Cita2();
+				cita.setPaciente(paciente);
+				cita.setOdontologo(odontologo);
+				cita.setTipoCita(tipo);
+				cita.setFecha(LocalDate.of(2030, 1, 10));
+				cita.setHora(LocalTime.of(8 + j, 0));
+				cita.setEstado(EstadoCitaEnum.PENDIENTE);
+				entityManager.persist(cita);
+				if (primeraCitaId == null) {
+					primeraCitaId = cita.getId();
+				}
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void listarCitasUsaUnaSolaConsulta() {
+		List<Cita2Dto> citas = citaService.listarCitas();
+
+		assertEquals(12, citas.size());
+		citas.forEach(c -> {
+			c.getPaciente().getNombres();
+			c.getOdontologo().getNombre();
+			c.getTipoCita().getNombre();
+		});
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void listarCitasConFiltrosUsaUnaSolaConsulta() {
+		List<Cita2Dto> citas = citaService.listarCitas(LocalDate.of(2030, 1, 10), LocalDate.of(2030, 1, 10), null, null, null);
+
+		assertEquals(12, citas.size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void obtenerCitaPorIdUsaUnaSolaConsulta() {
+		Cita2Dto cita = citaService.obtenerCitaPorId(primeraCitaId);
+
+		assertEquals("Control", cita.getTipoCita().getNombre());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void listarCitasPaginadoRecorreTodasLasPaginasPorCursor() {
+		PaginaDto<Cita2Dto> primera = citaService.listarCitasPaginado(null, null, null, null, null, null, 5);
+		PaginaDto<Cita2Dto> segunda = citaService.listarCitasPaginado(null, null, null, null, null, primera.getSiguienteCursor(), 5);
+		PaginaDto<Cita2Dto> tercera = citaService.listarCitasPaginado(null, null, null, null, null, segunda.getSiguienteCursor(), 5);
+
+		assertEquals(5, primera.getItems().size());
+		assertEquals(5, segunda.getItems().size());
+		assertEquals(2, tercera.getItems().size());
+		assertNull(tercera.getSiguienteCursor());
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void cambiarEstadoEsUnUpdateCondicionado() {
+		EstadoCitaDto resultado = citaService.cambiarEstado(primeraCitaId,
+				new CambioEstadoDto(null, EstadoCitaEnum.CONFIRMADA, EstadoCitaEnum.PENDIENTE));
+
+		assertEquals(EstadoCitaEnum.CONFIRMADA, resultado.getEstado());
+		// UPDATE ... WHERE estado = PENDIENTE y la lectura de la posición para el evento
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(EstadoCitaEnum.CONFIRMADA, entityManager.find(Cita2.class, primeraCitaId).getEstado());
+
+		// Ya no está PENDIENTE: el mismo cambio condicionado no se aplica dos veces
+		assertThrows(RuntimeException.class, () -> citaService.cambiarEstado(primeraCitaId,
+				new CambioEstadoDto(null, EstadoCitaEnum.CONFIRMADA, EstadoCitaEnum.PENDIENTE)));
+	}
+
+	@Test
+	void cambiarEstadoRespetaLasTransicionesPermitidas() {
+		citaService.cambiarEstado(primeraCitaId, new CambioEstadoDto(null, EstadoCitaEnum.CANCELADA, null));
+
+		assertThrows(RuntimeException.class, () -> citaService.cambiarEstado(primeraCitaId,
+				new CambioEstadoDto(null, EstadoCitaEnum.CONFIRMADA, null)));
+	}
+
+	@Test
+	void actualizarCitaRespetaLasTransicionesPermitidas() {
+		citaService.cambiarEstado(primeraCitaId, new CambioEstadoDto(null, EstadoCitaEnum.COMPLETADA, null));
+		Cita2Dto dto = citaService.obtenerCitaPorId(primeraCitaId);
+
+		dto.setEstado(EstadoCitaEnum.PENDIENTE);
+		assertThrows(RuntimeException.class, () -> citaService.actualizarCita(primeraCitaId, dto));
+
+		// Sin estado se conserva el actual
+		dto.setEstado(null);
+		dto.setObservaciones("Revisión");
+		assertEquals(EstadoCitaEnum.COMPLETADA, citaService.actualizarCita(primeraCitaId, dto).getEstado());
+	}
+
+	@Test
+	void cambiarEstadosConfirmaVariasCitasEnUnaSolaRonda() {
+		List<Long> ids = new ArrayList<>(entityManager.createQuery("SELECT c.id FROM Cita2 c", Long.class).getResultList());
+		ids.add(-1L);
+		statistics.clear();
+
+		List<EstadoCitaDto> resultados = citaService.cambiarEstados(new CambioEstadoDto(ids, EstadoCitaEnum.CONFIRMADA, null));
+
+		assertEquals(13, resultados.size());
+		assertEquals(12, resultados.stream().filter(r -> r.getError() == null).count());
+		assertEquals("Cita no encontrada con ID: -1", resultados.get(12).getError());
+		// Una lectura de estados y un UPDATE para todas las citas PENDIENTE
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(12L, entityManager.createQuery(
+				"SELECT COUNT(c) FROM Cita2 c WHERE c.estado = com.odontologia.odontologia.Entity.EstadoCitaEnum.CONFIRMADA", Long.class)
+				.getSingleResult());
+	}
+
+	@Test
+	void crearCitasEnLoteValidaConPocasConsultasEInsertaEnLotes() {
+		List<Long> odontologos = entityManager.createQuery("SELECT o.id FROM Odontologo o ORDER BY o.id", Long.class).getResultList();
+		Long pacienteId = entityManager.createQuery("SELECT MIN(p.id) FROM Paciente2 p", Long.class).getSingleResult();
+		Long tipoId = entityManager.createQuery("SELECT t.id FROM TipoCita t", Long.class).getSingleResult();
+		statistics.clear();
+
+		// 120 citas válidas: 3 odontólogos x 5 días x 8 horas
+		List<Cita2Dto> lote = new ArrayList<>();
+		for (Long odontologoId : odontologos) {
+			for (int dia = 0; dia < 5; dia++) {
+				for (int h = 0; h < 8; h++) {
+					lote.add(DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, LocalDate.of(2030, 2, 4).plusDays(dia), LocalTime.of(8 + h, 0)));
+				}
+			}
+		}
+		// Choca con otra entrada del mismo lote
+		lote.add(DatosPrueba.nuevaCita(pacienteId, odontologos.get(0), tipoId, LocalDate.of(2030, 2, 4), LocalTime.of(8, 15)));
+		// Choca con una cita ya guardada
+		lote.add(DatosPrueba.nuevaCita(pacienteId, odontologos.get(1), tipoId, LocalDate.of(2030, 1, 10), LocalTime.of(9, 0)));
+		// Paciente inexistente
+		lote.add(DatosPrueba.nuevaCita(-1L, odontologos.get(2), tipoId, LocalDate.of(2030, 2, 4), LocalTime.of(18, 0)));
+
+		ResultadoLoteDto resultado = citaService.crearCitasEnLote(lote);
+
+		assertEquals(120, resultado.getCreadas());
+		assertEquals(3, resultado.getRechazadas());
+		resultado.getResultados().subList(0, 120).forEach(r -> assertNotNull(r.getId()));
+		assertTrue(resultado.getResultados().get(120).getError().startsWith("El odontólogo ya tiene una cita"));
+		assertTrue(resultado.getResultados().get(121).getError().startsWith("El odontólogo ya tiene una cita"));
+		assertEquals("Paciente no encontrado con ID: -1", resultado.getResultados().get(122).getError());
+
+		// 3 comprobaciones de ids + 1 de horarios ocupados + 3 de la secuencia + 3 lotes de INSERT
+		assertEquals(120, statistics.getEntityInsertCount());
+		assertTrue(statistics.getPrepareStatementCount() <= 10,
+				"Se esperaban a lo sumo 10 sentencias y hubo " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void otrosErroresDeIntegridadNoSeInformanComoChoqueDeHorario() {
+		Cita2 existente = entityManager.find(Cita2.class, primeraCitaId);
+		Cita2Dto dto = DatosPrueba.nuevaCita(existente.getPaciente().getId(), existente.getOdontologo().getId(),
+				existente.getTipoCita().getId(), LocalDate.of(2031, 5, 5), LocalTime.of(9, 0));
+		dto.setEstado(null);
+
+		DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class, () -> citaService.crearCita(dto));
+		assertFalse(e.getMessage().contains("ya tiene una cita"));
+	}
+
+	// Citas reservadas con otra duración de espacio: cada una ocupa la suya, como en la
+	// restricción de PostgreSQL, y no la vigente (30 minutos en las pruebas)
+	@Test
+	void losChoquesUsanLaDuracionGuardadaEnCadaCita() {
+		Cita2 existente = entityManager.find(Cita2.class, primeraCitaId);
+		LocalDate fecha = LocalDate.of(2031, 6, 2);
+		for (Object[] reservada : new Object[][] { { LocalTime.of(10, 0), 45 }, { LocalTime.of(12, 0), 15 } }) {
+			Cita2 cita = new Cita2();
+			cita.setPaciente(existente.getPaciente());
+			cita.setOdontologo(existente.getOdontologo());
+			cita.setTipoCita(existente.getTipoCita());
+			cita.setFecha(fecha);
+			cita.setHora((LocalTime) reservada[0]);
+			cita.setMinutos((Integer) reservada[1]);
+			cita.setEstado(EstadoCitaEnum.PENDIENTE);
+			entityManager.persist(cita);
+		}
+		entityManager.flush();
+		Long pacienteId = existente.getPaciente().getId();
+		Long odontologoId = existente.getOdontologo().getId();
+		Long tipoId = existente.getTipoCita().getId();
+
+		// La de 45 minutos sigue ocupando las 10:30
+		Cita2Dto solapada = DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, fecha, LocalTime.of(10, 30));
+		RuntimeException choque = assertThrows(RuntimeException.class, () -> citaService.crearCita(solapada));
+		assertTrue(choque.getMessage().startsWith("El odontólogo ya tiene una cita"));
+		// La de 15 minutos deja libres las 12:15, y una nueva de 30 a las 11:30 termina justo a las 12:00
+		for (LocalTime hora : List.of(LocalTime.of(12, 15), LocalTime.of(11, 30))) {
+			Cita2Dto libre = DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, fecha, hora);
+			assertNotNull(citaService.crearCita(libre).getId());
+		}
+
+		// En lote vale lo mismo
+		ResultadoLoteDto lote = citaService.crearCitasEnLote(List.of(
+				DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, fecha, LocalTime.of(10, 40)),
+				DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, fecha, LocalTime.of(10, 45))));
+		assertTrue(lote.getResultados().get(0).getError().startsWith("El odontólogo ya tiene una cita"));
+		assertNotNull(lote.getResultados().get(1).getId());
+	}
+
+	// Listado de 2.000 citas cuyos pacientes y odontólogos tienen varios KB de texto libre. Se
+	// compara contra la misma consulta trayendo además las columnas TEXT, como antes de hacerlas
+	// perezosas. En H2 en memoria las columnas no viajan por la red, así que no se mide el tiempo
+	// (ver Rendimiento): se verifica el tamaño de fila evitado y que el listado siga en una consulta.
+	@Test
+	void listarCitasNoTraeLosCamposTextoDeLasAsociaciones() {
+		LocalDate fecha = crearCitasConTexto();
+
+		List<Cita2> citas = citasSinTexto(fecha);
+		assertEquals(2000, citas.size());
+		assertFalse(Hibernate.isPropertyInitialized(citas.get(0).getPaciente(), "alergias"));
+		assertFalse(Hibernate.isPropertyInitialized(citas.get(0).getOdontologo(), "especialidades"));
+		entityManager.clear();
+
+		List<Object[]> filas = citasConTexto(fecha);
+		long bytesEvitados = 0;
+		for (Object[] fila : filas) {
+			for (int columna = 1; columna < fila.length; columna++) {
+				bytesEvitados += fila[columna] != null ? ((String) fila[columna]).length() : 0;
+			}
+		}
+		entityManager.clear();
+		assertTrue(bytesEvitados / 2000 > 5000);
+
+		statistics.clear();
+		List<Cita2Dto> listado = citaService.listarCitas(fecha, fecha, null, null, null);
+		assertEquals(2000, listado.size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		// Armar los DTO tampoco los lee: las entidades del listado siguen en el contexto sin ellos
+		Cita2 listada = entityManager.find(Cita2.class, listado.get(0).getId());
+		assertFalse(Hibernate.isPropertyInitialized(listada.getPaciente(), "alergias"));
+		assertFalse(Hibernate.isPropertyInitialized(listada.getOdontologo(), "especialidades"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	// Tiempos de las dos consultas del listado, fuera de la ejecución normal (ver excludedGroups en el pom)
+	@Nested
+	@Tag("benchmark")
+	class Rendimiento {
+
+		private static final Logger LOG = LoggerFactory.getLogger(Rendimiento.class);
+		private static final int VUELTAS = 7;
+
+		@Test
+		void tiempoDelListadoConYSinCamposTexto() {
+			LocalDate fecha = crearCitasConTexto();
+
+			long[] perezoso = new long[VUELTAS];
+			long[] completo = new long[VUELTAS];
+			for (int vuelta = 0; vuelta < VUELTAS; vuelta++) {
+				long inicio = System.nanoTime();
+				assertEquals(2000, citasSinTexto(fecha).size());
+				perezoso[vuelta] = System.nanoTime() - inicio;
+				entityManager.clear();
+
+				inicio = System.nanoTime();
+				assertEquals(2000, citasConTexto(fecha).size());
+				completo[vuelta] = System.nanoTime() - inicio;
+				entityManager.clear();
+			}
+			LOG.info("Listado de 2000 citas, mediana de {} vueltas: {} ms sin las columnas TEXT, {} ms con ellas",
+					VUELTAS, mediana(perezoso) / 1_000_000.0, mediana(completo) / 1_000_000.0);
+		}
+
+		private long mediana(long[] tiempos) {
+			long[] ordenados = tiempos.clone();
+			Arrays.sort(ordenados);
+			return ordenados[ordenados.length / 2];
+		}
+	}
+
+	// 2.000 citas de un mismo día con pacientes y odontólogos cargados de texto libre
+	private LocalDate crearCitasConTexto() {
+		TipoCita tipo = entityManager.find(TipoCita.class, entityManager.find(Cita2.class, primeraCitaId).getTipoCita().getId());
+		LocalDate fecha = LocalDate.of(2032, 3, 3);
+		Odontologo[] odontologos = new Odontologo[20];
+		for (int i = 0; i < odontologos.length; i++) {
+			odontologos[i] = new Odontologo();
+			odontologos[i].setNombre("Bench" + i);
+			odontologos[i].setApellido("Texto");
+			odontologos[i].setMatricula("MAT-BENCH-" + i);
+			odontologos[i].setEspecialidades("Ortodoncia ".repeat(200));
+			odontologos[i].setDiasTrabajo("Lunes,Martes,Miércoles,Jueves,Viernes");
+			odontologos[i].setObservaciones("Notas internas ".repeat(200));
+			entityManager.persist(odontologos[i]);
+		}
+		for (int i = 0; i < 2000; i++) {
+			Paciente2 paciente = new Paciente2();
+			paciente.setNombres("Bench" + i);
+			paciente.setApellidos("Texto");
+			paciente.setTipoDocumento("CC");
+			paciente.setDocumento("BENCH-" + i);
+			paciente.setFechaNacimiento(LocalDate.of(1980, 1, 1));
+			paciente.setGenero("M");
+			paciente.setTelefono("3000000000");
+			paciente.setAlergias("Penicilina ".repeat(200));
+			paciente.setMedicamentos("Ibuprofeno 400 mg ".repeat(100));
+			paciente.setObservaciones("Observación clínica ".repeat(100));
+			entityManager.persist(paciente);
+			Cita2 cita = new Cita2();
+			cita.setPaciente(paciente);
+			cita.setOdontologo(odontologos[i % odontologos.length]);
+			cita.setTipoCita(tipo);
+			cita.setFecha(fecha);
+			cita.setHora(LocalTime.of(6 + i / 120, 0).plusMinutes(i % 120 / odontologos.length * 10));
+			cita.setEstado(EstadoCitaEnum.PENDIENTE);
+			entityManager.persist(cita);
+			if (i % 500 == 499) {
+				entityManager.flush();
+				entityManager.clear();
+				tipo = entityManager.find(TipoCita.class, tipo.getId());
+				for (int o = 0; o < odontologos.length; o++) {
+					odontologos[o] = entityManager.find(Odontologo.class, odontologos[o].getId());
+				}
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		return fecha;
+	}
+
+	private List<Cita2> citasSinTexto(LocalDate fecha) {
+		return entityManager.createQuery("SELECT c FROM Cita2 c JOIN FETCH c.paciente p "
+				+ "LEFT JOIN FETCH p.historiaClinica JOIN FETCH c.odontologo o JOIN FETCH c.tipoCita "
+				+ "WHERE c.fecha = :fecha", Cita2.class)
+				.setParameter("fecha", fecha)
+				.getResultList();
+	}
+
+	// La misma consulta pidiendo también las columnas TEXT, como antes de hacerlas perezosas
+	private List<Object[]> citasConTexto(LocalDate fecha) {
+		return entityManager.createQuery("SELECT c, p.alergias, p.medicamentos, p.observaciones, "
+				+ "o.especialidades, o.diasTrabajo, o.observaciones FROM Cita2 c JOIN FETCH c.paciente p "
+				+ "LEFT JOIN FETCH p.historiaClinica JOIN FETCH c.odontologo o JOIN FETCH c.tipoCita "
+				+ "WHERE c.fecha = :fecha", Object[].class)
+				.setParameter("fecha", fecha)
+				.getResultList();
+	}
+}
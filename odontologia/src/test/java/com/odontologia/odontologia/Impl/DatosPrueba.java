@@ -0,0 +1,132 @@
+package com.odontologia.odontologia.Impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+import com.odontologia.odontologia.Repository.RecordatorioCitaRepository;
+import com.odontologia.odontologia.Repository.TipoCitaRepository;
+
+// Datos guardados y confirmados para las pruebas que no corren en una transacción (hilos,
+// eventos después del commit, respuestas asíncronas): odontólogos, pacientes, tipos de cita y
+// citas con valores por defecto válidos, y la limpieza de esas tablas al terminar cada prueba.
+// Matrículas y documentos llevan un contador para no chocar entre pruebas del mismo contexto.
+@Component
+class DatosPrueba {
+
+	private static final AtomicInteger CONTADOR = new AtomicInteger();
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private RecordatorioCitaRepository recordatorioRepository;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaRepository;
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	@Autowired
+	private TipoCitaRepository tipoCitaRepository;
+
+	Odontologo odontologo(String apellido) {
+		return odontologo(apellido, o -> {
+		});
+	}
+
+	Odontologo odontologo(String apellido, Consumer<Odontologo> ajustes) {
+		Odontologo odontologo = new Odontologo();
+		odontologo.setNombre("Odontologo");
+		odontologo.setApellido(apellido);
+		odontologo.setMatricula("MAT-P" + CONTADOR.incrementAndGet());
+		ajustes.accept(odontologo);
+		return odontologoRepository.save(odontologo);
+	}
+
+	Paciente2 paciente(String nombres, String apellidos) {
+		return paciente(nombres, apellidos, p -> {
+		});
+	}
+
+	Paciente2 paciente(String nombres, String apellidos, Consumer<Paciente2> ajustes) {
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres(nombres);
+		paciente.setApellidos(apellidos);
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("DOC-P" + CONTADOR.incrementAndGet());
+		paciente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+		paciente.setGenero("F");
+		paciente.setTelefono("3000000000");
+		ajustes.accept(paciente);
+		return pacienteRepository.save(paciente);
+	}
+
+	TipoCita tipoCita(String nombre) {
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre(nombre);
+		return tipoCitaRepository.save(tipo);
+	}
+
+	// Guardada con el repositorio: sin validaciones ni eventos, como si viniera de otra instancia
+	Cita2 cita(Long pacienteId, Long odontologoId, Long tipoCitaId, LocalDate fecha, LocalTime hora, EstadoCitaEnum estado) {
+		Cita2 cita = new Cita2();
+		cita.setPaciente(pacienteRepository.getReferenceById(pacienteId));
+		cita.setOdontologo(odontologoRepository.getReferenceById(odontologoId));
+		cita.setTipoCita(tipoCitaRepository.getReferenceById(tipoCitaId));
+		cita.setFecha(fecha);
+		cita.setHora(hora);
+		cita.setMinutos(30);
+		cita.setEstado(estado);
+		return citaRepository.save(cita);
+	}
+
+	// Pedido de cita PENDIENTE para pasar por Cita2Service
+	static Cita2Dto nuevaCita(Long pacienteId, Long odontologoId, Long tipoCitaId, LocalDate fecha, LocalTime hora) {
+		Cita2Dto dto = new Cita2Dto();
+		dto.setFecha(fecha);
+		dto.setHora(hora);
+		dto.setEstado(EstadoCitaEnum.PENDIENTE);
+		Paciente2Dto paciente = new Paciente2Dto();
+		paciente.setId(pacienteId);
+		dto.setPaciente(paciente);
+		OdontologoDto odontologo = new OdontologoDto();
+		odontologo.setId(odontologoId);
+		dto.setOdontologo(odontologo);
+		TipoCitaDto tipo = new TipoCitaDto();
+		tipo.setId(tipoCitaId);
+		dto.setTipoCita(tipo);
+		return dto;
+	}
+
+	// De las tablas hijas a las padres
+	void limpiar() {
+		recordatorioRepository.deleteAllInBatch();
+		citaRepository.deleteAllInBatch();
+		historiaRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+		odontologoRepository.deleteAllInBatch();
+		tipoCitaRepository.deleteAllInBatch();
+	}
+}
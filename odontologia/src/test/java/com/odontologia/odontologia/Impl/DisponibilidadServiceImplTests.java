@@ -0,0 +1,165 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.DisponibilidadDto;
+import com.odontologia.odontologia.Dto.EspacioLibreDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Repository.Cita2Repository;
+
+@SpringBootTest
+class DisponibilidadServiceImplTests {
+
+	// Lunes
+	private static final LocalDate FECHA = LocalDate.of(2030, 1, 7);
+
+	@Autowired
+	private DisponibilidadServiceImpl disponibilidadService;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private Paciente2ServiceImpl pacienteService;
+
+	@Autowired
+	private Cita2Repository citaRepository;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	private Long odontologoId;
+	private Long pacienteId;
+	private Long tipoCitaId;
+
+	@BeforeEach
+	void prepararDatos() {
+		odontologoId = datos.odontologo("Torres", o -> {
+			o.setDiasTrabajo("Lunes, Miércoles");
+			o.setHoraInicio("08:00");
+			o.setHoraFin("10:00");
+		}).getId();
+		pacienteId = datos.paciente("Luis", "Gómez").getId();
+		tipoCitaId = datos.tipoCita("Control").getId();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+		disponibilidadService.invalidarOdontologo(odontologoId);
+	}
+
+	@Test
+	void laDisponibilidadSigueLasCitasCreadasCanceladasYEliminadas() {
+		assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30)), libres(FECHA));
+
+		Cita2Dto cita = citaService.crearCita(nuevaCita(LocalTime.of(8, 30)));
+		assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(9, 0), LocalTime.of(9, 30)), libres(FECHA));
+
+		cita.setEstado(EstadoCitaEnum.CONFIRMADA);
+		cita.setHora(LocalTime.of(9, 30));
+		citaService.actualizarCita(cita.getId(), cita);
+		assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0)), libres(FECHA));
+
+		cita.setEstado(EstadoCitaEnum.CANCELADA);
+		citaService.actualizarCita(cita.getId(), cita);
+		assertEquals(4, libres(FECHA).size());
+
+		Cita2Dto otra = citaService.crearCita(nuevaCita(LocalTime.of(9, 0)));
+		assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 30)), libres(FECHA));
+		citaService.eliminarCita(otra.getId());
+		assertEquals(4, libres(FECHA).size());
+	}
+
+	@Test
+	void cancelarUnaCitaNoLiberaElEspacioQueComparteConOtra() {
+		// 08:15 ocupa los espacios de 08:00 y 08:30; 08:45 los de 08:30 y 09:00
+		Cita2Dto primera = citaService.crearCita(nuevaCita(LocalTime.of(8, 15)));
+		citaService.crearCita(nuevaCita(LocalTime.of(8, 45)));
+		assertEquals(List.of(LocalTime.of(9, 30)), libres(FECHA));
+
+		primera.setEstado(EstadoCitaEnum.CANCELADA);
+		citaService.actualizarCita(primera.getId(), primera);
+		assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(9, 30)), libres(FECHA));
+	}
+
+	@Test
+	void eliminarAlPacienteLiberaSusCitas() {
+		citaService.crearCita(nuevaCita(LocalTime.of(8, 30)));
+		citaService.crearCita(nuevaCita(LocalTime.of(9, 30)));
+		assertEquals(2, libres(FECHA).size());
+
+		pacienteService.eliminarPaciente(pacienteId);
+		assertEquals(4, libres(FECHA).size());
+	}
+
+	@Test
+	void lasReservasDeOtraInstanciaSeVenAlVencerLaAgenda() {
+		assertEquals(4, libres(FECHA).size());
+
+		// Guardada sin pasar por el servicio: como si la hubiera reservado otra instancia
+		datos.cita(pacienteId, odontologoId, tipoCitaId, FECHA, LocalTime.of(8, 0), EstadoCitaEnum.PENDIENTE);
+		assertEquals(4, libres(FECHA).size());
+
+		Object vigencia = ReflectionTestUtils.getField(disponibilidadService, "vigenciaSegundos");
+		ReflectionTestUtils.setField(disponibilidadService, "vigenciaSegundos", 0L);
+		try {
+			assertEquals(List.of(LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30)), libres(FECHA));
+		} finally {
+			ReflectionTestUtils.setField(disponibilidadService, "vigenciaSegundos", vigencia);
+		}
+	}
+
+	@Test
+	void cadaCitaOcupaLosMinutosConQueSeReservo() {
+		// Reservada cuando los espacios eran de una hora: ocupa 08:00 y 08:30
+		Cita2 larga = datos.cita(pacienteId, odontologoId, tipoCitaId, FECHA, LocalTime.of(8, 0), EstadoCitaEnum.PENDIENTE);
+		larga.setMinutos(60);
+		citaRepository.save(larga);
+
+		assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(9, 30)), libres(FECHA));
+	}
+
+	@Test
+	void rechazaUnaCitaQueChocaConOtra() {
+		citaService.crearCita(nuevaCita(LocalTime.of(9, 0)));
+
+		assertThrows(RuntimeException.class, () -> citaService.crearCita(nuevaCita(LocalTime.of(9, 15))));
+		assertEquals(1, citaRepository.count());
+	}
+
+	@Test
+	void buscaElProximoEspacioLibreSaltandoDiasNoLaborables() {
+		citaService.crearCita(nuevaCita(LocalTime.of(9, 30)));
+
+		EspacioLibreDto espacio = disponibilidadService.buscarProximoEspacioLibre(odontologoId, LocalDateTime.of(FECHA, LocalTime.of(9, 10)));
+
+		// Martes no es laborable: el siguiente espacio es el miércoles a las 8:00
+		assertEquals(FECHA.plusDays(2), espacio.getFecha());
+		assertEquals(LocalTime.of(8, 0), espacio.getHora());
+	}
+
+	private List<LocalTime> libres(LocalDate fecha) {
+		List<DisponibilidadDto> dias = disponibilidadService.consultarDisponibilidad(odontologoId, fecha, fecha);
+		return dias.get(0).getEspaciosLibres();
+	}
+
+	private Cita2Dto nuevaCita(LocalTime hora) {
+		return DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoCitaId, FECHA, hora);
+	}
+}
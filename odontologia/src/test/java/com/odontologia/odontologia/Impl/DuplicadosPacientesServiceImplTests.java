@@ -0,0 +1,235 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.DuplicadoPacienteDto;
+import com.odontologia.odontologia.Dto.FusionPacientesDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class DuplicadosPacientesServiceImplTests {
+
+	@Autowired
+	private DuplicadosPacientesServiceImpl duplicadosService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Odontologo odontologo;
+	private TipoCita tipo;
+
+	@BeforeEach
+	void prepararDatos() {
+		tipo = new TipoCita();
+		tipo.setNombre("Control");
+		entityManager.persist(tipo);
+		odontologo = new Odontologo();
+		odontologo.setNombre("Lucia");
+		odontologo.setApellido("Duplicados");
+		odontologo.setMatricula("MAT-DUP");
+		entityManager.persist(odontologo);
+	}
+
+	@Test
+	void detectaDuplicadosConTildesMayusculasYOtroTipoDeDocumento() {
+		Paciente2 jose = paciente("José", "Pérez Gómez", "CC", "1.234.567", LocalDate.of(1985, 3, 2), "+57 3001234567", null);
+		Paciente2 joseOtraVez = paciente("JOSE", "PEREZ GOMEZ", "TI", "01234567", LocalDate.of(1985, 3, 2), "3001234567", null);
+		Paciente2 valentina = paciente("Valentina", "Jiménez", "CC", "5550001", LocalDate.of(1992, 7, 9), "3115550001", "vale@correo.com");
+		Paciente2 balentina = paciente("Balentina", "Giménez", "CC", "5550999", LocalDate.of(1992, 7, 9), "3115550001", "Vale@Correo.com");
+		// Homónimo de otra edad y gemelas: no son duplicados
+		paciente("José", "Pérez Gómez", "CC", "7777777", LocalDate.of(1970, 3, 2), "3209999999", null);
+		Paciente2 ana = paciente("Ana", "Ruiz", "CC", "8880001", LocalDate.of(2001, 1, 1), "3128880000", null);
+		Paciente2 eva = paciente("Eva", "Ruiz", "CC", "8880002", LocalDate.of(2001, 1, 1), "3128880000", null);
+		entityManager.flush();
+		entityManager.clear();
+
+		List<DuplicadoPacienteDto> duplicados = duplicadosService.buscarDuplicados(null, null);
+
+		assertEquals(2, duplicados.size());
+		assertPar(duplicados.get(0), jose, joseOtraVez);
+		assertEquals(1.0, duplicados.get(0).getPuntaje());
+		assertTrue(duplicados.get(0).getCoincidencias().contains("documento"));
+		assertPar(duplicados.get(1), valentina, balentina);
+		assertEquals(List.of("nombre parecido", "fecha de nacimiento", "teléfono", "email"), duplicados.get(1).getCoincidencias());
+		assertFalse(duplicados.stream().anyMatch(d -> d.getPaciente().getId().equals(ana.getId()) || d.getOtro().getId().equals(eva.getId())));
+	}
+
+	@Test
+	void fusionarReasignaCitasEHistoriaConSentenciasMasivas() {
+		Paciente2 sobreviviente = paciente("José", "Pérez", "CC", "1234567", LocalDate.of(1985, 3, 2), "3001234567", null);
+		Paciente2 duplicado = paciente("JOSE", "PEREZ", "TI", "01234567", LocalDate.of(1985, 3, 2), "3001234567", "jose@correo.com");
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(duplicado);
+		historia.setAntecedentes("Hipertensión");
+		entityManager.persist(historia);
+		for (int i = 0; i < 3; i++) {
+			cita(sobreviviente, null, LocalDate.of(2031, 1, 5 + i));
+		}
+		for (int i = 0; i < 30; i++) {
+			cita(duplicado, historia, LocalDate.of(2031, 2, 1 + i % 28).plusYears(i / 28));
+		}
+		entityManager.flush();
+		entityManager.clear();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		FusionPacientesDto resultado = duplicadosService.fusionar(sobreviviente.getId(), duplicado.getId());
+		entityManager.flush();
+
+		assertEquals(30, resultado.getCitasReasignadas());
+		assertTrue(resultado.isHistoriaReasignada());
+		// Cargar ambos pacientes, 5 sentencias masivas, recargar y actualizar: no depende de la cantidad de citas
+		assertTrue(statistics.getPrepareStatementCount() <= 10, "sentencias: " + statistics.getPrepareStatementCount());
+
+		entityManager.clear();
+		assertNull(entityManager.find(Paciente2.class, duplicado.getId()));
+		Paciente2 fusionado = entityManager.find(Paciente2.class, sobreviviente.getId());
+		assertEquals("jose@correo.com", fusionado.getEmail());
+		assertEquals("Hipertensión", fusionado.getHistoriaClinica().getAntecedentes());
+		Long citas = entityManager.createQuery("SELECT COUNT(c) FROM Cita2 c WHERE c.paciente.id = :id", Long.class)
+				.setParameter("id", sobreviviente.getId()).getSingleResult();
+		assertEquals(33, citas);
+	}
+
+	@Test
+	void fusionarCombinaHistoriasCuandoAmbosTienen() {
+		Paciente2 sobreviviente = paciente("Ana", "Gil", "CC", "4440001", LocalDate.of(1990, 5, 5), "3004440001", null);
+		Paciente2 duplicado = paciente("Ana", "Gil", "CC", "04440001", LocalDate.of(1990, 5, 5), "3004440001", null);
+		HistoriaClinica propia = historia(sobreviviente, "Ninguno", null);
+		HistoriaClinica otra = historia(duplicado, "Asma", "Penicilina");
+		cita(duplicado, otra, LocalDate.of(2031, 4, 4));
+		entityManager.flush();
+		entityManager.clear();
+
+		FusionPacientesDto resultado = duplicadosService.fusionar(sobreviviente.getId(), duplicado.getId());
+		entityManager.flush();
+		entityManager.clear();
+
+		assertTrue(resultado.isHistoriaCombinada());
+		assertNull(entityManager.find(HistoriaClinica.class, otra.getId()));
+		HistoriaClinica combinada = entityManager.find(HistoriaClinica.class, propia.getId());
+		assertEquals("Ninguno", combinada.getAntecedentes());
+		assertEquals("Penicilina", combinada.getAlergias());
+		Long citas = entityManager.createQuery("SELECT COUNT(c) FROM Cita2 c WHERE c.historiaClinica.id = :id", Long.class)
+				.setParameter("id", propia.getId()).getSingleResult();
+		assertEquals(1, citas);
+	}
+
+	// Recuperación y tiempo del detector a escala, fuera de la ejecución normal (ver excludedGroups en el pom)
+	@Test
+	@Tag("benchmark")
+	void detectorEncuentraDuplicadosSembradosEntre200MilPacientes() {
+		String[] nombres = {"José", "María", "Juan", "Ana", "Luis", "Carmen", "Carlos", "Lucía", "Jorge", "Sofía",
+				"Andrés", "Valentina", "Miguel", "Camila", "Diego", "Isabel", "Pedro", "Laura", "Felipe", "Paula"};
+		String[] apellidos = {"García", "Rodríguez", "Martínez", "López", "González", "Pérez", "Sánchez", "Ramírez",
+				"Torres", "Flores", "Rivera", "Gómez", "Díaz", "Vásquez", "Castro", "Jiménez", "Moreno", "Rojas",
+				"Herrera", "Medina", "Aguilar", "Vargas", "Ortiz", "Silva", "Mendoza"};
+		Random random = new Random(17);
+		DetectorDuplicados detector = new DetectorDuplicados();
+		int total = 200_000;
+		for (int i = 0; i < total; i++) {
+			detector.agregar(new DetectorDuplicados.Registro(i, nombres[random.nextInt(nombres.length)],
+					apellidos[random.nextInt(apellidos.length)] + " " + apellidos[random.nextInt(apellidos.length)],
+					"CC", String.valueOf(10_000_000 + i), LocalDate.of(1940, 1, 1).plusDays(random.nextInt(365 * 80)),
+					String.valueOf(3_000_000_000L + random.nextInt(999_999_999)), null));
+		}
+		// Copias de los primeros mil: documento con cero adelante y otro tipo, nombre sin tildes ni
+		// mayúsculas. La misma semilla reproduce los datos de los originales.
+		Random copias = new Random(17);
+		for (int i = 0; i < 1000; i++) {
+			String nombre = nombres[copias.nextInt(nombres.length)];
+			String apellido = apellidos[copias.nextInt(apellidos.length)] + " " + apellidos[copias.nextInt(apellidos.length)];
+			LocalDate fecha = LocalDate.of(1940, 1, 1).plusDays(copias.nextInt(365 * 80));
+			String telefono = String.valueOf(3_000_000_000L + copias.nextInt(999_999_999));
+			detector.agregar(new DetectorDuplicados.Registro(total + i, nombre.toUpperCase(), apellido.toLowerCase(),
+					"TI", "0" + (10_000_000 + i), fecha, telefono, null));
+		}
+
+		long inicio = System.nanoTime();
+		List<DetectorDuplicados.Candidato> candidatos = detector.candidatos(0.6);
+		long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+		Set<Long> encontrados = new HashSet<>();
+		for (DetectorDuplicados.Candidato c : candidatos) {
+			if (c.otro().id() - total == c.registro().id()) {
+				encontrados.add(c.otro().id());
+			}
+		}
+		assertEquals(1000, encontrados.size());
+		// Los homónimos con la misma fecha (nombre + fecha = 0.5) no llegan al mínimo
+		assertTrue(candidatos.size() < 1100, "candidatos: " + candidatos.size());
+		assertTrue(milisegundos < 5_000, "ms: " + milisegundos);
+	}
+
+	private void assertPar(DuplicadoPacienteDto par, Paciente2 a, Paciente2 b) {
+		Set<Long> ids = Set.of(par.getPaciente().getId(), par.getOtro().getId());
+		assertEquals(Set.of(a.getId(), b.getId()), ids);
+	}
+
+	private Paciente2 paciente(String nombres, String apellidos, String tipoDocumento, String documento, LocalDate fecha,
+			String telefono, String email) {
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres(nombres);
+		paciente.setApellidos(apellidos);
+		paciente.setTipoDocumento(tipoDocumento);
+		paciente.setDocumento(documento);
+		paciente.setFechaNacimiento(fecha);
+		paciente.setGenero("M");
+		paciente.setTelefono(telefono.length() > 15 ? telefono.substring(0, 15) : telefono);
+		paciente.setEmail(email);
+		entityManager.persist(paciente);
+		return paciente;
+	}
+
+	private HistoriaClinica historia(Paciente2 paciente, String antecedentes, String alergias) {
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(paciente);
+		historia.setAntecedentes(antecedentes);
+		historia.setAlergias(alergias);
+		entityManager.persist(historia);
+		return historia;
+	}
+
+	private void cita(Paciente2 paciente, HistoriaClinica historia, LocalDate fecha) {
+		Cita2 cita = new Cita2();
+		cita.setPaciente(paciente);
+		cita.setOdontologo(odontologo);
+		cita.setTipoCita(tipo);
+		cita.setHistoriaClinica(historia);
+		cita.setFecha(fecha);
+		cita.setHora(LocalTime.of(9, 0));
+		cita.setEstado(EstadoCitaEnum.PENDIENTE);
+		entityManager.persist(cita);
+	}
+}
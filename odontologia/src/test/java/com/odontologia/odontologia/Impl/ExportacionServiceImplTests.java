@@ -0,0 +1,169 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.HistoriaClinicaRepository;
+import com.odontologia.odontologia.Service.ExportacionService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Sin @Transactional: el cuerpo se escribe en otro hilo y debe ver datos confirmados
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportacionServiceImplTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ExportacionService exportacionService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaRepository;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	private Long pacienteId;
+
+	@BeforeEach
+	void prepararDatos() {
+		Long tipoId = datos.tipoCita("Control").getId();
+		Long odontologoId = datos.odontologo("Exporta").getId();
+
+		Paciente2 conComillas = null;
+		for (int i = 0; i < 3; i++) {
+			int n = i;
+			Paciente2 paciente = datos.paciente("Paciente" + i, "Exporta", p -> {
+				p.setDocumento("EXP-" + n);
+				p.setFechaNacimiento(LocalDate.of(1990, 1, 1 + n));
+				p.setTelefono("300000000" + n);
+				if (n == 0) {
+					p.setObservaciones("Dijo \"no\", luego\nsí");
+				}
+			});
+			if (i == 0) {
+				conComillas = paciente;
+			}
+		}
+		pacienteId = conComillas.getId();
+
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(conComillas);
+		historia.setAntecedentes("Ninguno");
+		historiaRepository.save(historia);
+
+		for (int h = 0; h < 2; h++) {
+			datos.cita(pacienteId, odontologoId, tipoId, LocalDate.of(2031, 5, 5), LocalTime.of(9 + h, 0), EstadoCitaEnum.PENDIENTE);
+		}
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void exportarPacientesCsvNoCargaEntidades() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		String csv = new String(descargar("/api/exportaciones/pacientes?formato=csv"), StandardCharsets.UTF_8);
+
+		String[] lineas = csv.split("\r\n");
+		assertTrue(lineas[0].startsWith("id,nombres,apellidos,tipoDocumento,documento,fechaNacimiento"));
+		// 3 pacientes + encabezado; las observaciones del primero van entre comillas
+		assertEquals(4, lineas.length);
+		assertEquals(pacienteId + ",Paciente0,Exporta,CC,EXP-0,1990-01-01,F,,3000000000,,,,,,,\"Dijo \"\"no\"\", luego\nsí\"", lineas[1]);
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void exportarCitasNdjsonComprimido() throws Exception {
+		byte[] comprimido = descargar("/api/exportaciones/citas?formato=ndjson&gzip=true");
+
+		String ndjson;
+		try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(comprimido))) {
+			ndjson = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		List<String> lineas = ndjson.lines().toList();
+		assertEquals(2, lineas.size());
+		Map<String, Object> primera = objectMapper.readValue(lineas.get(0), new TypeReference<Map<String, Object>>() { });
+		assertEquals("2031-05-05", primera.get("fecha"));
+		assertEquals("PENDIENTE", primera.get("estado"));
+		assertEquals("EXP-0", primera.get("pacienteDocumento"));
+		assertEquals("Control", primera.get("tipoCita"));
+	}
+
+	@Test
+	void tablaDesconocidaEsBadRequest() throws Exception {
+		mockMvc.perform(get("/api/exportaciones/usuarios")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void exportarADirectorioDejaUnArchivoPorTabla() throws Exception {
+		List<Path> archivos = exportacionService.exportarADirectorio(LocalDate.of(2031, 1, 2));
+
+		assertEquals(3, archivos.size());
+		Path historias = archivos.get(2);
+		assertEquals("historias-2031-01-02.ndjson.gz", historias.getFileName().toString());
+		try (InputStream entrada = new GZIPInputStream(Files.newInputStream(historias))) {
+			String contenido = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+			assertEquals(1, contenido.lines().count());
+			assertTrue(contenido.contains("\"antecedentes\":\"Ninguno\""));
+		}
+		try (var listado = Files.list(historias.getParent())) {
+			assertFalse(listado.anyMatch(p -> p.toString().endsWith(".parcial")));
+		}
+	}
+
+	private byte[] descargar(String url) throws Exception {
+		MvcResult inicio = mockMvc.perform(get(url))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(inicio))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("Content-Disposition"))
+				.andReturn().getResponse().getContentAsByteArray();
+	}
+}
@@ -0,0 +1,309 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.HistoriaClinicaDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.RevisionHistoriaDto;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.RevisionHistoriaClinica;
+import com.odontologia.odontologia.Entity.TextoComprimidoConverter;
+import com.odontologia.odontologia.Repository.RevisionHistoriaClinicaRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class HistoriaClinicaServiceImplTests {
+
+	private static final String ANTECEDENTES = "Hipertensión controlada desde 2015. Bruxismo nocturno con férula. "
+			+ "Extracción del tercer molar inferior derecho en 2019 sin complicaciones. Control semestral: %s.";
+
+	@Autowired
+	private HistoriaClinicaServiceImpl historiaService;
+
+	@Autowired
+	private RevisionHistoriaClinicaRepository revisionRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Paciente2 paciente;
+
+	@BeforeEach
+	void prepararDatos() {
+		paciente = new Paciente2();
+		paciente.setNombres("Historia");
+		paciente.setApellidos("Versionada");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("HIST-1");
+		paciente.setFechaNacimiento(LocalDate.of(1970, 3, 3));
+		paciente.setGenero("M");
+		paciente.setTelefono("3000000000");
+		entityManager.persist(paciente);
+		entityManager.flush();
+	}
+
+	@Test
+	void cadaVersionSeReconstruyeConPocasDiferencias() {
+		List<String[]> versiones = new ArrayList<>();
+		HistoriaClinicaDto dto = historia(String.format(ANTECEDENTES, "sin novedades"), "Penicilina", null);
+		Long id = historiaService.crearHistoriaClinica(dto).getId();
+		versiones.add(new String[] { dto.getAntecedentes(), dto.getAlergias(), dto.getMedicamentos() });
+		for (int i = 2; i <= 25; i++) {
+			dto = historia(String.format(ANTECEDENTES, "visita " + i), "Penicilina" + (i % 7 == 0 ? ", látex" : ""),
+					i % 5 == 0 ? null : "Losartán 50 mg");
+			historiaService.actualizarHistoriaClinica(id, dto);
+			versiones.add(new String[] { dto.getAntecedentes(), dto.getAlergias(), dto.getMedicamentos() });
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		List<RevisionHistoriaDto> revisiones = historiaService.listarRevisiones(id);
+		assertEquals(25, revisiones.size());
+		assertEquals(List.of(1, 11, 21), revisiones.stream().filter(RevisionHistoriaDto::isCompleta)
+				.map(RevisionHistoriaDto::getNumero).toList());
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		for (int numero = 1; numero <= 25; numero++) {
+			entityManager.clear();
+			statistics.clear();
+			HistoriaClinicaDto version = historiaService.obtenerVersion(id, numero);
+			String[] esperada = versiones.get(numero - 1);
+			assertEquals(esperada[0], version.getAntecedentes(), "revisión " + numero);
+			assertEquals(esperada[1], version.getAlergias(), "revisión " + numero);
+			assertEquals(esperada[2], version.getMedicamentos(), "revisión " + numero);
+			// La historia y el tramo de revisiones; la vigente sale de la historia sola
+			assertEquals(numero == 25 ? 1 : 2, statistics.getPrepareStatementCount());
+		}
+
+		// Guardar 25 copias completas ocuparía varias veces más
+		long guardado = revisionRepository.findAll().stream().filter(r -> r.getHistoriaId().equals(id))
+				.mapToLong(r -> r.getContenido().length).sum();
+		long copias = versiones.stream().mapToLong(v -> DeltaTexto.completa(v).length).sum();
+		assertTrue(guardado * 4 < copias, "revisiones " + guardado + " bytes, copias completas " + copias + " bytes");
+	}
+
+	@Test
+	void sinCambiosNoHayRevisionNueva() {
+		HistoriaClinicaDto creada = historiaService.crearHistoriaClinica(historia("Ninguno", null, null));
+
+		HistoriaClinicaDto actualizada = historiaService.actualizarHistoriaClinica(creada.getId(), historia("Ninguno", null, null));
+
+		assertEquals(1, actualizada.getRevision());
+		assertEquals(1, historiaService.listarRevisiones(creada.getId()).size());
+	}
+
+	@Test
+	void historiaAnteriorAlVersionadoConservaSuContenidoOriginal() {
+		HistoriaClinica anterior = new HistoriaClinica();
+		anterior.setPaciente(paciente);
+		anterior.setAntecedentes("Diabetes tipo 2");
+		entityManager.persist(anterior);
+		entityManager.flush();
+
+		historiaService.actualizarHistoriaClinica(anterior.getId(), historia("Diabetes tipo 2, insulinodependiente", null, null));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals("Diabetes tipo 2", historiaService.obtenerVersion(anterior.getId(), 1).getAntecedentes());
+		assertEquals(2, historiaService.obtenerHistoriaClinicaPorId(anterior.getId()).getRevision());
+		assertThrows(RuntimeException.class, () -> historiaService.obtenerVersion(anterior.getId(), 3));
+	}
+
+	@Test
+	void eliminarLaHistoriaConservaSusRevisiones() {
+		Long id = historiaService.crearHistoriaClinica(historia("Asma", null, "Salbutamol")).getId();
+		historiaService.actualizarHistoriaClinica(id, historia("Asma leve", null, "Salbutamol"));
+		entityManager.flush();
+
+		historiaService.eliminarHistoriaClinica(id);
+		entityManager.flush();
+
+		List<RevisionHistoriaClinica> revisiones = revisionRepository.findByHistoriaIdAndNumeroBetweenOrderByNumeroAsc(id, 1, 2);
+		assertEquals(2, revisiones.size());
+	}
+
+	@Test
+	void historiasSeBuscanPorPacienteConUnaConsulta() {
+		Long id = historiaService.crearHistoriaClinica(historia("Diabetes tipo 2", null, "Metformina")).getId();
+		Paciente2 sinHistoria = new Paciente2();
+		sinHistoria.setNombres("Sin");
+		sinHistoria.setApellidos("Historia");
+		sinHistoria.setTipoDocumento("CC");
+		sinHistoria.setDocumento("HIST-2");
+		sinHistoria.setFechaNacimiento(LocalDate.of(1980, 1, 1));
+		sinHistoria.setGenero("F");
+		sinHistoria.setTelefono("3000000001");
+		entityManager.persist(sinHistoria);
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertEquals(id, historiaService.obtenerPorPaciente(paciente.getId()).orElseThrow().getId());
+		assertTrue(historiaService.obtenerPorPaciente(sinHistoria.getId()).isEmpty());
+		List<HistoriaClinicaDto> historias = historiaService.listarPorPacientes(List.of(paciente.getId(), sinHistoria.getId()));
+		assertEquals(1, historias.size());
+		assertEquals(paciente.getId(), historias.get(0).getPaciente().getId());
+		assertEquals(3, statistics.getPrepareStatementCount());
+
+		// El índice único impide una segunda historia para el mismo paciente
+		assertThrows(DataIntegrityViolationException.class,
+				() -> historiaService.crearHistoriaClinica(historia("Duplicada", null, null)));
+	}
+
+	@Test
+	void notasLargasSeGuardanComprimidas() {
+		String nota = notas(new Random(7), 1).get(0).repeat(3);
+		assertTrue(nota.length() > 1000);
+		Long id = historiaService.crearHistoriaClinica(historia(nota, "Ninguna", null)).getId();
+		entityManager.flush();
+		entityManager.clear();
+
+		Object[] columnas = (Object[]) entityManager.createNativeQuery(
+				"SELECT antecedentes, alergias FROM historias_clinicas WHERE id = :id")
+				.setParameter("id", id)
+				.getSingleResult();
+		byte[] antecedentes = (byte[]) columnas[0];
+		assertTrue(antecedentes.length * 3 < nota.getBytes(StandardCharsets.UTF_8).length, "bytes: " + antecedentes.length);
+		// Los valores cortos quedan como UTF-8 legible
+		assertEquals("Ninguna", new String((byte[]) columnas[1], StandardCharsets.UTF_8));
+		assertEquals(nota, historiaService.obtenerHistoriaClinicaPorId(id).getAntecedentes());
+	}
+
+	@Test
+	void convertidorRespetaTextosQueEmpiezanConLaMarca() {
+		TextoComprimidoConverter convertidor = new TextoComprimidoConverter();
+		for (String texto : new String[] { "", "\u0001", "\u0001corto", "ñandú 🦷 ".repeat(100) }) {
+			assertEquals(texto, convertidor.convertToEntityAttribute(convertidor.convertToDatabaseColumn(texto)));
+		}
+	}
+
+	// Notas de 300 B a 8 KB armadas con frases clínicas: ahorro de espacio y que cada una vuelva intacta
+	// (los tiempos por nota están en Rendimiento)
+	@Test
+	void compresionDeNotasRealistas() {
+		TextoComprimidoConverter convertidor = new TextoComprimidoConverter();
+		List<String> notas = notas(new Random(42), 2000);
+		long original = 0;
+		long guardado = 0;
+		List<byte[]> columnas = new ArrayList<>(notas.size());
+		for (String nota : notas) {
+			byte[] columna = convertidor.convertToDatabaseColumn(nota);
+			original += nota.getBytes(StandardCharsets.UTF_8).length;
+			guardado += columna.length;
+			columnas.add(columna);
+		}
+		for (int i = 0; i < columnas.size(); i++) {
+			assertEquals(notas.get(i), convertidor.convertToEntityAttribute(columnas.get(i)));
+		}
+
+		double proporcion = (double) guardado / original;
+		assertTrue(proporcion < 0.6, "proporción " + proporcion);
+	}
+
+	// Costo por nota de codificar y decodificar, fuera de la ejecución normal (ver excludedGroups en el pom)
+	@Nested
+	@Tag("benchmark")
+	class Rendimiento {
+
+		private static final Logger LOG = LoggerFactory.getLogger(Rendimiento.class);
+
+		@Test
+		void tiempoDeCompresionPorNota() {
+			TextoComprimidoConverter convertidor = new TextoComprimidoConverter();
+			List<String> notas = notas(new Random(42), 2000);
+			List<byte[]> columnas = new ArrayList<>(notas.size());
+			// Calentamiento: que el JIT compile el camino de Deflater/Inflater antes de medir
+			for (int vuelta = 0; vuelta < 3; vuelta++) {
+				columnas.clear();
+				notas.forEach(nota -> columnas.add(convertidor.convertToDatabaseColumn(nota)));
+				columnas.forEach(convertidor::convertToEntityAttribute);
+			}
+
+			long inicio = System.nanoTime();
+			for (String nota : notas) {
+				convertidor.convertToDatabaseColumn(nota);
+			}
+			double microsCodificar = (System.nanoTime() - inicio) / 1000.0 / notas.size();
+			inicio = System.nanoTime();
+			for (byte[] columna : columnas) {
+				convertidor.convertToEntityAttribute(columna);
+			}
+			double microsDecodificar = (System.nanoTime() - inicio) / 1000.0 / notas.size();
+
+			LOG.info("Notas clínicas ({}): codificar {} µs, decodificar {} µs por nota", notas.size(),
+					String.format("%.1f", microsCodificar), String.format("%.1f", microsDecodificar));
+		}
+	}
+
+	private static List<String> notas(Random random, int cantidad) {
+		String[] frases = { "Paciente refiere dolor a la masticación en el sector posterior derecho.",
+				"Se observa caries oclusal profunda en la pieza 36 con compromiso de dentina.",
+				"Sangrado gingival al sondaje en el sector anterior inferior.",
+				"Se indica control radiográfico periapical en seis meses.",
+				"Antecedente de hipertensión arterial en tratamiento con losartán 50 mg.",
+				"Alergia a la penicilina confirmada; se prescribe clindamicina 300 mg cada 8 horas.",
+				"Se realiza profilaxis y aplicación de flúor barniz sin complicaciones.",
+				"Refiere sensibilidad al frío en premolares superiores desde hace dos semanas.",
+				"Movilidad grado I en la pieza 41; se deriva a periodoncia.",
+				"Se toma impresión para férula de descarga por bruxismo nocturno.",
+				"Endodoncia en la pieza 46: conductometría y obturación con gutapercha.",
+				"Paciente ansioso; se explica el procedimiento y se programa sedación consciente.",
+				"Fractura coronal en el incisivo central superior izquierdo tras caída.",
+				"Control post extracción del tercer molar: cicatrización adecuada, sin alveolitis.",
+				"Se recomienda uso de hilo dental y cepillo interdental a diario." };
+		List<String> notas = new ArrayList<>(cantidad);
+		for (int i = 0; i < cantidad; i++) {
+			int largo = 300 + random.nextInt(7700);
+			StringBuilder nota = new StringBuilder(largo + 100);
+			LocalDate fecha = LocalDate.of(2020, 1, 1);
+			while (nota.length() < largo) {
+				fecha = fecha.plusDays(1 + random.nextInt(90));
+				nota.append(fecha).append(": ").append(frases[random.nextInt(frases.length)])
+						.append(" Presión ").append(100 + random.nextInt(50)).append('/').append(60 + random.nextInt(30))
+						.append(".\n");
+			}
+			notas.add(nota.toString());
+		}
+		return notas;
+	}
+
+	private HistoriaClinicaDto historia(String antecedentes, String alergias, String medicamentos) {
+		HistoriaClinicaDto dto = new HistoriaClinicaDto();
+		dto.setAntecedentes(antecedentes);
+		dto.setAlergias(alergias);
+		dto.setMedicamentos(medicamentos);
+		Paciente2Dto p = new Paciente2Dto();
+		p.setId(paciente.getId());
+		dto.setPaciente(p);
+		return dto;
+	}
+}
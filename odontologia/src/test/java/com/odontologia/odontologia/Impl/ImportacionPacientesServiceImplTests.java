@@ -0,0 +1,198 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odontologia.odontologia.Controller.Rest.Paciente2RestController;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Repository.Paciente2Repository;
+
+// Sin @Transactional: cada tanda de la importación confirma su propia transacción
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportacionPacientesServiceImplTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private Paciente2Repository pacienteRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Paciente2RestController pacienteController;
+
+	@BeforeEach
+	void crearDatos() {
+		Paciente2 existente = new Paciente2();
+		existente.setNombres("Marta");
+		existente.setApellidos("Ríos");
+		existente.setTipoDocumento("CC");
+		existente.setDocumento("IMP-EXISTE");
+		existente.setFechaNacimiento(LocalDate.of(1980, 1, 1));
+		existente.setGenero("F");
+		existente.setEmail("existe@correo.com");
+		existente.setTelefono("3000000000");
+		pacienteRepository.save(existente);
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void importarCsvCreaPorTandasYReportaDuplicadosEInvalidos() throws Exception {
+		StringBuilder csv = new StringBuilder("\uFEFFNombres;Apellidos;Tipo Documento;Documento;Fecha Nacimiento;Género;Email;Teléfono;Observaciones\r\n");
+		long linea = 2;
+		for (int i = 0; i < 1200; i++) {
+			// La fila 10 trae un campo entre comillas con separador, comillas y salto de línea
+			String observaciones = i == 10 ? "\"Alérgico; \"\"penicilina\"\"\nControl anual\"" : "";
+			String fecha = i % 2 == 0 ? "1990-05-" + String.format("%02d", i % 28 + 1) : "7/3/1985";
+			csv.append("Paciente;Importado").append(i).append(";CC;IMP-").append(i).append(';').append(fecha)
+					.append(";M;imp").append(i).append("@correo.com;300").append(i).append(';').append(observaciones).append("\r\n");
+			linea += i == 10 ? 2 : 1;
+		}
+		long lineaDocumentoExistente = linea++;
+		csv.append("Otro;Paciente;CC;IMP-EXISTE;1990-01-01;M;;3001;\r\n");
+		long lineaEmailExistente = linea++;
+		csv.append("Otro;Paciente;CC;IMP-NUEVO1;1990-01-01;M;existe@correo.com;3001;\r\n");
+		long lineaRepetidaOtraTanda = linea++;
+		csv.append("Otro;Paciente;CC;IMP-5;1990-01-01;M;;3001;\r\n");
+		linea++;
+		csv.append("Otro;Paciente;CC;IMP-NUEVO2;1990-01-01;M;;3001;\r\n");
+		long lineaRepetidaMismaTanda = linea++;
+		csv.append("Otro;Paciente;CC;IMP-NUEVO2;1990-01-01;M;;3001;\r\n");
+		long lineaSinTelefono = linea++;
+		csv.append("Sin;Telefono;CC;IMP-X1;1990-01-01;M;;;\r\n");
+		long lineaFechaInvalida = linea++;
+		csv.append("Fecha;Mala;CC;IMP-X2;31/02/1990;M;;3001;\r\n");
+		csv.append(";;;;;;;;\r\n"); // fila vacía: se ignora
+		long lineaGeneroInvalido = linea + 1;
+		csv.append("Genero;Largo;CC;IMP-X3;1990-01-01;XX;;3001;");
+
+		List<Map<String, Object>> lineas = importar("text/csv", csv.toString());
+
+		Map<String, Object> resumen = lineas.get(lineas.size() - 1);
+		assertEquals("resumen", resumen.get("tipo"));
+		assertEquals(1208, ((Number) resumen.get("procesadas")).intValue());
+		assertEquals(1201, ((Number) resumen.get("creadas")).intValue());
+		assertEquals(4, ((Number) resumen.get("duplicadas")).intValue());
+		assertEquals(3, ((Number) resumen.get("rechazadas")).intValue());
+		assertEquals(true, resumen.get("completa"));
+
+		// 1205 filas válidas en tandas de 100: 12 tandas completas informan avance
+		assertEquals(12, lineas.stream().filter(l -> "avance".equals(l.get("tipo"))).count());
+
+		List<Long> filasConError = lineas.stream().filter(l -> "error".equals(l.get("tipo")))
+				.map(l -> ((Number) l.get("fila")).longValue()).sorted().toList();
+		assertEquals(List.of(lineaDocumentoExistente, lineaEmailExistente, lineaRepetidaOtraTanda, lineaRepetidaMismaTanda,
+				lineaSinTelefono, lineaFechaInvalida, lineaGeneroInvalido), filasConError);
+
+		assertEquals(1202, pacienteRepository.count());
+		Paciente2 conComillas = pacienteRepository.findAll().stream()
+				.filter(p -> "IMP-10".equals(p.getDocumento())).findFirst().orElseThrow();
+		assertEquals("Alérgico; \"penicilina\"\nControl anual", conComillas.getObservaciones());
+		Paciente2 fechaLocal = pacienteRepository.findAll().stream()
+				.filter(p -> "IMP-1".equals(p.getDocumento())).findFirst().orElseThrow();
+		assertEquals(LocalDate.of(1985, 3, 7), fechaLocal.getFechaNacimiento());
+	}
+
+	@Test
+	void importarNdjsonReportaJsonInvalidoYDuplicados() throws Exception {
+		String ndjson = """
+				{"nombres":"Luis","apellidos":"Mora","tipoDocumento":"CC","documento":"IMP-J1","fechaNacimiento":"1992-04-10","genero":"M","telefono":"3101","email":" luis@correo.com "}
+				{"nombres":"Roto",
+				null
+				[]
+				{"nombres":"Luis","apellidos":"Mora","tipoDocumento":"CC","documento":"IMP-J2","fechaNacimiento":"1992-04-10","genero":"M","telefono":"3101","email":"luis@correo.com"}
+				""";
+
+		List<Map<String, Object>> lineas = importar("application/x-ndjson", ndjson);
+
+		Map<String, Object> resumen = lineas.get(lineas.size() - 1);
+		assertEquals(1, ((Number) resumen.get("creadas")).intValue());
+		assertEquals(1, ((Number) resumen.get("duplicadas")).intValue());
+		assertEquals(3, ((Number) resumen.get("rechazadas")).intValue());
+
+		// Una línea rota, una "null" y un arreglo: JSON inválido cada una, la importación sigue
+		List<Map<String, Object>> errores = lineas.stream().filter(l -> "error".equals(l.get("tipo"))).toList();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i + 2, ((Number) errores.get(i).get("fila")).intValue());
+			assertTrue(((String) errores.get(i).get("mensaje")).startsWith("JSON inválido"));
+		}
+		assertEquals(5, ((Number) errores.get(3).get("fila")).intValue());
+		assertEquals("IMP-J2", errores.get(3).get("documento"));
+	}
+
+	@Test
+	void codificacionDesconocidaSeRechazaSinImportar() throws Exception {
+		mockMvc.perform(post("/api/pacientes/importar")
+						.header("Content-Type", "text/csv;charset=x-desconocida")
+						.content("documento\nIMP-X\n".getBytes(StandardCharsets.UTF_8)))
+				.andExpect(status().isUnsupportedMediaType());
+
+		// Si la codificación llega por otro camino (un filtro, por ejemplo) el controlador tampoco falla con 500
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pacientes/importar");
+		request.setContentType("text/csv");
+		request.setCharacterEncoding("x-desconocida");
+		request.setContent("documento\nIMP-X\n".getBytes(StandardCharsets.UTF_8));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		pacienteController.importarPacientes(request, response);
+		assertEquals(415, response.getStatus());
+		assertTrue(response.getContentAsString(StandardCharsets.UTF_8).contains("Codificación no soportada: x-desconocida"));
+
+		assertEquals(1, pacienteRepository.count());
+	}
+
+	@Test
+	void csvConComillasSinCerrarGuardaLoLeidoYMarcaIncompleta() throws Exception {
+		String csv = "documento,nombres,apellidos,tipo_documento,fecha_nacimiento,genero,telefono\n"
+				+ "IMP-C1,Ana,Gil,CC,1990-01-01,F,3001\n"
+				+ "IMP-C2,\"Ana,Gil,CC,1990-01-01,F,3001\n";
+
+		List<Map<String, Object>> lineas = importar("text/csv", csv);
+
+		Map<String, Object> resumen = lineas.get(lineas.size() - 1);
+		assertEquals(1, ((Number) resumen.get("creadas")).intValue());
+		assertFalse((Boolean) resumen.get("completa"));
+		assertTrue(lineas.stream().anyMatch(l -> "error".equals(l.get("tipo")) && ((Number) l.get("fila")).intValue() == 0));
+	}
+
+	private List<Map<String, Object>> importar(String tipo, String cuerpo) throws Exception {
+		String respuesta = mockMvc.perform(post("/api/pacientes/importar")
+						.contentType(tipo)
+						.characterEncoding(StandardCharsets.UTF_8)
+						.content(cuerpo.getBytes(StandardCharsets.UTF_8)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		List<Map<String, Object>> lineas = new ArrayList<>();
+		for (String linea : respuesta.split("\n")) {
+			lineas.add(objectMapper.readValue(linea, new TypeReference<Map<String, Object>>() { }));
+		}
+		return lineas;
+	}
+}
@@ -0,0 +1,93 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Sin @Transactional ni petición web: como un proceso programado o un servicio que llama a otro.
+// Los campos TEXT perezosos del DTO tienen que venir en la consulta por id; si se pidieran al
+// convertir, la sesión ya estaría cerrada y fallaría con LazyInitializationException.
+@SpringBootTest
+class LecturaPorIdSinTransaccionTests {
+
+	@Autowired
+	private Paciente2ServiceImpl pacienteService;
+
+	@Autowired
+	private OdontologoServiceImpl odontologoService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	private Statistics statistics;
+	private Long pacienteId;
+	private Long odontologoId;
+
+	@BeforeEach
+	void prepararDatos() {
+		pacienteId = datos.paciente("Irene", "Lectura", p -> {
+			p.setAlergias("Látex");
+			p.setMedicamentos("Ninguno");
+			p.setObservaciones("Prefiere la tarde");
+		}).getId();
+		odontologoId = datos.odontologo("Lectura", o -> {
+			o.setEspecialidades("Endodoncia");
+			o.setDiasTrabajo("Lunes");
+			o.setObservaciones("Solo adultos");
+		}).getId();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void obtenerPacienteTraeLosCamposTextoEnUnaConsulta() {
+		Paciente2Dto paciente = pacienteService.obtenerPacientePorId(pacienteId);
+
+		assertEquals("Látex", paciente.getAlergias());
+		assertEquals("Prefiere la tarde", paciente.getObservaciones());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void actualizarPacienteLeeUnaVezYGuarda() {
+		Paciente2Dto cambios = pacienteService.obtenerPacientePorId(pacienteId);
+		cambios.setObservaciones("Prefiere la mañana");
+		statistics.clear();
+
+		Paciente2Dto actualizado = pacienteService.actualizarPaciente(pacienteId, cambios);
+
+		assertEquals("Prefiere la mañana", actualizado.getObservaciones());
+		assertEquals("Látex", actualizado.getAlergias());
+		// SELECT con los campos TEXT y el UPDATE
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void obtenerOdontologoTraeLosCamposTextoEnUnaConsulta() {
+		OdontologoDto odontologo = odontologoService.obtenerOdontologoPorId(odontologoId);
+
+		assertEquals("Endodoncia", odontologo.getEspecialidades());
+		assertEquals("Lunes", odontologo.getDiasTrabajo());
+		assertEquals("Solo adultos", odontologo.getObservaciones());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+}
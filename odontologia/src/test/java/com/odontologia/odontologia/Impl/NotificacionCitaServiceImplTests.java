@@ -0,0 +1,109 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NotificacionCitaServiceImplTests {
+
+	private static final LocalDate FECHA = LocalDate.of(2030, 6, 3);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private OdontologoServiceImpl odontologoService;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	private Long odontologoA;
+	private Long odontologoB;
+	private Long pacienteId;
+	private Long tipoId;
+
+	@BeforeEach
+	void prepararDatos() {
+		odontologoA = datos.odontologo("A").getId();
+		odontologoB = datos.odontologo("B").getId();
+		pacienteId = datos.paciente("Paciente", "Eventos").getId();
+		tipoId = datos.tipoCita("Control").getId();
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void soloRecibeLosCambiosDeSuOdontologoYFecha() throws Exception {
+		MvcResult suscripcion = mockMvc.perform(get("/api/citas/eventos")
+						.param("odontologoId", odontologoA.toString())
+						.param("fecha", FECHA.toString()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MockHttpServletResponse respuesta = suscripcion.getResponse();
+
+		Cita2Dto otraAgenda = citaService.crearCita(cita(odontologoB, LocalTime.of(9, 0)));
+		Cita2Dto propia = citaService.crearCita(cita(odontologoA, LocalTime.of(10, 0)));
+
+		long limite = System.currentTimeMillis() + 5000;
+		while (!respuesta.getContentAsString().contains("\"citaId\":" + propia.getId()) && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+		}
+		String contenido = respuesta.getContentAsString();
+		assertTrue(contenido.contains("event:conectado"));
+		assertTrue(contenido.contains("event:cita"));
+		assertTrue(contenido.contains("\"tipo\":\"CREADA\",\"citaId\":" + propia.getId()));
+		assertFalse(contenido.contains("\"citaId\":" + otraAgenda.getId() + ","));
+	}
+
+	// Las citas que se borran en cascada con el odontólogo también desaparecen de las pantallas
+	@Test
+	void eliminarAlOdontologoAvisaDeCadaCitaBorrada() throws Exception {
+		Cita2Dto primera = citaService.crearCita(cita(odontologoA, LocalTime.of(9, 0)));
+		Cita2Dto segunda = citaService.crearCita(cita(odontologoA, LocalTime.of(11, 0)));
+		MvcResult suscripcion = mockMvc.perform(get("/api/citas/eventos")
+						.param("odontologoId", odontologoA.toString())
+						.param("fecha", FECHA.toString()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MockHttpServletResponse respuesta = suscripcion.getResponse();
+
+		odontologoService.eliminarOdontologo(odontologoA);
+
+		String esperado = "\"tipo\":\"ELIMINADA\",\"citaId\":" + segunda.getId();
+		long limite = System.currentTimeMillis() + 5000;
+		while (!respuesta.getContentAsString().contains(esperado) && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+		}
+		String contenido = respuesta.getContentAsString();
+		assertTrue(contenido.contains("\"tipo\":\"ELIMINADA\",\"citaId\":" + primera.getId()));
+		assertTrue(contenido.contains(esperado));
+	}
+
+	private Cita2Dto cita(Long odontologoId, LocalTime hora) {
+		return DatosPrueba.nuevaCita(pacienteId, odontologoId, tipoId, FECHA, hora);
+	}
+}
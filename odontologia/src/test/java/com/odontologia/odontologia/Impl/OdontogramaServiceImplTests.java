@@ -0,0 +1,196 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.CambioOdontogramaDto;
+import com.odontologia.odontologia.Dto.DienteOdontogramaDto;
+import com.odontologia.odontologia.Dto.EventoOdontogramaDto;
+import com.odontologia.odontologia.Dto.OdontogramaDto;
+import com.odontologia.odontologia.Entity.EstadoDienteEnum;
+import com.odontologia.odontologia.Entity.EstadoSuperficieEnum;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.SuperficieDentalEnum;
+import com.odontologia.odontologia.Repository.EventoOdontogramaRepository;
+import com.odontologia.odontologia.Repository.OdontogramaRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class OdontogramaServiceImplTests {
+
+	@Autowired
+	private OdontogramaServiceImpl odontogramaService;
+
+	@Autowired
+	private DuplicadosPacientesServiceImpl duplicadosService;
+
+	@Autowired
+	private OdontogramaRepository odontogramaRepository;
+
+	@Autowired
+	private EventoOdontogramaRepository eventoRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Paciente2 paciente;
+
+	@BeforeEach
+	void prepararDatos() {
+		paciente = paciente("ODO-1");
+	}
+
+	@Test
+	void registraEventosYReconstruyeCadaEstado() {
+		assertTrue(odontogramaService.obtenerOdontograma(paciente.getId()).getDientes().isEmpty());
+
+		odontogramaService.registrarEvento(paciente.getId(), evento(
+				superficie(16, SuperficieDentalEnum.OCLUSAL, EstadoSuperficieEnum.CARIES),
+				superficie(16, SuperficieDentalEnum.MESIAL, EstadoSuperficieEnum.CARIES),
+				diente(38, EstadoDienteEnum.EXTRACCION_INDICADA),
+				diente(55, EstadoDienteEnum.SIN_ERUPCIONAR)));
+		odontogramaService.registrarEvento(paciente.getId(), evento(
+				superficie(16, SuperficieDentalEnum.OCLUSAL, EstadoSuperficieEnum.OBTURADA_RESINA),
+				superficie(16, SuperficieDentalEnum.MESIAL, EstadoSuperficieEnum.OBTURADA_RESINA)));
+		OdontogramaDto actual = odontogramaService.registrarEvento(paciente.getId(), evento(
+				diente(38, EstadoDienteEnum.EXTRAIDO),
+				diente(55, EstadoDienteEnum.PRESENTE)));
+
+		assertEquals(3, actual.getEvento());
+		Map<Integer, DienteOdontogramaDto> dientes = porNumero(actual);
+		assertEquals(Map.of(SuperficieDentalEnum.OCLUSAL, EstadoSuperficieEnum.OBTURADA_RESINA,
+				SuperficieDentalEnum.MESIAL, EstadoSuperficieEnum.OBTURADA_RESINA), dientes.get(16).getSuperficies());
+		assertEquals(EstadoDienteEnum.PRESENTE, dientes.get(16).getEstado());
+		assertEquals(EstadoDienteEnum.EXTRAIDO, dientes.get(38).getEstado());
+		// Un diente que vuelve al estado por defecto deja de ocupar espacio
+		assertEquals(2, dientes.size());
+
+		Map<Integer, DienteOdontogramaDto> primero = porNumero(odontogramaService.obtenerVersion(paciente.getId(), 1));
+		assertEquals(EstadoSuperficieEnum.CARIES, primero.get(16).getSuperficies().get(SuperficieDentalEnum.OCLUSAL));
+		assertEquals(EstadoDienteEnum.EXTRACCION_INDICADA, primero.get(38).getEstado());
+		assertEquals(EstadoDienteEnum.SIN_ERUPCIONAR, primero.get(55).getEstado());
+
+		List<EventoOdontogramaDto> eventos = odontogramaService.listarEventos(paciente.getId());
+		assertEquals(3, eventos.size());
+		assertEquals(diente(38, EstadoDienteEnum.EXTRAIDO), eventos.get(2).getCambios().get(0));
+		assertEquals(superficie(16, SuperficieDentalEnum.MESIAL, EstadoSuperficieEnum.OBTURADA_RESINA),
+				eventos.get(1).getCambios().get(1));
+		assertEquals(4, eventoRepository.findByPacienteIdOrderByNumeroAsc(paciente.getId()).get(1).getCambios().length);
+
+		assertThrows(RuntimeException.class, () -> odontogramaService.obtenerVersion(paciente.getId(), 4));
+	}
+
+	@Test
+	void elEstadoActualEsUnaFilaDeUnasDecenasDeBytes() {
+		// Una boca con trabajo habitual: ocho dientes con caries u obturaciones, dos ausentes, una corona
+		List<CambioOdontogramaDto> cambios = new ArrayList<>();
+		for (int numero : new int[] { 14, 15, 16, 26, 36, 37, 46, 47 }) {
+			cambios.add(superficie(numero, SuperficieDentalEnum.OCLUSAL, EstadoSuperficieEnum.OBTURADA_AMALGAMA));
+			cambios.add(superficie(numero, SuperficieDentalEnum.DISTAL, EstadoSuperficieEnum.CARIES));
+		}
+		cambios.add(diente(18, EstadoDienteEnum.AUSENTE));
+		cambios.add(diente(28, EstadoDienteEnum.AUSENTE));
+		cambios.add(diente(11, EstadoDienteEnum.CORONA));
+		odontogramaService.registrarEvento(paciente.getId(), new EventoOdontogramaDto(0, null, null, cambios));
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		OdontogramaDto odontograma = odontogramaService.obtenerOdontograma(paciente.getId());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(11, odontograma.getDientes().size());
+
+		byte[] estado = odontogramaRepository.findById(paciente.getId()).orElseThrow().getEstado();
+		assertEquals(7 + 11 * 3, estado.length);
+
+		// Los 52 dientes con todas las caras registradas: el peor caso
+		List<CambioOdontogramaDto> todo = new ArrayList<>();
+		for (int numero : OdontogramaCompacto.DIENTES) {
+			for (SuperficieDentalEnum cara : SuperficieDentalEnum.values()) {
+				todo.add(superficie(numero, cara, EstadoSuperficieEnum.FRACTURA));
+			}
+		}
+		odontogramaService.registrarEvento(paciente.getId(), new EventoOdontogramaDto(0, null, null, todo));
+		assertEquals(7 + 52 * 3, odontogramaRepository.findById(paciente.getId()).orElseThrow().getEstado().length);
+	}
+
+	@Test
+	void rechazaDientesYCambiosInvalidos() {
+		assertThrows(RuntimeException.class,
+				() -> odontogramaService.registrarEvento(paciente.getId(), evento(diente(19, EstadoDienteEnum.AUSENTE))));
+		assertThrows(RuntimeException.class,
+				() -> odontogramaService.registrarEvento(paciente.getId(), evento(new CambioOdontogramaDto(21, null, null, null))));
+		assertThrows(RuntimeException.class, () -> odontogramaService.registrarEvento(paciente.getId(), evento()));
+		assertThrows(RuntimeException.class, () -> odontogramaService.obtenerOdontograma(-1L));
+		assertTrue(odontogramaRepository.findById(paciente.getId()).isEmpty());
+	}
+
+	@Test
+	void laFusionLlevaElOdontogramaAlSobreviviente() {
+		Paciente2 duplicado = paciente("ODO-2");
+		odontogramaService.registrarEvento(duplicado.getId(), evento(diente(21, EstadoDienteEnum.ENDODONCIA)));
+		odontogramaService.registrarEvento(duplicado.getId(), evento(diente(21, EstadoDienteEnum.CORONA)));
+
+		duplicadosService.fusionar(paciente.getId(), duplicado.getId());
+
+		OdontogramaDto odontograma = odontogramaService.obtenerOdontograma(paciente.getId());
+		assertEquals(2, odontograma.getEvento());
+		assertEquals(EstadoDienteEnum.CORONA, odontograma.getDientes().get(0).getEstado());
+		assertEquals(EstadoDienteEnum.ENDODONCIA,
+				odontogramaService.obtenerVersion(paciente.getId(), 1).getDientes().get(0).getEstado());
+	}
+
+	private Paciente2 paciente(String documento) {
+		Paciente2 p = new Paciente2();
+		p.setNombres("Odontograma");
+		p.setApellidos(documento);
+		p.setTipoDocumento("CC");
+		p.setDocumento(documento);
+		p.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+		p.setGenero("F");
+		p.setTelefono("3000000000");
+		entityManager.persist(p);
+		entityManager.flush();
+		return p;
+	}
+
+	private static EventoOdontogramaDto evento(CambioOdontogramaDto... cambios) {
+		return new EventoOdontogramaDto(0, null, null, List.of(cambios));
+	}
+
+	private static CambioOdontogramaDto diente(int numero, EstadoDienteEnum estado) {
+		return new CambioOdontogramaDto(numero, null, estado, null);
+	}
+
+	private static CambioOdontogramaDto superficie(int numero, SuperficieDentalEnum cara, EstadoSuperficieEnum estado) {
+		return new CambioOdontogramaDto(numero, cara, null, estado);
+	}
+
+	private static Map<Integer, DienteOdontogramaDto> porNumero(OdontogramaDto odontograma) {
+		Map<Integer, DienteOdontogramaDto> dientes = new HashMap<>();
+		odontograma.getDientes().forEach(d -> dientes.put(d.getNumero(), d));
+		return dientes;
+	}
+}
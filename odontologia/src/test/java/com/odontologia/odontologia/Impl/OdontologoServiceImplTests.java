@@ -0,0 +1,210 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.DisponibilidadDto;
+import com.odontologia.odontologia.Dto.ExcepcionHorarioDto;
+import com.odontologia.odontologia.Dto.HorarioSemanalDto;
+import com.odontologia.odontologia.Dto.IntervaloHorarioDto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.TramoHorarioDto;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Repository.OdontologoRepository;
+
+@SpringBootTest
+@Transactional
+class OdontologoServiceImplTests {
+
+	// Lunes
+	private static final LocalDate LUNES = LocalDate.of(2030, 1, 7);
+
+	@Autowired
+	private OdontologoServiceImpl odontologoService;
+
+	@Autowired
+	private DisponibilidadServiceImpl disponibilidadService;
+
+	@Autowired
+	private OdontologoRepository odontologoRepository;
+
+	private Long odontologoId;
+
+	@BeforeEach
+	void prepararDatos() {
+		OdontologoDto dto = new OdontologoDto();
+		dto.setNombre("Marta");
+		dto.setApellido("Ríos");
+		dto.setMatricula("MAT-HORARIO");
+		dto.setDiasTrabajo("Lunes, Miércoles");
+		dto.setHoraInicio("08:00");
+		dto.setHoraFin("12:00");
+		odontologoId = odontologoService.crearOdontologo(dto).getId();
+	}
+
+	// Las agendas en memoria sobreviven al rollback de cada prueba
+	@AfterEach
+	void limpiarDatos() {
+		disponibilidadService.invalidarOdontologo(odontologoId);
+	}
+
+	@Test
+	void elHorarioConDescansoYVacacionesDefineLaDisponibilidad() {
+		HorarioSemanalDto horario = new HorarioSemanalDto(List.of(
+				intervalo(DayOfWeek.MONDAY, "08:00", "12:00"),
+				intervalo(DayOfWeek.MONDAY, "14:00", "18:00"),
+				intervalo(DayOfWeek.TUESDAY, "09:00", "13:00")),
+				List.of(new ExcepcionHorarioDto(LUNES.plusDays(7), LUNES.plusDays(13), List.of(), "Vacaciones"),
+						new ExcepcionHorarioDto(LUNES.plusDays(15), LUNES.plusDays(15),
+								List.of(new TramoHorarioDto(LocalTime.of(10, 0), LocalTime.of(11, 0))), "Congreso")));
+		odontologoService.actualizarHorario(odontologoId, horario);
+
+		// Los campos libres quedan como resumen para la pantalla
+		OdontologoDto odontologo = odontologoService.obtenerOdontologoPorId(odontologoId);
+		assertEquals("Lunes, Martes", odontologo.getDiasTrabajo());
+		assertEquals("08:00", odontologo.getHoraInicio());
+		assertEquals("18:00", odontologo.getHoraFin());
+		assertEquals(horario, odontologoService.obtenerHorario(odontologoId));
+
+		List<DisponibilidadDto> dias = disponibilidadService.consultarDisponibilidad(odontologoId, LUNES, LUNES.plusDays(15));
+		// 8 espacios en la mañana y 8 en la tarde: el descanso de 12:00 a 14:00 no tiene espacios
+		assertEquals(16, dias.get(0).getEspaciosLibres().size());
+		assertFalse(dias.get(0).getEspaciosLibres().contains(LocalTime.of(12, 0)));
+		assertEquals(8, dias.get(1).getEspaciosLibres().size());
+		assertTrue(dias.get(2).getEspaciosLibres().isEmpty());
+		for (int i = 7; i <= 13; i++) {
+			assertTrue(dias.get(i).getEspaciosLibres().isEmpty(), "vacaciones: " + dias.get(i).getFecha());
+		}
+		assertEquals(16, dias.get(14).getEspaciosLibres().size());
+		assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(10, 30)), dias.get(15).getEspaciosLibres());
+
+		assertTrue(disponibilidadService.estaTrabajando(odontologoId, LUNES.atTime(8, 0)));
+		assertTrue(disponibilidadService.estaTrabajando(odontologoId, LUNES.atTime(11, 59)));
+		assertFalse(disponibilidadService.estaTrabajando(odontologoId, LUNES.atTime(12, 0)));
+		assertFalse(disponibilidadService.estaTrabajando(odontologoId, LUNES.atTime(13, 0)));
+		assertFalse(disponibilidadService.estaTrabajando(odontologoId, LUNES.plusDays(7).atTime(9, 0)));
+		assertTrue(disponibilidadService.estaTrabajando(odontologoId, LUNES.plusDays(15).atTime(10, 30)));
+		assertFalse(disponibilidadService.estaTrabajando(odontologoId, LUNES.plusDays(15).atTime(9, 30)));
+
+		// Semana normal: 8 + 4 horas; semana de vacaciones: nada; tercera semana: lunes normal y martes de congreso
+		assertEquals(12 * 60, disponibilidadService.minutosTrabajados(odontologoId, LUNES.atStartOfDay(), LUNES.plusDays(7).atStartOfDay()));
+		assertEquals(0, disponibilidadService.minutosTrabajados(odontologoId, LUNES.plusDays(7).atStartOfDay(), LUNES.plusDays(14).atStartOfDay()));
+		assertEquals(8 * 60 + 60, disponibilidadService.minutosTrabajados(odontologoId, LUNES.plusDays(14).atStartOfDay(), LUNES.plusDays(21).atStartOfDay()));
+		assertEquals(150, disponibilidadService.minutosTrabajados(odontologoId, LUNES.atTime(10, 30), LUNES.atTime(15, 0)));
+		assertThrows(RuntimeException.class,
+				() -> disponibilidadService.minutosTrabajados(odontologoId, LUNES.atTime(15, 0), LUNES.atTime(10, 0)));
+	}
+
+	@Test
+	void editarLosCamposLibresConservaLasExcepciones() {
+		odontologoService.actualizarHorario(odontologoId, new HorarioSemanalDto(
+				List.of(intervalo(DayOfWeek.MONDAY, "08:00", "12:00")),
+				List.of(new ExcepcionHorarioDto(LUNES, LUNES, List.of(), "Feriado"))));
+
+		OdontologoDto dto = odontologoService.obtenerOdontologoPorId(odontologoId);
+		dto.setDiasTrabajo("Lunes, Viernes");
+		dto.setHoraFin("13:00");
+		odontologoService.actualizarOdontologo(odontologoId, dto);
+
+		HorarioSemanalDto horario = odontologoService.obtenerHorario(odontologoId);
+		assertEquals(List.of(intervalo(DayOfWeek.MONDAY, "08:00", "13:00"), intervalo(DayOfWeek.FRIDAY, "08:00", "13:00")),
+				horario.getIntervalos());
+		assertEquals("Feriado", horario.getExcepciones().get(0).getMotivo());
+		assertFalse(disponibilidadService.estaTrabajando(odontologoId, LUNES.atTime(9, 0)));
+		assertTrue(disponibilidadService.estaTrabajando(odontologoId, LUNES.plusDays(4).atTime(12, 30)));
+	}
+
+	@Test
+	void losOdontologosSinHorarioCompiladoUsanLosCamposLibres() {
+		Odontologo anterior = new Odontologo();
+		anterior.setNombre("Pablo");
+		anterior.setApellido("Vera");
+		anterior.setMatricula("MAT-ANTERIOR");
+		anterior.setDiasTrabajo("martes, JUEVES, feriados");
+		anterior.setHoraInicio("09:00");
+		anterior.setHoraFin("11:00");
+		Long id = odontologoRepository.save(anterior).getId();
+
+		assertEquals(List.of(intervalo(DayOfWeek.TUESDAY, "09:00", "11:00"), intervalo(DayOfWeek.THURSDAY, "09:00", "11:00")),
+				odontologoService.obtenerHorario(id).getIntervalos());
+		assertTrue(disponibilidadService.estaTrabajando(id, LUNES.plusDays(1).atTime(10, 0)));
+		assertEquals(4 * 60, disponibilidadService.minutosTrabajados(id, LUNES.atStartOfDay(), LUNES.plusDays(7).atStartOfDay()));
+		disponibilidadService.invalidarOdontologo(id);
+
+		// Al crear por el servicio el horario queda compilado
+		assertNotNull(odontologoRepository.findConHorarioById(odontologoId).orElseThrow().getHorario());
+	}
+
+	@Test
+	void rechazaHorariosInvalidos() {
+		assertThrows(RuntimeException.class, () -> odontologoService.actualizarHorario(odontologoId, new HorarioSemanalDto(
+				List.of(intervalo(DayOfWeek.MONDAY, "12:00", "08:00")), List.of())));
+		assertThrows(RuntimeException.class, () -> odontologoService.actualizarHorario(odontologoId, new HorarioSemanalDto(
+				List.of(new IntervaloHorarioDto(null, LocalTime.of(8, 0), LocalTime.of(9, 0))), List.of())));
+		assertThrows(RuntimeException.class, () -> odontologoService.actualizarHorario(odontologoId, new HorarioSemanalDto(
+				List.of(), List.of(new ExcepcionHorarioDto(LUNES, LUNES.plusDays(3), List.of(), null),
+						new ExcepcionHorarioDto(LUNES.plusDays(3), LUNES.plusDays(5), List.of(), null)))));
+		assertThrows(RuntimeException.class, () -> odontologoService.actualizarHorario(odontologoId, new HorarioSemanalDto(
+				List.of(), List.of(new ExcepcionHorarioDto(LUNES.plusDays(1), LUNES, List.of(), null)))));
+		// El horario anterior sigue vigente
+		assertEquals("Lunes, Miércoles", odontologoService.obtenerOdontologoPorId(odontologoId).getDiasTrabajo());
+	}
+
+	@Test
+	void lasConsultasCoincidenConRecorrerMinutoAMinuto() {
+		Random random = new Random(25);
+		HorarioSemanalDto dto = new HorarioSemanalDto(List.of(
+				intervalo(DayOfWeek.MONDAY, "07:15", "12:40"),
+				intervalo(DayOfWeek.MONDAY, "11:00", "13:00"), // se une con el anterior
+				intervalo(DayOfWeek.MONDAY, "15:00", "19:30"),
+				intervalo(DayOfWeek.WEDNESDAY, "00:00", "23:59"),
+				intervalo(DayOfWeek.SATURDAY, "09:00", "10:00")),
+				List.of(new ExcepcionHorarioDto(LUNES.minusDays(40), LUNES.minusDays(30), List.of(), "Vacaciones"),
+						new ExcepcionHorarioDto(LUNES.plusDays(2), LUNES.plusDays(4),
+								List.of(new TramoHorarioDto(LocalTime.of(8, 0), LocalTime.of(9, 0)),
+										new TramoHorarioDto(LocalTime.of(20, 0), LocalTime.of(21, 30))), "Turno especial"),
+						new ExcepcionHorarioDto(LUNES.plusDays(20), LUNES.plusDays(20), List.of(), null)));
+		HorarioCompilado horario = HorarioCompilado.leer(HorarioCompilado.compilar(dto).escribir());
+
+		LocalDateTime origen = LUNES.minusDays(50).atStartOfDay();
+		int minutosTotales = 80 * 1440;
+		long[] acumulado = new long[minutosTotales + 1];
+		for (int m = 0; m < minutosTotales; m++) {
+			acumulado[m + 1] = acumulado[m] + (horario.trabaja(origen.plusMinutes(m)) ? 1 : 0);
+		}
+		for (int i = 0; i < 2000; i++) {
+			int a = random.nextInt(minutosTotales + 1);
+			int b = a + random.nextInt(minutosTotales + 1 - a);
+			assertEquals(acumulado[b] - acumulado[a], horario.minutosEntre(origen.plusMinutes(a), origen.plusMinutes(b)),
+					origen.plusMinutes(a) + " a " + origen.plusMinutes(b));
+		}
+		// Un lunes normal: 07:15 a 13:00 y 15:00 a 19:30
+		assertEquals(345 + 270, horario.minutosEntre(LUNES.atStartOfDay(), LUNES.plusDays(1).atStartOfDay()));
+		assertEquals(150, horario.minutosEntre(LUNES.plusDays(2).atStartOfDay(), LUNES.plusDays(3).atStartOfDay()));
+
+		// Rangos largos sin recorrer los días
+		long anios = horario.minutosEntre(LocalDate.of(2000, 1, 1).atStartOfDay(), LocalDate.of(2100, 1, 1).atStartOfDay());
+		assertTrue(anios > 0);
+	}
+
+	private static IntervaloHorarioDto intervalo(DayOfWeek dia, String inicio, String fin) {
+		return new IntervaloHorarioDto(dia, LocalTime.parse(inicio), LocalTime.parse(fin));
+	}
+}
@@ -0,0 +1,221 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.FichaPacienteDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.PaginaDto;
+import com.odontologia.odontologia.Dto.PacienteResumenDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.HistoriaClinica;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.TipoCita;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class Paciente2ServiceImplTests {
+
+	@Autowired
+	private Paciente2ServiceImpl pacienteService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Long pacienteConCitasId;
+
+	@BeforeEach
+	void prepararDatos() {
+		String[] apellidos = { "Zuluaga", "Arango", "Mejía" };
+		for (int i = 0; i < apellidos.length; i++) {
+			Paciente2 paciente = new Paciente2();
+			paciente.setNombres("Paciente" + i);
+			paciente.setApellidos(apellidos[i]);
+			paciente.setTipoDocumento("CC");
+			paciente.setDocumento("RES-" + i);
+			paciente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+			paciente.setGenero("M");
+			paciente.setTelefono("3000000000");
+			paciente.setAlergias("Penicilina ".repeat(200));
+			paciente.setObservaciones("Observación extensa ".repeat(200));
+			entityManager.persist(paciente);
+		}
+		Odontologo odontologo = new Odontologo();
+		odontologo.setNombre("Clara");
+		odontologo.setApellido("Resumen");
+		odontologo.setMatricula("MAT-RES");
+		odontologo.setDocumento("OD-RES");
+		odontologo.setEspecialidades("Endodoncia ".repeat(100));
+		entityManager.persist(odontologo);
+
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres("Ficha");
+		paciente.setApellidos("Completa");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("FICHA-1");
+		paciente.setFechaNacimiento(LocalDate.of(1985, 6, 1));
+		paciente.setGenero("F");
+		paciente.setTelefono("3110000000");
+		entityManager.persist(paciente);
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(paciente);
+		historia.setAntecedentes("Bruxismo");
+		entityManager.persist(historia);
+		paciente.setHistoriaClinica(historia);
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre("Revisión");
+		entityManager.persist(tipo);
+		LocalDate hoy = LocalDate.now();
+		for (int dias : new int[] { -30, -10, -3, 2, 15 }) {
+			Cita2 cita = new Cita2();
+			cita.setPaciente(paciente);
+			cita.setOdontologo(odontologo);
+			cita.setTipoCita(tipo);
+			cita.setFecha(hoy.plusDays(dias));
+			cita.setHora(LocalTime.of(10, 0));
+			cita.setEstado(dias < 0 ? EstadoCitaEnum.COMPLETADA : EstadoCitaEnum.PENDIENTE);
+			entityManager.persist(cita);
+		}
+		pacienteConCitasId = paciente.getId();
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void resumenEsUnaConsultaSinCargarEntidades() {
+		List<PacienteResumenDto> resumen = pacienteService.listarPacientesResumen(null).stream()
+				.filter(p -> p.getDocumento().startsWith("RES-"))
+				.toList();
+
+		assertEquals(List.of("Arango", "Mejía", "Zuluaga"), resumen.stream().map(PacienteResumenDto::getApellidos).toList());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void vistaResumenNoIncluyeCamposTexto() throws Exception {
+		mockMvc.perform(get("/api/pacientes").param("vista", "resumen").param("limit", "500"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].documento").exists())
+				.andExpect(jsonPath("$[0].alergias").doesNotExist())
+				.andExpect(jsonPath("$[0].observaciones").doesNotExist());
+
+		mockMvc.perform(get("/api/odontologos").param("vista", "resumen"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.documento == 'OD-RES')].nombre").value("Clara"))
+				.andExpect(jsonPath("$[0].especialidades").doesNotExist());
+
+		// El listado paginado sigue respondiendo con el DTO completo
+		mockMvc.perform(get("/api/pacientes").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(2));
+	}
+
+	// Un cursor sin limit no puede caer en el listado completo ni en el resumen, que lo ignorarían
+	@Test
+	void cursorSinLimiteSeRechaza() throws Exception {
+		mockMvc.perform(get("/api/pacientes").param("after", "5")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/pacientes").param("vista", "resumen").param("after", "5")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/citas").param("after", "5")).andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/pacientes").param("after", "0").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(2));
+		mockMvc.perform(get("/api/pacientes"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").isNumber());
+	}
+
+	@Test
+	void fichaSeArmaEnTresConsultas() {
+		FichaPacienteDto ficha = pacienteService.obtenerFicha(pacienteConCitasId);
+
+		assertEquals("FICHA-1", ficha.getPaciente().getDocumento());
+		assertEquals("Bruxismo", ficha.getHistoriaClinica().getAntecedentes());
+		LocalDate hoy = LocalDate.now();
+		// Próximas de la más cercana a la más lejana; recientes de la más nueva a la más vieja
+		assertEquals(List.of(hoy.plusDays(2), hoy.plusDays(15)),
+				ficha.getProximasCitas().stream().map(Cita2Dto::getFecha).toList());
+		assertEquals(List.of(hoy.minusDays(3), hoy.minusDays(10), hoy.minusDays(30)),
+				ficha.getCitasRecientes().stream().map(Cita2Dto::getFecha).toList());
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void fichaResponde304SiNoCambio() throws Exception {
+		String etag = mockMvc.perform(get("/api/pacientes/{id}/resumen", pacienteConCitasId))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "no-cache, private"))
+				.andExpect(jsonPath("$.proximasCitas.length()").value(2))
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/api/pacientes/{id}/resumen", pacienteConCitasId).header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void camposTextoSeCarganSoloAlLeerlos() {
+		Cita2 cita = entityManager.createQuery("SELECT c FROM Cita2 c JOIN FETCH c.paciente p "
+				+ "LEFT JOIN FETCH p.historiaClinica JOIN FETCH c.odontologo "
+				+ "WHERE c.paciente.id = :id", Cita2.class)
+				.setParameter("id", pacienteConCitasId)
+				.setMaxResults(1)
+				.getSingleResult();
+
+		assertFalse(Hibernate.isPropertyInitialized(cita.getPaciente(), "observaciones"));
+		assertFalse(Hibernate.isPropertyInitialized(cita.getOdontologo(), "especialidades"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		// El primer acceso trae el grupo completo en una consulta
+		cita.getOdontologo().getEspecialidades();
+		assertTrue(Hibernate.isPropertyInitialized(cita.getOdontologo(), "observaciones"));
+		assertFalse(Hibernate.isPropertyInitialized(cita.getOdontologo(), "diasTrabajo"));
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void listadoCompletoTraeLosCamposTextoEnLaMismaConsulta() {
+		PaginaDto<Paciente2Dto> pagina = pacienteService.listarPacientesPaginado(null, 10);
+
+		assertEquals("Penicilina ".repeat(200), pagina.getItems().get(0).getAlergias());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,123 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import com.odontologia.odontologia.Dto.ResumenRecordatoriosDto;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Repository.RecordatorioCitaRepository;
+import com.odontologia.odontologia.Service.RemitenteRecordatorio;
+
+@SpringBootTest
+class RecordatorioCitaServiceImplTests {
+
+	private static final LocalDateTime AHORA = LocalDateTime.of(2030, 10, 1, 8, 0);
+	private static final String CORREO_QUE_FALLA = "rebota@correo.com";
+
+	@TestConfiguration
+	static class RemitentePrueba {
+		static final ConcurrentLinkedQueue<RemitenteRecordatorio.Mensaje> ENVIADOS = new ConcurrentLinkedQueue<>();
+
+		@Bean
+		@Primary
+		RemitenteRecordatorio remitentePrueba() {
+			return mensaje -> {
+				ENVIADOS.add(mensaje);
+				if (CORREO_QUE_FALLA.equals(mensaje.destinatario())) {
+					throw new IllegalStateException("Buzón inexistente");
+				}
+			};
+		}
+	}
+
+	@Autowired
+	private RecordatorioCitaServiceImpl recordatorioService;
+
+	@Autowired
+	private RecordatorioCitaRepository recordatorioRepository;
+
+	@Autowired
+	private DatosPrueba datos;
+
+	@BeforeEach
+	void prepararDatos() {
+		RemitentePrueba.ENVIADOS.clear();
+		Long tipo = datos.tipoCita("Control").getId();
+		Long puntual = datos.paciente("Paciente", "Puntual", p -> p.setEmail("puntual@correo.com")).getId();
+		Long rebota = datos.paciente("Paciente", "Rebota", p -> p.setEmail(CORREO_QUE_FALLA)).getId();
+
+		// 2 odontólogos x 10 citas dentro de la ventana (2 de octubre 8:00 a 3 de octubre 8:00)
+		for (int o = 0; o < 2; o++) {
+			Long odontologo = datos.odontologo("Recordatorio" + o).getId();
+			for (int h = 0; h < 10; h++) {
+				Long paciente = o == 1 && h == 0 ? rebota : puntual;
+				datos.cita(paciente, odontologo, tipo, LocalDate.of(2030, 10, 2), LocalTime.of(8 + h, 0), EstadoCitaEnum.PENDIENTE);
+			}
+			// Fuera de la ventana o canceladas: no reciben recordatorio
+			datos.cita(puntual, odontologo, tipo, LocalDate.of(2030, 10, 2), LocalTime.of(7, 30), EstadoCitaEnum.PENDIENTE);
+			datos.cita(puntual, odontologo, tipo, LocalDate.of(2030, 10, 3), LocalTime.of(8, 0), EstadoCitaEnum.CONFIRMADA);
+			datos.cita(puntual, odontologo, tipo, LocalDate.of(2030, 10, 2), LocalTime.of(19, 0), EstadoCitaEnum.CANCELADA);
+		}
+	}
+
+	@AfterEach
+	void limpiarDatos() {
+		datos.limpiar();
+	}
+
+	@Test
+	void enviaUnaVezPorCitaYReintentaSoloLosFallidos() {
+		ResumenRecordatoriosDto primera = recordatorioService.enviarRecordatorios(AHORA);
+		assertEquals(19, primera.getEnviados());
+		assertEquals(1, primera.getFallidos());
+		assertEquals(20, RemitentePrueba.ENVIADOS.size());
+		assertTrue(RemitentePrueba.ENVIADOS.stream().allMatch(m -> m.cuerpo().contains("02/10/2030")));
+
+		// Volver a correr no reenvía los ya enviados; el fallido se reintenta hasta agotar intentos
+		ResumenRecordatoriosDto segunda = recordatorioService.enviarRecordatorios(AHORA);
+		assertEquals(0, segunda.getEnviados());
+		assertEquals(1, segunda.getFallidos());
+		recordatorioService.enviarRecordatorios(AHORA);
+		ResumenRecordatoriosDto cuarta = recordatorioService.enviarRecordatorios(AHORA);
+		assertEquals(0, cuarta.getEnviados() + cuarta.getFallidos());
+
+		assertEquals(22, RemitentePrueba.ENVIADOS.size());
+		assertEquals(20, recordatorioRepository.count());
+	}
+
+	@Test
+	void elRemitenteDeArchivoEscribeCadaMensaje() throws Exception {
+		RemitenteArchivoRecordatorio archivo = new RemitenteArchivoRecordatorio();
+		java.nio.file.Path destino = java.nio.file.Files.createTempFile("recordatorios", ".log");
+		org.springframework.test.util.ReflectionTestUtils.setField(archivo, "archivo", destino);
+
+		archivo.enviar(new RemitenteRecordatorio.Mensaje(1L, "a@correo.com", "Asunto", "Cuerpo"));
+		archivo.enviar(new RemitenteRecordatorio.Mensaje(2L, "b@correo.com", "Asunto", "Cuerpo"));
+
+		List<String> lineas = java.nio.file.Files.readAllLines(destino);
+		assertEquals(2, lineas.size());
+		assertTrue(lineas.get(1).contains("cita 2 | para b@correo.com"));
+	}
+
+	@Test
+	void sinRemitenteNoMarcaNadaComoEnviado() {
+		RecordatorioCitaServiceImpl sinRemitente = new RecordatorioCitaServiceImpl();
+		assertThrows(IllegalStateException.class, () -> sinRemitente.enviarRecordatorios(AHORA));
+	}
+}
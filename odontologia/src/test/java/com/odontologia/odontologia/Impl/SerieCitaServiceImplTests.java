@@ -0,0 +1,233 @@
+package com.odontologia.odontologia.Impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.odontologia.odontologia.Dto.Cita2Dto;
+import com.odontologia.odontologia.Dto.OdontologoDto;
+import com.odontologia.odontologia.Dto.Paciente2Dto;
+import com.odontologia.odontologia.Dto.SerieCitaDto;
+import com.odontologia.odontologia.Dto.TipoCitaDto;
+import com.odontologia.odontologia.Entity.Cita2;
+import com.odontologia.odontologia.Entity.EstadoCitaEnum;
+import com.odontologia.odontologia.Entity.FrecuenciaSerieEnum;
+import com.odontologia.odontologia.Entity.Odontologo;
+import com.odontologia.odontologia.Entity.Paciente2;
+import com.odontologia.odontologia.Entity.SerieCita;
+import com.odontologia.odontologia.Entity.TipoCita;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@Transactional
+class SerieCitaServiceImplTests {
+
+	private static final LocalDate INICIO = LocalDate.of(2031, 1, 31);
+
+	@Autowired
+	private SerieCitaServiceImpl serieService;
+
+	@Autowired
+	private Cita2ServiceImpl citaService;
+
+	@Autowired
+	private Paciente2ServiceImpl pacienteService;
+
+	@Autowired
+	private OdontologoServiceImpl odontologoService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Long pacienteId;
+	private Long odontologoId;
+	private Long tipoId;
+
+	@BeforeEach
+	void prepararDatos() {
+		TipoCita tipo = new TipoCita();
+		tipo.setNombre("Control de ortodoncia");
+		entityManager.persist(tipo);
+
+		Odontologo odontologo = new Odontologo();
+		odontologo.setNombre("Odontologo");
+		odontologo.setApellido("Serie");
+		odontologo.setMatricula("MAT-SERIE");
+		entityManager.persist(odontologo);
+
+		Paciente2 paciente = new Paciente2();
+		paciente.setNombres("Paciente");
+		paciente.setApellidos("Serie");
+		paciente.setTipoDocumento("CC");
+		paciente.setDocumento("DOC-SERIE");
+		paciente.setFechaNacimiento(LocalDate.of(2010, 1, 1));
+		paciente.setGenero("M");
+		paciente.setTelefono("3000000000");
+		entityManager.persist(paciente);
+
+		// Ocupa el horario de la cuarta ocurrencia (30 de abril)
+		Cita2 existente = new Cita2();
+		existente.setPaciente(paciente);
+		existente.setOdontologo(odontologo);
+		existente.setTipoCita(tipo);
+		existente.setFecha(LocalDate.of(2031, 4, 30));
+		existente.setHora(LocalTime.of(10, 15));
+		existente.setEstado(EstadoCitaEnum.CONFIRMADA);
+		entityManager.persist(existente);
+
+		entityManager.flush();
+		entityManager.clear();
+		pacienteId = paciente.getId();
+		odontologoId = odontologo.getId();
+		tipoId = tipo.getId();
+	}
+
+	@Test
+	void crearSerieMensualGeneraLasOcurrenciasConPocasConsultas() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(24));
+
+		assertEquals(23, serie.getOcurrencias().getCreadas());
+		assertEquals(1, serie.getOcurrencias().getRechazadas());
+		assertNull(serie.getOcurrencias().getResultados().get(3).getId());
+		// 3 referencias + serie + horas ocupadas + secuencia + lote de INSERT, sin importar las ocurrencias
+		assertTrue(statistics.getPrepareStatementCount() <= 8,
+				"Se esperaban a lo sumo 8 sentencias y hubo " + statistics.getPrepareStatementCount());
+
+		List<Cita2Dto> citas = citaService.listarCitasDeSerie(serie.getId());
+		assertEquals(23, citas.size());
+		// Las fechas se calculan desde el inicio: tras febrero vuelve al día 31
+		assertEquals(LocalDate.of(2031, 2, 28), citas.get(1).getFecha());
+		assertEquals(LocalDate.of(2031, 3, 31), citas.get(2).getFecha());
+		assertEquals(LocalDate.of(2031, 5, 31), citas.get(3).getFecha());
+	}
+
+	@Test
+	void actualizarDesdeCambiaSoloEstaYLasSiguientes() {
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(6));
+		SerieCitaDto cambios = new SerieCitaDto();
+		cambios.setHora(LocalTime.of(15, 0));
+
+		int actualizadas = serieService.actualizarDesde(serie.getId(), LocalDate.of(2031, 3, 1), cambios);
+
+		assertEquals(3, actualizadas);
+		List<Cita2Dto> citas = citaService.listarCitasDeSerie(serie.getId());
+		assertEquals(LocalTime.of(10, 0), citas.get(1).getHora());
+		assertEquals(LocalTime.of(15, 0), citas.get(2).getHora());
+		assertEquals(LocalTime.of(15, 0), citas.get(4).getHora());
+	}
+
+	@Test
+	void actualizarDesdeRechazaElCambioSiUnaOcurrenciaChoca() {
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(6));
+		Cita2 otra = new Cita2();
+		otra.setPaciente(entityManager.getReference(Paciente2.class, pacienteId));
+		otra.setOdontologo(entityManager.getReference(Odontologo.class, odontologoId));
+		otra.setTipoCita(entityManager.getReference(TipoCita.class, tipoId));
+		otra.setFecha(LocalDate.of(2031, 5, 31));
+		otra.setHora(LocalTime.of(15, 15));
+		entityManager.persist(otra);
+		entityManager.flush();
+		SerieCitaDto cambios = new SerieCitaDto();
+		cambios.setHora(LocalTime.of(15, 0));
+
+		assertThrows(RuntimeException.class,
+				() -> serieService.actualizarDesde(serie.getId(), LocalDate.of(2031, 3, 1), cambios));
+		entityManager.clear();
+		citaService.listarCitasDeSerie(serie.getId()).forEach(c -> assertEquals(LocalTime.of(10, 0), c.getHora()));
+	}
+
+	@Test
+	void cancelarDesdeCancelaLasSiguientesYAcortaLaSerie() {
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(6));
+
+		int canceladas = serieService.cancelarDesde(serie.getId(), LocalDate.of(2031, 5, 1));
+
+		assertEquals(2, canceladas);
+		assertEquals(LocalDate.of(2031, 4, 30), serieService.obtenerSeriePorId(serie.getId()).getFechaFin());
+		List<Cita2Dto> citas = citaService.listarCitasDeSerie(serie.getId());
+		assertEquals(EstadoCitaEnum.PENDIENTE, citas.get(2).getEstado());
+		assertEquals(EstadoCitaEnum.CANCELADA, citas.get(3).getEstado());
+		assertEquals(EstadoCitaEnum.CANCELADA, citas.get(4).getEstado());
+	}
+
+	// Las series no impiden borrar al paciente: se eliminan con él y con sus citas
+	@Test
+	void eliminarAlPacienteEliminaSusSeries() {
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(6));
+		entityManager.flush();
+
+		pacienteService.eliminarPaciente(pacienteId);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertNull(entityManager.find(SerieCita.class, serie.getId()));
+		assertNull(entityManager.find(Paciente2.class, pacienteId));
+	}
+
+	// Las ocurrencias que ya pasaron a otro odontólogo quedan como citas sueltas
+	@Test
+	void eliminarAlOdontologoEliminaSusSeriesYDesvinculaLasOcurrenciasMovidas() {
+		SerieCitaDto serie = serieService.crearSerie(serieMensual(6));
+		Odontologo otro = new Odontologo();
+		otro.setNombre("Otro");
+		otro.setApellido("Serie");
+		otro.setMatricula("MAT-SERIE-2");
+		entityManager.persist(otro);
+		SerieCitaDto cambios = new SerieCitaDto();
+		OdontologoDto destino = new OdontologoDto();
+		destino.setId(otro.getId());
+		cambios.setOdontologo(destino);
+		assertEquals(2, serieService.actualizarDesde(serie.getId(), LocalDate.of(2031, 5, 1), cambios));
+		entityManager.flush();
+
+		odontologoService.eliminarOdontologo(odontologoId);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertNull(entityManager.find(SerieCita.class, serie.getId()));
+		List<Cita2> movidas = entityManager.createQuery("SELECT c FROM Cita2 c WHERE c.odontologo.id = :id", Cita2.class)
+				.setParameter("id", otro.getId())
+				.getResultList();
+		assertEquals(2, movidas.size());
+		movidas.forEach(c -> assertNull(c.getSerie()));
+	}
+
+	private SerieCitaDto serieMensual(int repeticiones) {
+		SerieCitaDto dto = new SerieCitaDto();
+		dto.setFrecuencia(FrecuenciaSerieEnum.MENSUAL);
+		dto.setFechaInicio(INICIO);
+		dto.setHora(LocalTime.of(10, 0));
+		dto.setRepeticiones(repeticiones);
+		Paciente2Dto paciente = new Paciente2Dto();
+		paciente.setId(pacienteId);
+		dto.setPaciente(paciente);
+		OdontologoDto odontologo = new OdontologoDto();
+		odontologo.setId(odontologoId);
+		dto.setOdontologo(odontologo);
+		TipoCitaDto tipo = new TipoCitaDto();
+		tipo.setId(tipoId);
+		dto.setTipoCita(tipo);
+		return dto;
+	}
+}